@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * Turns on JPA auditing, so that fields annotated with <code>@CreatedDate</code> and <code>
+ * &#64;LastModifiedDate</code> (e.g. on {@link edu.ucsb.cs156.example.entities.Job}) are filled in
+ * on save.
+ *
+ * <p>This is a separate configuration class, rather than an annotation on ExampleApplication, so
+ * that <code>@WebMvcTest</code> slices (which have no JPA metamodel) do not pick it up.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * The default provider returns a LocalDateTime, which cannot be converted to the ZonedDateTime
+   * fields of Job; this one returns the current time with its zone.
+   *
+   * @return a provider of the current time
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
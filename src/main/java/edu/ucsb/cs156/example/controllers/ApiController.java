@@ -1,11 +1,20 @@
 package edu.ucsb.cs156.example.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.lookup.EntityLookupService;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -15,6 +24,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 public abstract class ApiController {
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private EntityLookupService entityLookupService;
+
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+  @Autowired private ObjectMapper mapper;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +49,62 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method looks up an entity by id for a read-only request. The lookup goes through the
+   * EntityLookupService, so concurrent requests for the same entity share a single database load.
+   *
+   * <p>Do not use this for entities that are about to be modified; use the repository directly.
+   *
+   * @param <T> the type of the entity
+   * @param <ID> the type of the id of the entity
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param repository the repository for the entity
+   * @param id the id of the entity
+   * @return the entity
+   * @throws EntityNotFoundException if there is no entity with that id
+   */
+  protected <T, ID> T getEntityById(Class<T> type, CrudRepository<T, ID> repository, ID id) {
+    return entityLookupService
+        .findById(type, repository, id)
+        .orElseThrow(() -> new EntityNotFoundException(type, id));
+  }
+
+  /**
+   * This method looks up several entities by id for a read-only batch request, using as few
+   * database queries as possible.
+   *
+   * @param <T> the type of the entity
+   * @param <ID> the type of the id of the entity
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param repository the repository for the entity
+   * @param ids the ids of the entities
+   * @param idOf returns the id of an entity, e.g. UCSBDate::getId
+   * @return one result per requested id, in request order; ids that do not exist are marked as not
+   *     found
+   */
+  protected <T, ID> List<BatchLookupResult<T>> getEntitiesById(
+      Class<T> type, CrudRepository<T, ID> repository, List<ID> ids, Function<T, ID> idOf) {
+    return entityLookupService.findAllById(type, repository, ids, idOf);
+  }
+
+  /**
+   * This method publishes an EntityChangedEvent; controllers call it after every create, update or
+   * delete so that caches and indexes of the entity stay consistent with the database. The calling
+   * method is {@literal @}Transactional, so that the change log entry commits with the write.
+   *
+   * @param changeType the kind of change
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param id the id of the entity
+   * @param entity the entity after the change (for deletes, the entity that was deleted); the event
+   *     carries a copy of it
+   */
+  protected void publishEntityChange(
+      ChangeType changeType, Class<?> type, Object id, Object entity) {
+    // copied now: the entity may be changed again before the transaction commits
+    Object snapshot = mapper.convertValue(entity, entity.getClass());
+    applicationEventPublisher.publishEvent(new EntityChangedEvent(changeType, type, id, snapshot));
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -3,16 +3,22 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,6 +37,8 @@ public class ArticlesController extends ApiController {
 
   @Autowired ArticlesRepository articlesRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
   /**
    * List all Articles
    *
@@ -44,6 +52,19 @@ public class ArticlesController extends ApiController {
     return articles;
   }
 
+  /**
+   * Get the changes to articles since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each article changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to articles since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(Articles.class, since);
+  }
+
   /**
    * Get a single article by id
    *
@@ -54,14 +75,39 @@ public class ArticlesController extends ApiController {
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
   public Articles getById(@Parameter(name = "id") @RequestParam Long id) {
-    Articles article =
-        articlesRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
+    Articles article = getEntityById(Articles.class, articlesRepository, id);
 
     return article;
   }
 
+  /**
+   * Get several articles by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several articles by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<Articles>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(Articles.class, articlesRepository, ids, Articles::getId);
+  }
+
+  /**
+   * Get several articles by id in one request; the same as GET /batch, for lists of ids too long to
+   * fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several articles by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<Articles>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(Articles.class, articlesRepository, ids, Articles::getId);
+  }
+
   /**
    * Create a new article
    *
@@ -75,6 +121,7 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Create a new article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public Articles postArticle(
       @Parameter(name = "title") @RequestParam String title,
       @Parameter(name = "url") @RequestParam String url,
@@ -102,6 +149,7 @@ public class ArticlesController extends ApiController {
     article.setDateAdded(dateAdded);
 
     Articles savedArticle = articlesRepository.save(article);
+    publishEntityChange(ChangeType.CREATED, Articles.class, savedArticle.getId(), savedArticle);
 
     return savedArticle;
   }
@@ -115,6 +163,7 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Delete an Article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteArticle(@Parameter(name = "id") @RequestParam Long id) {
     Articles article =
         articlesRepository
@@ -122,6 +171,7 @@ public class ArticlesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
 
     articlesRepository.delete(article);
+    publishEntityChange(ChangeType.DELETED, Articles.class, id, article);
     return genericMessage("Articles with id %s deleted".formatted(id));
   }
 
@@ -135,6 +185,7 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Update a single article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public Articles updateArticle(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid Articles incoming) {
 
@@ -150,6 +201,7 @@ public class ArticlesController extends ApiController {
     article.setDateAdded(incoming.getDateAdded());
 
     articlesRepository.save(article);
+    publishEntityChange(ChangeType.UPDATED, Articles.class, id, article);
 
     return article;
   }
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.BatchOperation;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import edu.ucsb.cs156.example.services.batch.BatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for running several API calls in one request.
+ *
+ * <p>Each operation is checked against the <code>@PreAuthorize</code> rule of the endpoint it
+ * calls, so the batch endpoint itself only requires the role "ROLE_USER".
+ */
+@Tag(name = "Batch")
+@RequestMapping(BatchService.BATCH_PATH)
+@RestController
+public class BatchController extends ApiController {
+
+  @Autowired BatchService batchService;
+
+  @Value("${app.batch.maxOperations:100}")
+  private int maxOperations = 100;
+
+  /**
+   * Runs a list of API calls, in order, in a single transaction. If any of them fails, none of the
+   * changes are saved.
+   *
+   * @param operations the calls to make, e.g. <code>[{"method": "DELETE", "path": "/api/articles",
+   *     "params": {"id": "3"}}]</code>
+   * @param request the batch request (provided by Spring)
+   * @param response the batch response (provided by Spring)
+   * @return the status and body of each call, and whether the changes were committed
+   */
+  @Operation(summary = "Run several API calls in one request and one transaction")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("")
+  public ResponseEntity<BatchResponse> batch(
+      @RequestBody List<BatchOperation> operations,
+      HttpServletRequest request,
+      HttpServletResponse response) {
+    if (operations.size() > maxOperations) {
+      return ResponseEntity.badRequest()
+          .body(
+              new BatchResponse(
+                  false, List.of(), "a batch may have at most " + maxOperations + " operations"));
+    }
+    return ResponseEntity.ok(batchService.execute(operations, request, response));
+  }
+}
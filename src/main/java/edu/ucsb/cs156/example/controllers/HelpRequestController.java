@@ -3,16 +3,29 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.QueuePosition;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.queue.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.stream.HelpRequestStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -21,6 +34,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** This is a REST controller for HelpRequests */
 @Tag(name = "HelpRequest")
@@ -31,6 +45,14 @@ public class HelpRequestController extends ApiController {
 
   @Autowired HelpRequestRepository helpRequestRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
+  @Autowired BulkDeleteService bulkDeleteService;
+
+  @Autowired HelpRequestStreamService helpRequestStreamService;
+
+  @Autowired HelpRequestQueueService helpRequestQueueService;
+
   /**
    * List all help requests
    *
@@ -44,6 +66,73 @@ public class HelpRequestController extends ApiController {
     return helpRequests;
   }
 
+  /**
+   * Get the changes to help requests since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each help request changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to help requests since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(HelpRequest.class, since);
+  }
+
+  /**
+   * Stream changes to help requests as server-sent events, so that queue screens update without
+   * reloading the list. Events are "created" and "updated" (with the request), "deleted" and
+   * "removed" (with its id; "removed" means it no longer matches the filter; a bulk delete sends
+   * one "deleted" with the "ids" of each chunk), and "reset" (reload the list, e.g. through
+   * /changes).
+   *
+   * @param teamId only requests of this team (optional)
+   * @param solved only solved or only unsolved requests (optional)
+   * @return the stream
+   */
+  @Operation(summary = "Stream changes to help requests (server-sent events)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamHelpRequests(
+      @Parameter(name = "teamId") @RequestParam(required = false) String teamId,
+      @Parameter(name = "solved") @RequestParam(required = false) Boolean solved) {
+    return helpRequestStreamService.subscribe(teamId, solved);
+  }
+
+  /**
+   * List the unsolved help requests in the order they should be helped: the oldest request of each
+   * team first, then the second oldest of each team, and so on
+   *
+   * @param limit the maximum number of requests to list; must not be negative
+   * @return the first requests of the queue, its size and recent wait times; bad request if the
+   *     limit is negative
+   */
+  @Operation(summary = "List the queue of unsolved help requests")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/queue")
+  public ResponseEntity<?> helpRequestQueue(
+      @Parameter(name = "limit") @RequestParam(defaultValue = "100") int limit) {
+    if (limit < 0) {
+      return ResponseEntity.badRequest().body(genericMessage("limit must not be negative"));
+    }
+    return ResponseEntity.ok(helpRequestQueueService.getQueue(limit));
+  }
+
+  /**
+   * Get the position of an unsolved help request in the queue
+   *
+   * @param id the id of the HelpRequest
+   * @return the position of the request; not found if it does not exist or is solved
+   */
+  @Operation(summary = "Get the position of a help request in the queue")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/position")
+  public QueuePosition queuePosition(@Parameter(name = "id") @RequestParam Long id) {
+    return helpRequestQueueService
+        .getPosition(id)
+        .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+  }
+
   /*
    * Create a new help request
    * String requesterEmail
@@ -58,6 +147,7 @@ public class HelpRequestController extends ApiController {
   @Operation(summary = "Create a new help request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public HelpRequest postHelpRequest(
       @Parameter(name = "requesterEmail") @RequestParam String requesterEmail,
       @Parameter(name = "teamId") @RequestParam String teamId,
@@ -80,6 +170,8 @@ public class HelpRequestController extends ApiController {
     helpRequest.setExplanation(explanation);
     helpRequest.setSolved(solved);
     HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+    publishEntityChange(
+        ChangeType.CREATED, HelpRequest.class, savedHelpRequest.getId(), savedHelpRequest);
     return savedHelpRequest;
   }
 
@@ -94,9 +186,35 @@ public class HelpRequestController extends ApiController {
   @GetMapping("")
   public HelpRequest getById(@Parameter(name = "id") @RequestParam Long id) {
 
-    return helpRequestRepository
-        .findById(id)
-        .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+    return getEntityById(HelpRequest.class, helpRequestRepository, id);
+  }
+
+  /**
+   * Get several help requests by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several help requests by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<HelpRequest>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(HelpRequest.class, helpRequestRepository, ids, HelpRequest::getId);
+  }
+
+  /**
+   * Get several help requests by id in one request; the same as GET /batch, for lists of ids too
+   * long to fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several help requests by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<HelpRequest>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(HelpRequest.class, helpRequestRepository, ids, HelpRequest::getId);
   }
 
   /**
@@ -109,6 +227,7 @@ public class HelpRequestController extends ApiController {
   @Operation(summary = "Update a help request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public HelpRequest updateHelpRequest(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid HelpRequest update) {
 
@@ -125,12 +244,14 @@ public class HelpRequestController extends ApiController {
     existing.setSolved(update.getSolved());
 
     helpRequestRepository.save(existing);
+    publishEntityChange(ChangeType.UPDATED, HelpRequest.class, id, existing);
     return existing;
   }
 
   @Operation(summary = "Delete a help request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteHelpRequest(@Parameter(name = "id") @RequestParam Long id) {
     HelpRequest existing =
         helpRequestRepository
@@ -138,6 +259,37 @@ public class HelpRequestController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
     helpRequestRepository.delete(existing);
+    publishEntityChange(ChangeType.DELETED, HelpRequest.class, id, existing);
     return genericMessage("HelpRequest with id %s deleted".formatted(id));
   }
+
+  /**
+   * Delete many help requests at once, either by id or by filter
+   *
+   * @param ids the ids to delete, e.g. ?ids=1,2,3
+   * @param solved delete only requests that are (or are not) solved
+   * @param before delete only requests made before this time
+   * @return the number of rows matched and deleted, or the id of the job doing the deletion
+   */
+  @Operation(summary = "Delete many help requests by id or by filter")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<BulkDeleteResult> bulkDeleteHelpRequests(
+      @Parameter(name = "ids") @RequestParam(required = false) List<Long> ids,
+      @Parameter(name = "solved") @RequestParam(required = false) Boolean solved,
+      @Parameter(name = "before", description = "in iso format, e.g. 2007-03-01T13:00:00")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime before) {
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            HelpRequest.class,
+            helpRequestRepository,
+            ids,
+            solved != null || before != null,
+            () -> helpRequestRepository.findIdsForBulkDelete(solved, before));
+    return result.getError() == null
+        ? ResponseEntity.ok(result)
+        : ResponseEntity.badRequest().body(result);
+  }
 }
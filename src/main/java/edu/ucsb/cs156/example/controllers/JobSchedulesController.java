@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobSchedule.MisfirePolicy;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.JobScheduleRepository;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZonedDateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/** This is a REST controller for the schedules of recurring jobs */
+@Tag(name = "Job Schedules")
+@RequestMapping("/api/jobs/schedules")
+@RestController
+public class JobSchedulesController extends ApiController {
+
+  @Autowired JobScheduleRepository jobScheduleRepository;
+
+  @Autowired JobScheduler jobScheduler;
+
+  /**
+   * List all job schedules
+   *
+   * @return an iterable of JobSchedule
+   */
+  @Operation(summary = "List all job schedules")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/all")
+  public Iterable<JobSchedule> allSchedules() {
+    return jobScheduleRepository.findAll();
+  }
+
+  /**
+   * Create a new job schedule; give either cron or fixedRateMs
+   *
+   * @param name a unique name for the schedule
+   * @param jobType the name of the JobFactory bean, e.g. testJob
+   * @param parameters parameters for the job, e.g. {"sleepMs": 1000}
+   * @param cron a cron expression with seconds, e.g. 0 0 4 * * *
+   * @param fixedRateMs the time between runs in milliseconds
+   * @param misfirePolicy what to do about runs that were missed
+   * @return the saved schedule, or 400 if it is invalid
+   */
+  @Operation(summary = "Create a new job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/post")
+  @Transactional
+  public ResponseEntity<Object> postSchedule(
+      @Parameter(name = "name") @RequestParam String name,
+      @Parameter(name = "jobType", description = "e.g. testJob") @RequestParam String jobType,
+      @Parameter(name = "parameters", description = "e.g. {\"sleepMs\": 1000}")
+          @RequestParam(required = false)
+          String parameters,
+      @Parameter(name = "cron", description = "with seconds, e.g. 0 0 4 * * *")
+          @RequestParam(required = false)
+          String cron,
+      @Parameter(name = "fixedRateMs") @RequestParam(required = false) Long fixedRateMs,
+      @Parameter(name = "misfirePolicy") @RequestParam(defaultValue = "SKIP")
+          MisfirePolicy misfirePolicy) {
+    JobSchedule schedule =
+        JobSchedule.builder()
+            .name(name)
+            .jobType(jobType)
+            .parameters(parameters)
+            .cron(cron)
+            .fixedRateMs(fixedRateMs)
+            .misfirePolicy(misfirePolicy)
+            .build();
+    String error = jobScheduler.validate(schedule);
+    if (error == null && jobScheduleRepository.findByName(name).isPresent()) {
+      error = "a schedule named %s already exists".formatted(name);
+    }
+    if (error != null) {
+      return ResponseEntity.badRequest().body(genericMessage(error));
+    }
+    schedule.setNextRunAt(jobScheduler.nextRunAfter(schedule, ZonedDateTime.now()));
+    JobSchedule saved = jobScheduleRepository.save(schedule);
+    publishEntityChange(ChangeType.CREATED, JobSchedule.class, saved.getId(), saved);
+    return ResponseEntity.ok(saved);
+  }
+
+  /**
+   * Pause or resume a job schedule; runs missed while it was paused are skipped
+   *
+   * @param id the id of the schedule
+   * @param enabled whether the schedule should run
+   * @return the updated schedule
+   */
+  @Operation(summary = "Pause or resume a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/enabled")
+  @Transactional
+  public JobSchedule setEnabled(
+      @Parameter(name = "id") @RequestParam Long id,
+      @Parameter(name = "enabled") @RequestParam boolean enabled) {
+    JobSchedule schedule =
+        jobScheduleRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+
+    if (enabled && !schedule.getEnabled()) {
+      schedule.setNextRunAt(jobScheduler.nextRunAfter(schedule, ZonedDateTime.now()));
+    }
+    schedule.setEnabled(enabled);
+    jobScheduleRepository.save(schedule);
+    publishEntityChange(ChangeType.UPDATED, JobSchedule.class, id, schedule);
+    return schedule;
+  }
+
+  /**
+   * Delete a job schedule; a run that has already started is not affected
+   *
+   * @param id the id of the schedule
+   * @return a message indicating the schedule was deleted
+   */
+  @Operation(summary = "Delete a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  @Transactional
+  public Object deleteSchedule(@Parameter(name = "id") @RequestParam Long id) {
+    JobSchedule schedule =
+        jobScheduleRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+
+    jobScheduleRepository.delete(schedule);
+    publishEntityChange(ChangeType.DELETED, JobSchedule.class, id, schedule);
+    return genericMessage("JobSchedule with id %s deleted".formatted(id));
+  }
+}
@@ -5,14 +5,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,6 +40,8 @@ public class JobsController extends ApiController {
 
   @Autowired private JobService jobService;
 
+  @Autowired private BulkDeleteService bulkDeleteService;
+
   @Autowired ObjectMapper mapper;
 
   @Operation(summary = "List all jobs")
@@ -62,6 +73,14 @@ public class JobsController extends ApiController {
     return job;
   }
 
+  @Operation(summary = "List the jobs that ran the steps of a job graph")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/children")
+  public Iterable<Job> childJobs(
+      @Parameter(name = "id", description = "ID of the parent job") @RequestParam Long id) {
+    return jobsRepository.findByParentJobIdOrderById(id);
+  }
+
   @Operation(summary = "Delete specific job record")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
@@ -73,22 +92,66 @@ public class JobsController extends ApiController {
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
 
+  @Operation(summary = "Delete many job records by id or by filter")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<BulkDeleteResult> bulkDeleteJobs(
+      @Parameter(name = "ids") @RequestParam(required = false) List<Long> ids,
+      @Parameter(name = "status", description = "e.g. complete or error")
+          @RequestParam(required = false)
+          String status,
+      @Parameter(name = "before", description = "in iso format, e.g. 2007-03-01T13:00:00Z")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime before) {
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            Job.class,
+            jobsRepository,
+            ids,
+            status != null || before != null,
+            () -> jobsRepository.findIdsForBulkDelete(status, before));
+    return result.getError() == null
+        ? ResponseEntity.ok(result)
+        : ResponseEntity.badRequest().body(result);
+  }
+
   @Operation(summary = "Launch Test Job (click fail if you want to test exception handling)")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "timeoutMs", description = "stop the job after this long (optional)")
+          @RequestParam(required = false)
+          Long timeoutMs) {
 
     TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
-    return jobService.runAsJob(testJob);
+    if (timeoutMs == null) {
+      return jobService.runAsJob(testJob);
+    }
+    return jobService.runAsJob(testJob, Duration.ofMillis(timeoutMs));
+  }
+
+  @Operation(summary = "Cancel a running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public Map<String, String> cancelJob(@Parameter(name = "id") @RequestParam Long id) {
+    if (!jobService.cancel(id)) {
+      return Map.of("message", String.format("Job with id %d is not running", id));
+    }
+    return Map.of("message", String.format("Job with id %d cancelled", id));
   }
 
   @Operation(summary = "Get long job logs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public void getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      HttpServletResponse response)
+      throws IOException {
 
-    return jobService.getJobLogs(id);
+    response.setContentType("text/plain;charset=UTF-8");
+    jobService.writeJobLogs(id, response.getOutputStream());
   }
 }
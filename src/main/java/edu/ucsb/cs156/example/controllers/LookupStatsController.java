@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.EntityLookupStats;
+import edu.ucsb.cs156.example.services.lookup.EntityLookupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for getting statistics about lookups of entities by id.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ */
+@Tag(name = "Lookup statistics (admin only)")
+@RequestMapping("/api/admin/lookupstats")
+@RestController
+public class LookupStatsController extends ApiController {
+
+  @Autowired EntityLookupService entityLookupService;
+
+  /**
+   * This method returns lookup statistics for each entity type. Accessible only to users with the
+   * role "ROLE_ADMIN".
+   *
+   * @return a list of statistics, one per entity type
+   */
+  @Operation(summary = "Get statistics about lookups of entities by id")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public List<EntityLookupStats> lookupStats() {
+    return entityLookupService.getStats();
+  }
+}
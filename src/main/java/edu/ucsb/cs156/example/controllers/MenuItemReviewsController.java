@@ -3,16 +3,22 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,6 +37,8 @@ public class MenuItemReviewsController extends ApiController {
 
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
   /**
    * List all menu item reviews
    *
@@ -44,6 +52,19 @@ public class MenuItemReviewsController extends ApiController {
     return reviews;
   }
 
+  /**
+   * Get the changes to menu item reviews since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each review changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to menu item reviews since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(MenuItemReview.class, since);
+  }
+
   /**
    * Create a new review
    *
@@ -57,6 +78,7 @@ public class MenuItemReviewsController extends ApiController {
   @Operation(summary = "Create a new review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public MenuItemReview postMenuItemReview(
       @Parameter(name = "itemId") @RequestParam int itemId,
       @Parameter(name = "reviewerEmail") @RequestParam String reviewerEmail,
@@ -84,6 +106,8 @@ public class MenuItemReviewsController extends ApiController {
     menuItemReview.setDateReviewed(dateReviewed);
 
     MenuItemReview savedMenuItemReview = menuItemReviewRepository.save(menuItemReview);
+    publishEntityChange(
+        ChangeType.CREATED, MenuItemReview.class, savedMenuItemReview.getId(), savedMenuItemReview);
 
     return savedMenuItemReview;
   }
@@ -99,13 +123,41 @@ public class MenuItemReviewsController extends ApiController {
   @GetMapping("")
   public MenuItemReview getById(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview menuItemReview =
-        menuItemReviewRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        getEntityById(MenuItemReview.class, menuItemReviewRepository, id);
 
     return menuItemReview;
   }
 
+  /**
+   * Get several reviews by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several reviews by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<MenuItemReview>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(
+        MenuItemReview.class, menuItemReviewRepository, ids, MenuItemReview::getId);
+  }
+
+  /**
+   * Get several reviews by id in one request; the same as GET /batch, for lists of ids too long to
+   * fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several reviews by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<MenuItemReview>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(
+        MenuItemReview.class, menuItemReviewRepository, ids, MenuItemReview::getId);
+  }
+
   /**
    * Update a single review
    *
@@ -116,6 +168,7 @@ public class MenuItemReviewsController extends ApiController {
   @Operation(summary = "Update a single review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public MenuItemReview updateMenuItemReview(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid MenuItemReview incoming) {
 
@@ -131,6 +184,7 @@ public class MenuItemReviewsController extends ApiController {
     menuItemReview.setDateReviewed(incoming.getDateReviewed());
 
     menuItemReviewRepository.save(menuItemReview);
+    publishEntityChange(ChangeType.UPDATED, MenuItemReview.class, id, menuItemReview);
 
     return menuItemReview;
   }
@@ -144,6 +198,7 @@ public class MenuItemReviewsController extends ApiController {
   @Operation(summary = "Delete a MenuItemReview")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteMemuItemReview(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview menuItemReview =
         menuItemReviewRepository
@@ -151,6 +206,7 @@ public class MenuItemReviewsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
     menuItemReviewRepository.delete(menuItemReview);
+    publishEntityChange(ChangeType.DELETED, MenuItemReview.class, id, menuItemReview);
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
 }
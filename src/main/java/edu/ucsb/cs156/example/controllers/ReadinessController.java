@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller that tells a load balancer whether to send traffic to this instance.
+ *
+ * <p>It answers 503 once the application context has started closing, when Spring Boot marks the
+ * application as refusing traffic. That only lasts until the web server's graceful shutdown stops
+ * accepting connections, a moment later, so a load balancer must treat a refused connection as not
+ * ready too.
+ */
+@Tag(name = "Readiness")
+@RequestMapping("/api/readiness")
+@RestController
+public class ReadinessController extends ApiController {
+
+  @Autowired private ApplicationAvailability applicationAvailability;
+
+  /**
+   * This method returns the readiness state of the application.
+   *
+   * @return ACCEPTING_TRAFFIC with status 200, or REFUSING_TRAFFIC with status 503
+   */
+  @Operation(summary = "Whether this instance accepts traffic (503 while shutting down)")
+  @GetMapping("")
+  public ResponseEntity<Map<String, String>> readiness() {
+    ReadinessState state = applicationAvailability.getReadinessState();
+    HttpStatus status =
+        state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+    return ResponseEntity.status(status).body(Map.of("readiness", state.name()));
+  }
+}
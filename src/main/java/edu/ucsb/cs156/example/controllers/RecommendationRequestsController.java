@@ -5,16 +5,29 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 // import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.ProfessorWorkloadService;
+import edu.ucsb.cs156.example.services.deadlines.RecommendationRequestDeadlineService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -33,6 +46,14 @@ public class RecommendationRequestsController extends ApiController {
 
   @Autowired RecommendationRequestRepository recommendationRequestRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
+  @Autowired BulkDeleteService bulkDeleteService;
+
+  @Autowired RecommendationRequestDeadlineService recommendationRequestDeadlineService;
+
+  @Autowired ProfessorWorkloadService professorWorkloadService;
+
   /**
    * List all Recommendation Requests
    *
@@ -47,6 +68,55 @@ public class RecommendationRequestsController extends ApiController {
     return recommendationRequests;
   }
 
+  /**
+   * Get the changes to recommendation requests since a version, for clients that keep a copy of the
+   * list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each request changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to recommendation requests since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(RecommendationRequest.class, since);
+  }
+
+  /**
+   * List the recommendation requests that are not done and are needed soon, including the overdue
+   * ones
+   *
+   * @param within how soon, as an ISO 8601 duration, e.g. P7D or PT12H
+   * @return the requests, the one needed first first
+   */
+  @Operation(summary = "List the recommendation requests needed soon or overdue")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/due")
+  public List<RecommendationRequest> dueRecommendationRequests(
+      @Parameter(name = "within", description = "ISO 8601 duration, e.g. P7D or PT12H")
+          @RequestParam(defaultValue = "P7D")
+          Duration within) {
+    return recommendationRequestDeadlineService.findDue(within);
+  }
+
+  /**
+   * Count the open, done and overdue recommendation requests of each professor
+   *
+   * @param professorEmail only this professor (optional)
+   * @return one entry per professor with requests, by email
+   */
+  @Operation(summary = "Count the open, done and overdue recommendation requests per professor")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/workload")
+  public List<ProfessorWorkload> professorWorkloads(
+      @Parameter(name = "professorEmail") @RequestParam(required = false) String professorEmail) {
+    List<ProfessorWorkload> workloads = professorWorkloadService.getWorkloads();
+    if (professorEmail == null) {
+      return workloads;
+    }
+    return workloads.stream().filter(w -> professorEmail.equals(w.getProfessorEmail())).toList();
+  }
+
   /**
    * Create a new recommendation request
    *
@@ -61,6 +131,7 @@ public class RecommendationRequestsController extends ApiController {
   @Operation(summary = "Create a new recommendation request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public RecommendationRequest postRecommendationRequest(
       @Parameter(name = "requesterEmail") @RequestParam String requesterEmail,
       @Parameter(name = "professorEmail") @RequestParam String professorEmail,
@@ -98,6 +169,11 @@ public class RecommendationRequestsController extends ApiController {
 
     RecommendationRequest savedRecommendationRequest =
         recommendationRequestRepository.save(recommendationRequest);
+    publishEntityChange(
+        ChangeType.CREATED,
+        RecommendationRequest.class,
+        savedRecommendationRequest.getId(),
+        savedRecommendationRequest);
     return savedRecommendationRequest;
   }
 
@@ -112,13 +188,47 @@ public class RecommendationRequestsController extends ApiController {
   @GetMapping("")
   public RecommendationRequest getById(@Parameter(name = "id") @RequestParam Long id) {
     RecommendationRequest recommendationRequest =
-        recommendationRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
+        getEntityById(RecommendationRequest.class, recommendationRequestRepository, id);
 
     return recommendationRequest;
   }
 
+  /**
+   * Get several recommendation requests by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several recommendation requests by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<RecommendationRequest>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(
+        RecommendationRequest.class,
+        recommendationRequestRepository,
+        ids,
+        RecommendationRequest::getId);
+  }
+
+  /**
+   * Get several recommendation requests by id in one request; the same as GET /batch, for lists of
+   * ids too long to fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several recommendation requests by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<RecommendationRequest>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(
+        RecommendationRequest.class,
+        recommendationRequestRepository,
+        ids,
+        RecommendationRequest::getId);
+  }
+
   /**
    * Update a single recommendation request
    *
@@ -129,6 +239,7 @@ public class RecommendationRequestsController extends ApiController {
   @Operation(summary = "Update a single recommendation request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public RecommendationRequest updateRecommendationRequest(
       @Parameter(name = "id") @RequestParam Long id,
       @RequestBody @Valid RecommendationRequest incoming) {
@@ -146,6 +257,7 @@ public class RecommendationRequestsController extends ApiController {
     recommendationRequest.setDone(incoming.getDone());
 
     recommendationRequestRepository.save(recommendationRequest);
+    publishEntityChange(ChangeType.UPDATED, RecommendationRequest.class, id, recommendationRequest);
 
     return recommendationRequest;
   }
@@ -159,6 +271,7 @@ public class RecommendationRequestsController extends ApiController {
   @Operation(summary = "Delete a RecommendationRequest")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteRecommendationRequest(@Parameter(name = "id") @RequestParam Long id) {
     RecommendationRequest recommendationRequest =
         recommendationRequestRepository
@@ -166,6 +279,37 @@ public class RecommendationRequestsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
     recommendationRequestRepository.delete(recommendationRequest);
+    publishEntityChange(ChangeType.DELETED, RecommendationRequest.class, id, recommendationRequest);
     return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
   }
+
+  /**
+   * Delete many recommendation requests at once, either by id or by filter
+   *
+   * @param ids the ids to delete, e.g. ?ids=1,2,3
+   * @param done delete only requests that are (or are not) done
+   * @param before delete only requests made (dateRequested) before this time
+   * @return the number of rows matched and deleted, or the id of the job doing the deletion
+   */
+  @Operation(summary = "Delete many recommendation requests by id or by filter")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public ResponseEntity<BulkDeleteResult> bulkDeleteRecommendationRequests(
+      @Parameter(name = "ids") @RequestParam(required = false) List<Long> ids,
+      @Parameter(name = "done") @RequestParam(required = false) Boolean done,
+      @Parameter(name = "before", description = "in iso format, e.g. 2007-03-01T13:00:00")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime before) {
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            RecommendationRequest.class,
+            recommendationRequestRepository,
+            ids,
+            done != null || before != null,
+            () -> recommendationRequestRepository.findIdsForBulkDelete(done, before));
+    return result.getError() == null
+        ? ResponseEntity.ok(result)
+        : ResponseEntity.badRequest().body(result);
+  }
 }
@@ -2,13 +2,19 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,6 +32,8 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
   /**
    * This method returns a list of all restaurants.
    *
@@ -39,6 +47,19 @@ public class RestaurantsController extends ApiController {
     return restaurants;
   }
 
+  /**
+   * Get the changes to restaurants since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each restaurant changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to restaurants since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(Restaurant.class, since);
+  }
+
   /**
    * This method returns a single restaurant.
    *
@@ -49,14 +70,39 @@ public class RestaurantsController extends ApiController {
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
   public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
-    Restaurant restaurant =
-        restaurantRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
+    Restaurant restaurant = getEntityById(Restaurant.class, restaurantRepository, id);
 
     return restaurant;
   }
 
+  /**
+   * Get several restaurants by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several restaurants by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<Restaurant>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(Restaurant.class, restaurantRepository, ids, Restaurant::getId);
+  }
+
+  /**
+   * Get several restaurants by id in one request; the same as GET /batch, for lists of ids too long
+   * to fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several restaurants by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<Restaurant>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(Restaurant.class, restaurantRepository, ids, Restaurant::getId);
+  }
+
   /**
    * This method creates a new restaurant. Accessible only to users with the role "ROLE_ADMIN".
    *
@@ -67,6 +113,7 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "Create a new restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public Restaurant postRestaurant(
       @Parameter(name = "name") @RequestParam String name,
       @Parameter(name = "description") @RequestParam String description) {
@@ -76,6 +123,8 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(description);
 
     Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+    publishEntityChange(
+        ChangeType.CREATED, Restaurant.class, savedrestaurant.getId(), savedrestaurant);
     return savedrestaurant;
   }
 
@@ -88,6 +137,7 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "Delete a Restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteRestaurant(@Parameter(name = "id") @RequestParam Long id) {
     Restaurant restaurant =
         restaurantRepository
@@ -95,6 +145,7 @@ public class RestaurantsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
     restaurantRepository.delete(restaurant);
+    publishEntityChange(ChangeType.DELETED, Restaurant.class, id, restaurant);
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
@@ -108,6 +159,7 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "Update a single restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public Restaurant updateRestaurant(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid Restaurant incoming) {
 
@@ -120,6 +172,7 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(incoming.getDescription());
 
     restaurantRepository.save(restaurant);
+    publishEntityChange(ChangeType.UPDATED, Restaurant.class, id, restaurant);
 
     return restaurant;
   }
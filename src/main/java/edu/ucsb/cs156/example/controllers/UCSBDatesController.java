@@ -3,16 +3,24 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.UCSBDateIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,6 +39,10 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
+  @Autowired UCSBDateIndex ucsbDateIndex;
+
   /**
    * List all UCSB dates
    *
@@ -44,6 +56,19 @@ public class UCSBDatesController extends ApiController {
     return dates;
   }
 
+  /**
+   * Get the changes to ucsb dates since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each date changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to ucsb dates since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(UCSBDate.class, since);
+  }
+
   /**
    * Get a single date by id
    *
@@ -54,14 +79,97 @@ public class UCSBDatesController extends ApiController {
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
   public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
-    UCSBDate ucsbDate =
-        ucsbDateRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+    UCSBDate ucsbDate = getEntityById(UCSBDate.class, ucsbDateRepository, id);
 
     return ucsbDate;
   }
 
+  /**
+   * List the dates between two times
+   *
+   * @param from the earliest time (inclusive); if omitted, no limit
+   * @param to the latest time (inclusive); if omitted, no limit
+   * @return the dates, earliest first; bad request if <code>to</code> is before <code>from</code>
+   */
+  @Operation(summary = "List the dates between two times")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/range")
+  public ResponseEntity<?> datesBetween(
+      @Parameter(name = "from", description = "in iso format, e.g. 2024-09-26T00:00:00")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @Parameter(name = "to", description = "in iso format, e.g. 2024-12-13T23:59:59")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to) {
+    if (from != null && to != null && to.isBefore(from)) {
+      return ResponseEntity.badRequest().body(genericMessage("to must not be before from"));
+    }
+    return ResponseEntity.ok(ucsbDateIndex.findBetween(from, to));
+  }
+
+  /**
+   * List the dates of a quarter
+   *
+   * @param quarterYYYYQ the quarter in the format YYYYQ
+   * @return the dates, earliest first
+   */
+  @Operation(summary = "List the dates of a quarter")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/quarter")
+  public List<UCSBDate> datesOfQuarter(
+      @Parameter(name = "quarterYYYYQ") @RequestParam String quarterYYYYQ) {
+    return ucsbDateIndex.findByQuarter(quarterYYYYQ);
+  }
+
+  /**
+   * List the next dates from a time on
+   *
+   * @param from the time (inclusive); if omitted, now
+   * @param limit the maximum number of dates to return
+   * @return the dates, earliest first
+   */
+  @Operation(summary = "List the next dates")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/next")
+  public List<UCSBDate> nextDates(
+      @Parameter(name = "from", description = "in iso format, e.g. 2024-09-26T00:00:00")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @Parameter(name = "limit") @RequestParam(defaultValue = "5") int limit) {
+    return ucsbDateIndex.findNext(from, limit);
+  }
+
+  /**
+   * Get several dates by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several dates by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<UCSBDate>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(UCSBDate.class, ucsbDateRepository, ids, UCSBDate::getId);
+  }
+
+  /**
+   * Get several dates by id in one request; the same as GET /batch, for lists of ids too long to
+   * fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several dates by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<UCSBDate>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(UCSBDate.class, ucsbDateRepository, ids, UCSBDate::getId);
+  }
+
   /**
    * Create a new date
    *
@@ -73,6 +181,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Create a new date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBDate postUCSBDate(
       @Parameter(name = "quarterYYYYQ") @RequestParam String quarterYYYYQ,
       @Parameter(name = "name") @RequestParam String name,
@@ -96,6 +205,7 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(localDateTime);
 
     UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+    publishEntityChange(ChangeType.CREATED, UCSBDate.class, savedUcsbDate.getId(), savedUcsbDate);
 
     return savedUcsbDate;
   }
@@ -109,6 +219,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Delete a UCSBDate")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
@@ -116,6 +227,7 @@ public class UCSBDatesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDateRepository.delete(ucsbDate);
+    publishEntityChange(ChangeType.DELETED, UCSBDate.class, id, ucsbDate);
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
@@ -129,6 +241,7 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Update a single date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBDate updateUCSBDate(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid UCSBDate incoming) {
 
@@ -142,6 +255,7 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
     ucsbDateRepository.save(ucsbDate);
+    publishEntityChange(ChangeType.UPDATED, UCSBDate.class, id, ucsbDate);
 
     return ucsbDate;
   }
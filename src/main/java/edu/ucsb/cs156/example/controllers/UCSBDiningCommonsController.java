@@ -2,14 +2,20 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -28,6 +34,8 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
@@ -41,6 +49,20 @@ public class UCSBDiningCommonsController extends ApiController {
     return commons;
   }
 
+  /**
+   * Get the changes to ucsb dining commons since a version, for clients that keep a copy of the
+   * list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each dining commons changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to ucsb dining commons since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(UCSBDiningCommons.class, since);
+  }
+
   /**
    * This method returns a single diningcommons.
    *
@@ -52,13 +74,41 @@ public class UCSBDiningCommonsController extends ApiController {
   @GetMapping("")
   public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
-        ucsbDiningCommonsRepository
-            .findById(code)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        getEntityById(UCSBDiningCommons.class, ucsbDiningCommonsRepository, code);
 
     return commons;
   }
 
+  /**
+   * Get several commons by id in one request
+   *
+   * @param codes the codes to look up, e.g. ?codes=a,b,c
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several commons by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<UCSBDiningCommons>> getByIds(
+      @Parameter(name = "codes") @RequestParam List<String> codes) {
+    return getEntitiesById(
+        UCSBDiningCommons.class, ucsbDiningCommonsRepository, codes, UCSBDiningCommons::getCode);
+  }
+
+  /**
+   * Get several commons by id in one request; the same as GET /batch, for lists of codes too long
+   * to fit in a URL
+   *
+   * @param codes the codes to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several commons by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<UCSBDiningCommons>> postByIds(@RequestBody List<String> codes) {
+    return getEntitiesById(
+        UCSBDiningCommons.class, ucsbDiningCommonsRepository, codes, UCSBDiningCommons::getCode);
+  }
+
   /**
    * This method creates a new diningcommons. Accessible only to users with the role "ROLE_ADMIN".
    *
@@ -74,6 +124,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Create a new commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBDiningCommons postCommons(
       @Parameter(name = "code") @RequestParam String code,
       @Parameter(name = "name") @RequestParam String name,
@@ -93,6 +144,8 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    publishEntityChange(
+        ChangeType.CREATED, UCSBDiningCommons.class, savedCommons.getCode(), savedCommons);
 
     return savedCommons;
   }
@@ -106,6 +159,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Delete a UCSBDiningCommons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
@@ -113,6 +167,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    publishEntityChange(ChangeType.DELETED, UCSBDiningCommons.class, code, commons);
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -126,6 +181,7 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Update a single commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBDiningCommons updateCommons(
       @Parameter(name = "code") @RequestParam String code,
       @RequestBody @Valid UCSBDiningCommons incoming) {
@@ -143,6 +199,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(incoming.getLongitude());
 
     ucsbDiningCommonsRepository.save(commons);
+    publishEntityChange(ChangeType.UPDATED, UCSBDiningCommons.class, code, commons);
 
     return commons;
   }
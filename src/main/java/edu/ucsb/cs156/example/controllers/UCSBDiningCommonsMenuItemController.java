@@ -3,14 +3,20 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItem */
@@ -22,6 +28,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
   /**
    * List all UCSBDiningCommonsMenuItems
    *
@@ -35,6 +43,20 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     return items;
   }
 
+  /**
+   * Get the changes to ucsb dining commons menu items since a version, for clients that keep a copy
+   * of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each menu item changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to ucsb dining commons menu items since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(UCSBDiningCommonsMenuItem.class, since);
+  }
+
   /**
    * Create a new UCSBDiningCommonsMenuItem
    *
@@ -46,6 +68,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "Create a new UCSB Dining Commons Menu Item")
   @PreAuthorize("hasRole('ROLE_USER')")
   @PostMapping("/post")
+  @Transactional
   public UCSBDiningCommonsMenuItem postMenuItem(
       @Parameter(name = "diningCommonsCode") @RequestParam String diningCommonsCode,
       @Parameter(name = "name") @RequestParam String name,
@@ -60,6 +83,8 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     menuItem.setStation(station);
 
     UCSBDiningCommonsMenuItem savedItem = ucsbDiningCommonsMenuItemRepository.save(menuItem);
+    publishEntityChange(
+        ChangeType.CREATED, UCSBDiningCommonsMenuItem.class, savedItem.getId(), savedItem);
 
     return savedItem;
   }
@@ -76,13 +101,47 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   public UCSBDiningCommonsMenuItem getById(@Parameter(name = "id") @RequestParam Long id) {
 
     UCSBDiningCommonsMenuItem menuItem =
-        ucsbDiningCommonsMenuItemRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+        getEntityById(UCSBDiningCommonsMenuItem.class, ucsbDiningCommonsMenuItemRepository, id);
 
     return menuItem;
   }
 
+  /**
+   * Get several UCSB Dining Commons Menu Items by id in one request
+   *
+   * @param ids the ids to look up, e.g. ?ids=1,2,3
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several UCSB Dining Commons Menu Items by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<UCSBDiningCommonsMenuItem>> getByIds(
+      @Parameter(name = "ids") @RequestParam List<Long> ids) {
+    return getEntitiesById(
+        UCSBDiningCommonsMenuItem.class,
+        ucsbDiningCommonsMenuItemRepository,
+        ids,
+        UCSBDiningCommonsMenuItem::getId);
+  }
+
+  /**
+   * Get several UCSB Dining Commons Menu Items by id in one request; the same as GET /batch, for
+   * lists of ids too long to fit in a URL
+   *
+   * @param ids the ids to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several UCSB Dining Commons Menu Items by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<UCSBDiningCommonsMenuItem>> postByIds(@RequestBody List<Long> ids) {
+    return getEntitiesById(
+        UCSBDiningCommonsMenuItem.class,
+        ucsbDiningCommonsMenuItemRepository,
+        ids,
+        UCSBDiningCommonsMenuItem::getId);
+  }
+
   /**
    * Update a UCSBDiningCommonsMenuItem by id
    *
@@ -93,6 +152,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "Update a UCSB Dining Commons Menu Item by id")
   @PreAuthorize("hasRole('ROLE_USER')")
   @PutMapping("")
+  @Transactional
   public UCSBDiningCommonsMenuItem updateMenuItem(
       @Parameter(name = "id") @RequestParam Long id,
       @RequestBody UCSBDiningCommonsMenuItem incoming) {
@@ -107,6 +167,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     existing.setStation(incoming.getStation());
 
     UCSBDiningCommonsMenuItem updated = ucsbDiningCommonsMenuItemRepository.save(existing);
+    publishEntityChange(ChangeType.UPDATED, UCSBDiningCommonsMenuItem.class, id, existing);
     return updated;
   }
 
@@ -119,6 +180,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "Delete a UCSB Dining Commons Menu Item by id")
   @PreAuthorize("hasRole('ROLE_USER')")
   @DeleteMapping("")
+  @Transactional
   public ResponseEntity<String> deleteMenuItem(@Parameter(name = "id") @RequestParam Long id) {
 
     UCSBDiningCommonsMenuItem item =
@@ -127,6 +189,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
     ucsbDiningCommonsMenuItemRepository.delete(item);
+    publishEntityChange(ChangeType.DELETED, UCSBDiningCommonsMenuItem.class, id, item);
     return ResponseEntity.ok("record " + id + " deleted");
   }
 }
@@ -2,14 +2,21 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.UCSBOrganizationIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -28,6 +35,10 @@ public class UCSBOrganizationController extends ApiController {
 
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired EntityChangeService entityChangeService;
+
+  @Autowired UCSBOrganizationIndex ucsbOrganizationIndex;
+
   /**
    * This method returns a list of all ucsborganizations.
    *
@@ -41,6 +52,37 @@ public class UCSBOrganizationController extends ApiController {
     return organizations;
   }
 
+  /**
+   * Get the changes to ucsb organizations since a version, for clients that keep a copy of the list
+   *
+   * @param since the version returned by the previous call; 0 the first time
+   * @return the latest change to each organization changed since then, and the next version
+   */
+  @Operation(summary = "Get the changes to ucsb organizations since a version")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/changes")
+  public ChangeFeed changesSince(@Parameter(name = "since") @RequestParam long since) {
+    return entityChangeService.changesSince(UCSBOrganization.class, since);
+  }
+
+  /**
+   * This method suggests organizations as the user types.
+   *
+   * @param prefix the start of the code, name or a word of the name of the organizations
+   * @param limit the maximum number of organizations to return
+   * @param inactive if given, only inactive (true) or active (false) organizations
+   * @return the organizations matching the prefix
+   */
+  @Operation(summary = "Suggest organizations matching a prefix")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/suggest")
+  public List<UCSBOrganization> suggest(
+      @Parameter(name = "prefix") @RequestParam String prefix,
+      @Parameter(name = "limit") @RequestParam(defaultValue = "10") int limit,
+      @Parameter(name = "inactive") @RequestParam(required = false) Boolean inactive) {
+    return ucsbOrganizationIndex.suggest(prefix, limit, inactive);
+  }
+
   /**
    * This method returns a single organization.
    *
@@ -52,13 +94,41 @@ public class UCSBOrganizationController extends ApiController {
   @GetMapping("")
   public UCSBOrganization getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
-        ucsbOrganizationRepository
-            .findById(orgCode)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
+        getEntityById(UCSBOrganization.class, ucsbOrganizationRepository, orgCode);
 
     return organization;
   }
 
+  /**
+   * Get several organizations by id in one request
+   *
+   * @param orgCodes the orgCodes to look up, e.g. ?orgCodes=a,b,c
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several organizations by id")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/batch")
+  public List<BatchLookupResult<UCSBOrganization>> getByIds(
+      @Parameter(name = "orgCodes") @RequestParam List<String> orgCodes) {
+    return getEntitiesById(
+        UCSBOrganization.class, ucsbOrganizationRepository, orgCodes, UCSBOrganization::getOrgCode);
+  }
+
+  /**
+   * Get several organizations by id in one request; the same as GET /batch, for lists of orgCodes
+   * too long to fit in a URL
+   *
+   * @param orgCodes the orgCodes to look up, as a JSON array
+   * @return one result per id, in the order requested; missing ones are marked as not found
+   */
+  @Operation(summary = "Get several organizations by id (long lists)")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PostMapping("/batch")
+  public List<BatchLookupResult<UCSBOrganization>> postByIds(@RequestBody List<String> orgCodes) {
+    return getEntitiesById(
+        UCSBOrganization.class, ucsbOrganizationRepository, orgCodes, UCSBOrganization::getOrgCode);
+  }
+
   /**
    * This method creates a new organization. Accessible only to users with the role "ROLE_ADMIN".
    *
@@ -71,6 +141,7 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Create a new organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public UCSBOrganization postOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
       @Parameter(name = "orgTranslationShort") @RequestParam String orgTranslationShort,
@@ -84,6 +155,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(inactive);
 
     ucsbOrganizationRepository.save(organization);
+    publishEntityChange(ChangeType.CREATED, UCSBOrganization.class, orgCode, organization);
 
     return organization;
   }
@@ -98,6 +170,7 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Update a single organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public UCSBOrganization updateOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
       @RequestBody @Valid UCSBOrganization incoming) {
@@ -112,6 +185,7 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(incoming.getInactive());
 
     ucsbOrganizationRepository.save(organization);
+    publishEntityChange(ChangeType.UPDATED, UCSBOrganization.class, orgCode, organization);
 
     return organization;
   }
@@ -125,6 +199,7 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Delete an organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteOrganization(@Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
         ucsbOrganizationRepository
@@ -132,6 +207,7 @@ public class UCSBOrganizationController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
     ucsbOrganizationRepository.delete(organization);
+    publishEntityChange(ChangeType.DELETED, UCSBOrganization.class, orgCode, organization);
     return genericMessage(String.format("Organization with code %s deleted", orgCode));
   }
 }
@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * This is a JPA entity that holds a job that was moved out of the <code>jobs</code> table by the
+ * nightly archive. The job is kept as compressed JSON, so the archive stays small and a job can be
+ * shown again exactly as it was.
+ *
+ * <p>The id is assigned, not generated, so it implements {@link Persistable}: a new archive is
+ * inserted by <code>save</code> straight away, instead of being merged, which first selects the row
+ * by id.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "archived_jobs")
+public class ArchivedJob implements Persistable<Long> {
+  // the id the job had in the jobs table
+  @Id private Long id;
+
+  private ZonedDateTime createdAt;
+
+  // the job as JSON, compressed by JobLogCompression
+  private byte[] compressedJob;
+
+  // whether the archive has been inserted or was loaded from the table
+  @Transient
+  @Builder.Default
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private boolean stored = false;
+
+  @PostLoad
+  @PostPersist
+  void markStored() {
+    stored = true;
+  }
+
+  @Override
+  public boolean isNew() {
+    return !stored;
+  }
+}
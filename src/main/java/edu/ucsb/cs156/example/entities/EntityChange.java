@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.entities;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents one entry of the change log behind the <code>
+ * GET /api/&lt;entity&gt;/changes</code> endpoints: an entity that was created, updated or deleted.
+ *
+ * <p>The versions of an entity type only grow, in the order the changes were committed (see {@link
+ * EntityChangeCounter}), so a client that remembers the last version it has seen can ask for the
+ * changes after it. The id is only a key: ids are given out when a change is inserted, not when it
+ * commits. <code>entity</code> is the entity as JSON after the change; it is null for deletes (a
+ * tombstone). A chunk of a bulk delete is one DELETED change with no <code>entityId</code>, whose
+ * <code>entity</code> is the array of ids deleted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "entity_changes")
+public class EntityChange {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long version;
+  private String entityType; // the simple class name, e.g. "UCSBDate"
+  private String entityId;
+
+  @Enumerated(EnumType.STRING)
+  private ChangeType changeType;
+
+  private ZonedDateTime changedAt;
+
+  @JsonRawValue
+  @Column(columnDefinition = "TEXT")
+  private String entity;
+}
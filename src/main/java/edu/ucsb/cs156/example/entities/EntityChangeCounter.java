@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that holds the newest version given out to the change log of one entity type
+ * (one row per type). The transaction that logs a change locks the row of its type until it
+ * commits, so versions are given out in commit order: once a client has seen a version of a type,
+ * no change to that type with an older one can appear. Writes to different types do not wait for
+ * each other.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "entity_change_counters")
+public class EntityChangeCounter {
+  @Id private String entityType; // the simple class name, e.g. "UCSBDate"
+  private long version;
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that records, for one entity type, the newest version that compaction has
+ * removed from the change log. A client that last saw an older version may have missed a delete, so
+ * it has to reload the whole list.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "entity_change_horizons")
+public class EntityChangeHorizon {
+  @Id private String entityType;
+  private long version;
+}
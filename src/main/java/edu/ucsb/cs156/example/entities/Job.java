@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
+import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
@@ -26,6 +28,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @Builder
 @Entity(name = "jobs")
 @EntityListeners(AuditingEntityListener.class)
+@JsonIgnoreProperties(
+    value = {"percentComplete"},
+    allowGetters = true)
 public class Job {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -47,4 +52,40 @@ public class Job {
       length = 1048576) // needed for long strings, i.e. log entries longer than 255
   // characters
   private String log;
+
+  // the log of a finished job, compressed by JobLogCompression; log is null once this is set
+  @JsonIgnore private byte[] compressedLog;
+
+  // jobs submitted with the same key while this one is waiting to start get this job back
+  private String dedupKey;
+
+  // reported by JobContext.progress; saved at most once per app.jobs.progressSaveMs
+  private Long progressDone;
+  private Long progressTotal;
+  private ZonedDateTime estimatedCompletionAt;
+
+  // set by JobContext.setResult, e.g. a JSON summary of what the job did
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String result;
+
+  // null until the job has finished
+  @Embedded private JobUsage usage;
+
+  // set on the jobs that run the steps of a JobGraph; the parent job's log records each step
+  private Long parentJobId;
+
+  // the trace id of the request (or schedule) that started the job; see TraceContext
+  private String traceId;
+
+  /**
+   * This method returns how much of the job is done, from the last progress it reported.
+   *
+   * @return the percentage, rounded down, or null if the job has not reported progress
+   */
+  public Integer getPercentComplete() {
+    if (progressDone == null || progressTotal == null || progressTotal <= 0) {
+      return null;
+    }
+    return (int) (100 * Math.min(progressDone, progressTotal) / progressTotal);
+  }
 }
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a recurring job: which job to run (<code>jobType</code>, the
+ * name of a JobFactory bean, plus optional <code>parameters</code>) and when (a cron expression, or
+ * a fixed rate in milliseconds).
+ *
+ * <p><code>leaseOwner</code> and <code>leaseUntil</code> are set while a node is starting the job,
+ * so that when several nodes poll the table only one of them starts each run.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_schedules")
+public class JobSchedule {
+
+  /** What to do when the scheduler finds that one or more runs were missed. */
+  public enum MisfirePolicy {
+    /** Run once now, then continue with the next time after now. */
+    SKIP,
+    /** Run every missed time, one after the other. */
+    CATCH_UP
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String name;
+  private String jobType;
+
+  @Column(length = 4096)
+  private String parameters;
+
+  private String cron; // e.g. "0 0 4 * * *"; null when fixedRateMs is used
+  private Long fixedRateMs;
+
+  @Builder.Default
+  @Enumerated(EnumType.STRING)
+  private MisfirePolicy misfirePolicy = MisfirePolicy.SKIP;
+
+  @Builder.Default private boolean enabled = true;
+
+  private ZonedDateTime nextRunAt;
+  private ZonedDateTime lastRunAt;
+  private Long lastJobId;
+
+  private String leaseOwner;
+  private ZonedDateTime leaseUntil;
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Embeddable;
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The resources used by one run of a {@link Job}, recorded when the job finishes.
+ *
+ * <p>CPU time, allocated bytes and statements are counted on the thread that ran the job, so work
+ * the job hands off to other threads is not included. The statement count includes the updates that
+ * save the job's own log and progress.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Embeddable
+public class JobUsage {
+  private ZonedDateTime startedAt;
+  private Long queueWaitMs; // from when the job was submitted until a thread started running it
+  private Long wallTimeMs;
+  private Long cpuTimeMs;
+  private Long allocatedBytes;
+  private Long statementCount; // SQL statements run by the job's thread
+}
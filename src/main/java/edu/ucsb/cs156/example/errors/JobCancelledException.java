@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException that is thrown by <code>
+ * JobContext.checkCancelled()</code> to end a job that was cancelled or ran past its deadline.
+ */
+public class JobCancelledException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param jobId the id of the job
+   * @param reason why the job was stopped, e.g. "cancelled" or "timeout"
+   */
+  public JobCancelledException(long jobId, String reason) {
+    super("Job %d stopped: %s".formatted(jobId, reason));
+  }
+}
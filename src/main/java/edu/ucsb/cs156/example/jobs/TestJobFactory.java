@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.jobs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.JobFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates a TestJob for a JobSchedule with <code>jobType</code> "testJob"; the parameters are JSON,
+ * e.g. <code>{"fail": false, "sleepMs": 1000}</code>.
+ */
+@Component("testJob")
+public class TestJobFactory implements JobFactory {
+
+  @Autowired private ObjectMapper mapper;
+
+  @Override
+  public JobContextConsumer create(String parameters) throws Exception {
+    JsonNode json = mapper.readTree(parameters == null ? "{}" : parameters);
+    return TestJob.builder()
+        .fail(json.path("fail").asBoolean(false))
+        .sleepMs(json.path("sleepMs").asInt(0))
+        .build();
+  }
+}
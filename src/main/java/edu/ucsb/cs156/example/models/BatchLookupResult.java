@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the result of looking up one id in a batch lookup.
+ *
+ * <p>Batch endpoints return one of these for every id in the request, in the order requested. When
+ * there is no entity with the id, <code>found</code> is false and <code>value</code> is null.
+ *
+ * @param <T> the type of the entity
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchLookupResult<T> {
+  private Object id;
+  private boolean found;
+  private T value;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one operation in a request to <code>POST /api/batch</code>,
+ * e.g. <code>{"method": "PUT", "path": "/api/ucsbdates", "params": {"id": "7"}, "body": {...}}
+ * </code>.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchOperation {
+  private String method;
+  private String path;
+  private Map<String, String> params; // request parameters; may be null
+  private JsonNode body; // request body; may be null
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the outcome of one operation of a request to <code>
+ * POST /api/batch</code>: the HTTP status and the response body the operation would have had as a
+ * request of its own.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchOperationResult {
+  private int status;
+  private JsonNode body;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the response to <code>POST /api/batch</code>.
+ *
+ * <p>There is one result per operation, in order. If <code>committed</code> is false, an operation
+ * failed and none of the changes were saved; operations after the failed one were not run and have
+ * status 424 (Failed Dependency). <code>error</code> explains why nothing was saved when that was
+ * not the fault of a single operation (e.g. the commit itself failed).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchResponse {
+  private boolean committed;
+  private List<BatchOperationResult> results;
+  private String error; // null unless the batch as a whole failed
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the response to a bulk delete (<code>
+ * DELETE /api/&lt;entity&gt;/bulk</code>).
+ *
+ * <p><code>matched</code> is the number of rows selected for deletion and <code>deleted</code> the
+ * number of rows the DELETE statements removed. When there were too many rows to delete during the
+ * request, the deletion runs as a background job instead: <code>jobId</code> is the id of that job,
+ * <code>deleted</code> is 0, and the job log reports the progress.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkDeleteResult {
+  private int matched;
+  private int deleted;
+  private Long jobId; // null unless the deletion runs as a job
+  private String error; // null unless the request was invalid
+}
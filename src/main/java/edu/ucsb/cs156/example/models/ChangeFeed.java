@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.EntityChange;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the response to <code>
+ * GET /api/&lt;entity&gt;/changes?since=</code>.
+ *
+ * <p><code>changes</code> has the latest change to each entity changed after <code>since</code>,
+ * oldest first; a client applies CREATED and UPDATED changes as upserts and DELETED changes as
+ * removals (of every id in <code>entity</code> for a bulk delete), then passes <code>version</code>
+ * as <code>since</code> next time. <code>more</code> is true if there were too many changes for one
+ * response. <code>reset</code> is true if changes the client has not seen have been compacted away:
+ * the client must reload the whole list (<code>
+ * /all</code>) and continue from <code>version</code>.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ChangeFeed {
+  private long version;
+  private boolean reset;
+  private boolean more;
+  private List<EntityChange> changes;
+}
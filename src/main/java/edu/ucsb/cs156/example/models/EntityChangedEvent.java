@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * This is a model class for the application event that is published whenever a controller creates,
+ * updates or deletes an entity.
+ *
+ * <p>Caches and indexes that mirror database tables listen for this event to stay consistent with
+ * writes, and EntityChangeService appends it to the change log that clients sync from, in the
+ * transaction of the write.
+ *
+ * <p>Listeners that mirror the database use <code>
+ * {@literal @}TransactionalEventListener(fallbackExecution = true)</code>: a write made in a
+ * transaction (e.g. a batch) reaches them once the transaction commits, and not at all if it rolls
+ * back. The entity is a snapshot taken when the event was published, so later changes to the
+ * managed entity in the same transaction do not show through.
+ *
+ * <p>A bulk delete publishes one event per chunk of rows (see {@link #bulkDelete}), with the ids of
+ * the chunk in <code>ids</code> and no id or entity; {@link #changedIds()} covers both shapes.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class EntityChangedEvent {
+  /** The kind of change that was made to the entity. */
+  public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  private ChangeType changeType;
+  private Class<?> entityType;
+  private Object id;
+  // a snapshot of the entity after the change (for DELETED, of the entity that was deleted)
+  private Object entity;
+  // for a bulk delete, the ids of the rows deleted; null otherwise
+  private List<?> ids;
+
+  public EntityChangedEvent(ChangeType changeType, Class<?> entityType, Object id, Object entity) {
+    this(changeType, entityType, id, entity, null);
+  }
+
+  /**
+   * Returns the event for one chunk of a bulk delete.
+   *
+   * @param entityType the class of the entities deleted
+   * @param ids the ids of the rows deleted
+   * @return the event
+   */
+  public static EntityChangedEvent bulkDelete(Class<?> entityType, List<?> ids) {
+    return new EntityChangedEvent(ChangeType.DELETED, entityType, null, null, List.copyOf(ids));
+  }
+
+  /**
+   * Returns the ids of the entities changed.
+   *
+   * @return the ids of a bulk delete, or else a list of the one id
+   */
+  public List<?> changedIds() {
+    return ids != null ? ids : Collections.singletonList(id);
+  }
+}
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents statistics about lookups of one type of entity by id.
+ *
+ * <p>This class is used to report on the EntityLookupService.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class EntityLookupStats {
+  private String entity;
+  private long loads; // lookups that went to the database
+  private long coalesced; // lookups that shared a database load already in flight
+  private long hits; // lookups served from the cache
+  private long misses; // lookups not found in the cache
+  private long evictions; // entries dropped from (or refused by) the cache because it is full
+  private long cachedEntries;
+  private long cachedBytes; // estimated
+  private long filteredLookups; // lookups answered "not found" by the Bloom filter alone
+  private long filterFalsePositives; // lookups the filter let through that found nothing
+  private double filterExpectedFalsePositiveRate;
+  private long filterBytes;
+  private long batchQueries; // IN queries issued by batch lookups
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for a change to a help request, as carried by the HelpRequestEventBus to
+ * the clients of <code>GET /api/helprequest/stream</code>.
+ *
+ * <p>Solving a request is an update with <code>solved</code> true. <code>helpRequest</code> is the
+ * request after the change. A chunk of a bulk delete is one event with the ids deleted in <code>
+ * ids</code>, and no id or request.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestEvent {
+  private ChangeType changeType;
+  private long id;
+  private List<Long> ids;
+  private HelpRequest helpRequest;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the queue of unsolved help requests, in the order they
+ * should be helped.
+ *
+ * <p>This class is used as the response to <code>GET /api/helprequest/queue</code>; <code>
+ * requests</code> holds at most the first <code>limit</code> requests of the <code>size</code> in
+ * the queue.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HelpRequestQueue {
+  private int size;
+  private List<HelpRequest> requests;
+  private WaitTimes waitTimes;
+}
@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the recommendation requests made to one professor.
+ *
+ * <p>This class is used as the response to <code>GET /api/recommendationrequests/workload</code>.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ProfessorWorkload {
+  private String professorEmail;
+  private long open; // not done
+  private long done;
+  private long overdue; // not done, and the date needed has passed
+}
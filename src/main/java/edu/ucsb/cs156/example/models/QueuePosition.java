@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents where an unsolved help request is in the queue.
+ *
+ * <p>This class is used as the response to <code>GET /api/helprequest/position</code>.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class QueuePosition {
+  private long id;
+  private int position; // 1 for the request that will be helped next
+  private int size; // number of unsolved requests
+}
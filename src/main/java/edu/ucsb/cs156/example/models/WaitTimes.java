@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents how long recently solved help requests waited, from their
+ * request time until they were marked solved. The percentiles are null when there are no samples.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class WaitTimes {
+  private int samples;
+  private Long p50Seconds;
+  private Long p90Seconds;
+  private Long p99Seconds;
+}
@@ -0,0 +1,9 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.ArchivedJob;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The ArchivedJobRepository is a repository for ArchivedJob entities */
+@Repository
+public interface ArchivedJobRepository extends CrudRepository<ArchivedJob, Long> {}
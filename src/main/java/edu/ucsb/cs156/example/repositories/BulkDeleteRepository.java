@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is an interface for repositories whose entities can be deleted in bulk, with one <code>
+ * DELETE ... WHERE id IN (...)</code> statement per chunk of ids instead of a load and a delete per
+ * row.
+ *
+ * <p>Each repository declares both methods with a <code>@Query</code> naming its own entity.
+ */
+public interface BulkDeleteRepository {
+
+  /**
+   * This method returns which of the given ids exist and may be deleted.
+   *
+   * @param ids the ids to check
+   * @return the ids that have a row in the table that may be deleted
+   */
+  List<Long> findExistingIds(Collection<Long> ids);
+
+  /**
+   * This method deletes the rows with the given ids in a single statement, without loading them.
+   *
+   * @param ids the ids to delete
+   * @return the number of rows deleted
+   */
+  int deleteByIds(Collection<Long> ids);
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.EntityChangeCounter;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/** The EntityChangeCounterRepository is a repository for the EntityChangeCounter rows */
+@Repository
+public interface EntityChangeCounterRepository extends CrudRepository<EntityChangeCounter, String> {
+
+  /**
+   * This method reads the counter of one entity type and locks it until the end of the current
+   * transaction.
+   *
+   * @param entityType the simple class name of the entity, e.g. "UCSBDate"
+   * @return the counter, or null if the entity type has none yet
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select c from entity_change_counters c where c.entityType = :entityType")
+  EntityChangeCounter lockCounter(@Param("entityType") String entityType);
+}
@@ -0,0 +1,10 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.EntityChangeHorizon;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The EntityChangeHorizonRepository is a repository for EntityChangeHorizon entities */
+@Repository
+public interface EntityChangeHorizonRepository
+    extends CrudRepository<EntityChangeHorizon, String> {}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.EntityChange;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The EntityChangeRepository is a repository for the change log of the entities */
+@Repository
+public interface EntityChangeRepository extends CrudRepository<EntityChange, Long> {
+
+  /**
+   * This method returns the changes to one entity type after a version, oldest first.
+   *
+   * @param entityType the simple class name of the entity, e.g. "UCSBDate"
+   * @param version only changes with a greater version
+   * @param page how many changes to return
+   * @return the changes
+   */
+  List<EntityChange> findByEntityTypeAndVersionGreaterThanOrderByVersion(
+      String entityType, long version, Pageable page);
+
+  /**
+   * This method returns the version of the latest change to one entity type.
+   *
+   * @param entityType the simple class name of the entity
+   * @return the version, or null if there are no changes in the log
+   */
+  @Query("select max(c.version) from entity_changes c where c.entityType = :entityType")
+  Long findNewestVersion(@Param("entityType") String entityType);
+
+  /**
+   * This method returns the version of the latest change to one entity type made before a given
+   * time.
+   *
+   * @param entityType the simple class name of the entity
+   * @param before only changes made before this time
+   * @return the version, or null if there are no such changes
+   */
+  @Query(
+      "select max(c.version) from entity_changes c"
+          + " where c.entityType = :entityType and c.changedAt < :before")
+  Long findNewestVersionBefore(
+      @Param("entityType") String entityType, @Param("before") ZonedDateTime before);
+
+  /**
+   * This method returns the entity types that have changes in the log.
+   *
+   * @return the simple class names
+   */
+  @Query("select distinct c.entityType from entity_changes c")
+  List<String> findEntityTypes();
+
+  /**
+   * This method deletes the changes that a later change to the same entity replaces.
+   *
+   * @return the number of changes deleted
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "delete from entity_changes c where exists (select 1 from entity_changes n"
+          + " where n.entityType = c.entityType and n.entityId = c.entityId"
+          + " and n.version > c.version)")
+  int deleteSuperseded();
+
+  /**
+   * This method deletes the changes to one entity type up to and including a version.
+   *
+   * @param entityType the simple class name of the entity
+   * @param version the newest version to delete
+   * @return the number of changes deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("delete from entity_changes c where c.entityType = :entityType and c.version <= :version")
+  int deleteUpTo(@Param("entityType") String entityType, @Param("version") long version);
+}
@@ -1,9 +1,49 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The HelpRequestRepository is a repository for HelpRequest entities. */
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {}
+public interface HelpRequestRepository
+    extends CrudRepository<HelpRequest, Long>, BulkDeleteRepository {
+
+  /**
+   * This method returns the help requests that have not been solved yet.
+   *
+   * @return the unsolved help requests
+   */
+  List<HelpRequest> findBySolvedFalse();
+
+  /**
+   * This method returns the ids of the help requests matching the filters of a bulk delete; a null
+   * filter matches everything.
+   *
+   * @param solved only requests with this value of solved
+   * @param before only requests made before this time
+   * @return the matching ids
+   */
+  @Query(
+      "select h.id from helprequest h where (:solved is null or h.solved = :solved)"
+          + " and (:before is null or h.requestTime < :before)")
+  List<Long> findIdsForBulkDelete(
+      @Param("solved") Boolean solved, @Param("before") LocalDateTime before);
+
+  @Override
+  @Query("select h.id from helprequest h where h.id in :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  @Override
+  @Modifying
+  @Transactional
+  @Query("delete from helprequest h where h.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobScheduleRepository is a repository for JobSchedule entities. */
+@Repository
+public interface JobScheduleRepository extends CrudRepository<JobSchedule, Long> {
+
+  Optional<JobSchedule> findByName(String name);
+
+  /**
+   * This method returns the enabled schedules whose next run is due.
+   *
+   * @param now the current time
+   * @return the due schedules, most overdue first
+   */
+  @Query(
+      "select s from job_schedules s where s.enabled = true and s.nextRunAt <= :now"
+          + " order by s.nextRunAt")
+  List<JobSchedule> findDue(@Param("now") ZonedDateTime now);
+
+  /**
+   * This method takes the lease on a schedule, unless another node holds an unexpired lease. The
+   * check and the update are one statement, so at most one node can succeed.
+   *
+   * @param id the id of the schedule
+   * @param owner the id of this node
+   * @param until when the lease expires if it is not released
+   * @param now the current time
+   * @return 1 if the lease was taken, 0 if another node holds it
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "update job_schedules s set s.leaseOwner = :owner, s.leaseUntil = :until"
+          + " where s.id = :id and (s.leaseUntil is null or s.leaseUntil < :now)")
+  int acquireLease(
+      @Param("id") long id,
+      @Param("owner") String owner,
+      @Param("until") ZonedDateTime until,
+      @Param("now") ZonedDateTime now);
+
+  /**
+   * This method saves the outcome of a run and releases the lease, unless the lease has expired and
+   * another node has taken it. Only the columns the scheduler owns are written, so a change made to
+   * the schedule in the meantime (e.g. pausing it) is not overwritten.
+   *
+   * @param id the id of the schedule
+   * @param owner the id of this node
+   * @param nextRunAt when the schedule runs next
+   * @param lastRunAt when the schedule last started a job
+   * @param lastJobId the id of the last job started
+   * @return 1 if the run was saved, 0 if this node no longer holds the lease
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "update job_schedules s set s.nextRunAt = :nextRunAt, s.lastRunAt = :lastRunAt,"
+          + " s.lastJobId = :lastJobId, s.leaseOwner = null, s.leaseUntil = null"
+          + " where s.id = :id and s.leaseOwner = :owner")
+  int finishRun(
+      @Param("id") long id,
+      @Param("owner") String owner,
+      @Param("nextRunAt") ZonedDateTime nextRunAt,
+      @Param("lastRunAt") ZonedDateTime lastRunAt,
+      @Param("lastJobId") Long lastJobId);
+
+  /**
+   * This method pauses a schedule.
+   *
+   * @param id the id of the schedule
+   * @return the number of schedules paused
+   */
+  @Modifying
+  @Transactional
+  @Query("update job_schedules s set s.enabled = false where s.id = :id")
+  int disable(@Param("id") long id);
+}
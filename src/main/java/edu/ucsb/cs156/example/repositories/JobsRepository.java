@@ -1,8 +1,87 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long>, BulkDeleteRepository {
+
+  /**
+   * This method returns the ids of the jobs matching the filters of a bulk delete; a null filter
+   * matches every job that is not running.
+   *
+   * @param status only jobs with this status, e.g. "complete"
+   * @param before only jobs created before this time
+   * @return the matching ids
+   */
+  @Query(
+      "select j.id from jobs j where (:status is null or j.status = :status)"
+          + " and (:before is null or j.createdAt < :before)"
+          + " and (j.status is null or j.status <> 'running')")
+  List<Long> findIdsForBulkDelete(
+      @Param("status") String status, @Param("before") ZonedDateTime before);
+
+  /**
+   * This method returns the ids of finished jobs created before a given time, oldest first; these
+   * are the jobs to move to the archive.
+   *
+   * @param before only jobs created before this time
+   * @return the ids of jobs that are not running
+   */
+  @Query(
+      "select j.id from jobs j where j.createdAt < :before"
+          + " and (j.status is null or j.status <> 'running') order by j.id")
+  List<Long> findIdsToArchive(@Param("before") ZonedDateTime before);
+
+  /**
+   * This method returns the jobs that ran the steps of a job graph.
+   *
+   * @param parentJobId the id of the parent job of the graph
+   * @return the child jobs, in the order they were started
+   */
+  List<Job> findByParentJobIdOrderById(Long parentJobId);
+
+  /**
+   * This method marks a job that is still running as stopped and appends a line to its log, without
+   * loading it, so that a job whose thread still changes the Job object is not saved from another
+   * thread.
+   *
+   * @param id the id of the job
+   * @param status the new status, e.g. "interrupted"
+   * @param line the line to append to the log
+   * @param separator what goes between the log and the line, if the log is not empty
+   * @return 1 if the job was running, 0 otherwise
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "update jobs j set j.status = :status, j.log = case when j.log is null then :line"
+          + " else concat(j.log, :separator, :line) end"
+          + " where j.id = :id and j.status = 'running'")
+  int stopRunning(
+      @Param("id") long id,
+      @Param("status") String status,
+      @Param("line") String line,
+      @Param("separator") String separator);
+
+  // running jobs are left out, as they are still saving their log and result to the row
+
+  @Override
+  @Query(
+      "select j.id from jobs j where j.id in :ids and (j.status is null or j.status <> 'running')")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  @Override
+  @Modifying
+  @Transactional
+  @Query("delete from jobs j where j.id in :ids and (j.status is null or j.status <> 'running')")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
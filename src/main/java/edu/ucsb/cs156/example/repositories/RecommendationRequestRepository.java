@@ -1,10 +1,87 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The RecommendationRequestRepository is a repository for RecommendationRequest entities. */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends CrudRepository<RecommendationRequest, Long>, BulkDeleteRepository {
+
+  /**
+   * This method returns the requests that are not done and were needed before a time, i.e. the
+   * overdue ones and those needed soon; it uses the index on (done, date_needed).
+   *
+   * @param time the time
+   * @return the requests, the one needed first first
+   */
+  List<RecommendationRequest> findByDoneFalseAndDateNeededBeforeOrderByDateNeeded(
+      LocalDateTime time);
+
+  /**
+   * This method returns the requests that are not done and are needed after a time.
+   *
+   * @param time the time
+   * @return the requests
+   */
+  List<RecommendationRequest> findByDoneFalseAndDateNeededAfter(LocalDateTime time);
+
+  /** The counts of requests made to one professor; see {@link #findWorkloads}. */
+  interface WorkloadRow {
+    String getProfessorEmail();
+
+    Long getOpenCount();
+
+    Long getDoneCount();
+
+    Long getOverdueCount();
+  }
+
+  /**
+   * This method returns, for each professor, the number of requests that are open, done and
+   * overdue; it uses the index on (professor_email, done, date_needed).
+   *
+   * @param now the time after which open requests are overdue
+   * @return one row per professor, by email
+   */
+  @Query(
+      "select r.professorEmail as professorEmail,"
+          + " sum(case when r.done = false then 1 else 0 end) as openCount,"
+          + " sum(case when r.done = true then 1 else 0 end) as doneCount,"
+          + " sum(case when r.done = false and r.dateNeeded < :now then 1 else 0 end)"
+          + " as overdueCount"
+          + " from recommendationrequests r group by r.professorEmail order by r.professorEmail")
+  List<WorkloadRow> findWorkloads(@Param("now") LocalDateTime now);
+
+  /**
+   * This method returns the ids of the recommendation requests matching the filters of a bulk
+   * delete; a null filter matches everything.
+   *
+   * @param done only requests with this value of done
+   * @param before only requests made (dateRequested) before this time
+   * @return the matching ids
+   */
+  @Query(
+      "select r.id from recommendationrequests r where (:done is null or r.done = :done)"
+          + " and (:before is null or r.dateRequested < :before)")
+  List<Long> findIdsForBulkDelete(
+      @Param("done") Boolean done, @Param("before") LocalDateTime before);
+
+  @Override
+  @Query("select r.id from recommendationrequests r where r.id in :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  @Override
+  @Modifying
+  @Transactional
+  @Query("delete from recommendationrequests r where r.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
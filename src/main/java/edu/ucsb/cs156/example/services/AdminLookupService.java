@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that decides whether a user (identified by email) is an admin.
+ *
+ * <p>The emails listed in <code>app.admin.emails</code> are compiled into a hash set once, at
+ * startup. Any other email is checked against the <code>admin</code> column of the users table, and
+ * the answer is kept in a small cache so that a burst of logins does not turn into a burst of
+ * queries. Code that changes <code>User.admin</code> must call {@link #invalidate(String)}.
+ */
+@Slf4j
+@Service("adminLookup")
+public class AdminLookupService {
+
+  @Autowired private UserRepository userRepository;
+
+  @Value("${app.admin.cacheSize:1024}")
+  private int maxCacheSize = 1024;
+
+  @Value("${app.admin.cacheTtlMs:300000}")
+  private long cacheTtlMs = 300000;
+
+  private Set<String> adminEmails = Set.of();
+
+  private final ConcurrentHashMap<String, CachedAdmin> cache = new ConcurrentHashMap<>();
+
+  private record CachedAdmin(boolean admin, long expiresAtMillis) {}
+
+  /**
+   * Sets the list of emails that are always admins; called by Spring with the value of the property
+   * <code>app.admin.emails</code>.
+   *
+   * @param emails the emails of the admins
+   */
+  @Value("${app.admin.emails}")
+  public void setAdminEmails(List<String> emails) {
+    this.adminEmails = Set.copyOf(emails);
+  }
+
+  /**
+   * This method returns whether the given email is one of the emails listed in <code>
+   * app.admin.emails</code>. It never touches the database.
+   *
+   * @param email email address of the user
+   * @return whether the email is in the configured list of admins
+   */
+  public boolean isAdminEmail(String email) {
+    return email != null && adminEmails.contains(email);
+  }
+
+  /**
+   * This method checks if the given email belongs to an admin user either from the configured list
+   * or from the users table. Answers from the users table are cached.
+   *
+   * @param email email address of the user
+   * @return whether the user with the given email is an admin
+   */
+  public boolean isAdmin(String email) {
+    if (email == null) {
+      return false;
+    }
+    if (isAdminEmail(email)) {
+      return true;
+    }
+    long now = System.currentTimeMillis();
+    CachedAdmin cached = cache.get(email);
+    if (cached != null && cached.expiresAtMillis() > now) {
+      return cached.admin();
+    }
+    Optional<User> u = userRepository.findByEmail(email);
+    boolean admin = u.isPresent() && u.get().getAdmin();
+    if (cache.size() >= maxCacheSize) {
+      cache.clear();
+    }
+    cache.put(email, new CachedAdmin(admin, now + cacheTtlMs));
+    return admin;
+  }
+
+  /**
+   * Removes the cached answer for the given email; must be called whenever the admin flag of that
+   * user is changed.
+   *
+   * @param email email address of the user
+   */
+  public void invalidate(String email) {
+    if (email != null) {
+      cache.remove(email);
+    }
+  }
+
+  /** Removes all cached answers. */
+  public void invalidateAll() {
+    cache.clear();
+  }
+
+  /**
+   * This method returns the number of emails whose answer is currently cached.
+   *
+   * @return the number of cached entries
+   */
+  public int cacheSize() {
+    return cache.size();
+  }
+}
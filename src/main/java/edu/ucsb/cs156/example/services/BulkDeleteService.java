@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.BulkDeleteRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that deletes many rows of a table at once, for the <code>DELETE
+ * /api/&lt;entity&gt;/bulk</code> endpoints.
+ *
+ * <p>Rows are deleted with one <code>DELETE ... WHERE id IN (...)</code> statement per chunk of ids
+ * (property <code>app.bulkDelete.chunkSize</code>), each in its own transaction, so no row is ever
+ * loaded and locks are held only for one chunk at a time. One {@link EntityChangedEvent} is
+ * published per chunk, in its transaction. Deletions of more than <code>
+ * app.bulkDelete.jobThreshold</code> rows run as a job so that the request returns immediately.
+ *
+ * <p>Jobs that are running are never deleted: the jobs repository leaves them out of both its id
+ * check and its delete.
+ */
+@Slf4j
+@Service("bulkDeleteService")
+public class BulkDeleteService {
+
+  @Autowired private JobService jobService;
+
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${app.bulkDelete.chunkSize:1000}")
+  private int chunkSize = 1000;
+
+  @Value("${app.bulkDelete.jobThreshold:10000}")
+  private int jobThreshold = 10000;
+
+  /**
+   * Deletes either the listed ids or the rows matching a filter.
+   *
+   * @param type the class of the entity, e.g. HelpRequest.class
+   * @param repository the repository for the entity
+   * @param ids the ids to delete, or null to delete by filter; ids that do not exist are ignored
+   * @param filtered whether the request has at least one filter
+   * @param matchingIds runs the filter query; only called when <code>ids</code> is null
+   * @return the number of rows matched and deleted, or the id of the job doing the deletion, or an
+   *     error if the request had both ids and filters or neither
+   */
+  public BulkDeleteResult delete(
+      Class<?> type,
+      BulkDeleteRepository repository,
+      List<Long> ids,
+      boolean filtered,
+      Supplier<List<Long>> matchingIds) {
+    if (ids != null && filtered) {
+      return BulkDeleteResult.builder().error("give either ids or filters, not both").build();
+    }
+    if (ids == null && !filtered) {
+      return BulkDeleteResult.builder().error("give ids or at least one filter").build();
+    }
+    // ids from the filter query exist; listed ids are checked chunk by chunk before deleting, so
+    // that events are only published for rows that were really there
+    boolean checkExisting = ids != null;
+    List<Long> toDelete = checkExisting ? ids.stream().distinct().toList() : matchingIds.get();
+
+    if (toDelete.size() > jobThreshold) {
+      Job job =
+          jobService.runAsJob(
+              ctx -> deleteInChunks(type, repository, toDelete, checkExisting, ctx));
+      return BulkDeleteResult.builder().matched(toDelete.size()).jobId(job.getId()).build();
+    }
+    int deleted = deleteInChunks(type, repository, toDelete, checkExisting, null);
+    return BulkDeleteResult.builder().matched(toDelete.size()).deleted(deleted).build();
+  }
+
+  private int deleteInChunks(
+      Class<?> type,
+      BulkDeleteRepository repository,
+      List<Long> ids,
+      boolean checkExisting,
+      JobContext ctx) {
+    int deleted = 0;
+    for (int from = 0; from < ids.size(); from += chunkSize) {
+      List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+      deleted +=
+          new TransactionTemplate(transactionManager)
+              .execute(status -> deleteChunk(type, repository, chunk, checkExisting));
+      if (ctx != null) {
+        ctx.log("Deleted %d of %d %s rows".formatted(deleted, ids.size(), type.getSimpleName()));
+      }
+    }
+    log.info("bulk delete of {}: {} of {} rows deleted", type.getSimpleName(), deleted, ids.size());
+    return deleted;
+  }
+
+  private int deleteChunk(
+      Class<?> type, BulkDeleteRepository repository, List<Long> chunk, boolean checkExisting) {
+    List<Long> existing = checkExisting ? repository.findExistingIds(chunk) : chunk;
+    if (existing.isEmpty()) {
+      return 0;
+    }
+    int deleted = repository.deleteByIds(existing);
+    applicationEventPublisher.publishEvent(EntityChangedEvent.bulkDelete(type, existing));
+    return deleted;
+  }
+}
@@ -0,0 +1,246 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.EntityChange;
+import edu.ucsb.cs156.example.entities.EntityChangeCounter;
+import edu.ucsb.cs156.example.entities.EntityChangeHorizon;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.EntityChangeCounterRepository;
+import edu.ucsb.cs156.example.repositories.EntityChangeHorizonRepository;
+import edu.ucsb.cs156.example.repositories.EntityChangeRepository;
+import jakarta.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that keeps the change log of the entities (table <code>entity_changes</code>)
+ * and serves it to the <code>GET /api/&lt;entity&gt;/changes?since=</code> endpoints, so that
+ * clients can fetch what changed instead of reloading whole lists.
+ *
+ * <p>Every {@link EntityChangedEvent} published by the write paths of the controllers is appended
+ * to the log in the transaction of the write, just before it commits, so a write and its change are
+ * committed together. Versions come from the {@link EntityChangeCounter} of the entity type, locked
+ * until the commit, so the versions of a type are in commit order and a client never skips a change
+ * that commits after it has synced. Writes to different types do not wait for each other.
+ *
+ * <p>Once a night (property <code>app.changes.compaction.cron</code>) the log is compacted: a
+ * change that a later change to the same entity replaces is deleted, and so is every change older
+ * than <code>app.changes.retentionDays</code>. The newest version deleted by age is recorded as the
+ * horizon of the entity type; clients that last synced before it are told to reload.
+ */
+@Slf4j
+@Service("entityChangeService")
+public class EntityChangeService {
+
+  @Autowired private EntityChangeRepository entityChangeRepository;
+
+  @Autowired private EntityChangeHorizonRepository entityChangeHorizonRepository;
+
+  @Autowired private EntityChangeCounterRepository entityChangeCounterRepository;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  // the entity types whose counter is known to exist
+  private final Set<String> counters = ConcurrentHashMap.newKeySet();
+
+  @Value("${app.changes.pageSize:1000}")
+  private int pageSize = 1000;
+
+  @Value("${app.changes.retentionDays:30}")
+  private int retentionDays = 30;
+
+  /**
+   * Appends a change to the log, in the transaction of the write, just before it commits. Changes
+   * to jobs are not logged: jobs are not synced by clients, and the nightly job archive deletes
+   * them in bulk.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() == Job.class) {
+      return;
+    }
+    createCounter(event.getEntityType().getSimpleName());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      new TransactionTemplate(transactionManager)
+          .executeWithoutResult(status -> append(List.of(event)));
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    List<EntityChangedEvent> pending =
+        (List<EntityChangedEvent>) TransactionSynchronizationManager.getResource(this);
+    if (pending == null) {
+      List<EntityChangedEvent> events = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, events);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              append(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResource(EntityChangeService.this);
+            }
+          });
+      pending = events;
+    }
+    pending.add(event);
+  }
+
+  // creates the counter of an entity type the first time it is changed, in a transaction of its
+  // own so that another node creating it at the same time can't roll back the write
+  private void createCounter(String entityType) {
+    if (counters.contains(entityType)) {
+      return;
+    }
+    TransactionTemplate template = new TransactionTemplate(transactionManager);
+    template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    try {
+      template.executeWithoutResult(
+          status -> {
+            if (!entityChangeCounterRepository.existsById(entityType)) {
+              entityChangeCounterRepository.save(new EntityChangeCounter(entityType, 0));
+            }
+          });
+    } catch (DataIntegrityViolationException e) {
+      log.info("change counter of {} was created meanwhile", entityType);
+    }
+    counters.add(entityType);
+  }
+
+  // the counters are locked in the order of their entity types, so that two transactions that
+  // change several types (e.g. batches) never wait for each other's counters
+  private void append(List<EntityChangedEvent> events) {
+    // the write's own row locks are taken first, so that a transaction holding a counter never
+    // waits for one that is waiting for the counter
+    entityManager.flush();
+    Map<String, List<EntityChangedEvent>> byType = new TreeMap<>();
+    for (EntityChangedEvent event : events) {
+      byType
+          .computeIfAbsent(event.getEntityType().getSimpleName(), type -> new ArrayList<>())
+          .add(event);
+    }
+    byType.forEach(
+        (entityType, changes) -> {
+          EntityChangeCounter counter = entityChangeCounterRepository.lockCounter(entityType);
+          for (EntityChangedEvent event : changes) {
+            counter.setVersion(counter.getVersion() + 1);
+            EntityChange change = toChange(event);
+            change.setVersion(counter.getVersion());
+            change.setChangedAt(ZonedDateTime.now());
+            entityChangeRepository.save(change);
+          }
+          entityChangeCounterRepository.save(counter);
+        });
+  }
+
+  private EntityChange toChange(EntityChangedEvent event) {
+    EntityChange.EntityChangeBuilder change =
+        EntityChange.builder()
+            .entityType(event.getEntityType().getSimpleName())
+            .changeType(event.getChangeType());
+    if (event.getIds() != null) {
+      change.entity(mapper.valueToTree(event.getIds()).toString());
+    } else {
+      boolean deleted = event.getChangeType() == ChangeType.DELETED;
+      change
+          .entityId(String.valueOf(event.getId()))
+          .entity(deleted ? null : mapper.valueToTree(event.getEntity()).toString());
+    }
+    return change.build();
+  }
+
+  /**
+   * Returns the changes to one entity type after a version.
+   *
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param since the version the client has seen, 0 if none
+   * @return the changes, or a reset if the client has to reload the whole list
+   */
+  public ChangeFeed changesSince(Class<?> type, long since) {
+    String entityType = type.getSimpleName();
+    long horizon =
+        entityChangeHorizonRepository
+            .findById(entityType)
+            .map(EntityChangeHorizon::getVersion)
+            .orElse(0L);
+    if (since < horizon) {
+      Long newest = entityChangeRepository.findNewestVersion(entityType);
+      return ChangeFeed.builder()
+          .version(newest == null ? horizon : newest)
+          .reset(true)
+          .changes(List.of())
+          .build();
+    }
+
+    List<EntityChange> changes =
+        entityChangeRepository.findByEntityTypeAndVersionGreaterThanOrderByVersion(
+            entityType, since, PageRequest.ofSize(pageSize));
+    // a later change to the same entity replaces an earlier one, and moves it to the end; bulk
+    // deletes have no entity id and are all kept
+    Map<Object, EntityChange> latest = new LinkedHashMap<>();
+    for (EntityChange change : changes) {
+      Object key = change.getEntityId() != null ? change.getEntityId() : change.getVersion();
+      latest.remove(key);
+      latest.put(key, change);
+    }
+    return ChangeFeed.builder()
+        .version(changes.isEmpty() ? since : changes.get(changes.size() - 1).getVersion())
+        .more(changes.size() == pageSize)
+        .changes(List.copyOf(latest.values()))
+        .build();
+  }
+
+  /**
+   * Compacts the change log. Does not delete changes by age if <code>app.changes.retentionDays
+   * </code> is 0 or less.
+   *
+   * @return the number of changes deleted
+   */
+  @Scheduled(cron = "${app.changes.compaction.cron:0 45 3 * * *}")
+  public int compact() {
+    int deleted = entityChangeRepository.deleteSuperseded();
+    if (retentionDays > 0) {
+      ZonedDateTime cutoff = ZonedDateTime.now().minusDays(retentionDays);
+      for (String entityType : entityChangeRepository.findEntityTypes()) {
+        Long version = entityChangeRepository.findNewestVersionBefore(entityType, cutoff);
+        if (version != null) {
+          // the horizon first: if the delete then fails, clients reload more often than needed
+          entityChangeHorizonRepository.save(new EntityChangeHorizon(entityType, version));
+          deleted += entityChangeRepository.deleteUpTo(entityType, version);
+        }
+      }
+    }
+    log.info("change log compaction: {} changes deleted", deleted);
+    return deleted;
+  }
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.deadlines.RecommendationRequestDeadlineListener;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that counts the open, done and overdue recommendation requests of each
+ * professor, for faculty dashboards.
+ *
+ * <p>The counts come from one GROUP BY query and are cached until they change: a write to a
+ * recommendation request (once its transaction has committed) or a request becoming overdue (the
+ * "overdue" reminder of the {@link
+ * edu.ucsb.cs156.example.services.deadlines.RecommendationRequestDeadlineService}) makes the next
+ * read run the query again. Dashboards polling between changes are answered from the cache.
+ */
+@Service("professorWorkloadService")
+public class ProfessorWorkloadService implements RecommendationRequestDeadlineListener {
+
+  /** The counts, as of a value of <code>changes</code>. */
+  private record Snapshot(long changes, List<ProfessorWorkload> workloads) {}
+
+  @Autowired private RecommendationRequestRepository recommendationRequestRepository;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private final AtomicLong changes = new AtomicLong();
+  private volatile Snapshot snapshot;
+
+  /**
+   * This method returns the counts of every professor.
+   *
+   * @return one entry per professor, by email
+   */
+  public List<ProfessorWorkload> getWorkloads() {
+    Snapshot current = snapshot;
+    if (current != null && current.changes() == changes.get()) {
+      return current.workloads();
+    }
+    return refresh();
+  }
+
+  private synchronized List<ProfessorWorkload> refresh() {
+    long changesBefore = changes.get();
+    Snapshot current = snapshot;
+    if (current != null && current.changes() == changesBefore) {
+      return current.workloads(); // refreshed by another thread meanwhile
+    }
+    List<ProfessorWorkload> workloads =
+        recommendationRequestRepository.findWorkloads(LocalDateTime.now(clock)).stream()
+            .map(
+                row ->
+                    ProfessorWorkload.builder()
+                        .professorEmail(row.getProfessorEmail())
+                        .open(row.getOpenCount())
+                        .done(row.getDoneCount())
+                        .overdue(row.getOverdueCount())
+                        .build())
+            .toList();
+    // a change during the query leaves this snapshot out of date, so the next read queries again
+    snapshot = new Snapshot(changesBefore, workloads);
+    return workloads;
+  }
+
+  private void invalidate() {
+    changes.incrementAndGet();
+  }
+
+  /**
+   * Invalidates the counts when a write to a recommendation request has committed.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() == RecommendationRequest.class) {
+      invalidate();
+    }
+  }
+
+  @Override
+  public void onDueSoon(RecommendationRequest request) {
+    // being due soon does not change the counts
+  }
+
+  @Override
+  public void onOverdue(RecommendationRequest request) {
+    invalidate();
+  }
+}
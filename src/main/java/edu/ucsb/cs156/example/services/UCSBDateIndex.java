@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that answers calendar queries on UCSB dates from memory: the dates between two
+ * times, the dates of a quarter, and the next dates after a time.
+ *
+ * <p>The dates are kept in a {@link NavigableMap} sorted by time (then id, as several dates may
+ * fall at the same time), so a range query costs O(log n) plus the size of its result, and in lists
+ * per quarter, sorted the same way. The index is built with one <code>findAll()</code> on the first
+ * query after a UCSB date is written (once the write's transaction has committed); queries between
+ * writes never go to the database. Dates without a time are only listed by quarter.
+ */
+@Service("ucsbDateIndex")
+public class UCSBDateIndex {
+
+  /** The key of a date in the index: its time, then its id. */
+  record TimeKey(LocalDateTime time, long id) {}
+
+  private static final Comparator<TimeKey> TIME_ORDER =
+      Comparator.comparing(TimeKey::time).thenComparingLong(TimeKey::id);
+
+  private static final Comparator<UCSBDate> DATE_ORDER =
+      Comparator.comparing(
+              UCSBDate::getLocalDateTime, Comparator.nullsLast(Comparator.naturalOrder()))
+          .thenComparingLong(UCSBDate::getId);
+
+  /** The index, as of a value of <code>changes</code>. */
+  private record Index(
+      long changes,
+      NavigableMap<TimeKey, UCSBDate> byTime,
+      Map<String, List<UCSBDate>> byQuarter) {}
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private final AtomicLong changes = new AtomicLong();
+  private volatile Index index;
+
+  private Index index() {
+    Index current = index;
+    if (current != null && current.changes() == changes.get()) {
+      return current;
+    }
+    return rebuild();
+  }
+
+  private synchronized Index rebuild() {
+    long changesBefore = changes.get();
+    Index current = index;
+    if (current != null && current.changes() == changesBefore) {
+      return current; // rebuilt by another thread meanwhile
+    }
+    NavigableMap<TimeKey, UCSBDate> byTime = new TreeMap<>(TIME_ORDER);
+    Map<String, List<UCSBDate>> byQuarter = new HashMap<>();
+    for (UCSBDate date : ucsbDateRepository.findAll()) {
+      if (date.getLocalDateTime() != null) {
+        byTime.put(new TimeKey(date.getLocalDateTime(), date.getId()), date);
+      }
+      byQuarter.computeIfAbsent(date.getQuarterYYYYQ(), q -> new ArrayList<>()).add(date);
+    }
+    byQuarter.replaceAll((quarter, dates) -> dates.stream().sorted(DATE_ORDER).toList());
+    // a write during the rebuild leaves this index out of date, so the next query rebuilds again
+    index =
+        new Index(
+            changesBefore,
+            Collections.unmodifiableNavigableMap(byTime),
+            Collections.unmodifiableMap(byQuarter));
+    return index;
+  }
+
+  /**
+   * This method returns the dates between two times.
+   *
+   * @param from the earliest time (inclusive), or null for no limit
+   * @param to the latest time (inclusive), or null for no limit
+   * @return the dates, earliest first; none if <code>to</code> is before <code>from</code>
+   */
+  public List<UCSBDate> findBetween(LocalDateTime from, LocalDateTime to) {
+    if (from != null && to != null && to.isBefore(from)) {
+      return List.of(); // a sub map of a sub map must lie within it
+    }
+    NavigableMap<TimeKey, UCSBDate> dates = index().byTime();
+    if (from != null) {
+      dates = dates.tailMap(new TimeKey(from, Long.MIN_VALUE), true);
+    }
+    if (to != null) {
+      dates = dates.headMap(new TimeKey(to, Long.MAX_VALUE), true);
+    }
+    return List.copyOf(dates.values());
+  }
+
+  /**
+   * This method returns the dates of a quarter.
+   *
+   * @param quarterYYYYQ the quarter, e.g. 20244 for Fall 2024
+   * @return the dates, earliest first; those without a time last
+   */
+  public List<UCSBDate> findByQuarter(String quarterYYYYQ) {
+    return index().byQuarter().getOrDefault(quarterYYYYQ, List.of());
+  }
+
+  /**
+   * This method returns the next dates from a time on.
+   *
+   * @param from the time (inclusive), or null for now
+   * @param limit the maximum number of dates to return
+   * @return the dates, earliest first
+   */
+  public List<UCSBDate> findNext(LocalDateTime from, int limit) {
+    LocalDateTime start = from == null ? LocalDateTime.now(clock) : from;
+    return index().byTime().tailMap(new TimeKey(start, Long.MIN_VALUE), true).values().stream()
+        .limit(Math.max(0, limit))
+        .toList();
+  }
+
+  private void invalidate() {
+    changes.incrementAndGet();
+  }
+
+  /**
+   * Invalidates the index when a write to a UCSB date has committed.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() == UCSBDate.class) {
+      invalidate();
+    }
+  }
+}
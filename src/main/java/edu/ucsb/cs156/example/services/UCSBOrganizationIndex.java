@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that suggests UCSB organizations as the user types, for organization pickers.
+ *
+ * <p>A prefix matches the start of an organization's code, short name or full name, or the start of
+ * any word in either name, ignoring case: "sci" suggests "Computer Science Club". Each of these
+ * terms is a key of a sorted set, so the terms starting with a prefix are a range of the set, found
+ * in O(log n); a suggestion costs O(log n) plus the terms it reads. Active and inactive
+ * organizations have a set each, so a suggestion filtered by <code>inactive</code> only reads the
+ * terms of the organizations it can return.
+ *
+ * <p>The sets are loaded when the application starts and then follow the {@link
+ * EntityChangedEvent}s of organizations: a write only replaces the terms of the organization
+ * written. Suggestions share a read lock, so they run concurrently and only wait for writes.
+ */
+@Slf4j
+@Service("ucsbOrganizationIndex")
+public class UCSBOrganizationIndex {
+
+  /** A term of an organization, lower case. */
+  record Term(String text, String orgCode) {}
+
+  private static final Comparator<Term> TERM_ORDER =
+      Comparator.comparing(Term::text).thenComparing(Term::orgCode);
+
+  @Autowired private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  private final NavigableSet<Term> activeTerms = new TreeSet<>(TERM_ORDER);
+  private final NavigableSet<Term> inactiveTerms = new TreeSet<>(TERM_ORDER);
+  private final Map<String, UCSBOrganization> organizations = new HashMap<>();
+  private final Map<String, List<Term>> termsByOrgCode = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Loads the organizations once the application has started. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    lock.writeLock().lock();
+    try {
+      activeTerms.clear();
+      inactiveTerms.clear();
+      organizations.clear();
+      termsByOrgCode.clear();
+      ucsbOrganizationRepository.findAll().forEach(this::add);
+      log.info(
+          "ucsb organization index loaded: {} organizations, {} terms",
+          organizations.size(),
+          activeTerms.size() + inactiveTerms.size());
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the terms of an organization when a write to it has committed. As it takes the same
+   * lock as {@link #load()}, a write committed while the load reads the table is applied after it.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != UCSBOrganization.class) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      remove((String) event.getId());
+      if (event.getChangeType() != ChangeType.DELETED) {
+        add((UCSBOrganization) event.getEntity());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private NavigableSet<Term> termsOf(UCSBOrganization organization) {
+    return organization.getInactive() ? inactiveTerms : activeTerms;
+  }
+
+  private void remove(String orgCode) {
+    UCSBOrganization previous = organizations.remove(orgCode);
+    if (previous != null) {
+      termsByOrgCode.remove(orgCode).forEach(termsOf(previous)::remove);
+    }
+  }
+
+  private void add(UCSBOrganization organization) {
+    String orgCode = organization.getOrgCode();
+    Set<String> texts = new LinkedHashSet<>();
+    addTexts(texts, orgCode);
+    addTexts(texts, organization.getOrgTranslationShort());
+    addTexts(texts, organization.getOrgTranslation());
+    NavigableSet<Term> terms = termsOf(organization);
+    List<Term> added = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      Term term = new Term(text, orgCode);
+      terms.add(term);
+      added.add(term);
+    }
+    organizations.put(orgCode, organization);
+    termsByOrgCode.put(orgCode, added);
+  }
+
+  /** Adds the terms of a name: the name from the start of each of its words on. */
+  private static void addTexts(Set<String> texts, String name) {
+    if (name == null) {
+      return;
+    }
+    String text = normalize(name);
+    for (int i = 0; i < text.length(); i++) {
+      if (!Character.isWhitespace(text.charAt(i))
+          && (i == 0 || Character.isWhitespace(text.charAt(i - 1)))) {
+        texts.add(text.substring(i));
+      }
+    }
+  }
+
+  private static String normalize(String text) {
+    return text.strip().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * This method returns the organizations whose code, name or a word of their name starts with a
+   * prefix.
+   *
+   * @param prefix the prefix, in any case
+   * @param limit the maximum number of organizations to return
+   * @param inactive true for inactive organizations only, false for active ones only, or null for
+   *     both
+   * @return the organizations, by the text they match, then by code
+   */
+  public List<UCSBOrganization> suggest(String prefix, int limit, Boolean inactive) {
+    String from = normalize(prefix);
+    lock.readLock().lock();
+    try {
+      List<Term> matches = new ArrayList<>();
+      if (inactive == null || !inactive) {
+        matches.addAll(firstMatches(activeTerms, from, limit));
+      }
+      if (inactive == null || inactive) {
+        matches.addAll(firstMatches(inactiveTerms, from, limit));
+      }
+      // an organization is in one set only, so the first matches of both sets are distinct
+      return matches.stream()
+          .sorted(TERM_ORDER)
+          .limit(limit)
+          .map(term -> organizations.get(term.orgCode()))
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // returns the first term starting with the prefix of each organization, for at most limit ones
+  private static List<Term> firstMatches(NavigableSet<Term> terms, String from, int limit) {
+    Set<String> matched = new HashSet<>();
+    List<Term> matches = new ArrayList<>();
+    for (Term term :
+        terms.subSet(new Term(from, ""), true, new Term(from + Character.MAX_VALUE, ""), false)) {
+      if (matches.size() >= limit) {
+        break;
+      }
+      if (matched.add(term.orgCode())) {
+        matches.add(term);
+      }
+    }
+    return matches;
+  }
+}
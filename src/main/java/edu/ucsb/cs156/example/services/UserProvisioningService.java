@@ -0,0 +1,153 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that creates and updates rows in the users table when someone logs in.
+ *
+ * <p>Provisioning runs once per successful authentication (not once per API request). New users and
+ * admin promotions are written immediately; changes to profile attributes (picture, name, locale,
+ * etc.) are only written when they differ from what is stored, and are batched by {@link
+ * #flushProfileUpdates()}.
+ */
+@Slf4j
+@Service("userProvisioning")
+public class UserProvisioningService {
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private AdminLookupService adminLookupService;
+
+  private final ConcurrentHashMap<String, User> pendingProfileUpdates = new ConcurrentHashMap<>();
+
+  /**
+   * Provisions the user when an OAuth2 login succeeds. Spring publishes this event once per
+   * authentication.
+   *
+   * @param event the authentication success event (provided by Spring)
+   */
+  @EventListener
+  public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+    if (event.getAuthentication().getPrincipal() instanceof OAuth2User oAuthUser) {
+      provision(oAuthUser);
+    }
+  }
+
+  /**
+   * Makes sure there is a row in the users table for the given OAuth2 user.
+   *
+   * @param oAuthUser the user as reported by the OAuth2 provider
+   * @return the User object representing this user
+   */
+  public User provision(OAuth2User oAuthUser) {
+    User incoming = userFromAttributes(oAuthUser);
+    String email = incoming.getEmail();
+
+    Optional<User> ou = userRepository.findByEmail(email);
+    if (ou.isEmpty()) {
+      userRepository.save(incoming);
+      return incoming;
+    }
+
+    User existing = ou.get();
+    if (incoming.getAdmin() && !existing.getAdmin()) {
+      existing.setAdmin(true);
+      userRepository.save(existing);
+      adminLookupService.invalidate(email);
+    }
+    if (!sameProfile(existing, incoming)) {
+      copyProfile(incoming, existing);
+      pendingProfileUpdates.put(email, existing);
+    }
+    return existing;
+  }
+
+  /** Writes all pending profile updates to the users table in a single batch. */
+  @Scheduled(fixedDelayString = "${app.users.profileFlushMs:5000}")
+  public void flushProfileUpdates() {
+    if (pendingProfileUpdates.isEmpty()) {
+      return;
+    }
+    List<User> batch = new ArrayList<>();
+    // removing each update atomically as it is taken, so one queued during the flush is kept
+    pendingProfileUpdates
+        .keySet()
+        .forEach(
+            email ->
+                pendingProfileUpdates.computeIfPresent(
+                    email,
+                    (key, u) -> {
+                      batch.add(u);
+                      return null;
+                    }));
+    userRepository.saveAll(batch);
+    log.info("flushed {} user profile update(s)", batch.size());
+  }
+
+  /**
+   * This method returns the number of profile updates that are waiting to be written.
+   *
+   * @return the number of pending profile updates
+   */
+  public int pendingProfileUpdateCount() {
+    return pendingProfileUpdates.size();
+  }
+
+  /**
+   * Builds a (not yet saved) User from the attributes reported by the OAuth2 provider.
+   *
+   * @param oAuthUser the user as reported by the OAuth2 provider
+   * @return a new User object
+   */
+  public User userFromAttributes(OAuth2User oAuthUser) {
+    String email = oAuthUser.getAttribute("email");
+    Boolean emailVerified = oAuthUser.getAttribute("email_verified");
+    return User.builder()
+        .googleSub(oAuthUser.getAttribute("sub"))
+        .email(email)
+        .pictureUrl(oAuthUser.getAttribute("picture"))
+        .fullName(oAuthUser.getAttribute("name"))
+        .givenName(oAuthUser.getAttribute("given_name"))
+        .familyName(oAuthUser.getAttribute("family_name"))
+        .emailVerified(Boolean.TRUE.equals(emailVerified))
+        .locale(oAuthUser.getAttribute("locale"))
+        .hostedDomain(oAuthUser.getAttribute("hd"))
+        .admin(adminLookupService.isAdminEmail(email))
+        .build();
+  }
+
+  private static boolean sameProfile(User a, User b) {
+    return Objects.equals(a.getGoogleSub(), b.getGoogleSub())
+        && Objects.equals(a.getPictureUrl(), b.getPictureUrl())
+        && Objects.equals(a.getFullName(), b.getFullName())
+        && Objects.equals(a.getGivenName(), b.getGivenName())
+        && Objects.equals(a.getFamilyName(), b.getFamilyName())
+        && a.getEmailVerified() == b.getEmailVerified()
+        && Objects.equals(a.getLocale(), b.getLocale())
+        && Objects.equals(a.getHostedDomain(), b.getHostedDomain());
+  }
+
+  private static void copyProfile(User from, User to) {
+    to.setGoogleSub(from.getGoogleSub());
+    to.setPictureUrl(from.getPictureUrl());
+    to.setFullName(from.getFullName());
+    to.setGivenName(from.getGivenName());
+    to.setFamilyName(from.getFamilyName());
+    to.setEmailVerified(from.getEmailVerified());
+    to.setLocale(from.getLocale());
+    to.setHostedDomain(from.getHostedDomain());
+  }
+}
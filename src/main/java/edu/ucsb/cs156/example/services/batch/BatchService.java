@@ -0,0 +1,222 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import edu.ucsb.cs156.example.models.BatchOperation;
+import edu.ucsb.cs156.example.models.BatchOperationResult;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * This is a service that runs the operations of a <code>POST /api/batch</code> request.
+ *
+ * <p>Each operation is dispatched to the controller method that would have handled it as a request
+ * of its own, through the same Spring MVC handler mapping and adapter that the DispatcherServlet
+ * uses, so argument binding, <code>@PreAuthorize</code> checks and <code>@ExceptionHandler</code>s
+ * all apply. The security filter chain (and so CSRF checking) runs once, for the batch request.
+ *
+ * <p>All operations run in one transaction. The first operation with an error status (400 or above)
+ * stops the batch and rolls the transaction back. Operations are checked against the controller
+ * method they resolve to, not their path, so that endpoints that cannot take part in the
+ * transaction are rejected however the path is spelled: another batch, bulk deletes (which commit
+ * chunk by chunk, or run as a job) and asynchronous or streaming responses.
+ */
+@Slf4j
+@Service("batchService")
+public class BatchService {
+
+  /** The path of the batch endpoint itself. */
+  public static final String BATCH_PATH = "/api/batch";
+
+  private static final String INVALID_OPERATION = "each operation needs a method and a path";
+
+  /** Controller methods returning these (in a ResponseEntity or not) cannot be batched. */
+  private static final List<Class<?>> UNBATCHABLE_RESULTS =
+      List.of(
+          BatchResponse.class,
+          BulkDeleteResult.class,
+          ResponseBodyEmitter.class,
+          StreamingResponseBody.class,
+          DeferredResult.class,
+          Callable.class,
+          WebAsyncTask.class,
+          CompletionStage.class);
+
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  private RequestMappingHandlerMapping handlerMapping;
+
+  @Autowired private RequestMappingHandlerAdapter handlerAdapter;
+
+  @Autowired
+  @Qualifier("handlerExceptionResolver")
+  private HandlerExceptionResolver exceptionResolver;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  /**
+   * Runs the operations, in order, in one transaction.
+   *
+   * @param operations the operations
+   * @param request the batch request (provides the session, user and headers of each operation)
+   * @param response the batch response (never written to by the operations)
+   * @return the result of each operation, and whether the changes were committed
+   */
+  public BatchResponse execute(
+      List<BatchOperation> operations, HttpServletRequest request, HttpServletResponse response) {
+    List<BatchOperationResult> results = new ArrayList<>();
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    boolean committed;
+    String error = null;
+    try {
+      committed =
+          Boolean.TRUE.equals(
+              transactionTemplate.execute(
+                  status -> {
+                    for (BatchOperation operation : operations) {
+                      BatchOperationResult result = dispatch(operation, request, response);
+                      results.add(result);
+                      if (result.getStatus() >= 400) {
+                        status.setRollbackOnly();
+                        return false;
+                      }
+                    }
+                    return true;
+                  }));
+    } catch (RuntimeException e) {
+      log.warn("batch of {} operation(s) could not be committed", operations.size(), e);
+      committed = false;
+      error = e.getMessage();
+    }
+    while (results.size() < operations.size()) {
+      results.add(
+          new BatchOperationResult(
+              HttpStatus.FAILED_DEPENDENCY.value(),
+              TextNode.valueOf("not run because an earlier operation failed")));
+    }
+    log.info("batch of {} operation(s), committed={}", operations.size(), committed);
+    return new BatchResponse(committed, results, error);
+  }
+
+  /**
+   * Runs one operation and captures its status and response body.
+   *
+   * @param operation the operation
+   * @param request the batch request
+   * @param response the batch response
+   * @return the result of the operation
+   */
+  BatchOperationResult dispatch(
+      BatchOperation operation, HttpServletRequest request, HttpServletResponse response) {
+    String method = operation.getMethod();
+    String path = operation.getPath();
+    if (method == null || path == null) {
+      return error(HttpStatus.BAD_REQUEST, "IllegalArgumentException", INVALID_OPERATION);
+    }
+
+    JsonNode json = operation.getBody();
+    byte[] body =
+        json == null || json.isNull() ? null : json.toString().getBytes(StandardCharsets.UTF_8);
+    BatchSubRequest subRequest =
+        new BatchSubRequest(
+            request, method.toUpperCase(Locale.ROOT), path, operation.getParams(), body);
+    BatchSubResponse subResponse = new BatchSubResponse(response);
+
+    Object handler = null;
+    try {
+      HandlerExecutionChain chain = handlerMapping.getHandler(subRequest);
+      if (chain == null) {
+        return error(HttpStatus.NOT_FOUND, "NoHandlerFoundException", method + " " + path);
+      }
+      handler = chain.getHandler();
+      if (handler instanceof HandlerMethod handlerMethod && !isBatchable(handlerMethod)) {
+        return error(
+            HttpStatus.BAD_REQUEST,
+            "IllegalArgumentException",
+            method + " " + path + " cannot be run in a batch");
+      }
+      handlerAdapter.handle(subRequest, subResponse, handler);
+    } catch (AccessDeniedException e) {
+      return error(HttpStatus.FORBIDDEN, e);
+    } catch (Exception e) {
+      if (exceptionResolver.resolveException(subRequest, subResponse, handler, e) == null) {
+        log.error("batch operation {} {} failed", method, path, e);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, e);
+      }
+    }
+    return new BatchOperationResult(subResponse.getStatus(), readBody(subResponse));
+  }
+
+  /**
+   * Checks whether a controller method can run inside the transaction of a batch.
+   *
+   * @param handlerMethod the controller method
+   * @return false if it is the batch endpoint, a bulk delete, or answers asynchronously
+   */
+  static boolean isBatchable(HandlerMethod handlerMethod) {
+    ResolvableType result = ResolvableType.forMethodReturnType(handlerMethod.getMethod());
+    if (HttpEntity.class.isAssignableFrom(result.toClass())) {
+      result = result.as(HttpEntity.class).getGeneric(0);
+    }
+    Class<?> type = result.toClass();
+    return UNBATCHABLE_RESULTS.stream()
+        .noneMatch(unbatchable -> unbatchable.isAssignableFrom(type));
+  }
+
+  private JsonNode readBody(BatchSubResponse subResponse) {
+    byte[] body = subResponse.getBody();
+    if (body.length == 0) {
+      return null;
+    }
+    String contentType = subResponse.getContentType();
+    if (contentType != null && contentType.contains("json")) {
+      try {
+        return objectMapper.readTree(body);
+      } catch (IOException e) {
+        // fall through and return the body as text
+      }
+    }
+    return TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+  }
+
+  private BatchOperationResult error(HttpStatus status, Exception e) {
+    return error(status, e.getClass().getSimpleName(), String.valueOf(e.getMessage()));
+  }
+
+  private BatchOperationResult error(HttpStatus status, String type, String message) {
+    return new BatchOperationResult(
+        status.value(), objectMapper.valueToTree(Map.of("type", type, "message", message)));
+  }
+}
@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * The request seen by a controller method when it is run as one operation of a batch.
+ *
+ * <p>Method, path, parameters and body come from the operation; everything else (session, user,
+ * locale, other headers) comes from the batch request. Request attributes are kept separately so
+ * that what Spring MVC caches on the batch request (e.g. the lookup path) does not leak into the
+ * operation.
+ */
+class BatchSubRequest extends HttpServletRequestWrapper {
+
+  private final String method;
+  private final String path;
+  private final Map<String, String[]> parameters = new LinkedHashMap<>();
+  private final byte[] body;
+  private final Map<String, Object> attributes = new HashMap<>();
+
+  BatchSubRequest(
+      HttpServletRequest request,
+      String method,
+      String path,
+      Map<String, String> parameters,
+      byte[] body) {
+    super(request);
+    this.method = method;
+    this.path = path;
+    if (parameters != null) {
+      parameters.forEach((name, value) -> this.parameters.put(name, new String[] {value}));
+    }
+    this.body = body;
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public String getRequestURI() {
+    return getContextPath() + path;
+  }
+
+  @Override
+  public String getServletPath() {
+    return path;
+  }
+
+  @Override
+  public String getPathInfo() {
+    return null;
+  }
+
+  @Override
+  public String getQueryString() {
+    return null;
+  }
+
+  @Override
+  public String getParameter(String name) {
+    String[] values = parameters.get(name);
+    return values == null ? null : values[0];
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return Collections.unmodifiableMap(parameters);
+  }
+
+  @Override
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters.keySet());
+  }
+
+  @Override
+  public String[] getParameterValues(String name) {
+    return parameters.get(name);
+  }
+
+  @Override
+  public String getContentType() {
+    return body == null ? null : MediaType.APPLICATION_JSON_VALUE;
+  }
+
+  @Override
+  public int getContentLength() {
+    return body == null ? -1 : body.length;
+  }
+
+  @Override
+  public long getContentLengthLong() {
+    return getContentLength();
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+    return new ServletInputStream() {
+      @Override
+      public int read() {
+        return in.read();
+      }
+
+      @Override
+      public boolean isFinished() {
+        return in.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener listener) {
+        // the whole body is already in memory, so all of it is available at once
+        try {
+          listener.onDataAvailable();
+          listener.onAllDataRead();
+        } catch (IOException e) {
+          listener.onError(e);
+        }
+      }
+    };
+  }
+
+  private static boolean isBodyHeader(String name) {
+    return HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+        || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+  }
+
+  @Override
+  public String getHeader(String name) {
+    return isBodyHeader(name) ? null : super.getHeader(name);
+  }
+
+  @Override
+  public Enumeration<String> getHeaders(String name) {
+    return isBodyHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    return Collections.enumeration(
+        Collections.list(super.getHeaderNames()).stream()
+            .filter(name -> !isBodyHeader(name))
+            .toList());
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(attributes.keySet());
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (value == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+}
@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The response written by a controller method when it is run as one operation of a batch.
+ *
+ * <p>The status and body are kept in memory so they can be copied into the batch response; headers
+ * are dropped. Nothing is ever written to the real response.
+ */
+class BatchSubResponse extends HttpServletResponseWrapper {
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+  private int status = SC_OK;
+  private String contentType;
+  private PrintWriter writer;
+
+  BatchSubResponse(HttpServletResponse response) {
+    super(response);
+  }
+
+  @Override
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  @Override
+  public void sendError(int status) {
+    this.status = status;
+  }
+
+  @Override
+  public void sendError(int status, String message) {
+    this.status = status;
+  }
+
+  @Override
+  public void setContentType(String contentType) {
+    this.contentType = contentType;
+  }
+
+  @Override
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public void setCharacterEncoding(String charset) {
+    // the body is always read back as UTF-8
+  }
+
+  @Override
+  public void setContentLength(int length) {
+    // the length is known from the buffer
+  }
+
+  @Override
+  public void setContentLengthLong(long length) {
+    // the length is known from the buffer
+  }
+
+  @Override
+  public void setHeader(String name, String value) {
+    // headers of an operation are not part of the batch response
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    // headers of an operation are not part of the batch response
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return false;
+  }
+
+  @Override
+  public void flushBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public void resetBuffer() {
+    buffer.reset();
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() {
+    return new ServletOutputStream() {
+      @Override
+      public void write(int b) {
+        buffer.write(b);
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener listener) {
+        // writes go to a buffer in memory, so they are always possible
+        try {
+          listener.onWritePossible();
+        } catch (IOException e) {
+          listener.onError(e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public PrintWriter getWriter() {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+    }
+    return writer;
+  }
+
+  /**
+   * This method returns everything written to the response.
+   *
+   * @return the body
+   */
+  byte[] getBody() {
+    flushBuffer();
+    return buffer.toByteArray();
+  }
+}
@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hashed timing wheel: a timer for many items whose deadlines only need to be met to within one
+ * tick.
+ *
+ * <p>Time is cut into ticks of equal length and the wheel has a fixed number of buckets; an item
+ * due at tick <i>t</i> goes into bucket <i>t</i> mod <i>wheelSize</i>, with the number of turns of
+ * the wheel left before it is due. Scheduling and cancelling are O(1); each tick only looks at the
+ * items of one bucket, so the cost of keeping time does not grow with the number of items the way
+ * polling for due items does.
+ *
+ * <p>The wheel does not keep time itself: {@link #advance(Instant)} is called periodically and
+ * returns the items that have become due. Items are never returned before their deadline, and at
+ * most one tick after it. Not thread-safe.
+ *
+ * @param <T> the type of the items
+ */
+public class HashedTimingWheel<T> {
+
+  /** An item in the wheel, which can be used to cancel it. */
+  public static final class Timeout<T> {
+    private final T item;
+    private final int bucket;
+    private long rounds;
+
+    private Timeout(T item, int bucket, long rounds) {
+      this.item = item;
+      this.bucket = bucket;
+      this.rounds = rounds;
+    }
+
+    /**
+     * This method returns the item.
+     *
+     * @return the item
+     */
+    public T getItem() {
+      return item;
+    }
+  }
+
+  private final long tickMs;
+  private final long startMs;
+  private final List<Set<Timeout<T>>> buckets;
+  private long nextTick;
+  private int size;
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param tick the length of a tick
+   * @param wheelSize the number of buckets
+   * @param start the time of tick 0
+   */
+  public HashedTimingWheel(Duration tick, int wheelSize, Instant start) {
+    if (tick.toMillis() <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("tick and wheelSize must be positive");
+    }
+    this.tickMs = tick.toMillis();
+    this.startMs = start.toEpochMilli();
+    this.buckets = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new LinkedHashSet<>());
+    }
+  }
+
+  /**
+   * Adds an item. An item whose deadline has already passed is returned at the next tick.
+   *
+   * @param item the item
+   * @param deadline when the item is due
+   * @return the timeout, to cancel the item
+   */
+  public Timeout<T> schedule(T item, Instant deadline) {
+    long tick = Math.max(nextTick, Math.ceilDiv(deadline.toEpochMilli() - startMs, tickMs));
+    int wheelSize = buckets.size();
+    Timeout<T> timeout =
+        new Timeout<>(item, Math.floorMod(tick, wheelSize), (tick - nextTick) / wheelSize);
+    buckets.get(timeout.bucket).add(timeout);
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Removes an item before it is due.
+   *
+   * @param timeout the timeout returned when the item was scheduled
+   * @return true if the item was removed, false if it had already been returned or cancelled
+   */
+  public boolean cancel(Timeout<T> timeout) {
+    if (!buckets.get(timeout.bucket).remove(timeout)) {
+      return false;
+    }
+    size--;
+    return true;
+  }
+
+  /**
+   * Moves the wheel forward to a time and removes the items that are due by then.
+   *
+   * @param now the current time
+   * @return the items that have become due, in the order of their ticks
+   */
+  public List<T> advance(Instant now) {
+    List<T> due = new ArrayList<>();
+    long lastTick = Math.floorDiv(now.toEpochMilli() - startMs, tickMs);
+    for (; nextTick <= lastTick; nextTick++) {
+      Iterator<Timeout<T>> timeouts =
+          buckets.get(Math.floorMod(nextTick, buckets.size())).iterator();
+      while (timeouts.hasNext()) {
+        Timeout<T> timeout = timeouts.next();
+        if (timeout.rounds > 0) {
+          timeout.rounds--;
+        } else {
+          timeouts.remove();
+          size--;
+          due.add(timeout.item);
+        }
+      }
+    }
+    return due;
+  }
+
+  /**
+   * This method returns the number of items waiting in the wheel.
+   *
+   * @return the number of items
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+
+/**
+ * Receives the reminders of {@link RecommendationRequestDeadlineService}. Every bean implementing
+ * this interface is called, on the scheduler thread; a listener that does slow work (e.g. sending
+ * email) should hand it off to a job.
+ */
+public interface RecommendationRequestDeadlineListener {
+
+  /**
+   * Called when a request that is not done will be needed within <code>
+   * app.recommendationrequests.reminders.leadMs</code>.
+   *
+   * @param request the request, as of its last write
+   */
+  void onDueSoon(RecommendationRequest request);
+
+  /**
+   * Called when the date a request that is not done was needed by has passed.
+   *
+   * @param request the request, as of its last write
+   */
+  void onOverdue(RecommendationRequest request);
+}
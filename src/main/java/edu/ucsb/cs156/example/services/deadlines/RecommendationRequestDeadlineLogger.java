@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/** This is the default {@link RecommendationRequestDeadlineListener}: it logs the reminders. */
+@Slf4j
+@Service("recommendationRequestDeadlineLogger")
+public class RecommendationRequestDeadlineLogger implements RecommendationRequestDeadlineListener {
+
+  @Override
+  public void onDueSoon(RecommendationRequest request) {
+    log.info(
+        "recommendation request {} from {} to {} is due {}",
+        request.getId(),
+        request.getRequesterEmail(),
+        request.getProfessorEmail(),
+        request.getDateNeeded());
+  }
+
+  @Override
+  public void onOverdue(RecommendationRequest request) {
+    log.warn(
+        "recommendation request {} from {} to {} is overdue since {}",
+        request.getId(),
+        request.getRequesterEmail(),
+        request.getProfessorEmail(),
+        request.getDateNeeded());
+  }
+}
@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.deadlines.HashedTimingWheel.Timeout;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that keeps track of when recommendation requests are needed.
+ *
+ * <p>{@link #findDue(Duration)} lists the requests that are not done and are needed soon or
+ * overdue, using the index on (done, date_needed).
+ *
+ * <p>Each request that is not done also has two reminders in a {@link HashedTimingWheel}: "due
+ * soon", <code>app.recommendationrequests.reminders.leadMs</code> before its date needed, and
+ * "overdue", at its date needed. They are passed to every {@link
+ * RecommendationRequestDeadlineListener} when they fall due, to within one tick (<code>
+ * app.recommendationrequests.reminders.tickMs</code>). The wheel is filled when the application
+ * starts and then follows the {@link EntityChangedEvent}s of recommendation requests, so no query
+ * polls the table for due requests.
+ *
+ * <p>Reminders are not persisted, and a reminder whose time has already passed when a request is
+ * written or loaded is not sent; such requests are listed by {@link #findDue(Duration)}.
+ */
+@Slf4j
+@Service("recommendationRequestDeadlineService")
+public class RecommendationRequestDeadlineService {
+
+  enum Kind {
+    DUE_SOON,
+    OVERDUE
+  }
+
+  record Reminder(Kind kind, RecommendationRequest request) {}
+
+  @Autowired private RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired private List<RecommendationRequestDeadlineListener> listeners;
+
+  @Value("${app.recommendationrequests.reminders.tickMs:60000}")
+  private long tickMs = 60000;
+
+  @Value("${app.recommendationrequests.reminders.wheelSize:512}")
+  private int wheelSize = 512;
+
+  @Value("${app.recommendationrequests.reminders.leadMs:86400000}")
+  private long leadMs = 86400000;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private HashedTimingWheel<Reminder> wheel;
+  private final Map<Long, List<Timeout<Reminder>>> timeouts = new HashMap<>();
+
+  /**
+   * This method returns the requests that are not done and are needed within a period of time,
+   * including the overdue ones.
+   *
+   * @param within the period, from now
+   * @return the requests, the one needed first first
+   */
+  public List<RecommendationRequest> findDue(Duration within) {
+    return recommendationRequestRepository.findByDoneFalseAndDateNeededBeforeOrderByDateNeeded(
+        LocalDateTime.now(clock).plus(within));
+  }
+
+  /** Schedules the reminders of the requests that are not done once the application has started. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    wheel = new HashedTimingWheel<>(Duration.ofMillis(tickMs), wheelSize, clock.instant());
+    timeouts.clear();
+    recommendationRequestRepository
+        .findByDoneFalseAndDateNeededAfter(LocalDateTime.now(clock))
+        .forEach(this::schedule);
+    log.info("recommendation request reminders scheduled: {}", wheel.size());
+  }
+
+  /**
+   * Reschedules the reminders of a recommendation request once a write to it has committed. Being
+   * synchronized with {@link #load()}, a write committed while the load reads the table is applied
+   * after it.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != RecommendationRequest.class || wheel == null) {
+      return; // if not loaded yet, the load will read the write
+    }
+    for (Object id : event.changedIds()) {
+      List<Timeout<Reminder>> previous = timeouts.remove((Long) id);
+      if (previous != null) {
+        previous.forEach(wheel::cancel);
+      }
+    }
+    if (event.getChangeType() != ChangeType.DELETED) {
+      schedule((RecommendationRequest) event.getEntity());
+    }
+  }
+
+  private void schedule(RecommendationRequest request) {
+    if (request.getDone() || request.getDateNeeded() == null) {
+      return;
+    }
+    Instant now = clock.instant();
+    Instant needed = request.getDateNeeded().atZone(clock.getZone()).toInstant();
+    Instant dueSoon = needed.minusMillis(leadMs);
+    List<Timeout<Reminder>> scheduled = new ArrayList<>();
+    if (dueSoon.isAfter(now)) {
+      scheduled.add(wheel.schedule(new Reminder(Kind.DUE_SOON, request), dueSoon));
+    }
+    if (needed.isAfter(now)) {
+      scheduled.add(wheel.schedule(new Reminder(Kind.OVERDUE, request), needed));
+    }
+    if (!scheduled.isEmpty()) {
+      timeouts.put(request.getId(), scheduled);
+    }
+  }
+
+  /** Sends the reminders that have fallen due to the listeners. */
+  @Scheduled(
+      initialDelayString = "${app.recommendationrequests.reminders.tickMs:60000}",
+      fixedDelayString = "${app.recommendationrequests.reminders.tickMs:60000}")
+  public void tick() {
+    List<Reminder> due;
+    synchronized (this) {
+      if (wheel == null) {
+        return;
+      }
+      due = wheel.advance(clock.instant());
+      due.stream()
+          .filter(reminder -> reminder.kind() == Kind.OVERDUE)
+          .forEach(reminder -> timeouts.remove(reminder.request().getId()));
+    }
+    // outside the lock, so a slow listener does not hold up writes
+    due.forEach(this::send);
+  }
+
+  private void send(Reminder reminder) {
+    for (RecommendationRequestDeadlineListener listener : listeners) {
+      try {
+        if (reminder.kind() == Kind.DUE_SOON) {
+          listener.onDueSoon(reminder.request());
+        } else {
+          listener.onOverdue(reminder.request());
+        }
+      } catch (RuntimeException e) {
+        log.error(
+            "deadline listener {} failed on request {}",
+            listener.getClass().getSimpleName(),
+            reminder.request().getId(),
+            e);
+      }
+    }
+  }
+
+  /**
+   * This method returns the number of reminders waiting to be sent.
+   *
+   * @return the number of reminders
+   */
+  public synchronized int getPendingReminders() {
+    return wheel == null ? 0 : wheel.size();
+  }
+}
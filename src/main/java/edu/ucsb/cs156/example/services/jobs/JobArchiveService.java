@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.ucsb.cs156.example.entities.ArchivedJob;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.ArchivedJobRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that moves old jobs out of the <code>jobs</code> table into the <code>
+ * archived_jobs</code> table, where each job is a single compressed blob, so the jobs table (and
+ * its large log column) stays small.
+ *
+ * <p>Once a night (property <code>app.jobs.archive.cron</code>), every job that is not running and
+ * was created more than <code>app.jobs.retentionDays</code> days ago is stored in the archive under
+ * its id and deleted from the table. Each chunk of jobs is archived and deleted in one transaction,
+ * so a job is never lost or left in both tables. The archive is in the database rather than on
+ * local disk, which does not survive a redeploy. The user who created the job is not kept in the
+ * archive.
+ */
+@Slf4j
+@Service("jobArchiveService")
+public class JobArchiveService {
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private ArchivedJobRepository archivedJobRepository;
+
+  @Autowired private ObjectMapper mapper;
+
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${app.jobs.retentionDays:30}")
+  private int retentionDays = 30;
+
+  @Value("${app.jobs.archive.chunkSize:500}")
+  private int chunkSize = 500;
+
+  /**
+   * Archives every finished job older than the retention period. Does nothing if <code>
+   * app.jobs.retentionDays</code> is 0 or less.
+   *
+   * @return the number of jobs moved to the archive
+   */
+  @Scheduled(cron = "${app.jobs.archive.cron:0 30 3 * * *}")
+  public int archiveOldJobs() {
+    if (retentionDays <= 0) {
+      return 0;
+    }
+    List<Long> ids = jobsRepository.findIdsToArchive(ZonedDateTime.now().minusDays(retentionDays));
+    int archived = 0;
+    for (int from = 0; from < ids.size(); from += chunkSize) {
+      List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+      archived += new TransactionTemplate(transactionManager).execute(status -> archive(chunk));
+    }
+    log.info("archived {} of {} jobs", archived, ids.size());
+    return archived;
+  }
+
+  private int archive(List<Long> chunk) {
+    List<ArchivedJob> archives = new ArrayList<>();
+    for (Job job : jobsRepository.findAllById(chunk)) {
+      try {
+        archives.add(toArchive(job));
+      } catch (IOException e) {
+        log.warn("could not archive job {}, keeping it in the table: {}", job.getId(), e);
+      }
+    }
+    if (archives.isEmpty()) {
+      return 0;
+    }
+    archivedJobRepository.saveAll(archives);
+    List<Long> written = archives.stream().map(ArchivedJob::getId).toList();
+    int deleted = jobsRepository.deleteByIds(written);
+    applicationEventPublisher.publishEvent(EntityChangedEvent.bulkDelete(Job.class, written));
+    return deleted;
+  }
+
+  /**
+   * This method returns an archived job.
+   *
+   * @param id the id of the job
+   * @return the job as it was when it was archived, or empty if there is no archive for that id
+   * @throws UncheckedIOException if the archived job cannot be read
+   */
+  public Optional<Job> findArchived(long id) {
+    return archivedJobRepository
+        .findById(id)
+        .map(
+            archived -> {
+              try {
+                return mapper.readValue(
+                    JobLogCompression.decompress(archived.getCompressedJob()), Job.class);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  // the job is loaded in the transaction that deletes it, so it must not be changed: a change
+  // would be flushed to its row before the delete
+  private ArchivedJob toArchive(Job job) throws IOException {
+    ObjectNode json = mapper.valueToTree(job);
+    if (job.getCompressedLog() != null) {
+      // the job is compressed as a whole, so the log is stored inside it as plain text
+      json.put("log", JobLogCompression.decompress(job.getCompressedLog()));
+    }
+    return ArchivedJob.builder()
+        .id(job.getId())
+        .createdAt(job.getCreatedAt())
+        .compressedJob(JobLogCompression.compress(mapper.writeValueAsString(json)))
+        .build();
+  }
+}
@@ -1,20 +1,152 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
 @Slf4j
 public class JobContext {
   private JobsRepository jobsRepository;
-  private Job job;
+  @Getter private Job job;
+
+  // when the job is stopped with reason "timeout"; null for no deadline
+  @Getter @Setter private Instant deadline;
+
+  @Getter @Setter private RetryPolicy retryPolicy = RetryPolicy.builder().build();
+
+  // progress is saved at most once per interval; log messages are always saved
+  @Setter private Duration progressSaveInterval = Duration.ofSeconds(1);
+  @Getter private final Instant submittedAt = Instant.now();
+
+  // completed with the job once it has finished and been saved
+  @Getter private final CompletableFuture<Job> completion = new CompletableFuture<>();
+  private Instant startedAt;
+  private Instant lastSavedAt;
+
+  private Thread thread;
+  private String stopReason;
+  private boolean finished;
+
+  public JobContext(JobsRepository jobsRepository, Job job) {
+    this.jobsRepository = jobsRepository;
+    this.job = job;
+  }
 
   public void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
     String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
     job.setLog(previousLog + message);
+    save(Instant.now());
+  }
+
+  /**
+   * Reports how far the job has got. The job's progress and estimated completion time are updated
+   * on every call but only saved if the last save was at least <code>progressSaveInterval</code>
+   * ago, so a job may call this as often as it likes, e.g. once per row.
+   *
+   * @param done the amount of work done so far
+   * @param total the total amount of work
+   */
+  public void progress(long done, long total) {
+    Instant now = Instant.now();
+    job.setProgressDone(done);
+    job.setProgressTotal(total);
+    job.setEstimatedCompletionAt(estimateCompletion(done, total, now));
+    if (lastSavedAt == null || !now.isBefore(lastSavedAt.plus(progressSaveInterval))) {
+      save(now);
+    }
+  }
+
+  /**
+   * Sets the result of the job. It is saved with the job when the job finishes.
+   *
+   * @param json the result, as JSON
+   */
+  public void setResult(String json) {
+    job.setResult(json);
+  }
+
+  // assumes the rest of the work goes at the same rate as the work done so far
+  private ZonedDateTime estimateCompletion(long done, long total, Instant now) {
+    if (startedAt == null || done <= 0) {
+      return null;
+    }
+    long elapsedMs = Duration.between(startedAt, now).toMillis();
+    long remainingMs = (long) ((double) elapsedMs * Math.max(0, total - done) / done);
+    return now.plusMillis(remainingMs).atZone(ZoneId.systemDefault());
+  }
+
+  private void save(Instant now) {
+    lastSavedAt = now;
     if (jobsRepository != null) jobsRepository.save(job);
   }
+
+  /**
+   * Throws if the job has been cancelled or has run past its deadline. Jobs that loop should call
+   * this once per iteration; jobs that block are also interrupted when they are stopped.
+   *
+   * @throws JobCancelledException if the job should stop
+   */
+  public void checkCancelled() {
+    String reason = getStopReason();
+    if (reason != null) {
+      throw new JobCancelledException(job.getId(), reason);
+    }
+  }
+
+  /**
+   * This method returns why the job was stopped.
+   *
+   * @return "cancelled", "timeout" or "interrupted" (the application is shutting down), or null if
+   *     the job has not been stopped
+   */
+  public synchronized String getStopReason() {
+    return stopReason;
+  }
+
+  boolean isOverdue(Instant now) {
+    return deadline != null && now.isAfter(deadline);
+  }
+
+  synchronized boolean isStarted() {
+    return startedAt != null;
+  }
+
+  synchronized void start() {
+    thread = Thread.currentThread();
+    startedAt = Instant.now();
+  }
+
+  /**
+   * Asks the job to stop: checkCancelled() throws from now on, and the thread running the job is
+   * interrupted.
+   *
+   * @param reason "cancelled", "timeout" or "interrupted"
+   * @return false if the job has already finished or been stopped
+   */
+  synchronized boolean stop(String reason) {
+    if (finished || stopReason != null) {
+      return false;
+    }
+    stopReason = reason;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    return true;
+  }
+
+  /** Called by the thread that ran the job once it has returned; clears any pending interrupt. */
+  synchronized void finish() {
+    finished = true;
+    thread = null;
+    Thread.interrupted();
+  }
 }
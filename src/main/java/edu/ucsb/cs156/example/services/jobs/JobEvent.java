@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event spanning one run of a job, on the thread that ran it, so that a recording
+ * shows where jobs start and end next to GC, lock and I/O events.
+ */
+@Name("edu.ucsb.cs156.example.Job")
+@Label("Job")
+@Category({"Application", "Jobs"})
+@Description("One run of a background job")
+class JobEvent extends Event {
+
+  @Label("Job Id")
+  long jobId;
+
+  @Label("Status")
+  String status;
+
+  @Label("Queue Wait")
+  @Timespan(Timespan.MILLISECONDS)
+  long queueWaitMs;
+
+  @Label("CPU Time")
+  @Timespan(Timespan.MILLISECONDS)
+  long cpuTimeMs;
+
+  @Label("Allocated")
+  @DataAmount(DataAmount.BYTES)
+  long allocatedBytes;
+
+  @Label("SQL Statements")
+  long statementCount;
+}
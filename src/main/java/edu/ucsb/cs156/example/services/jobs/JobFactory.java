@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * Creates the job for a recurring JobSchedule. Each factory is a bean; the <code>jobType</code> of
+ * a schedule is the name of the bean, e.g. <code>@Component("testJob")</code>.
+ */
+@FunctionalInterface
+public interface JobFactory {
+  /**
+   * Creates a job.
+   *
+   * @param parameters the parameters stored with the schedule (e.g. JSON), or null
+   * @return the job to run
+   * @throws Exception if the parameters are invalid
+   */
+  JobContextConsumer create(String parameters) throws Exception;
+}
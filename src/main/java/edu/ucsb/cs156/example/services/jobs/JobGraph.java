@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of job steps and the dependencies between them, run by {@link
+ * JobService#runGraph(JobGraph)}.
+ *
+ * <p>Each step runs as its own job once all the steps it depends on have completed, so steps that
+ * do not depend on each other run in parallel. A step must be added after the steps it depends on,
+ * which also means the graph cannot have cycles.
+ *
+ * <pre>
+ * new JobGraph()
+ *     .step("fetch", (ctx, in) -&gt; fetch())
+ *     .step("transform", (ctx, in) -&gt; transform(in.get("fetch")), "fetch")
+ *     .step("upsert", (ctx, in) -&gt; upsert(in.get("transform")), "transform")
+ *     .step("aggregates", ctx -&gt; rebuildAggregates(), "upsert");
+ * </pre>
+ */
+public class JobGraph {
+
+  record Node(String name, List<String> dependsOn, JobStep step) {}
+
+  private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+  /**
+   * Adds a step whose output is passed to the steps that depend on it.
+   *
+   * @param name the name of the step, unique within the graph
+   * @param step what the step does
+   * @param dependsOn the names of the steps that must complete before this one starts
+   * @return this graph
+   */
+  public JobGraph step(String name, JobStep step, String... dependsOn) {
+    if (nodes.containsKey(name)) {
+      throw new IllegalArgumentException("step %s is already in the graph".formatted(name));
+    }
+    for (String dependency : dependsOn) {
+      if (!nodes.containsKey(dependency)) {
+        throw new IllegalArgumentException(
+            "step %s depends on %s, which must be added first".formatted(name, dependency));
+      }
+    }
+    nodes.put(name, new Node(name, List.of(dependsOn), step));
+    return this;
+  }
+
+  /**
+   * Adds a step that has no output.
+   *
+   * @param name the name of the step, unique within the graph
+   * @param step what the step does
+   * @param dependsOn the names of the steps that must complete before this one starts
+   * @return this graph
+   */
+  public JobGraph step(String name, JobContextConsumer step, String... dependsOn) {
+    return step(
+        name,
+        (c, inputs) -> {
+          step.accept(c);
+          return null;
+        },
+        dependsOn);
+  }
+
+  // in the order they were added, so every step comes after the steps it depends on
+  Collection<Node> getNodes() {
+    return nodes.values();
+  }
+}
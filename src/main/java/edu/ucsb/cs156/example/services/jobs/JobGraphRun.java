@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One run of a {@link JobGraph}: starts each step as a child job of the parent job as soon as the
+ * steps it depends on have completed, and finishes the parent job once every step has finished or
+ * been skipped.
+ *
+ * <p>No thread waits for the graph; the next steps are started by the thread of the child job that
+ * just finished.
+ */
+class JobGraphRun {
+
+  private final JobService jobService;
+  private final JobContext parent;
+  private final JobGraph graph;
+
+  // "running", "complete", "error", "cancelled", "timeout", "interrupted" or "skipped" per step
+  private final Map<String, String> states = new HashMap<>();
+  private final Map<String, JobContext> running = new HashMap<>();
+  private final Map<String, Object> outputs = new HashMap<>();
+  private boolean cancelled;
+  private boolean finished;
+
+  JobGraphRun(JobService jobService, JobContext parent, JobGraph graph) {
+    this.jobService = jobService;
+    this.parent = parent;
+    this.graph = graph;
+  }
+
+  void start() {
+    String parentStatus;
+    synchronized (this) {
+      parentStatus = advance();
+    }
+    if (parentStatus != null) {
+      jobService.finishGraph(parent, parentStatus);
+    }
+  }
+
+  /**
+   * Cancels the steps that are running and skips the ones that have not started.
+   *
+   * @return false if the graph has already finished or been cancelled
+   */
+  synchronized boolean cancel() {
+    if (finished || cancelled) {
+      return false;
+    }
+    cancelled = true;
+    running.values().forEach(context -> context.stop("cancelled"));
+    return true;
+  }
+
+  /**
+   * Starts the steps that can start, and returns the status of the parent job if that was the last
+   * thing left to do, or null. Called with the lock held, so that cancel() sees every child that
+   * has been started.
+   *
+   * <p>A step whose job cannot be submitted (e.g. the executor rejects it) counts as failed, so its
+   * dependents are skipped and the graph still finishes; otherwise the exception would be lost in
+   * the completion callback of the step before it and the parent would stay "running".
+   */
+  private String advance() {
+    for (List<JobGraph.Node> steps = nextSteps(); !steps.isEmpty(); steps = nextSteps()) {
+      for (JobGraph.Node node : steps) {
+        JobContext child;
+        try {
+          child = jobService.startChild(parent.getJob(), c -> runStep(node, c));
+        } catch (RuntimeException e) {
+          states.put(node.name(), "error");
+          parent.log("Step %s could not be started: %s".formatted(node.name(), e));
+          continue;
+        }
+        running.put(node.name(), child);
+        parent.log("Step %s started as job %d".formatted(node.name(), child.getJob().getId()));
+        // runs at once, on this thread, if the child has already finished
+        child.getCompletion().thenAccept(job -> stepFinished(node, job.getStatus()));
+      }
+    }
+    if (!finished && !states.containsValue("running")) {
+      return finalStatus();
+    }
+    return null;
+  }
+
+  private void runStep(JobGraph.Node node, JobContext c) throws Exception {
+    Map<String, Object> inputs = new LinkedHashMap<>();
+    synchronized (this) {
+      node.dependsOn().forEach(name -> inputs.put(name, outputs.get(name)));
+    }
+    Object output = node.step().run(c, inputs);
+    synchronized (this) {
+      outputs.put(node.name(), output);
+    }
+  }
+
+  private void stepFinished(JobGraph.Node node, String status) {
+    String parentStatus = null;
+    synchronized (this) {
+      running.remove(node.name());
+      states.put(node.name(), status);
+      parent.log("Step %s finished with status %s".formatted(node.name(), status));
+      parentStatus = advance();
+    }
+    if (parentStatus != null) {
+      jobService.finishGraph(parent, parentStatus);
+    }
+  }
+
+  // marks as running the steps that can start, and as skipped the steps that never will
+  private List<JobGraph.Node> nextSteps() {
+    List<JobGraph.Node> ready = new ArrayList<>();
+    for (JobGraph.Node node : graph.getNodes()) {
+      if (states.containsKey(node.name())) {
+        continue;
+      }
+      // the nodes are in dependency order, so a skip reaches every step that depends on it
+      if (cancelled || node.dependsOn().stream().anyMatch(this::isFailed)) {
+        states.put(node.name(), "skipped");
+        parent.log("Step %s skipped".formatted(node.name()));
+      } else if (node.dependsOn().stream().allMatch(d -> "complete".equals(states.get(d)))) {
+        states.put(node.name(), "running");
+        ready.add(node);
+      }
+    }
+    return ready;
+  }
+
+  // finished without completing, or skipped
+  private boolean isFailed(String step) {
+    String state = states.get(step);
+    return state != null && !"running".equals(state) && !"complete".equals(state);
+  }
+
+  private String finalStatus() {
+    finished = true;
+    if (cancelled) {
+      return "cancelled";
+    }
+    if (states.containsValue("interrupted")) {
+      return "interrupted";
+    }
+    return states.values().stream().allMatch("complete"::equals) ? "complete" : "error";
+  }
+}
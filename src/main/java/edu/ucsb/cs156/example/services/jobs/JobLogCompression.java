@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses and decompresses the logs of finished jobs.
+ *
+ * <p>Job logs are long runs of near-identical lines, which Deflate shrinks by an order of magnitude
+ * or more. Logs are stored as zlib-format Deflate streams so they can be decompressed as they are
+ * sent, without holding the whole text in memory.
+ */
+public final class JobLogCompression {
+
+  private JobLogCompression() {}
+
+  /**
+   * Compresses a log.
+   *
+   * @param log the text of the log
+   * @return the compressed log
+   */
+  public static byte[] compress(String log) {
+    byte[] text = log.getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(text.length / 8 + 64);
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(text);
+      deflater.finish();
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        compressed.write(buffer, 0, deflater.deflate(buffer));
+      }
+    } finally {
+      deflater.end();
+    }
+    return compressed.toByteArray();
+  }
+
+  /**
+   * Returns a stream that decompresses a log as it is read.
+   *
+   * @param compressed a log returned by {@link #compress(String)}
+   * @return the UTF-8 text of the log
+   */
+  public static InputStream inflate(byte[] compressed) {
+    return new InflaterInputStream(new ByteArrayInputStream(compressed));
+  }
+
+  /**
+   * Decompresses a log.
+   *
+   * @param compressed a log returned by {@link #compress(String)}
+   * @return the text of the log
+   * @throws UncheckedIOException if the data is not a compressed log
+   */
+  public static String decompress(byte[] compressed) {
+    try (InputStream in = inflate(compressed)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
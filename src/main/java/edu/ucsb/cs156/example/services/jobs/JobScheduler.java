@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobSchedule.MisfirePolicy;
+import edu.ucsb.cs156.example.repositories.JobScheduleRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that starts the jobs of the <code>job_schedules</code> table when they are due.
+ *
+ * <p>Every node polls the table (property <code>app.jobs.schedules.pollMs</code>). To start a due
+ * run, a node first takes the lease on the schedule with a single conditional UPDATE, so only one
+ * node starts each run; the lease is released once the next run time has been saved, and expires by
+ * itself (<code>app.jobs.schedules.leaseMs</code>) if the node dies in between. The run is saved
+ * with another UPDATE of just the run columns, so it never overwrites a concurrent change to the
+ * rest of the schedule.
+ *
+ * <p>A run is never started while the previous run of the same schedule is still running. If runs
+ * were missed (the application was down, or the previous run took too long), the schedule's {@link
+ * MisfirePolicy} decides whether they are skipped or made up one after the other.
+ */
+@Slf4j
+@Service("jobScheduler")
+public class JobScheduler {
+
+  @Autowired private JobScheduleRepository jobScheduleRepository;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private Map<String, JobFactory> jobFactories;
+
+  @Value("${app.jobs.schedules.leaseMs:300000}")
+  private long leaseMs = 300000;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  /** Starts the job of every schedule that is due. */
+  @Scheduled(
+      initialDelayString = "${app.jobs.schedules.pollMs:10000}",
+      fixedDelayString = "${app.jobs.schedules.pollMs:10000}")
+  public void runDueSchedules() {
+    ZonedDateTime now = ZonedDateTime.now();
+    for (JobSchedule due : jobScheduleRepository.findDue(now)) {
+      Duration lease = Duration.ofMillis(leaseMs);
+      if (jobScheduleRepository.acquireLease(due.getId(), nodeId, now.plus(lease), now) == 1) {
+        // read it again: another node may have started this run after findDue
+        jobScheduleRepository.findById(due.getId()).ifPresent(schedule -> fire(schedule, now));
+      }
+    }
+  }
+
+  private void fire(JobSchedule schedule, ZonedDateTime now) {
+    try {
+      if (schedule.getEnabled() && !schedule.getNextRunAt().isAfter(now)) {
+        fireDue(schedule, now);
+      }
+    } finally {
+      int saved =
+          jobScheduleRepository.finishRun(
+              schedule.getId(),
+              nodeId,
+              schedule.getNextRunAt(),
+              schedule.getLastRunAt(),
+              schedule.getLastJobId());
+      if (saved == 0) {
+        log.warn("Schedule {}: lease expired before the run was saved", schedule.getName());
+      }
+    }
+  }
+
+  private void fireDue(JobSchedule schedule, ZonedDateTime now) {
+    boolean catchUp = schedule.getMisfirePolicy() == MisfirePolicy.CATCH_UP;
+    if (isPreviousRunRunning(schedule)) {
+      log.info("Schedule {}: previous run is still running", schedule.getName());
+      if (!catchUp) {
+        schedule.setNextRunAt(nextRunAfter(schedule, now));
+      }
+      return;
+    }
+
+    JobFactory factory = jobFactories.get(schedule.getJobType());
+    if (factory == null) {
+      log.error(
+          "Schedule {}: unknown job type {}, disabling", schedule.getName(), schedule.getJobType());
+      schedule.setEnabled(false);
+      jobScheduleRepository.disable(schedule.getId());
+      return;
+    }
+    try {
+      Job job = jobService.runAsJob(factory.create(schedule.getParameters()));
+      schedule.setLastJobId(job.getId());
+      schedule.setLastRunAt(now);
+    } catch (Exception e) {
+      log.error("Schedule {}: could not start job, skipping this run", schedule.getName(), e);
+    }
+    schedule.setNextRunAt(nextRunAfter(schedule, catchUp ? schedule.getNextRunAt() : now));
+  }
+
+  private boolean isPreviousRunRunning(JobSchedule schedule) {
+    return schedule.getLastJobId() != null
+        && jobsRepository
+            .findById(schedule.getLastJobId())
+            .map(job -> "running".equals(job.getStatus()))
+            .orElse(false);
+  }
+
+  /**
+   * This method returns when a schedule runs next.
+   *
+   * @param schedule the schedule
+   * @param after a time
+   * @return the first run time strictly after <code>after</code>, or null if the cron expression
+   *     never matches again
+   */
+  public ZonedDateTime nextRunAfter(JobSchedule schedule, ZonedDateTime after) {
+    if (schedule.getCron() != null) {
+      return CronExpression.parse(schedule.getCron()).next(after);
+    }
+    return after.plus(Duration.ofMillis(schedule.getFixedRateMs()));
+  }
+
+  /**
+   * Checks a new schedule.
+   *
+   * @param schedule the schedule
+   * @return a description of the problem, or null if the schedule is valid
+   */
+  public String validate(JobSchedule schedule) {
+    if ((schedule.getCron() == null) == (schedule.getFixedRateMs() == null)) {
+      return "give either cron or fixedRateMs";
+    }
+    if (schedule.getCron() != null && !CronExpression.isValidExpression(schedule.getCron())) {
+      return "invalid cron expression: " + schedule.getCron();
+    }
+    if (schedule.getFixedRateMs() != null && schedule.getFixedRateMs() <= 0) {
+      return "fixedRateMs must be positive";
+    }
+    if (!jobFactories.containsKey(schedule.getJobType())) {
+      return "unknown job type: " + schedule.getJobType();
+    }
+    return null;
+  }
+}
@@ -3,51 +3,472 @@ package edu.ucsb.cs156.example.services.jobs;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.tracing.TraceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private JobArchiveService jobArchiveService;
+
   @Lazy @Autowired private JobService self;
 
+  // jobs that have been submitted and have not finished yet, by id
+  private final Map<Long, JobContext> running = new ConcurrentHashMap<>();
+
+  // job graphs that have not finished yet, by the id of their parent job
+  private final Map<Long, JobGraphRun> graphs = new ConcurrentHashMap<>();
+
+  // jobs with a dedup key that have been submitted and have not started yet, by key; the future
+  // completes once the job has been saved
+  private final Map<String, CompletableFuture<JobContext>> waiting = new HashMap<>();
+
+  // false once the application has started shutting down; see drain()
+  private volatile boolean accepting = true;
+
+  @Value("${app.jobs.defaultTimeoutMs:3600000}")
+  private long defaultTimeoutMs = 3600000;
+
+  @Value("${app.jobs.progressSaveMs:1000}")
+  private long progressSaveMs = 1000;
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, Duration.ofMillis(defaultTimeoutMs));
+  }
 
-    jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+  /**
+   * Runs a job in the background, stopping it with status "timeout" if it has not finished within
+   * the given time. The time includes any time the job spends waiting for a free thread.
+   *
+   * @param jobFunction the job
+   * @param timeout how long the job may take, or null for no limit
+   * @return the job, with status "running"
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, Duration timeout) {
+    return runAsJob(jobFunction, timeout, null, null);
+  }
+
+  /**
+   * Runs a job in the background, retrying it when it fails.
+   *
+   * <p>If a job with the same <code>dedupKey</code> has been submitted and has not started yet, no
+   * new job is created and that job is returned instead. Once a job has started, submitting the
+   * same key again creates a new job, since the running one may already have read the data the new
+   * submission is about. Jobs are only deduplicated against jobs submitted to this node.
+   *
+   * @param jobFunction the job
+   * @param timeout how long the job may take, including all attempts and the waits between them, or
+   *     null for no limit
+   * @param retryPolicy when to retry the job, or null to never retry it
+   * @param dedupKey identifies identical jobs, or null to always start a new one
+   * @return the job, with status "running"
+   * @throws IllegalStateException if the application is shutting down
+   * @throws org.springframework.core.task.TaskRejectedException if the executor rejects the job,
+   *     which is then saved with status "error"
+   */
+  public Job runAsJob(
+      JobContextConsumer jobFunction, Duration timeout, RetryPolicy retryPolicy, String dedupKey) {
+    checkAccepting();
+    // reserve the key, but save the job outside the lock so that other submissions don't wait
+    CompletableFuture<JobContext> reserved = new CompletableFuture<>();
+    if (dedupKey != null) {
+      CompletableFuture<JobContext> existing;
+      synchronized (waiting) {
+        existing = waiting.putIfAbsent(dedupKey, reserved);
+      }
+      if (existing != null) {
+        Job job = existing.join().getJob();
+        log.info("Job {} with key {} is already waiting", job.getId(), dedupKey);
+        return job;
+      }
+    }
 
-    return job;
+    JobContext context;
+    try {
+      Job job =
+          Job.builder()
+              .createdBy(currentUserService.getUser())
+              .status("running")
+              .dedupKey(dedupKey)
+              .build();
+      jobsRepository.save(job);
+      context = newContext(job);
+      context.setDeadline(timeout == null ? null : Instant.now().plus(timeout));
+      if (retryPolicy != null) {
+        context.setRetryPolicy(retryPolicy);
+      }
+      running.put(job.getId(), context);
+    } catch (RuntimeException e) {
+      if (dedupKey != null) {
+        synchronized (waiting) {
+          waiting.remove(dedupKey, reserved);
+        }
+      }
+      reserved.completeExceptionally(e);
+      throw e;
+    }
+    reserved.complete(context);
+    try {
+      self.runJobAsync(context, jobFunction);
+    } catch (RuntimeException e) {
+      notStarted(context, e);
+      throw e;
+    }
+
+    return context.getJob();
+  }
+
+  // finishes a job that was submitted but never ran, e.g. because the executor rejected it
+  private void notStarted(JobContext context, RuntimeException e) {
+    Job job = context.getJob();
+    releaseKey(context);
+    job.setStatus("error");
+    context.log("Job could not be started: " + e);
+    try {
+      compressLog(job);
+      jobsRepository.save(job);
+    } finally {
+      context.getCompletion().complete(job);
+      running.remove(job.getId(), context);
+    }
   }
 
   @Async
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
+    runJob(newContext(job), jobFunction);
+  }
+
+  @Async
+  public void runJobAsync(JobContext context, JobContextConsumer jobFunction) {
+    runJob(context, jobFunction);
+  }
+
+  // lets the dedup key of the job be used by new submissions, unless it is reserved by another job
+  private void releaseKey(JobContext context) {
+    String dedupKey = context.getJob().getDedupKey();
+    if (dedupKey != null) {
+      synchronized (waiting) {
+        waiting.computeIfPresent(
+            dedupKey, (key, reserved) -> reserved.getNow(null) == context ? null : reserved);
+      }
+    }
+  }
+
+  private JobContext newContext(Job job) {
+    if (job.getTraceId() == null) {
+      job.setTraceId(TraceContext.currentOrNewTraceId());
+    }
     JobContext context = new JobContext(jobsRepository, job);
+    context.setProgressSaveInterval(Duration.ofMillis(progressSaveMs));
+    return context;
+  }
+
+  // the log lines of the job carry the trace id of whatever started it, and the job's id
+  private void runJob(JobContext context, JobContextConsumer jobFunction) {
+    Job job = context.getJob();
+    try (MDC.MDCCloseable traceId = MDC.putCloseable(TraceContext.TRACE_ID, job.getTraceId());
+        MDC.MDCCloseable jobId =
+            MDC.putCloseable(TraceContext.JOB_ID, String.valueOf(job.getId()))) {
+      execute(context, jobFunction);
+    }
+  }
+
+  private void execute(JobContext context, JobContextConsumer jobFunction) {
+    Job job = context.getJob();
+    JobUsageRecorder usage = new JobUsageRecorder(context.getSubmittedAt());
+    Exception failure;
 
     try {
-      jobFunction.accept(context);
-    } catch (Exception e) {
+      usage.start();
+      context.start();
+      releaseKey(context);
+      failure = runAttempts(context, jobFunction);
+    } finally {
+      // clears the interrupt, if any, so that the thread can be reused and the saves below work
+      context.finish();
+    }
+
+    String stopReason = context.getStopReason();
+    if (failure == null) {
+      job.setStatus("complete");
+    } else if (stopReason != null) {
+      job.setStatus(stopReason);
+      context.log(
+          switch (stopReason) {
+            case "timeout" -> "Job timed out";
+            case "interrupted" -> "Job interrupted by shutdown";
+            default -> "Job cancelled";
+          });
+    } else {
       job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      context.log(failure.getMessage());
     }
 
-    job.setStatus("complete");
+    job.setUsage(usage.finish(job));
+    try {
+      compressLog(job);
+      jobsRepository.save(job);
+    } finally {
+      // only now, so that drain() waits for the saves above
+      context.getCompletion().complete(job);
+      running.remove(job.getId(), context);
+    }
+  }
+
+  // runs the job until an attempt succeeds or the retry policy gives up; returns the last failure
+  private Exception runAttempts(JobContext context, JobContextConsumer jobFunction) {
+    RetryPolicy policy = context.getRetryPolicy();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        context.checkCancelled(); // it may have been cancelled while waiting for a thread
+        jobFunction.accept(context);
+        return null;
+      } catch (Exception e) {
+        String failed =
+            "Attempt %d of %d failed: %s".formatted(attempt, policy.getMaxAttempts(), e);
+        if (!policy.shouldRetry(attempt, e) || context.getStopReason() != null) {
+          if (policy.getMaxAttempts() > 1) {
+            context.log(failed);
+          }
+          return e;
+        }
+        Duration backoff = policy.backoff(attempt, ThreadLocalRandom.current().nextDouble());
+        context.log("%s; retrying in %d ms".formatted(failed, backoff.toMillis()));
+        try {
+          Thread.sleep(backoff.toMillis()); // interrupted if the job is stopped meanwhile
+        } catch (InterruptedException stopped) {
+          return stopped;
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the steps of a graph as child jobs of one parent job. The parent job has status "running"
+   * until every step has finished or been skipped, and then "complete" if every step completed,
+   * "cancelled" if it was cancelled, or "error" otherwise. Its log records when each step started
+   * and finished; the child jobs have its id as their parentJobId.
+   *
+   * @param graph the steps
+   * @return the parent job, with status "running"
+   * @throws IllegalStateException if the application is shutting down
+   */
+  public Job runGraph(JobGraph graph) {
+    if (graph.getNodes().isEmpty()) {
+      throw new IllegalArgumentException("a job graph needs at least one step");
+    }
+    checkAccepting();
+    Job parent = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    jobsRepository.save(parent);
+    JobContext context = newContext(parent);
+    // so that drain() waits for the graph, which may still start steps, and not only its steps
+    running.put(parent.getId(), context);
+    JobGraphRun run = new JobGraphRun(this, context, graph);
+    graphs.put(parent.getId(), run);
+    run.start();
+    return parent;
+  }
+
+  // starts one step of a graph
+  JobContext startChild(Job parent, JobContextConsumer jobFunction) {
+    Job job =
+        Job.builder()
+            .createdBy(parent.getCreatedBy())
+            .status("running")
+            .parentJobId(parent.getId())
+            .traceId(parent.getTraceId())
+            .build();
     jobsRepository.save(job);
+    JobContext context = newContext(job);
+    context.setDeadline(Instant.now().plusMillis(defaultTimeoutMs));
+    running.put(job.getId(), context);
+    if (!accepting) {
+      // a step finished during shutdown; its dependents start only to record that they stopped
+      context.stop("interrupted");
+    }
+    try {
+      self.runJobAsync(context, jobFunction);
+    } catch (RuntimeException e) {
+      notStarted(context, e);
+      throw e;
+    }
+    return context;
+  }
+
+  // called once every step of a graph has finished or been skipped
+  void finishGraph(JobContext parent, String status) {
+    Job job = parent.getJob();
+    graphs.remove(job.getId());
+    job.setStatus(status);
+    try {
+      compressLog(job);
+      jobsRepository.save(job);
+    } finally {
+      parent.getCompletion().complete(job);
+      running.remove(job.getId(), parent);
+    }
+  }
+
+  /**
+   * Stops a running or waiting job with status "cancelled". The job is interrupted, and its next
+   * call to {@link JobContext#checkCancelled()} throws. Cancelling the parent job of a graph
+   * cancels the steps that are running and skips the rest.
+   *
+   * @param jobId the id of the job
+   * @return false if there is no such job or it has already finished
+   */
+  public boolean cancel(Long jobId) {
+    JobGraphRun graph = graphs.get(jobId);
+    if (graph != null) {
+      return graph.cancel();
+    }
+    JobContext context = running.get(jobId);
+    return context != null && context.stop("cancelled");
+  }
+
+  /**
+   * Shuts the jobs of this application down: no new jobs are accepted, jobs that have not started
+   * yet are stopped, and running jobs get <code>timeout</code> to finish. Jobs still running after
+   * that are stopped with status "interrupted" (they are interrupted, and checkCancelled() throws)
+   * and get <code>grace</code> to save what they have done. Jobs that ignore that too are saved
+   * with status "interrupted" as they are, so no job is left "running".
+   *
+   * @param timeout how long to wait for running jobs to finish
+   * @param grace how long to wait for stopped jobs to save their state
+   */
+  public void drain(Duration timeout, Duration grace) {
+    accepting = false;
+    log.info(
+        "Shutting down: waiting up to {} ms for {} job(s)", timeout.toMillis(), running.size());
+    running.values().stream().filter(c -> !c.isStarted()).forEach(c -> c.stop("interrupted"));
+    if (awaitIdle(timeout)) {
+      return;
+    }
+
+    log.warn("Shutting down: interrupting {} job(s)", running.size());
+    running.values().forEach(c -> c.stop("interrupted"));
+    if (awaitIdle(grace)) {
+      return;
+    }
+
+    // the threads of these jobs may still change them, so only their rows are updated
+    for (JobContext context : running.values()) {
+      long id = context.getJob().getId();
+      log.warn("Job {} ignored the interrupt; saving it as interrupted", id);
+      jobsRepository.stopRunning(id, "interrupted", "Job interrupted by shutdown", "\n");
+    }
+  }
+
+  // waits until no job is running; jobs may start meanwhile, e.g. the next steps of a graph
+  private boolean awaitIdle(Duration timeout) {
+    Instant deadline = Instant.now().plus(timeout);
+    while (!running.isEmpty()) {
+      long remainingMs = Duration.between(Instant.now(), deadline).toMillis();
+      if (remainingMs <= 0) {
+        return false;
+      }
+      CompletableFuture.allOf(
+              running.values().stream()
+                  .map(JobContext::getCompletion)
+                  .toArray(CompletableFuture[]::new))
+          .completeOnTimeout(null, remainingMs, TimeUnit.MILLISECONDS)
+          .join();
+    }
+    return true;
+  }
+
+  private void checkAccepting() {
+    if (!accepting) {
+      throw new IllegalStateException("not accepting new jobs: the application is shutting down");
+    }
+  }
+
+  /** Stops, with status "timeout", every job that has run past its deadline. */
+  @Scheduled(fixedDelayString = "${app.jobs.timeoutCheckMs:1000}")
+  public void stopOverdueJobs() {
+    Instant now = Instant.now();
+    for (JobContext context : running.values()) {
+      if (context.isOverdue(now) && context.stop("timeout")) {
+        log.warn("Job {} ran past its deadline and was stopped", context.getJob().getId());
+      }
+    }
+  }
+
+  // the log of a finished job never changes again, so from here on it is stored compressed
+  private void compressLog(Job job) {
+    String text = job.getLog();
+    if (text == null) {
+      return;
+    }
+    long start = System.nanoTime();
+    byte[] compressed = JobLogCompression.compress(text);
+    log.info(
+        "Job {}: log compressed from {} chars to {} bytes in {} us",
+        job.getId(),
+        text.length(),
+        compressed.length,
+        (System.nanoTime() - start) / 1000);
+    job.setCompressedLog(compressed);
+    job.setLog(null);
   }
 
   public String getJobLogs(Long jobId) {
-    Job job =
-        jobsRepository
-            .findById(jobId)
-            .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+    Job job = findJob(jobId);
 
+    if (job.getCompressedLog() != null) {
+      return JobLogCompression.decompress(job.getCompressedLog());
+    }
     String log = job.getLog();
     return log != null ? log : "";
   }
+
+  /**
+   * Writes the log of a job to a stream; a compressed log is decompressed as it is written, so the
+   * whole text is never in memory at once.
+   *
+   * @param jobId the id of the job
+   * @param out where to write the log, as UTF-8
+   * @throws IOException if writing fails
+   */
+  public void writeJobLogs(Long jobId, OutputStream out) throws IOException {
+    Job job = findJob(jobId);
+
+    if (job.getCompressedLog() != null) {
+      try (InputStream in = JobLogCompression.inflate(job.getCompressedLog())) {
+        in.transferTo(out);
+      }
+    } else if (job.getLog() != null) {
+      out.write(job.getLog().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private Job findJob(Long jobId) {
+    return jobsRepository
+        .findById(jobId)
+        .or(() -> jobArchiveService.findArchived(jobId))
+        .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+  }
 }
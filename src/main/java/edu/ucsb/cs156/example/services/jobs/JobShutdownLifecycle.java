@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the jobs of this application when it shuts down, so that a deploy or restart does not
+ * leave jobs "running" in the database forever.
+ *
+ * <p>When the application context stops, this calls {@link JobService#drain(Duration, Duration)}
+ * with the properties <code>app.jobs.shutdown.drainMs</code> and <code>
+ * app.jobs.shutdown.interruptGraceMs</code>. It does not change the readiness of the application:
+ * Spring Boot already marks it as refusing traffic when the context starts closing, before any
+ * phase stops.
+ *
+ * <p>It stops in the phase just below the web server's graceful shutdown, so requests in flight
+ * finish first and can still start jobs. The task executor that runs the jobs must keep accepting
+ * and running them until then: with <code>spring.task.execution.shutdown.await-termination</code>
+ * set, it is only shut down once the context is destroyed, after every phase has stopped, instead
+ * of when the context starts closing.
+ */
+@Slf4j
+@Component("jobShutdownLifecycle")
+public class JobShutdownLifecycle implements SmartLifecycle {
+
+  @Autowired private JobService jobService;
+
+  @Value("${app.jobs.shutdown.drainMs:20000}")
+  private long drainMs = 20000;
+
+  @Value("${app.jobs.shutdown.interruptGraceMs:5000}")
+  private long interruptGraceMs = 5000;
+
+  private volatile boolean running;
+
+  @Override
+  public void start() {
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    log.info("Shutting down: draining jobs");
+    jobService.drain(Duration.ofMillis(drainMs), Duration.ofMillis(interruptGraceMs));
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+  }
+}
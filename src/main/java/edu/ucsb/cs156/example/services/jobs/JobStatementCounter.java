@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on a thread while it is running a job.
+ *
+ * <p>Registered with the property <code>
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector</code>. Statements on threads
+ * that are not running a job are passed through without being counted.
+ */
+public class JobStatementCounter implements StatementInspector {
+
+  private static final ThreadLocal<long[]> counts = new ThreadLocal<>();
+
+  static void start() {
+    counts.set(new long[1]);
+  }
+
+  static long stop() {
+    long count = counts.get()[0];
+    counts.remove();
+    return count;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    long[] count = counts.get();
+    if (count != null) {
+      count[0]++;
+    }
+    return sql;
+  }
+}
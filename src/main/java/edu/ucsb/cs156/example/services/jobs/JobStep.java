@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.util.Map;
+
+/** One step of a {@link JobGraph}. */
+@FunctionalInterface
+public interface JobStep {
+  /**
+   * Runs the step.
+   *
+   * @param c the context of the job running this step
+   * @param inputs the outputs of the steps this step depends on, by step name
+   * @return the output of this step, passed to the steps that depend on it
+   * @throws Exception if the step fails; the steps that depend on it are then skipped
+   */
+  Object run(JobContext c, Map<String, Object> inputs) throws Exception;
+}
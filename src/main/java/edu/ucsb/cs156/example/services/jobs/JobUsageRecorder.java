@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import com.sun.management.ThreadMXBean;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobUsage;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Measures the resources used by one run of a job. Must be started and finished on the thread that
+ * runs the job.
+ *
+ * <p>If the JVM has thread CPU time measurement turned off, the CPU time is recorded as 0.
+ */
+class JobUsageRecorder {
+
+  private static final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final Instant submittedAt;
+  private final JobEvent event = new JobEvent();
+  private Instant startedAt;
+  private long startNanos;
+  private long startCpuNanos;
+  private long startAllocatedBytes;
+
+  JobUsageRecorder(Instant submittedAt) {
+    this.submittedAt = submittedAt;
+  }
+
+  void start() {
+    event.begin();
+    startedAt = Instant.now();
+    startNanos = System.nanoTime();
+    startCpuNanos = threads.getCurrentThreadCpuTime();
+    startAllocatedBytes = threads.getCurrentThreadAllocatedBytes();
+    JobStatementCounter.start();
+  }
+
+  /**
+   * Stops measuring and emits the Flight Recorder event for the run.
+   *
+   * @param job the job, with its final status
+   * @return what the run used
+   */
+  JobUsage finish(Job job) {
+    long statements = JobStatementCounter.stop();
+    JobUsage usage =
+        JobUsage.builder()
+            .startedAt(startedAt.atZone(ZoneId.systemDefault()))
+            .queueWaitMs(Duration.between(submittedAt, startedAt).toMillis())
+            .wallTimeMs((System.nanoTime() - startNanos) / 1_000_000)
+            .cpuTimeMs((threads.getCurrentThreadCpuTime() - startCpuNanos) / 1_000_000)
+            .allocatedBytes(threads.getCurrentThreadAllocatedBytes() - startAllocatedBytes)
+            .statementCount(statements)
+            .build();
+
+    event.jobId = job.getId();
+    event.status = job.getStatus();
+    event.queueWaitMs = usage.getQueueWaitMs();
+    event.cpuTimeMs = usage.getCpuTimeMs();
+    event.allocatedBytes = usage.getAllocatedBytes();
+    event.statementCount = statements;
+    event.commit();
+    return usage;
+  }
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import java.time.Duration;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How often, and after how long, a failed job is run again.
+ *
+ * <p>After attempt <code>n</code> fails the job waits <code>
+ * initialBackoff * multiplier^(n - 1)</code>, capped at <code>maxBackoff</code>, and then a random
+ * fraction of up to <code>jitter</code> of that wait is taken off, so that jobs which failed
+ * together (e.g. because the database was down) do not all retry at the same moment. Only
+ * exceptions that are instances of one of the <code>retryOn</code> classes are retried; a job that
+ * was cancelled or timed out never is.
+ *
+ * <p>A retried job runs its whole function again, so it must be safe to re-execute: anything done
+ * by a failed attempt must either be undone by the failure (e.g. a rolled back transaction) or be
+ * harmless to repeat.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RetryPolicy {
+  @Builder.Default private int maxAttempts = 1; // 1 means the job is never retried
+  @Builder.Default private Duration initialBackoff = Duration.ofSeconds(1);
+  @Builder.Default private double multiplier = 2.0;
+  @Builder.Default private Duration maxBackoff = Duration.ofMinutes(5);
+  @Builder.Default private double jitter = 0.5; // between 0 (none) and 1 (anywhere from 0 to max)
+  @Builder.Default private List<Class<? extends Exception>> retryOn = List.of(Exception.class);
+
+  /**
+   * Decides whether to run a job again after an attempt failed.
+   *
+   * @param attempt the number of the attempt that failed, starting at 1
+   * @param e the exception the attempt threw
+   * @return true if there are attempts left and the exception is retryable
+   */
+  public boolean shouldRetry(int attempt, Exception e) {
+    return attempt < maxAttempts
+        && !(e instanceof JobCancelledException)
+        && retryOn.stream().anyMatch(c -> c.isInstance(e));
+  }
+
+  /**
+   * Computes how long to wait before the next attempt.
+   *
+   * @param attempt the number of the attempt that failed, starting at 1
+   * @param random a random number between 0 (inclusive) and 1 (exclusive)
+   * @return the wait
+   */
+  public Duration backoff(int attempt, double random) {
+    double millis = initialBackoff.toMillis() * Math.pow(multiplier, attempt - 1);
+    millis = Math.min(millis, maxBackoff.toMillis());
+    return Duration.ofMillis(Math.round(millis * (1 - jitter * random)));
+  }
+}
@@ -0,0 +1,147 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+/**
+ * A counting Bloom filter over the ids of one table.
+ *
+ * <p>Each slot is a 4-bit counter (sixteen to a <code>long</code>), so ids can be removed as well
+ * as added. {@link #mightContain(Object)} never returns false for an id that was added and not
+ * removed; it may return true for an id that was never added (a false positive). A counter that
+ * reaches 15 is never decremented again, which can only cause false positives, never false
+ * negatives.
+ */
+public class CountingBloomFilter {
+
+  private static final int MAX_COUNT = 15;
+
+  private final long[] counters;
+  private final int slots;
+  private final int hashes;
+  private final long capacity;
+  private long count;
+
+  /**
+   * Creates a filter sized so that, with <code>capacity</code> ids in it, the false positive rate
+   * is about <code>falsePositiveRate</code>.
+   *
+   * @param capacity the expected number of ids
+   * @param falsePositiveRate the desired false positive rate, e.g. 0.01
+   */
+  public CountingBloomFilter(long capacity, double falsePositiveRate) {
+    this.capacity = Math.max(1, capacity);
+    double ln2 = Math.log(2);
+    long m = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+    this.slots = (int) Math.min(Integer.MAX_VALUE - 15, Math.max(64, m));
+    this.hashes = (int) Math.max(1, Math.round((double) slots / this.capacity * ln2));
+    this.counters = new long[(slots + 15) / 16];
+  }
+
+  private static long mix(Object id) {
+    long h = id.hashCode() * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    h *= 0xBF58476D1CE4E5B9L;
+    return h ^ (h >>> 29);
+  }
+
+  private int slot(long hash, int i) {
+    // double hashing: slot_i = h1 + i * h2
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    return Math.floorMod(h1 + i * h2, slots);
+  }
+
+  private int get(int slot) {
+    return (int) (counters[slot >>> 4] >>> ((slot & 15) << 2)) & MAX_COUNT;
+  }
+
+  private void set(int slot, int value) {
+    int shift = (slot & 15) << 2;
+    counters[slot >>> 4] = (counters[slot >>> 4] & ~(15L << shift)) | ((long) value << shift);
+  }
+
+  /**
+   * Adds an id.
+   *
+   * @param id the id
+   */
+  public synchronized void add(Object id) {
+    long hash = mix(id);
+    for (int i = 0; i < hashes; i++) {
+      int s = slot(hash, i);
+      int c = get(s);
+      if (c < MAX_COUNT) {
+        set(s, c + 1);
+      }
+    }
+    count++;
+  }
+
+  /**
+   * Removes an id. Must only be called for an id that was added.
+   *
+   * @param id the id
+   */
+  public synchronized void remove(Object id) {
+    long hash = mix(id);
+    for (int i = 0; i < hashes; i++) {
+      int s = slot(hash, i);
+      int c = get(s);
+      if (c > 0 && c < MAX_COUNT) {
+        set(s, c - 1);
+      }
+    }
+    count = Math.max(0, count - 1);
+  }
+
+  /**
+   * Checks whether an id may be present.
+   *
+   * @param id the id
+   * @return false if the id is definitely absent; true if it may be present
+   */
+  public synchronized boolean mightContain(Object id) {
+    long hash = mix(id);
+    for (int i = 0; i < hashes; i++) {
+      if (get(slot(hash, i)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * This method returns the number of ids currently in the filter.
+   *
+   * @return the number of ids added minus the number removed
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * This method returns the number of ids the filter was sized for.
+   *
+   * @return the capacity
+   */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Estimates the current false positive rate from the number of ids in the filter, using the
+   * standard formula <code>(1 - e^(-k n / m))^k</code>.
+   *
+   * @return the estimated false positive rate, between 0 and 1
+   */
+  public synchronized double expectedFalsePositiveRate() {
+    return Math.pow(1 - Math.exp(-(double) hashes * count / slots), hashes);
+  }
+
+  /**
+   * This method returns the memory used by the counters.
+   *
+   * @return the size of the counters in bytes
+   */
+  public long memoryBytes() {
+    return 8L * counters.length;
+  }
+}
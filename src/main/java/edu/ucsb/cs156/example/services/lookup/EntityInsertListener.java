@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a Hibernate listener that tells the {@link EntityLookupService} about every row inserted
+ * on this node, so that its Bloom filters never rule out an id that exists.
+ *
+ * <p>Unlike {@link edu.ucsb.cs156.example.models.EntityChangedEvent}s, which only the controllers
+ * publish, this also sees rows saved directly through a repository (jobs, data loaders, tests).
+ * Rows inserted with native SQL or by another node are not seen; see {@link
+ * NegativeLookupFilterLoader}.
+ */
+@Service("entityInsertListener")
+public class EntityInsertListener implements PostInsertEventListener {
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private EntityLookupService entityLookupService;
+
+  /** Registers this listener with Hibernate. */
+  @PostConstruct
+  public void register() {
+    entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .requireService(EventListenerRegistry.class)
+        .appendListeners(EventType.POST_INSERT, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    entityLookupService.onInserted(event.getPersister().getMappedClass(), event.getId());
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+}
@@ -0,0 +1,409 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.EntityLookupStats;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * This is a service that looks up entities by id on behalf of the controllers.
+ *
+ * <p>Lookups are served from a read-through {@link TinyLfuCache} whose size is bounded in bytes
+ * (property <code>app.lookup.cache.maxBytes</code>; 0 turns the cache off). Entries expire after
+ * <code>app.lookup.cache.ttlMs</code>, which bounds how long a row changed by another node, or
+ * without an event, is served from the cache (0 for no expiry). On a miss, concurrent lookups of
+ * the same (entity type, id) are coalesced into a single call to the repository; see {@link
+ * SingleFlight}. Cached entries are invalidated when an {@link EntityChangedEvent} reports that the
+ * entity was updated or deleted.
+ *
+ * <p>For each table whose ids have been loaded (see {@link NegativeLookupFilterLoader}), a {@link
+ * CountingBloomFilter} of the ids lets lookups of ids that definitely do not exist return without a
+ * query. Every row Hibernate inserts on this node is added to it (see {@link
+ * EntityInsertListener}), whether or not it was written by a controller, and every id an {@link
+ * EntityChangedEvent} reports as deleted is removed from it once the delete has committed, so
+ * lookups of deleted ids are answered without a query too. The filter must never claim that an
+ * existing id does not exist, so an id is only removed from a filter that it was added to: a filter
+ * being rebuilt, which may or may not have read the deleted row, keeps it until its next rebuild,
+ * which only costs a false positive.
+ */
+@Slf4j
+@Service("entityLookup")
+public class EntityLookupService {
+
+  /** Key of the cache: the type of the entity plus its id. */
+  record EntityKey(Class<?> type, Object id) {}
+
+  private static final class Counters {
+    private final SingleFlight<Object, Optional<?>> flight = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder filterFalsePositives = new LongAdder();
+    private final LongAdder batchQueries = new LongAdder();
+  }
+
+  private static final long EXPECTED_ENTITY_BYTES = 512;
+
+  // the instance fields of each entity class, for estimateBytes
+  private static final ClassValue<List<Field>> FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          List<Field> fields = new ArrayList<>();
+          ReflectionUtils.doWithFields(
+              type,
+              field -> {
+                ReflectionUtils.makeAccessible(field);
+                fields.add(field);
+              },
+              field -> !Modifier.isStatic(field.getModifiers()));
+          return List.copyOf(fields);
+        }
+      };
+
+  @Value("${app.lookup.batch.chunkSize:1000}")
+  private int batchChunkSize = 1000;
+
+  private final ConcurrentHashMap<Class<?>, Counters> counters = new ConcurrentHashMap<>();
+  private final TinyLfuCache<EntityKey, Object> cache;
+  private final AtomicLong invalidations = new AtomicLong();
+  private final ConcurrentHashMap<Class<?>, CountingBloomFilter> filters =
+      new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, CountingBloomFilter> rebuilding =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates the service.
+   *
+   * @param cacheMaxBytes the maximum estimated size of the cached entities, in bytes
+   * @param cacheTtlMs how long an entity is served from the cache, in ms; 0 for no limit
+   */
+  public EntityLookupService(
+      @Value("${app.lookup.cache.maxBytes:16777216}") long cacheMaxBytes,
+      @Value("${app.lookup.cache.ttlMs:60000}") long cacheTtlMs) {
+    this.cache =
+        new TinyLfuCache<>(
+            cacheMaxBytes,
+            EXPECTED_ENTITY_BYTES,
+            cacheTtlMs > 0 ? Duration.ofMillis(cacheTtlMs) : null,
+            (key, value) -> counters(key.type()).evictions.increment());
+  }
+
+  private Counters counters(Class<?> type) {
+    return counters.computeIfAbsent(type, t -> new Counters());
+  }
+
+  /**
+   * Estimates how much memory an entity takes up: a header, a slot per field, and the contents of
+   * its strings and byte arrays. Any other object a field refers to (a date, a related entity)
+   * counts as a small fixed amount and is not looked into, so a lazy relation is never loaded.
+   *
+   * @param entity the entity
+   * @return the estimated size in bytes
+   */
+  static long estimateBytes(Object entity) {
+    long bytes = 16;
+    for (Field field : FIELDS.get(entity.getClass())) {
+      Object value = ReflectionUtils.getField(field, entity);
+      bytes += 8;
+      if (value instanceof String s) {
+        bytes += 40 + 2L * s.length();
+      } else if (value instanceof byte[] b) {
+        bytes += 16 + b.length;
+      } else if (value != null && !field.getType().isPrimitive()) {
+        bytes += 24;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Looks up an entity by id.
+   *
+   * @param <T> the type of the entity
+   * @param <ID> the type of the id of the entity
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param repository the repository for the entity
+   * @param id the id of the entity
+   * @return the entity, or an empty Optional if there is no entity with that id
+   */
+  @SuppressWarnings("unchecked")
+  public <T, ID> Optional<T> findById(Class<T> type, CrudRepository<T, ID> repository, ID id) {
+    Counters c = counters(type);
+    EntityKey key = new EntityKey(type, id);
+
+    Object cached = cache.get(key);
+    if (cached != null) {
+      c.hits.increment();
+      return Optional.of((T) cached);
+    }
+    c.misses.increment();
+
+    CountingBloomFilter filter = filters.get(type);
+    if (filter != null && !filter.mightContain(id)) {
+      c.filtered.increment();
+      return Optional.empty();
+    }
+
+    long invalidationsBefore = invalidations.get();
+    Optional<T> result = (Optional<T>) c.flight.load(id, () -> repository.findById(id));
+    // don't cache a value that may have been loaded before a concurrent update or delete
+    if (result.isPresent() && invalidations.get() == invalidationsBefore) {
+      cache.put(key, result.get(), estimateBytes(result.get()));
+    }
+    if (filter != null && result.isEmpty()) {
+      c.filterFalsePositives.increment();
+    }
+    return result;
+  }
+
+  /**
+   * Looks up several entities by id. Ids that are cached or ruled out by the Bloom filter are
+   * answered directly; the rest are loaded with <code>findAllById</code>, one IN query per chunk of
+   * <code>app.lookup.batch.chunkSize</code> ids (so that no query exceeds the database's limit on
+   * bind parameters).
+   *
+   * @param <T> the type of the entity
+   * @param <ID> the type of the id of the entity
+   * @param type the class of the entity, e.g. UCSBDate.class
+   * @param repository the repository for the entity
+   * @param ids the ids to look up; may contain duplicates
+   * @param idOf returns the id of an entity, e.g. UCSBDate::getId
+   * @return one result per requested id, in the same order as <code>ids</code>
+   */
+  @SuppressWarnings("unchecked")
+  public <T, ID> List<BatchLookupResult<T>> findAllById(
+      Class<T> type, CrudRepository<T, ID> repository, List<ID> ids, Function<T, ID> idOf) {
+    Counters c = counters(type);
+    CountingBloomFilter filter = filters.get(type);
+    Map<ID, T> found = new HashMap<>();
+    List<ID> toLoad = new ArrayList<>();
+
+    for (ID id : new LinkedHashSet<>(ids)) {
+      Object cached = cache.get(new EntityKey(type, id));
+      if (cached != null) {
+        c.hits.increment();
+        found.put(id, (T) cached);
+        continue;
+      }
+      c.misses.increment();
+      if (filter != null && !filter.mightContain(id)) {
+        c.filtered.increment();
+        continue;
+      }
+      toLoad.add(id);
+    }
+
+    long invalidationsBefore = invalidations.get();
+    for (int from = 0; from < toLoad.size(); from += batchChunkSize) {
+      List<ID> chunk = toLoad.subList(from, Math.min(toLoad.size(), from + batchChunkSize));
+      c.batchQueries.increment();
+      for (T entity : repository.findAllById(chunk)) {
+        found.put(idOf.apply(entity), entity);
+      }
+    }
+    boolean cacheable = invalidations.get() == invalidationsBefore;
+    for (ID id : toLoad) {
+      T entity = found.get(id);
+      if (entity == null) {
+        if (filter != null) {
+          c.filterFalsePositives.increment();
+        }
+      } else if (cacheable) {
+        cache.put(new EntityKey(type, id), entity, estimateBytes(entity));
+      }
+    }
+
+    return ids.stream()
+        .map(id -> new BatchLookupResult<T>(id, found.containsKey(id), found.get(id)))
+        .toList();
+  }
+
+  /**
+   * Removes an entity from the cache.
+   *
+   * @param type the class of the entity
+   * @param id the id of the entity
+   */
+  public void invalidate(Class<?> type, Object id) {
+    invalidations.incrementAndGet();
+    cache.invalidate(new EntityKey(type, id));
+  }
+
+  /**
+   * Replaces the Bloom filter for an entity type with a new one filled with the given ids.
+   *
+   * <p>Ids inserted while the new filter is being filled are added to it as well, both when they
+   * are inserted and when their transaction commits, so a row that was not yet committed when the
+   * ids were read is not lost.
+   *
+   * @param type the class of the entity
+   * @param filter a new, empty filter
+   * @param ids loads the ids of all the rows of the table; called after the new filter starts
+   *     receiving inserted ids
+   */
+  public void installFilter(
+      Class<?> type, CountingBloomFilter filter, Supplier<? extends Collection<?>> ids) {
+    rebuilding.put(type, filter);
+    try {
+      ids.get().forEach(filter::add);
+      filters.put(type, filter);
+    } finally {
+      rebuilding.remove(type, filter);
+    }
+  }
+
+  /**
+   * Removes the Bloom filter for an entity type, so that every lookup goes to the database.
+   *
+   * @param type the class of the entity
+   */
+  public void removeFilter(Class<?> type) {
+    filters.remove(type);
+  }
+
+  /**
+   * Adds an id that was just inserted to the Bloom filters of its entity type, and once the
+   * transaction commits to any filter installed or started in between, so that a filter rebuilt
+   * meanwhile does not miss it. Each filter gets the id once, so that a delete can remove it again.
+   * A transaction that rolls back leaves the id in the filter, which only costs a false positive.
+   *
+   * @param type the class of the entity
+   * @param id the id of the inserted row
+   */
+  public void onInserted(Class<?> type, Object id) {
+    Set<CountingBloomFilter> added = addToFilters(type, id, Set.of());
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              addToFilters(type, id, added);
+            }
+          });
+    }
+  }
+
+  // adds the id to the current filters of the type that are not in skip; returns those filters
+  private Set<CountingBloomFilter> addToFilters(
+      Class<?> type, Object id, Set<CountingBloomFilter> skip) {
+    Set<CountingBloomFilter> current = Collections.newSetFromMap(new IdentityHashMap<>());
+    Stream.of(filters.get(type), rebuilding.get(type))
+        .filter(Objects::nonNull)
+        .forEach(current::add);
+    current.stream().filter(f -> !skip.contains(f)).forEach(f -> f.add(id));
+    return current;
+  }
+
+  /**
+   * Removes an updated or deleted entity from the cache as soon as the write is made.
+   *
+   * @param event the event describing the change
+   */
+  @EventListener
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getChangeType() != ChangeType.CREATED) {
+      event.changedIds().forEach(changed -> invalidate(event.getEntityType(), changed));
+    }
+  }
+
+  /**
+   * Removes an entity from the cache again once the write has committed, as it may have been read
+   * and cached before the end of the transaction (e.g. a batch). Deleted ids are removed from the
+   * Bloom filter of their entity type.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChangeCommitted(EntityChangedEvent event) {
+    Class<?> type = event.getEntityType();
+    event.changedIds().forEach(id -> invalidate(type, id));
+    CountingBloomFilter filter = filters.get(type);
+    if (event.getChangeType() == ChangeType.DELETED && filter != null) {
+      // an id that is definitely not in the filter was never added to it, so it is not removed
+      event.changedIds().stream().filter(filter::mightContain).forEach(filter::remove);
+    }
+  }
+
+  /**
+   * Removes an entity from the cache once a transaction that wrote it has rolled back, as it may
+   * have been read and cached before the end of the transaction.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+  public void onEntityChangeRolledBack(EntityChangedEvent event) {
+    event.changedIds().forEach(id -> invalidate(event.getEntityType(), id));
+  }
+
+  /**
+   * This method returns statistics for every entity type that has been looked up.
+   *
+   * @return a list of statistics, sorted by entity name
+   */
+  public List<EntityLookupStats> getStats() {
+    Map<EntityKey, Long> weights = cache.weights();
+    return counters.entrySet().stream()
+        .map(
+            e -> {
+              Class<?> type = e.getKey();
+              Counters c = e.getValue();
+              List<Long> cached =
+                  weights.entrySet().stream()
+                      .filter(w -> w.getKey().type().equals(type))
+                      .map(Map.Entry::getValue)
+                      .toList();
+              CountingBloomFilter filter = filters.get(type);
+              return EntityLookupStats.builder()
+                  .entity(type.getSimpleName())
+                  .loads(c.flight.getLoads())
+                  .coalesced(c.flight.getCoalesced())
+                  .hits(c.hits.sum())
+                  .misses(c.misses.sum())
+                  .evictions(c.evictions.sum())
+                  .cachedEntries(cached.size())
+                  .cachedBytes(cached.stream().mapToLong(Long::longValue).sum())
+                  .filteredLookups(c.filtered.sum())
+                  .filterFalsePositives(c.filterFalsePositives.sum())
+                  .filterExpectedFalsePositiveRate(
+                      filter == null ? 0 : filter.expectedFalsePositiveRate())
+                  .filterBytes(filter == null ? 0 : filter.memoryBytes())
+                  .batchQueries(c.batchQueries.sum())
+                  .build();
+            })
+        .sorted(Comparator.comparing(EntityLookupStats::getEntity))
+        .toList();
+  }
+}
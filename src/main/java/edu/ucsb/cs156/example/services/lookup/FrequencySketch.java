@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+/**
+ * A count-min sketch that estimates how often a key has been seen recently, as used by TinyLFU.
+ *
+ * <p>Each of the four rows holds small saturating counters (maximum 15). When the number of
+ * increments reaches the sample size, every counter is halved so that old popularity fades.
+ */
+class FrequencySketch {
+
+  private static final int[] SEEDS = {0x97cb3127, 0xc3a5c85c, 0xb492b66f, 0x9ae16a3b};
+  private static final int MAX_COUNT = 15;
+
+  private final int[][] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Creates a sketch sized for roughly the given number of distinct keys.
+   *
+   * @param expectedKeys the expected number of distinct keys
+   */
+  FrequencySketch(int expectedKeys) {
+    int width = Integer.highestOneBit(Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+    this.table = new int[SEEDS.length][width];
+    this.mask = width - 1;
+    this.sampleSize = 10 * width;
+  }
+
+  private int index(int hash, int row) {
+    int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+    h ^= h >>> 16;
+    return h & mask;
+  }
+
+  /**
+   * Records one occurrence of the key with the given hash.
+   *
+   * @param hash the hash code of the key
+   */
+  void increment(int hash) {
+    int min = frequency(hash);
+    if (min < MAX_COUNT) {
+      // conservative update: only the counters that hold the minimum are incremented
+      for (int row = 0; row < table.length; row++) {
+        int i = index(hash, row);
+        if (table[row][i] == min) {
+          table[row][i]++;
+        }
+      }
+    }
+    if (++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Returns the estimated number of recent occurrences of the key with the given hash.
+   *
+   * @param hash the hash code of the key
+   * @return the estimated frequency, between 0 and 15
+   */
+  int frequency(int hash) {
+    int min = MAX_COUNT;
+    for (int row = 0; row < table.length; row++) {
+      min = Math.min(min, table[row][index(hash, row)]);
+    }
+    return min;
+  }
+
+  private void reset() {
+    for (int[] row : table) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>>= 1;
+      }
+    }
+    additions /= 2;
+  }
+}
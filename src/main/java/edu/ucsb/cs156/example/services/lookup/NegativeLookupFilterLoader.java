@@ -0,0 +1,108 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that fills the negative-lookup Bloom filters of the {@link EntityLookupService}
+ * with the ids of the tables the controllers look up.
+ *
+ * <p>Only the entity types in {@link #FILTERED_TYPES} get a filter. The other tables (jobs, users,
+ * the change log) are written by background work and never looked up through the service, so they
+ * are not worth the risk.
+ *
+ * <p>The filters are built when the application starts and rebuilt periodically (property <code>
+ * app.lookup.negativeFilter.rebuildMs</code>), which also clears out the ids of deleted rows. Ids
+ * inserted in between are added by the {@link EntityInsertListener}, which only sees this node: set
+ * <code>app.lookup.negativeFilter.enabled=false</code> when more than one instance of the app
+ * writes to the same database, or when rows are inserted with SQL.
+ */
+@Slf4j
+@Service("negativeLookupFilterLoader")
+public class NegativeLookupFilterLoader {
+
+  /** The entity types that the controllers look up and write through their repositories. */
+  static final Set<Class<?>> FILTERED_TYPES =
+      Set.of(
+          Articles.class,
+          HelpRequest.class,
+          MenuItemReview.class,
+          RecommendationRequest.class,
+          Restaurant.class,
+          UCSBDate.class,
+          UCSBDiningCommons.class,
+          UCSBDiningCommonsMenuItem.class,
+          UCSBOrganization.class);
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private EntityLookupService entityLookupService;
+
+  @Value("${app.lookup.negativeFilter.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${app.lookup.negativeFilter.falsePositiveRate:0.01}")
+  private double falsePositiveRate = 0.01;
+
+  /** Builds the filters once the application has started. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuildAll();
+  }
+
+  /** Rebuilds the filter of every entity type in {@link #FILTERED_TYPES}. */
+  @Scheduled(
+      initialDelayString = "${app.lookup.negativeFilter.rebuildMs:3600000}",
+      fixedDelayString = "${app.lookup.negativeFilter.rebuildMs:3600000}")
+  public void rebuildAll() {
+    if (!enabled) {
+      return;
+    }
+    for (EntityType<?> entityType : entityManager.getMetamodel().getEntities()) {
+      if (FILTERED_TYPES.contains(entityType.getJavaType())) {
+        rebuild(entityType);
+      }
+    }
+  }
+
+  private void rebuild(EntityType<?> entityType) {
+    String entityName = entityType.getName();
+    String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+    long rows =
+        entityManager
+            .createQuery("select count(e) from " + entityName + " e", Long.class)
+            .getSingleResult();
+    // leave room for growth so the false positive rate stays near the target until next rebuild
+    CountingBloomFilter filter =
+        new CountingBloomFilter(Math.max(1024, 2 * rows), falsePositiveRate);
+    entityLookupService.installFilter(
+        entityType.getJavaType(),
+        filter,
+        () ->
+            entityManager
+                .createQuery("select e." + idName + " from " + entityName + " e", Object.class)
+                .getResultList());
+    log.info(
+        "negative lookup filter for {}: {} ids, {} bytes",
+        entityName,
+        filter.getCount(),
+        filter.memoryBytes());
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load for a key is in flight, other callers
+ * asking for the same key wait for that load and share its result instead of starting their own.
+ *
+ * <p>Nothing is cached; once a load completes, the next caller starts a new one.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong loads = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Returns the value for the key, either by running the loader or by waiting for a load of the
+   * same key that is already in flight.
+   *
+   * @param key the key to load
+   * @param loader the function that loads the value from the backing store
+   * @return the loaded value
+   */
+  public V load(K key, Supplier<V> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      coalesced.incrementAndGet();
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+
+    loads.incrementAndGet();
+    try {
+      V value = loader.get();
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * This method returns the number of loads that actually ran the loader.
+   *
+   * @return the number of loads
+   */
+  public long getLoads() {
+    return loads.get();
+  }
+
+  /**
+   * This method returns the number of calls that shared a load already in flight.
+   *
+   * @return the number of coalesced calls
+   */
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * This method returns the number of loads currently in flight.
+   *
+   * @return the number of loads in flight
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+}
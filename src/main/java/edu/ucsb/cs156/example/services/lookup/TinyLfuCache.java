@@ -0,0 +1,270 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A size-bounded cache with W-TinyLFU admission.
+ *
+ * <p>New entries go into a small LRU "window" (1% of the capacity). When an entry falls out of the
+ * window it is only admitted to the main LRU region if it has been requested more often than the
+ * entries it would displace, as estimated by a {@link FrequencySketch}. This keeps popular entries
+ * cached even when many one-off lookups pass through.
+ *
+ * <p>The cache is split by key hash into up to {@value #MAX_SEGMENTS} segments, each with its own
+ * lock, sketch and share of the capacity, so that lookups of different keys rarely wait for each
+ * other. Small caches have fewer segments, so that each segment still holds enough entries for its
+ * window and admission to work.
+ *
+ * <p>Capacity is measured in weight units (bytes, for the entity cache). A capacity of zero turns
+ * the cache off. Entries can be given a time to live, after which they are no longer returned; this
+ * bounds how long a value changed elsewhere (e.g. by another node) can be served.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class TinyLfuCache<K, V> {
+
+  static final int MAX_SEGMENTS = 16;
+
+  // the smallest number of typical entries a segment is given
+  private static final long MIN_SEGMENT_ENTRIES = 1024;
+
+  private record Node<V>(V value, long weight, long expiresAt) {}
+
+  private final long maxWeight;
+  private final long ttlMs;
+  private final BiConsumer<K, V> evictionListener;
+  private final List<Segment> segments = new ArrayList<>();
+
+  private Clock clock = Clock.systemUTC();
+
+  /**
+   * Creates a cache whose entries do not expire.
+   *
+   * @param maxWeight the maximum total weight of the cached entries; zero disables the cache
+   * @param expectedEntryWeight a typical entry weight, used to size the frequency sketch
+   * @param evictionListener called for each entry evicted (or refused) because of the size bound
+   */
+  public TinyLfuCache(long maxWeight, long expectedEntryWeight, BiConsumer<K, V> evictionListener) {
+    this(maxWeight, expectedEntryWeight, null, evictionListener);
+  }
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxWeight the maximum total weight of the cached entries; zero disables the cache
+   * @param expectedEntryWeight a typical entry weight, used to size the frequency sketch
+   * @param ttl how long an entry is returned after it was put, or null for no limit
+   * @param evictionListener called for each entry evicted (or refused) because of the size bound
+   */
+  public TinyLfuCache(
+      long maxWeight, long expectedEntryWeight, Duration ttl, BiConsumer<K, V> evictionListener) {
+    this.maxWeight = Math.max(0, maxWeight);
+    this.ttlMs = ttl == null ? 0 : ttl.toMillis();
+    this.evictionListener = evictionListener;
+    long expectedEntries = this.maxWeight / Math.max(1, expectedEntryWeight);
+    int count =
+        Integer.highestOneBit(
+            (int) Math.max(1, Math.min(MAX_SEGMENTS, expectedEntries / MIN_SEGMENT_ENTRIES)));
+    for (int i = 0; i < count; i++) {
+      segments.add(new Segment(this.maxWeight / count, expectedEntries / count));
+    }
+  }
+
+  private Segment segmentFor(K key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return segments.get((h ^ (h >>> 16)) & (segments.size() - 1));
+  }
+
+  int segmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * This method returns whether the cache can hold anything at all.
+   *
+   * @return false if the cache was created with a capacity of zero
+   */
+  public boolean isEnabled() {
+    return maxWeight > 0;
+  }
+
+  /**
+   * Returns the cached value for the key and records the access.
+   *
+   * @param key the key
+   * @return the cached value, or null if the key is not cached or its entry has expired
+   */
+  public V get(K key) {
+    return isEnabled() ? segmentFor(key).get(key, clock.millis()) : null;
+  }
+
+  /**
+   * Adds (or replaces) an entry. The entry may be evicted immediately if it does not win admission.
+   *
+   * @param key the key
+   * @param value the value
+   * @param weight the weight of the entry
+   */
+  public void put(K key, V value, long weight) {
+    if (isEnabled()) {
+      long expiresAt = ttlMs > 0 ? clock.millis() + ttlMs : Long.MAX_VALUE;
+      segmentFor(key).put(key, new Node<>(value, weight, expiresAt));
+    }
+  }
+
+  /**
+   * Removes the entry for the key, if any. This is not reported to the eviction listener.
+   *
+   * @param key the key
+   */
+  public void invalidate(K key) {
+    segmentFor(key).invalidate(key);
+  }
+
+  /** Removes all entries. */
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.invalidateAll();
+    }
+  }
+
+  /**
+   * This method returns the total weight of the cached entries. Expired entries count until they
+   * are read or evicted.
+   *
+   * @return the total weight
+   */
+  public long weightedSize() {
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.weightedSize();
+    }
+    return size;
+  }
+
+  /**
+   * This method returns the weight of every cached entry. Expired entries are included until they
+   * are read or evicted.
+   *
+   * @return a map from key to weight
+   */
+  public Map<K, Long> weights() {
+    Map<K, Long> result = new HashMap<>();
+    for (Segment segment : segments) {
+      segment.addWeights(result);
+    }
+    return result;
+  }
+
+  /** A part of the cache, with its own lock. */
+  private final class Segment {
+    private final long windowMaxWeight;
+    private final long mainMaxWeight;
+    private final FrequencySketch sketch;
+
+    private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long mainWeight;
+
+    Segment(long maxWeight, long expectedEntries) {
+      this.windowMaxWeight = maxWeight / 100;
+      this.mainMaxWeight = maxWeight - windowMaxWeight;
+      this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, expectedEntries));
+    }
+
+    synchronized V get(K key, long now) {
+      sketch.increment(key.hashCode());
+      Node<V> node = window.get(key);
+      if (node == null) {
+        node = main.get(key);
+      }
+      if (node == null) {
+        return null;
+      }
+      if (now >= node.expiresAt()) {
+        removeNode(key);
+        return null;
+      }
+      return node.value();
+    }
+
+    synchronized void put(K key, Node<V> node) {
+      if (node.weight() > mainMaxWeight) {
+        return;
+      }
+      removeNode(key);
+      window.put(key, node);
+      windowWeight += node.weight();
+      while (windowWeight > windowMaxWeight) {
+        Map.Entry<K, Node<V>> eldest = window.entrySet().iterator().next();
+        window.remove(eldest.getKey());
+        windowWeight -= eldest.getValue().weight();
+        admitToMain(eldest.getKey(), eldest.getValue());
+      }
+    }
+
+    private void admitToMain(K key, Node<V> candidate) {
+      List<Map.Entry<K, Node<V>>> victims = new ArrayList<>();
+      long freed = 0;
+      int candidateFrequency = sketch.frequency(key.hashCode());
+      for (Map.Entry<K, Node<V>> e : main.entrySet()) {
+        if (mainWeight - freed + candidate.weight() <= mainMaxWeight) {
+          break;
+        }
+        if (sketch.frequency(e.getKey().hashCode()) >= candidateFrequency) {
+          evictionListener.accept(key, candidate.value());
+          return;
+        }
+        victims.add(e);
+        freed += e.getValue().weight();
+      }
+      for (Map.Entry<K, Node<V>> victim : victims) {
+        main.remove(victim.getKey());
+        mainWeight -= victim.getValue().weight();
+        evictionListener.accept(victim.getKey(), victim.getValue().value());
+      }
+      main.put(key, candidate);
+      mainWeight += candidate.weight();
+    }
+
+    synchronized void invalidate(K key) {
+      removeNode(key);
+    }
+
+    synchronized void invalidateAll() {
+      window.clear();
+      main.clear();
+      windowWeight = 0;
+      mainWeight = 0;
+    }
+
+    private void removeNode(K key) {
+      Node<V> old = window.remove(key);
+      if (old != null) {
+        windowWeight -= old.weight();
+      }
+      old = main.remove(key);
+      if (old != null) {
+        mainWeight -= old.weight();
+      }
+    }
+
+    synchronized long weightedSize() {
+      return windowWeight + mainWeight;
+    }
+
+    synchronized void addWeights(Map<K, Long> result) {
+      window.forEach((k, n) -> result.put(k, n.weight()));
+      main.forEach((k, n) -> result.put(k, n.weight()));
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package edu.ucsb.cs156.example.services.queue;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestQueue;
+import edu.ucsb.cs156.example.models.QueuePosition;
+import edu.ucsb.cs156.example.models.WaitTimes;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that keeps the queue of unsolved help requests in memory, so that the queue and
+ * a request's position in it are answered without reading the table.
+ *
+ * <p>Requests are helped one team at a time: round 1 of the queue holds the oldest unsolved request
+ * of every team, by request time, then round 2 their second oldest, and so on, so a team with many
+ * requests does not hold up the others. The queue is an {@link OrderStatisticTreap} on (round,
+ * request time, id); the position of a request is its rank, in O(log n). A write re-ranks only the
+ * requests of the team it belongs to, as every later request of the team moves up or down a round:
+ * O(t log n) for a team of t queued requests.
+ *
+ * <p>The queue is loaded when the application starts and then follows the {@link
+ * EntityChangedEvent}s of help requests. When a queued request is marked solved, how long it waited
+ * is recorded; the wait time percentiles are kept over the last <code>
+ * app.helprequests.queue.waitSamples</code> solved requests, in a second treap.
+ */
+@Slf4j
+@Service("helpRequestQueueService")
+public class HelpRequestQueueService {
+
+  /** A request in its team's own queue: oldest first. */
+  record Arrival(LocalDateTime requestTime, long id) {}
+
+  /** A request in the queue: the round is its place in its team's own queue. */
+  record QueueKey(int round, Arrival arrival) {}
+
+  record WaitSample(long seconds, long sequence) {}
+
+  private static final Comparator<Arrival> ARRIVAL_ORDER =
+      Comparator.comparing(Arrival::requestTime, Comparator.nullsLast(Comparator.naturalOrder()))
+          .thenComparingLong(Arrival::id);
+
+  private static final Comparator<QueueKey> QUEUE_ORDER =
+      Comparator.comparingInt(QueueKey::round).thenComparing(QueueKey::arrival, ARRIVAL_ORDER);
+
+  private static final Comparator<WaitSample> WAIT_ORDER =
+      Comparator.comparingLong(WaitSample::seconds).thenComparingLong(WaitSample::sequence);
+
+  @Autowired private HelpRequestRepository helpRequestRepository;
+
+  @Value("${app.helprequests.queue.waitSamples:1000}")
+  private int waitSamples = 1000;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private final OrderStatisticTreap<QueueKey> queue = new OrderStatisticTreap<>(QUEUE_ORDER);
+  private final Map<Long, HelpRequest> requests = new HashMap<>();
+  private final Map<Long, QueueKey> keys = new HashMap<>();
+  private final Map<String, TreeSet<Arrival>> teams = new HashMap<>();
+  private final OrderStatisticTreap<WaitSample> waits = new OrderStatisticTreap<>(WAIT_ORDER);
+  private final ArrayDeque<WaitSample> recentWaits = new ArrayDeque<>();
+  private long waitSequence;
+
+  /** Loads the unsolved requests once the application has started. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    queue.clear();
+    requests.clear();
+    keys.clear();
+    teams.clear();
+    helpRequestRepository.findBySolvedFalse().forEach(this::enqueue);
+    log.info("help request queue loaded: {} unsolved requests", queue.size());
+  }
+
+  /**
+   * Applies a write to a help request to the queue once it has committed. Being synchronized with
+   * {@link #load()}, a write committed while the load reads the table is applied after it.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != HelpRequest.class) {
+      return;
+    }
+    HelpRequest request = (HelpRequest) event.getEntity();
+    if (event.getChangeType() == ChangeType.DELETED) {
+      event.changedIds().forEach(id -> dequeue((Long) id));
+    } else if (!request.getSolved()) {
+      enqueue(request);
+    } else {
+      HelpRequest solved = dequeue(request.getId());
+      if (solved != null) {
+        recordWait(solved);
+      }
+    }
+  }
+
+  private static String team(HelpRequest request) {
+    return Objects.toString(request.getTeamId(), "");
+  }
+
+  private void enqueue(HelpRequest request) {
+    dequeue(request.getId()); // the team or request time may have changed
+    requests.put(request.getId(), request);
+    String team = team(request);
+    teams
+        .computeIfAbsent(team, t -> new TreeSet<>(ARRIVAL_ORDER))
+        .add(new Arrival(request.getRequestTime(), request.getId()));
+    rerank(team);
+  }
+
+  private HelpRequest dequeue(long id) {
+    HelpRequest request = requests.remove(id);
+    if (request == null) {
+      return null;
+    }
+    QueueKey key = keys.remove(id);
+    queue.remove(key);
+    String team = team(request);
+    TreeSet<Arrival> arrivals = teams.get(team);
+    arrivals.remove(key.arrival());
+    if (arrivals.isEmpty()) {
+      teams.remove(team);
+    } else {
+      rerank(team);
+    }
+    return request;
+  }
+
+  /** Gives each request of a team the round of its place in the team's own queue. */
+  private void rerank(String team) {
+    int round = 0;
+    for (Arrival arrival : teams.get(team)) {
+      QueueKey key = new QueueKey(round++, arrival);
+      QueueKey previous = keys.put(arrival.id(), key);
+      if (!key.equals(previous)) {
+        if (previous != null) {
+          queue.remove(previous);
+        }
+        queue.add(key);
+      }
+    }
+  }
+
+  private void recordWait(HelpRequest request) {
+    if (request.getRequestTime() == null) {
+      return;
+    }
+    long seconds = Duration.between(request.getRequestTime(), LocalDateTime.now(clock)).toSeconds();
+    WaitSample sample = new WaitSample(Math.max(0, seconds), waitSequence++);
+    recentWaits.addLast(sample);
+    waits.add(sample);
+    if (recentWaits.size() > waitSamples) {
+      waits.remove(recentWaits.removeFirst());
+    }
+  }
+
+  private Long waitPercentile(double p) {
+    return waits.size() == 0
+        ? null
+        : waits.get((int) Math.ceil(p * waits.size()) - 1).seconds(); // nearest rank
+  }
+
+  /**
+   * This method returns the first requests of the queue and the wait time percentiles.
+   *
+   * @param limit the maximum number of requests to return; the requests are read in O(log n +
+   *     limit)
+   * @return the queue
+   */
+  public synchronized HelpRequestQueue getQueue(int limit) {
+    return HelpRequestQueue.builder()
+        .size(queue.size())
+        .requests(queue.first(limit).stream().map(k -> requests.get(k.arrival().id())).toList())
+        .waitTimes(
+            WaitTimes.builder()
+                .samples(waits.size())
+                .p50Seconds(waitPercentile(0.5))
+                .p90Seconds(waitPercentile(0.9))
+                .p99Seconds(waitPercentile(0.99))
+                .build())
+        .build();
+  }
+
+  /**
+   * This method returns the position of a request in the queue.
+   *
+   * @param id the id of the request
+   * @return the position, or an empty Optional if the request is not in the queue (it does not
+   *     exist or is solved)
+   */
+  public synchronized Optional<QueuePosition> getPosition(long id) {
+    QueueKey key = keys.get(id);
+    if (key == null) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        QueuePosition.builder().id(id).position(queue.rankOf(key) + 1).size(queue.size()).build());
+  }
+}
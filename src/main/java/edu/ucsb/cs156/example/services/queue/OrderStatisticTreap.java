@@ -0,0 +1,234 @@
+package edu.ucsb.cs156.example.services.queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * A sorted set that can also find the rank of a key and the key at a rank, in O(log n) expected
+ * time.
+ *
+ * <p>It is a treap: a binary search tree on the keys that is also a heap on random priorities,
+ * which keeps it balanced in expectation whatever the order of insertions. Each node stores the
+ * size of its subtree, which is what makes {@link #rankOf(Object)} and {@link #get(int)}
+ * logarithmic. Not thread-safe.
+ *
+ * @param <K> the type of the keys; keys comparing equal are duplicates
+ */
+public class OrderStatisticTreap<K> {
+
+  private static final class Node<K> {
+    private final K key;
+    private final int priority;
+    private int size = 1;
+    private Node<K> left;
+    private Node<K> right;
+
+    private Node(K key, int priority) {
+      this.key = key;
+      this.priority = priority;
+    }
+  }
+
+  private record Split<K>(Node<K> less, Node<K> notLess) {}
+
+  private final Comparator<? super K> comparator;
+  private final SplittableRandom random = new SplittableRandom();
+  private Node<K> root;
+
+  /**
+   * Creates an empty treap.
+   *
+   * @param comparator the order of the keys
+   */
+  public OrderStatisticTreap(Comparator<? super K> comparator) {
+    this.comparator = comparator;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static <K> Node<K> resize(Node<K> node) {
+    node.size = 1 + size(node.left) + size(node.right);
+    return node;
+  }
+
+  /**
+   * This method returns the number of keys.
+   *
+   * @return the number of keys
+   */
+  public int size() {
+    return size(root);
+  }
+
+  /** Removes every key. */
+  public void clear() {
+    root = null;
+  }
+
+  /**
+   * Adds a key, unless an equal key is already present.
+   *
+   * @param key the key
+   * @return true if the key was added
+   */
+  public boolean add(K key) {
+    if (rankOf(key) >= 0) {
+      return false;
+    }
+    root = insert(root, new Node<>(key, random.nextInt()));
+    return true;
+  }
+
+  private Node<K> insert(Node<K> tree, Node<K> node) {
+    if (tree == null) {
+      return node;
+    }
+    if (node.priority > tree.priority) {
+      Split<K> split = split(tree, node.key);
+      node.left = split.less();
+      node.right = split.notLess();
+      return resize(node);
+    }
+    if (comparator.compare(node.key, tree.key) < 0) {
+      tree.left = insert(tree.left, node);
+    } else {
+      tree.right = insert(tree.right, node);
+    }
+    return resize(tree);
+  }
+
+  private Split<K> split(Node<K> tree, K key) {
+    if (tree == null) {
+      return new Split<>(null, null);
+    }
+    if (comparator.compare(tree.key, key) < 0) {
+      Split<K> split = split(tree.right, key);
+      tree.right = split.less();
+      return new Split<>(resize(tree), split.notLess());
+    }
+    Split<K> split = split(tree.left, key);
+    tree.left = split.notLess();
+    return new Split<>(split.less(), resize(tree));
+  }
+
+  /**
+   * Removes a key.
+   *
+   * @param key the key
+   * @return true if the key was present
+   */
+  public boolean remove(K key) {
+    int before = size();
+    root = remove(root, key);
+    return size() < before;
+  }
+
+  private Node<K> remove(Node<K> tree, K key) {
+    if (tree == null) {
+      return null;
+    }
+    int c = comparator.compare(key, tree.key);
+    if (c == 0) {
+      return merge(tree.left, tree.right);
+    }
+    if (c < 0) {
+      tree.left = remove(tree.left, key);
+    } else {
+      tree.right = remove(tree.right, key);
+    }
+    return resize(tree);
+  }
+
+  /** Joins two trees, every key of <code>less</code> being less than every key of the other. */
+  private Node<K> merge(Node<K> less, Node<K> greater) {
+    if (less == null) {
+      return greater;
+    }
+    if (greater == null) {
+      return less;
+    }
+    if (less.priority > greater.priority) {
+      less.right = merge(less.right, greater);
+      return resize(less);
+    }
+    greater.left = merge(less, greater.left);
+    return resize(greater);
+  }
+
+  /**
+   * This method returns the number of keys less than a key, if the key is present.
+   *
+   * @param key the key
+   * @return the rank of the key (0 for the first), or -1 if it is not present
+   */
+  public int rankOf(K key) {
+    int rank = 0;
+    Node<K> node = root;
+    while (node != null) {
+      int c = comparator.compare(key, node.key);
+      if (c == 0) {
+        return rank + size(node.left);
+      }
+      if (c < 0) {
+        node = node.left;
+      } else {
+        rank += size(node.left) + 1;
+        node = node.right;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * This method returns the key at a rank.
+   *
+   * @param rank the rank, from 0 to size() - 1
+   * @return the key
+   * @throws IndexOutOfBoundsException if there is no key at that rank
+   */
+  public K get(int rank) {
+    Objects.checkIndex(rank, size());
+    Node<K> node = root;
+    while (true) {
+      int left = size(node.left);
+      if (rank == left) {
+        return node.key;
+      }
+      if (rank < left) {
+        node = node.left;
+      } else {
+        rank -= left + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  /**
+   * This method returns the smallest keys, in order, in O(log n + limit) time.
+   *
+   * @param limit the maximum number of keys to return
+   * @return the first <code>limit</code> keys
+   */
+  public List<K> first(int limit) {
+    List<K> keys = new ArrayList<>();
+    Deque<Node<K>> path = new ArrayDeque<>();
+    Node<K> node = root;
+    while (keys.size() < limit && (node != null || !path.isEmpty())) {
+      while (node != null) {
+        path.push(node);
+        node = node.left;
+      }
+      node = path.pop();
+      keys.add(node.key);
+      node = node.right;
+    }
+    return keys;
+  }
+}
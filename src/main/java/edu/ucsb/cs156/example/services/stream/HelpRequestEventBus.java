@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.util.function.Consumer;
+
+/**
+ * Carries help request events to every node of the application that has clients on the help request
+ * stream.
+ *
+ * <p>{@link InMemoryHelpRequestEventBus} only reaches the node that published the event, which is
+ * enough for a single node and for tests. To fan out across nodes, add an implementation backed by
+ * a shared broker (e.g. Postgres LISTEN/NOTIFY) and mark it <code>@Primary</code>.
+ */
+public interface HelpRequestEventBus {
+
+  /**
+   * Sends an event to the listeners on every node.
+   *
+   * @param event the event
+   */
+  void publish(HelpRequestEvent event);
+
+  /**
+   * Registers a listener for the events published on any node. Listeners are called on the thread
+   * that delivers the event, so they must not block.
+   *
+   * @param listener called with every event
+   * @return removes the listener when run
+   */
+  Runnable subscribe(Consumer<HelpRequestEvent> listener);
+}
@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This is a service that pushes changes to help requests to the clients of <code>
+ * GET /api/helprequest/stream</code>, as server-sent events.
+ *
+ * <p>Writes to help requests (their {@link EntityChangedEvent}s) are published on the {@link
+ * HelpRequestEventBus}; every node passes the events it receives from the bus to its own clients,
+ * filtered by each client's team and solved state. Each client has its own buffer of at most <code>
+ * app.helprequests.stream.bufferSize</code> events and is sent to by a virtual thread, so a slow
+ * client only delays itself. Idle connections get a heartbeat every <code>
+ * app.helprequests.stream.heartbeatMs</code>.
+ */
+@Slf4j
+@Service("helpRequestStreamService")
+public class HelpRequestStreamService {
+
+  @Autowired private HelpRequestEventBus helpRequestEventBus;
+
+  @Value("${app.helprequests.stream.bufferSize:256}")
+  private int bufferSize = 256;
+
+  @Value("${app.helprequests.stream.timeoutMs:1800000}")
+  private long timeoutMs = 1800000;
+
+  private final Set<HelpRequestSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+  private Runnable unsubscribe;
+
+  @PostConstruct
+  void start() {
+    unsubscribe = helpRequestEventBus.subscribe(this::deliver);
+  }
+
+  @PreDestroy
+  void stop() {
+    unsubscribe.run();
+    subscribers.forEach(HelpRequestSubscriber::close);
+    senders.shutdown();
+  }
+
+  /**
+   * Opens a stream of changes to help requests. The stream ends after <code>
+   * app.helprequests.stream.timeoutMs</code>; browsers reconnect by themselves.
+   *
+   * @param teamId only requests of this team, or null for all teams
+   * @param solved only solved (true) or unsolved (false) requests, or null for both
+   * @return the emitter of the stream
+   */
+  public SseEmitter subscribe(String teamId, Boolean solved) {
+    SseEmitter emitter = newEmitter(timeoutMs);
+    HelpRequestSubscriber subscriber =
+        new HelpRequestSubscriber(
+            emitter, teamId, solved, bufferSize, senders, subscribers::remove);
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(e -> subscriber.close());
+    subscribers.add(subscriber);
+    return emitter;
+  }
+
+  SseEmitter newEmitter(long timeoutMs) {
+    return new SseEmitter(timeoutMs);
+  }
+
+  /**
+   * Publishes a write to a help request on the bus once it has committed.
+   *
+   * @param event the event describing the change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != HelpRequest.class) {
+      return;
+    }
+    HelpRequestEvent.HelpRequestEventBuilder message =
+        HelpRequestEvent.builder()
+            .changeType(event.getChangeType())
+            .helpRequest((HelpRequest) event.getEntity());
+    if (event.getIds() == null) {
+      message.id((Long) event.getId());
+    } else {
+      message.ids(event.getIds().stream().map(Long.class::cast).toList());
+    }
+    helpRequestEventBus.publish(message.build());
+  }
+
+  private void deliver(HelpRequestEvent event) {
+    subscribers.forEach(subscriber -> subscriber.offer(event));
+  }
+
+  /** Sends a heartbeat to every client. */
+  @Scheduled(
+      initialDelayString = "${app.helprequests.stream.heartbeatMs:15000}",
+      fixedDelayString = "${app.helprequests.stream.heartbeatMs:15000}")
+  public void heartbeat() {
+    subscribers.forEach(HelpRequestSubscriber::heartbeat);
+  }
+
+  /**
+   * This method returns the number of open streams on this node.
+   *
+   * @return the number of clients
+   */
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+}
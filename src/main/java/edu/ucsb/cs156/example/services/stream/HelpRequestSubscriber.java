@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * One client of the help request stream: its filter, and a bounded buffer of the events waiting to
+ * be sent to it.
+ *
+ * <p>Events are sent by at most one task at a time on <code>senders</code>, so a slow client never
+ * holds up the thread that publishes the event or the other clients. If the client falls more than
+ * <code>capacity</code> events behind, the buffered events are dropped and it is sent a "reset"
+ * event instead, after which it should reload the list.
+ */
+@Slf4j
+class HelpRequestSubscriber {
+
+  private final SseEmitter emitter;
+  private final String teamId; // null for any team
+  private final Boolean solved; // null for solved and unsolved requests
+  private final int capacity;
+  private final Executor senders;
+  private final Consumer<HelpRequestSubscriber> onClose;
+
+  // guarded by this
+  private final ArrayDeque<SseEventBuilder> buffer = new ArrayDeque<>();
+  private boolean sending;
+  private boolean overflowed;
+  private boolean closed;
+
+  HelpRequestSubscriber(
+      SseEmitter emitter,
+      String teamId,
+      Boolean solved,
+      int capacity,
+      Executor senders,
+      Consumer<HelpRequestSubscriber> onClose) {
+    this.emitter = emitter;
+    this.teamId = teamId;
+    this.solved = solved;
+    this.capacity = capacity;
+    this.senders = senders;
+    this.onClose = onClose;
+  }
+
+  private boolean matches(HelpRequest request) {
+    return (teamId == null || teamId.equals(request.getTeamId()))
+        && (solved == null || solved == request.getSolved());
+  }
+
+  /**
+   * Queues an event for this client. Created and updated requests that do not match the filter are
+   * not sent, except that an update is sent as "removed" so that a client showing the request can
+   * drop it (e.g. when it is solved and the client only shows unsolved requests).
+   */
+  void offer(HelpRequestEvent event) {
+    HelpRequest request = event.getHelpRequest();
+    Map<String, Long> id = Map.of("id", event.getId());
+    if (event.getIds() != null) {
+      enqueue(SseEmitter.event().name("deleted").data(Map.of("ids", event.getIds())));
+    } else if (event.getChangeType() == ChangeType.DELETED) {
+      enqueue(SseEmitter.event().name("deleted").data(id));
+    } else if (matches(request)) {
+      String name = event.getChangeType() == ChangeType.CREATED ? "created" : "updated";
+      enqueue(SseEmitter.event().name(name).data(request));
+    } else if (event.getChangeType() == ChangeType.UPDATED) {
+      enqueue(SseEmitter.event().name("removed").data(id));
+    }
+  }
+
+  /** Queues a comment, which keeps idle connections open and detects clients that have left. */
+  void heartbeat() {
+    enqueue(SseEmitter.event().comment("heartbeat"));
+  }
+
+  private synchronized void enqueue(SseEventBuilder event) {
+    if (closed) {
+      return;
+    }
+    if (buffer.size() >= capacity) {
+      buffer.clear();
+      overflowed = true;
+    } else if (!overflowed) {
+      buffer.add(event);
+    }
+    if (!sending) {
+      sending = true;
+      senders.execute(this::send);
+    }
+  }
+
+  private void send() {
+    while (true) {
+      SseEventBuilder next;
+      synchronized (this) {
+        if (overflowed) {
+          overflowed = false;
+          next = SseEmitter.event().name("reset").data(Map.of("reason", "too many events"));
+        } else {
+          next = buffer.poll();
+        }
+        if (next == null) {
+          sending = false;
+          return;
+        }
+      }
+      try {
+        emitter.send(next);
+      } catch (IOException | IllegalStateException e) {
+        log.debug("help request stream client has gone: {}", e.toString());
+        close();
+        return;
+      }
+    }
+  }
+
+  /** Stops sending to this client and releases its connection. */
+  void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      buffer.clear();
+      overflowed = false;
+    }
+    onClose.accept(this);
+    emitter.complete();
+  }
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Service;
+
+/**
+ * A {@link HelpRequestEventBus} within one node: events are passed straight to the listeners, on
+ * the thread that publishes them.
+ */
+@Service("helpRequestEventBus")
+public class InMemoryHelpRequestEventBus implements HelpRequestEventBus {
+
+  private final List<Consumer<HelpRequestEvent>> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void publish(HelpRequestEvent event) {
+    listeners.forEach(listener -> listener.accept(event));
+  }
+
+  @Override
+  public Runnable subscribe(Consumer<HelpRequestEvent> listener) {
+    listeners.add(listener);
+    return () -> listeners.remove(listener);
+  }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * This is a task decorator that carries the logging MDC of the thread that submits a task (e.g. the
+ * trace id of a request launching a job) over to the thread that runs it, and adds how long the
+ * task waited for that thread as {@link TraceContext#HANDOFF_MS}.
+ *
+ * <p>Spring Boot applies it to the executor behind <code>@Async</code>; any other executor that
+ * runs work on behalf of a request should be given it too.
+ */
+@Component
+public class MdcTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable task) {
+    Map<String, String> submitter = MDC.getCopyOfContextMap();
+    long submittedAt = System.nanoTime();
+    return () -> {
+      Map<String, String> previous = MDC.getCopyOfContextMap();
+      setContext(submitter);
+      MDC.put(
+          TraceContext.HANDOFF_MS, String.valueOf((System.nanoTime() - submittedAt) / 1_000_000));
+      try {
+        task.run();
+      } finally {
+        setContext(previous);
+      }
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(context);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.tracing;
+
+import java.util.UUID;
+import org.slf4j.MDC;
+
+/**
+ * The names of the correlation ids kept in the logging {@link MDC}, and helpers for reading them.
+ *
+ * <p>The ids are printed with every log line (property <code>logging.pattern.correlation</code>),
+ * so the access log entry of a request, the log lines of the request, and the log lines of any job
+ * or background task it started all carry the same trace id.
+ */
+public final class TraceContext {
+
+  /** Identifies a request and everything it starts; also sent back as X-Request-Id. */
+  public static final String TRACE_ID = "traceId";
+
+  /**
+   * The id of the authenticated user (for OAuth2 users, the provider's subject id), or "anonymous".
+   */
+  public static final String USER = "user";
+
+  /** The method and path of the request. */
+  public static final String ROUTE = "route";
+
+  /** The id of the job whose thread is logging. */
+  public static final String JOB_ID = "jobId";
+
+  /** How long a background task waited between being submitted and starting to run. */
+  public static final String HANDOFF_MS = "handoffMs";
+
+  private TraceContext() {}
+
+  /**
+   * This method returns a new, random trace id.
+   *
+   * @return 16 hex digits
+   */
+  public static String newTraceId() {
+    return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+  }
+
+  /**
+   * This method returns the trace id of the current thread, or a new one if there is none, e.g. on
+   * a scheduler thread.
+   *
+   * @return the trace id
+   */
+  public static String currentOrNewTraceId() {
+    String traceId = MDC.get(TRACE_ID);
+    return traceId != null ? traceId : newTraceId();
+  }
+}
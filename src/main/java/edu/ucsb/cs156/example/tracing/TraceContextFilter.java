@@ -0,0 +1,77 @@
+package edu.ucsb.cs156.example.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * This is a filter that puts the correlation ids of a request (see {@link TraceContext}) into the
+ * logging MDC while the request is handled, and writes one access log line per request.
+ *
+ * <p>The trace id is taken from the X-Request-Id header if the client sent a usable one, and is
+ * otherwise generated; either way it is returned in the X-Request-Id response header. The filter
+ * runs after Spring Security, so that the user is known; requests rejected by Spring Security are
+ * not in the access log. An OAuth2 user is logged by the subject id of the provider (the <code>
+ * googleSub</code> of the users table), which is read from the authentication so that no request
+ * reads the users table for its log lines, and no email address ends up in the logs.
+ */
+@Slf4j
+@Component
+public class TraceContextFilter extends OncePerRequestFilter {
+
+  public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+  // anything else could be used to forge log lines
+  private static final Pattern USABLE_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String requested = request.getHeader(REQUEST_ID_HEADER);
+    String traceId =
+        requested != null && USABLE_ID.matcher(requested).matches()
+            ? requested
+            : TraceContext.newTraceId();
+    String route = request.getMethod() + " " + request.getRequestURI();
+
+    MDC.put(TraceContext.TRACE_ID, traceId);
+    MDC.put(TraceContext.USER, userOf(SecurityContextHolder.getContext().getAuthentication()));
+    MDC.put(TraceContext.ROUTE, route);
+    response.setHeader(REQUEST_ID_HEADER, traceId);
+    long start = System.nanoTime();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      log.info(
+          "{} {} in {} ms", route, response.getStatus(), (System.nanoTime() - start) / 1_000_000);
+      MDC.remove(TraceContext.TRACE_ID);
+      MDC.remove(TraceContext.USER);
+      MDC.remove(TraceContext.ROUTE);
+    }
+  }
+
+  private static String userOf(Authentication authentication) {
+    if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+      return "anonymous";
+    }
+    if (authentication instanceof OAuth2AuthenticationToken token) {
+      String sub = token.getPrincipal().getAttribute("sub");
+      if (sub != null) {
+        return sub;
+      }
+    }
+    return authentication.getName();
+  }
+}
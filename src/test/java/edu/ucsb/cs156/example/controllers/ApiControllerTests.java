@@ -1,25 +1,38 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = DummyController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class ApiControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @Autowired DummyController dummyController;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   @Test
   public void generic_message_test() {
     ApiController apiController = new DummyController();
@@ -53,4 +66,18 @@ public class ApiControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("String with id 7 not found", json.get("message"));
   }
+
+  @Test
+  public void entity_change_events_carry_a_snapshot_of_the_entity() {
+    Articles article = Articles.builder().id(7L).title("before").build();
+
+    dummyController.publishEntityChange(ChangeType.UPDATED, Articles.class, 7L, article);
+    article.setTitle("after");
+
+    List<EntityChangedEvent> events = applicationEvents.stream(EntityChangedEvent.class).toList();
+    assertEquals(1, events.size());
+    Articles snapshot = (Articles) events.get(0).getEntity();
+    assertNotSame(article, snapshot);
+    assertEquals(Articles.builder().id(7L).title("before").build(), snapshot);
+  }
 }
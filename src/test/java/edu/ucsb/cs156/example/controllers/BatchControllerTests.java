@@ -0,0 +1,185 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.BatchOperation;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.batch.BatchService;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@WebMvcTest(controllers = {BatchController.class, ArticlesController.class})
+@Import(BatchService.class)
+public class BatchControllerTests extends ControllerTestCase {
+
+  @MockBean ArticlesRepository articlesRepository;
+
+  @MockBean EntityChangeService entityChangeService;
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean PlatformTransactionManager transactionManager;
+
+  private final SimpleTransactionStatus transactionStatus = new SimpleTransactionStatus();
+
+  @BeforeEach
+  public void setup() {
+    when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+  }
+
+  private MvcResult postBatch(List<BatchOperation> operations, int expectedStatus)
+      throws Exception {
+    return mockMvc
+        .perform(
+            post("/api/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(operations)))
+        .andExpect(status().is(expectedStatus))
+        .andReturn();
+  }
+
+  private BatchResponse batchResponse(MvcResult result) throws Exception {
+    return mapper.readValue(result.getResponse().getContentAsString(), BatchResponse.class);
+  }
+
+  private static BatchOperation deleteArticle(long id) {
+    return BatchOperation.builder()
+        .method("DELETE")
+        .path("/api/articles")
+        .params(Map.of("id", Long.toString(id)))
+        .build();
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_batch() throws Exception {
+    postBatch(List.of(deleteArticle(1)), 403);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void too_many_operations_are_rejected() throws Exception {
+    BatchResponse response =
+        batchResponse(postBatch(Collections.nCopies(101, deleteArticle(1)), 400));
+
+    assertFalse(response.getCommitted());
+    assertEquals("a batch may have at most 100 operations", response.getError());
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_create_and_delete_in_one_batch() throws Exception {
+    Articles saved =
+        Articles.builder()
+            .id(1L)
+            .title("t")
+            .url("u")
+            .explanation("e")
+            .email("a@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    Articles existing = Articles.builder().id(2L).title("old").build();
+    when(articlesRepository.save(any())).thenReturn(saved);
+    when(articlesRepository.findById(eq(2L))).thenReturn(Optional.of(existing));
+    BatchOperation create =
+        BatchOperation.builder()
+            .method("POST")
+            .path("/api/articles/post")
+            .params(
+                Map.of(
+                    "title", "t",
+                    "url", "u",
+                    "explanation", "e",
+                    "email", "a@ucsb.edu",
+                    "dateAdded", "2022-01-03T00:00:00"))
+            .build();
+
+    BatchResponse response = batchResponse(postBatch(List.of(create, deleteArticle(2)), 200));
+
+    assertTrue(response.getCommitted());
+    assertEquals(200, response.getResults().get(0).getStatus());
+    assertEquals(
+        mapper.readTree(mapper.writeValueAsString(saved)), response.getResults().get(0).getBody());
+    assertEquals(200, response.getResults().get(1).getStatus());
+    assertEquals(
+        "Articles with id 2 deleted",
+        response.getResults().get(1).getBody().get("message").asText());
+    verify(articlesRepository, times(1)).delete(existing);
+    verify(transactionManager, times(1)).commit(transactionStatus);
+    assertFalse(transactionStatus.isRollbackOnly());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void preauthorize_is_enforced_per_operation() throws Exception {
+    BatchResponse response = batchResponse(postBatch(List.of(deleteArticle(2)), 200));
+
+    assertFalse(response.getCommitted());
+    assertEquals(403, response.getResults().get(0).getStatus());
+    verify(articlesRepository, never()).findById(any());
+    assertTrue(transactionStatus.isRollbackOnly());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void failed_operation_rolls_back_the_batch() throws Exception {
+    Articles existing = Articles.builder().id(2L).title("old").build();
+    when(articlesRepository.findById(eq(2L))).thenReturn(Optional.of(existing));
+    when(articlesRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+    BatchResponse response =
+        batchResponse(
+            postBatch(List.of(deleteArticle(2), deleteArticle(7), deleteArticle(2)), 200));
+
+    assertFalse(response.getCommitted());
+    assertEquals(200, response.getResults().get(0).getStatus());
+    assertEquals(404, response.getResults().get(1).getStatus());
+    assertEquals(
+        "Articles with id 7 not found",
+        response.getResults().get(1).getBody().get("message").asText());
+    assertEquals(424, response.getResults().get(2).getStatus());
+    verify(articlesRepository, times(1)).delete(existing);
+    assertTrue(transactionStatus.isRollbackOnly());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void missing_parameter_is_reported_as_400() throws Exception {
+    BatchOperation bad = BatchOperation.builder().method("DELETE").path("/api/articles").build();
+
+    BatchResponse response = batchResponse(postBatch(List.of(bad), 200));
+
+    assertFalse(response.getCommitted());
+    assertEquals(400, response.getResults().get(0).getStatus());
+  }
+}
@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -11,15 +13,29 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.HelpRequestQueue;
+import edu.ucsb.cs156.example.models.QueuePosition;
+import edu.ucsb.cs156.example.models.WaitTimes;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.queue.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.stream.HelpRequestStreamService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -29,12 +45,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, BulkDeleteService.class})
 public class HelpRequestControllerTests extends ControllerTestCase {
   @MockBean private HelpRequestRepository helpRequestRepository;
+  @MockBean private EntityChangeService entityChangeService;
+  @MockBean private HelpRequestStreamService helpRequestStreamService;
+  @MockBean private HelpRequestQueueService helpRequestQueueService;
   @MockBean private UserRepository userRepository;
+  @MockBean private JobService jobService;
+  @MockBean private PlatformTransactionManager transactionManager;
 
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
@@ -309,4 +332,290 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 999 not found", json.get("message"));
   }
+
+  // Tests for /api/helprequest/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc.perform(get("/api/helprequest/batch?ids=1,2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    HelpRequest first = HelpRequest.builder().id(1L).teamId("t1").build();
+    HelpRequest second = HelpRequest.builder().id(2L).teamId("t2").build();
+    when(helpRequestRepository.findAllById(List.of(2L, 99L, 1L)))
+        .thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/batch?ids=2,99,1,2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).findAllById(List.of(2L, 99L, 1L));
+    List<BatchLookupResult<HelpRequest>> expected =
+        List.of(
+            new BatchLookupResult<>(2L, true, second),
+            new BatchLookupResult<>(99L, false, null),
+            new BatchLookupResult<>(1L, true, first),
+            new BatchLookupResult<>(2L, true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    HelpRequest first = HelpRequest.builder().id(1L).teamId("t1").build();
+    when(helpRequestRepository.findAllById(List.of(1L, 99L))).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of(1L, 99L))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<HelpRequest>> expected =
+        List.of(
+            new BatchLookupResult<>(1L, true, first), new BatchLookupResult<>(99L, false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/helprequest/bulk?ids=1,2").with(csrf()))
+        .andExpect(status().is(403));
+    verify(helpRequestRepository, times(0)).deleteByIds(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_ids() throws Exception {
+
+    // arrange
+    when(helpRequestRepository.findExistingIds(List.of(1L, 2L, 99L))).thenReturn(List.of(1L, 2L));
+    when(helpRequestRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/helprequest/bulk?ids=1,2,99,2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(helpRequestRepository, times(0)).findById(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(3).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_filter() throws Exception {
+
+    // arrange
+    when(helpRequestRepository.findIdsForBulkDelete(
+            true, LocalDateTime.parse("2025-01-01T00:00:00")))
+        .thenReturn(List.of(4L, 5L));
+    when(helpRequestRepository.deleteByIds(List.of(4L, 5L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest/bulk?solved=true&before=2025-01-01T00:00:00").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(0)).findExistingIds(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(2).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_delete_needs_either_ids_or_filters() throws Exception {
+
+    // act
+    MvcResult neither =
+        mockMvc
+            .perform(delete("/api/helprequest/bulk").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    MvcResult both =
+        mockMvc
+            .perform(delete("/api/helprequest/bulk?ids=1&before=2025-01-01T00:00:00").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(0)).deleteByIds(any());
+    assertEquals("give ids or at least one filter", responseToJson(neither).get("error"));
+    assertEquals("give either ids or filters, not both", responseToJson(both).get("error"));
+  }
+
+  // Tests for GET /api/helprequest/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/helprequest/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(HelpRequest.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/helprequest/stream
+
+  @Test
+  public void logged_out_users_cannot_stream() throws Exception {
+    mockMvc.perform(get("/api/helprequest/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_stream_help_requests_of_one_team() throws Exception {
+    when(helpRequestStreamService.subscribe("s25-6pm-2", false)).thenReturn(new SseEmitter());
+
+    mockMvc
+        .perform(get("/api/helprequest/stream?teamId=s25-6pm-2&solved=false"))
+        .andExpect(status().isOk())
+        .andExpect(request().asyncStarted());
+
+    verify(helpRequestStreamService).subscribe("s25-6pm-2", false);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void filters_of_the_stream_are_optional() throws Exception {
+    when(helpRequestStreamService.subscribe(null, null)).thenReturn(new SseEmitter());
+
+    mockMvc.perform(get("/api/helprequest/stream")).andExpect(request().asyncStarted());
+
+    verify(helpRequestStreamService).subscribe(null, null);
+  }
+
+  // Tests for GET /api/helprequest/queue and /position
+
+  @Test
+  public void logged_out_users_cannot_get_the_queue() throws Exception {
+    mockMvc.perform(get("/api/helprequest/queue")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_queue() throws Exception {
+    HelpRequest next =
+        HelpRequest.builder()
+            .id(3L)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s25-6pm-2")
+            .tableOrBreakoutRoom("7")
+            .requestTime(LocalDateTime.parse("2025-10-01T18:05:00"))
+            .explanation("Dokku deploy fails")
+            .solved(false)
+            .build();
+    HelpRequestQueue queue =
+        HelpRequestQueue.builder()
+            .size(12)
+            .requests(List.of(next))
+            .waitTimes(WaitTimes.builder().samples(1).p50Seconds(60L).build())
+            .build();
+    when(helpRequestQueueService.getQueue(1)).thenReturn(queue);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/queue?limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(queue), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void queue_lists_100_requests_by_default() throws Exception {
+    when(helpRequestQueueService.getQueue(100))
+        .thenReturn(HelpRequestQueue.builder().size(0).requests(List.of()).build());
+
+    mockMvc.perform(get("/api/helprequest/queue")).andExpect(status().isOk());
+
+    verify(helpRequestQueueService).getQueue(100);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_negative_queue_limit_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/queue?limit=-1"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("limit must not be negative", responseToJson(response).get("message"));
+    verify(helpRequestQueueService, never()).getQueue(anyInt());
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_a_position() throws Exception {
+    mockMvc.perform(get("/api/helprequest/position?id=3")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_position_of_a_request() throws Exception {
+    QueuePosition position = QueuePosition.builder().id(3L).position(2).size(12).build();
+    when(helpRequestQueueService.getPosition(3L)).thenReturn(Optional.of(position));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/position?id=3"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(position), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void position_of_a_request_not_in_the_queue_is_not_found() throws Exception {
+    when(helpRequestQueueService.getPosition(9L)).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/position?id=9"))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 9 not found", json.get("message"));
+  }
 }
@@ -0,0 +1,236 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobSchedule.MisfirePolicy;
+import edu.ucsb.cs156.example.repositories.JobScheduleRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = JobSchedulesController.class)
+@Import(TestConfig.class)
+public class JobSchedulesControllerTests extends ControllerTestCase {
+
+  @MockBean JobScheduleRepository jobScheduleRepository;
+
+  @MockBean JobScheduler jobScheduler;
+
+  @MockBean UserRepository userRepository;
+
+  private final ZonedDateTime nextRun = ZonedDateTime.parse("2030-01-01T04:00:00Z");
+
+  @Test
+  public void logged_out_users_cannot_get_all() throws Exception {
+    mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_post() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/schedules/post?name=a&jobType=testJob").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_all_schedules() throws Exception {
+    List<JobSchedule> schedules =
+        List.of(JobSchedule.builder().id(1L).name("nightly").jobType("testJob").build());
+    when(jobScheduleRepository.findAll()).thenReturn(schedules);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(schedules), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_post_a_schedule() throws Exception {
+
+    // arrange
+    when(jobScheduler.validate(any())).thenReturn(null);
+    when(jobScheduler.nextRunAfter(any(), any())).thenReturn(nextRun);
+    when(jobScheduleRepository.findByName("nightly")).thenReturn(Optional.empty());
+    when(jobScheduleRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post")
+                    .param("name", "nightly")
+                    .param("jobType", "testJob")
+                    .param("parameters", "{\"sleepMs\": 10}")
+                    .param("cron", "0 0 4 * * *")
+                    .param("misfirePolicy", "CATCH_UP")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    ArgumentCaptor<JobSchedule> saved = ArgumentCaptor.forClass(JobSchedule.class);
+    verify(jobScheduleRepository, times(1)).save(saved.capture());
+    JobSchedule expected =
+        JobSchedule.builder()
+            .name("nightly")
+            .jobType("testJob")
+            .parameters("{\"sleepMs\": 10}")
+            .cron("0 0 4 * * *")
+            .misfirePolicy(MisfirePolicy.CATCH_UP)
+            .nextRunAt(nextRun)
+            .build();
+    assertEquals(expected, saved.getValue());
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_400_for_an_invalid_schedule() throws Exception {
+    when(jobScheduler.validate(any())).thenReturn("give either cron or fixedRateMs");
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/schedules/post?name=a&jobType=testJob").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("give either cron or fixedRateMs", responseToJson(response).get("message"));
+    verify(jobScheduleRepository, times(0)).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_400_for_a_duplicate_name() throws Exception {
+    when(jobScheduler.validate(any())).thenReturn(null);
+    when(jobScheduleRepository.findByName("a"))
+        .thenReturn(Optional.of(JobSchedule.builder().name("a").build()));
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post?name=a&jobType=testJob&fixedRateMs=1000")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("a schedule named a already exists", responseToJson(response).get("message"));
+    verify(jobScheduleRepository, times(0)).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void resuming_a_paused_schedule_skips_the_missed_runs() throws Exception {
+    JobSchedule paused =
+        JobSchedule.builder()
+            .id(3L)
+            .fixedRateMs(1000L)
+            .enabled(false)
+            .nextRunAt(ZonedDateTime.parse("2020-01-01T00:00:00Z"))
+            .build();
+    when(jobScheduleRepository.findById(3L)).thenReturn(Optional.of(paused));
+    when(jobScheduler.nextRunAfter(any(), any())).thenReturn(nextRun);
+
+    mockMvc
+        .perform(put("/api/jobs/schedules/enabled?id=3&enabled=true").with(csrf()))
+        .andExpect(status().isOk());
+
+    assertTrue(paused.getEnabled());
+    assertEquals(nextRun, paused.getNextRunAt());
+    verify(jobScheduleRepository, times(1)).save(paused);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void pausing_or_re_enabling_keeps_the_next_run_time() throws Exception {
+    ZonedDateTime next = ZonedDateTime.parse("2020-01-01T00:00:00Z");
+    JobSchedule running = JobSchedule.builder().id(4L).fixedRateMs(1000L).nextRunAt(next).build();
+    when(jobScheduleRepository.findById(4L)).thenReturn(Optional.of(running));
+
+    mockMvc
+        .perform(put("/api/jobs/schedules/enabled?id=4&enabled=true").with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(put("/api/jobs/schedules/enabled?id=4&enabled=false").with(csrf()))
+        .andExpect(status().isOk());
+
+    assertEquals(next, running.getNextRunAt());
+    assertEquals(false, running.getEnabled());
+    verify(jobScheduler, times(0)).nextRunAfter(any(), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_404_when_enabling_missing_schedule() throws Exception {
+    when(jobScheduleRepository.findById(5L)).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/jobs/schedules/enabled?id=5&enabled=true").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    assertEquals("JobSchedule with id 5 not found", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_a_schedule() throws Exception {
+    JobSchedule schedule = JobSchedule.builder().id(6L).name("nightly").build();
+    when(jobScheduleRepository.findById(6L)).thenReturn(Optional.of(schedule));
+
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/schedules?id=6").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(jobScheduleRepository, times(1)).delete(schedule);
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "JobSchedule with id 6 deleted")),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_gets_404_when_deleting_missing_schedule() throws Exception {
+    when(jobScheduleRepository.findById(7L)).thenReturn(Optional.empty());
+
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/schedules?id=7").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    verify(jobScheduleRepository, times(0)).delete(any());
+    assertNull(responseToJson(response).get("id"));
+    assertEquals("JobSchedule with id 7 not found", responseToJson(response).get("message"));
+  }
+}
@@ -3,7 +3,10 @@ package edu.ucsb.cs156.example.controllers;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
@@ -17,19 +20,27 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
+import edu.ucsb.cs156.example.services.jobs.JobArchiveService;
+import edu.ucsb.cs156.example.services.jobs.JobLogCompression;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -40,7 +51,7 @@ import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({JobService.class, JobArchiveService.class, BulkDeleteService.class})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
@@ -52,6 +63,14 @@ public class JobsControllerTests extends ControllerTestCase {
 
   @Autowired ObjectMapper objectMapper;
 
+  // what a job that really ran used cannot be known in advance, so it is copied from the job
+  private static ArgumentMatcher<Job> equalsIgnoringUsage(Job expected) {
+    return job -> {
+      expected.setUsage(job.getUsage());
+      return expected.equals(job);
+    };
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
@@ -78,6 +97,72 @@ public class JobsControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_job_listing_shows_percent_complete_and_estimated_completion() throws Exception {
+
+    // arrange
+
+    ZonedDateTime eta = ZonedDateTime.parse("2030-01-01T00:00:00Z");
+    List<Job> jobs =
+        List.of(
+            Job.builder()
+                .id(1L)
+                .status("running")
+                .progressDone(250L)
+                .progressTotal(1000L)
+                .estimatedCompletionAt(eta)
+                .build(),
+            Job.builder().id(2L).status("running").progressDone(5L).progressTotal(4L).build(),
+            Job.builder().id(3L).status("running").progressDone(0L).progressTotal(0L).build(),
+            Job.builder().id(4L).status("running").progressTotal(10L).build(),
+            Job.builder().id(5L).status("complete").progressDone(3L).result("{}").build());
+    when(jobsRepository.findAll()).thenReturn(jobs);
+
+    // act
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(jobs), responseString);
+    List<Map<String, Object>> listing =
+        mapper.readValue(responseString, new TypeReference<List<Map<String, Object>>>() {});
+    assertEquals(25, listing.get(0).get("percentComplete"));
+    assertEquals(
+        mapper.writeValueAsString(eta),
+        mapper.writeValueAsString(listing.get(0).get("estimatedCompletionAt")));
+    assertEquals(100, listing.get(1).get("percentComplete"));
+    assertEquals(null, listing.get(2).get("percentComplete"));
+    assertEquals(null, listing.get(3).get("percentComplete"));
+    assertEquals(null, listing.get(4).get("percentComplete"));
+    assertEquals("{}", listing.get(4).get("result"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_list_the_child_jobs_of_a_job_graph() throws Exception {
+
+    // arrange
+
+    List<Job> children =
+        List.of(
+            Job.builder().id(8L).status("complete").parentJobId(7L).build(),
+            Job.builder().id(9L).status("running").parentJobId(7L).build());
+    when(jobsRepository.findByParentJobIdOrderById(7L)).thenReturn(children);
+
+    // act
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/children?id=7")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(children), response.getResponse().getContentAsString());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void api_getJobLogById__admin_logged_in__returns_job_by_id() throws Exception {
@@ -177,6 +262,22 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_can_get_compressed_log() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().compressedLog(JobLogCompression.compress("line 1\nline 2")).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/plain;charset=UTF-8"))
+        .andExpect(content().string("line 1\nline 2"));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -239,6 +340,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
+            .traceId("launch-test")
             .log("Hello World! from test job!")
             .build();
 
@@ -249,7 +351,9 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
+            .traceId("launch-test")
+            .compressedLog(
+                JobLogCompression.compress("Hello World! from test job!\nGoodbye from test job!"))
             .build();
 
     when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
@@ -257,7 +361,10 @@ public class JobsControllerTests extends ControllerTestCase {
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=2000").with(csrf()))
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=2000")
+                    .header("X-Request-Id", "launch-test")
+                    .with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
@@ -272,7 +379,76 @@ public class JobsControllerTests extends ControllerTestCase {
         .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository, times(4)).save(argThat(equalsIgnoringUsage(jobCompleted))));
+    assertTrue(jobCompleted.getUsage().getWallTimeMs() >= 2000);
+    assertNotNull(jobCompleted.getUsage().getStartedAt());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_running_test_job() throws Exception {
+
+    // arrange
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=60000").with(csrf()))
+        .andExpect(status().isOk());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=0").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String expectedJson = mapper.writeValueAsString(Map.of("message", "Job with id 0 cancelled"));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () ->
+                verify(jobsRepository, atLeastOnce())
+                    .save(argThat(job -> "cancelled".equals(job.getStatus()))));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_gets_reasonable_message_when_cancelling_a_job_that_is_not_running()
+      throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=17").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    String expectedJson =
+        mapper.writeValueAsString(Map.of("message", "Job with id 17 is not running"));
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_job_that_runs_past_its_timeout_is_stopped() throws Exception {
+
+    // act
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=60000&timeoutMs=1").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> {
+              jobService.stopOverdueJobs();
+              verify(jobsRepository, atLeastOnce())
+                  .save(argThat(job -> "timeout".equals(job.getStatus())));
+            });
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -290,6 +466,7 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
+            .traceId("launch-test")
             .log("Hello World! from test job!")
             .build();
 
@@ -300,7 +477,8 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("error")
-            .log("Hello World! from test job!\nFail!")
+            .traceId("launch-test")
+            .compressedLog(JobLogCompression.compress("Hello World! from test job!\nFail!"))
             .build();
 
     when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
@@ -308,7 +486,10 @@ public class JobsControllerTests extends ControllerTestCase {
     // act
     MvcResult response =
         mockMvc
-            .perform(post("/api/jobs/launch/testjob?fail=true&sleepMs=4000").with(csrf()))
+            .perform(
+                post("/api/jobs/launch/testjob?fail=true&sleepMs=4000")
+                    .header("X-Request-Id", "launch-test")
+                    .with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
@@ -323,6 +504,82 @@ public class JobsControllerTests extends ControllerTestCase {
 
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(
+            () -> verify(jobsRepository, times(4)).save(argThat(equalsIgnoringUsage(jobFailed))));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc.perform(delete("/api/jobs/bulk?ids=1,2").with(csrf())).andExpect(status().is(403));
+    verify(jobsRepository, times(0)).deleteByIds(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_ids() throws Exception {
+
+    // arrange
+    when(jobsRepository.findExistingIds(List.of(1L, 2L, 99L))).thenReturn(List.of(1L, 2L));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/bulk?ids=1,2,99,2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobsRepository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(jobsRepository, times(0)).findById(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(3).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_filter() throws Exception {
+
+    // arrange
+    when(jobsRepository.findIdsForBulkDelete(
+            "complete", ZonedDateTime.parse("2025-01-01T00:00:00Z")))
+        .thenReturn(List.of(4L, 5L));
+    when(jobsRepository.deleteByIds(List.of(4L, 5L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/jobs/bulk?status=complete&before=2025-01-01T00:00:00Z").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobsRepository, times(0)).findExistingIds(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(2).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_delete_needs_either_ids_or_filters() throws Exception {
+
+    // act
+    MvcResult neither =
+        mockMvc
+            .perform(delete("/api/jobs/bulk").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    MvcResult both =
+        mockMvc
+            .perform(delete("/api/jobs/bulk?ids=1&before=2025-01-01T00:00:00Z").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(jobsRepository, times(0)).deleteByIds(any());
+    assertEquals("give ids or at least one filter", responseToJson(neither).get("error"));
+    assertEquals("give either ids or filters, not both", responseToJson(both).get("error"));
   }
 }
@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.EntityLookupStats;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.lookup.EntityLookupService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = LookupStatsController.class)
+@Import(TestConfig.class)
+public class LookupStatsControllerTests extends ControllerTestCase {
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean EntityLookupService entityLookupService;
+
+  @Test
+  public void lookupstats__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/lookupstats")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void lookupstats__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/lookupstats")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void lookupstats__admin_logged_in() throws Exception {
+
+    // arrange
+
+    List<EntityLookupStats> expected =
+        List.of(EntityLookupStats.builder().entity("Articles").loads(3).coalesced(2).build());
+    when(entityLookupService.getStats()).thenReturn(expected);
+
+    // act
+
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/lookupstats")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    String expectedJson = mapper.writeValueAsString(expected);
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+}
@@ -15,12 +15,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -37,6 +41,8 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase {
 
   @MockBean MenuItemReviewRepository menuItemReviewRepository;
 
+  @MockBean EntityChangeService entityChangeService;
+
   @MockBean UserRepository userRepository;
 
   @Test
@@ -346,4 +352,87 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  // Tests for /api/menuitemreviews/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc.perform(get("/api/menuitemreviews/batch?ids=1,2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    MenuItemReview first = MenuItemReview.builder().id(1L).stars(1).build();
+    MenuItemReview second = MenuItemReview.builder().id(2L).stars(2).build();
+    when(menuItemReviewRepository.findAllById(List.of(2L, 99L, 1L)))
+        .thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/batch?ids=2,99,1,2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).findAllById(List.of(2L, 99L, 1L));
+    List<BatchLookupResult<MenuItemReview>> expected =
+        List.of(
+            new BatchLookupResult<>(2L, true, second),
+            new BatchLookupResult<>(99L, false, null),
+            new BatchLookupResult<>(1L, true, first),
+            new BatchLookupResult<>(2L, true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    MenuItemReview first = MenuItemReview.builder().id(1L).stars(1).build();
+    when(menuItemReviewRepository.findAllById(List.of(1L, 99L))).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreviews/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of(1L, 99L))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<MenuItemReview>> expected =
+        List.of(
+            new BatchLookupResult<>(1L, true, first), new BatchLookupResult<>(99L, false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/menuitemreviews/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/menuitemreviews/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(MenuItemReview.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
 }
@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = ReadinessController.class)
+public class ReadinessControllerTests extends ControllerTestCase {
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean ApplicationAvailability applicationAvailability;
+
+  @Test
+  public void readiness_is_ok_while_accepting_traffic() throws Exception {
+    when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.ACCEPTING_TRAFFIC);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/readiness")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(
+        "{\"readiness\":\"ACCEPTING_TRAFFIC\"}", response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void readiness_is_503_while_shutting_down() throws Exception {
+    when(applicationAvailability.getReadinessState()).thenReturn(ReadinessState.REFUSING_TRAFFIC);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/readiness"))
+            .andExpect(status().isServiceUnavailable())
+            .andReturn();
+
+    assertEquals(
+        "{\"readiness\":\"REFUSING_TRAFFIC\"}", response.getResponse().getContentAsString());
+  }
+}
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -15,11 +16,22 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkDeleteService;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.ProfessorWorkloadService;
+import edu.ucsb.cs156.example.services.deadlines.RecommendationRequestDeadlineService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -30,12 +42,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @WebMvcTest(controllers = RecommendationRequestsController.class)
-@Import(TestConfig.class)
+@Import({TestConfig.class, BulkDeleteService.class})
 public class RecommendationRequestsControllerTests extends ControllerTestCase {
   @MockBean RecommendationRequestRepository recommendationRequestRepository;
+
+  @MockBean EntityChangeService entityChangeService;
+  @MockBean RecommendationRequestDeadlineService recommendationRequestDeadlineService;
+  @MockBean ProfessorWorkloadService professorWorkloadService;
   @MockBean UserRepository userRepository;
+  @MockBean JobService jobService;
+  @MockBean PlatformTransactionManager transactionManager;
 
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
@@ -362,4 +381,253 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
   }
+
+  // Tests for /api/recommendationrequests/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/batch?ids=1,2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    RecommendationRequest first = RecommendationRequest.builder().id(1L).explanation("e1").build();
+    RecommendationRequest second = RecommendationRequest.builder().id(2L).explanation("e2").build();
+    when(recommendationRequestRepository.findAllById(List.of(2L, 99L, 1L)))
+        .thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/batch?ids=2,99,1,2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).findAllById(List.of(2L, 99L, 1L));
+    List<BatchLookupResult<RecommendationRequest>> expected =
+        List.of(
+            new BatchLookupResult<>(2L, true, second),
+            new BatchLookupResult<>(99L, false, null),
+            new BatchLookupResult<>(1L, true, first),
+            new BatchLookupResult<>(2L, true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    RecommendationRequest first = RecommendationRequest.builder().id(1L).explanation("e1").build();
+    when(recommendationRequestRepository.findAllById(List.of(1L, 99L))).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequests/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of(1L, 99L))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<RecommendationRequest>> expected =
+        List.of(
+            new BatchLookupResult<>(1L, true, first), new BatchLookupResult<>(99L, false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_bulk_delete() throws Exception {
+    mockMvc
+        .perform(delete("/api/recommendationrequests/bulk?ids=1,2").with(csrf()))
+        .andExpect(status().is(403));
+    verify(recommendationRequestRepository, times(0)).deleteByIds(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_ids() throws Exception {
+
+    // arrange
+    when(recommendationRequestRepository.findExistingIds(List.of(1L, 2L, 99L)))
+        .thenReturn(List.of(1L, 2L));
+    when(recommendationRequestRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/recommendationrequests/bulk?ids=1,2,99,2").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).deleteByIds(List.of(1L, 2L));
+    verify(recommendationRequestRepository, times(0)).findById(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(3).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_bulk_delete_by_filter() throws Exception {
+
+    // arrange
+    when(recommendationRequestRepository.findIdsForBulkDelete(
+            true, LocalDateTime.parse("2025-01-01T00:00:00")))
+        .thenReturn(List.of(4L, 5L));
+    when(recommendationRequestRepository.deleteByIds(List.of(4L, 5L))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequests/bulk?done=true&before=2025-01-01T00:00:00")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(0)).findExistingIds(any());
+    BulkDeleteResult expected = BulkDeleteResult.builder().matched(2).deleted(2).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_delete_needs_either_ids_or_filters() throws Exception {
+
+    // act
+    MvcResult neither =
+        mockMvc
+            .perform(delete("/api/recommendationrequests/bulk").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    MvcResult both =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequests/bulk?ids=1&before=2025-01-01T00:00:00")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(0)).deleteByIds(any());
+    assertEquals("give ids or at least one filter", responseToJson(neither).get("error"));
+    assertEquals("give either ids or filters, not both", responseToJson(both).get("error"));
+  }
+
+  // Tests for GET /api/recommendationrequests/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(RecommendationRequest.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/recommendationrequests/due
+
+  @Test
+  public void logged_out_users_cannot_get_due_requests() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/due")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_requests_due_within_a_duration() throws Exception {
+    RecommendationRequest due =
+        RecommendationRequest.builder()
+            .id(5L)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .professorEmail("phtcon@ucsb.edu")
+            .explanation("BS/MS program")
+            .dateRequested(LocalDateTime.parse("2025-09-20T00:00:00"))
+            .dateNeeded(LocalDateTime.parse("2025-10-02T00:00:00"))
+            .done(false)
+            .build();
+    when(recommendationRequestDeadlineService.findDue(Duration.ofHours(12)))
+        .thenReturn(List.of(due));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/due?within=PT12H"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        mapper.writeValueAsString(List.of(due)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void due_requests_are_within_a_week_by_default() throws Exception {
+    when(recommendationRequestDeadlineService.findDue(Duration.ofDays(7))).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/recommendationrequests/due")).andExpect(status().isOk());
+
+    verify(recommendationRequestDeadlineService).findDue(Duration.ofDays(7));
+  }
+
+  // Tests for GET /api/recommendationrequests/workload
+
+  private final List<ProfessorWorkload> workloads =
+      List.of(
+          ProfessorWorkload.builder().professorEmail("phtcon@ucsb.edu").open(3).done(5).build(),
+          ProfessorWorkload.builder().professorEmail("ziad@ucsb.edu").open(1).overdue(1).build());
+
+  @Test
+  public void logged_out_users_cannot_get_workloads() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/workload")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_workload_of_every_professor() throws Exception {
+    when(professorWorkloadService.getWorkloads()).thenReturn(workloads);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/workload"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(workloads), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_workload_of_one_professor() throws Exception {
+    when(professorWorkloadService.getWorkloads()).thenReturn(workloads);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/workload?professorEmail=ziad@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        mapper.writeValueAsString(List.of(workloads.get(1))),
+        response.getResponse().getContentAsString());
+  }
 }
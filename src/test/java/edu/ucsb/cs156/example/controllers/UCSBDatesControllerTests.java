@@ -3,6 +3,8 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,12 +17,17 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.UCSBDateIndex;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -37,6 +44,10 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDateRepository ucsbDateRepository;
 
+  @MockBean EntityChangeService entityChangeService;
+
+  @MockBean UCSBDateIndex ucsbDateIndex;
+
   @MockBean UserRepository userRepository;
 
   // Authorization tests for /api/ucsbdates/admin/all
@@ -331,4 +342,213 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  // Tests for /api/ucsbdates/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/batch?ids=1,2")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    UCSBDate first = UCSBDate.builder().id(1L).name("d1").build();
+    UCSBDate second = UCSBDate.builder().id(2L).name("d2").build();
+    when(ucsbDateRepository.findAllById(List.of(2L, 99L, 1L))).thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/batch?ids=2,99,1,2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).findAllById(List.of(2L, 99L, 1L));
+    List<BatchLookupResult<UCSBDate>> expected =
+        List.of(
+            new BatchLookupResult<>(2L, true, second),
+            new BatchLookupResult<>(99L, false, null),
+            new BatchLookupResult<>(1L, true, first),
+            new BatchLookupResult<>(2L, true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    UCSBDate first = UCSBDate.builder().id(1L).name("d1").build();
+    when(ucsbDateRepository.findAllById(List.of(1L, 99L))).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of(1L, 99L))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<UCSBDate>> expected =
+        List.of(
+            new BatchLookupResult<>(1L, true, first), new BatchLookupResult<>(99L, false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/ucsbdates/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(UCSBDate.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/ucsbdates/range, /quarter and /next
+
+  private final List<UCSBDate> indexed =
+      List.of(
+          UCSBDate.builder()
+              .id(1L)
+              .quarterYYYYQ("20244")
+              .name("firstDayOfClasses")
+              .localDateTime(LocalDateTime.parse("2024-09-26T00:00:00"))
+              .build(),
+          UCSBDate.builder()
+              .id(2L)
+              .quarterYYYYQ("20244")
+              .name("lastDayOfClasses")
+              .localDateTime(LocalDateTime.parse("2024-12-06T00:00:00"))
+              .build());
+
+  @Test
+  public void logged_out_users_cannot_get_a_range() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/range")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_dates_between_two_times() throws Exception {
+    when(ucsbDateIndex.findBetween(
+            LocalDateTime.parse("2024-09-01T00:00:00"), LocalDateTime.parse("2024-12-31T00:00:00")))
+        .thenReturn(indexed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/range?from=2024-09-01T00:00:00&to=2024-12-31T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(indexed), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_range_without_limits() throws Exception {
+    when(ucsbDateIndex.findBetween(isNull(), isNull())).thenReturn(indexed);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/range")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(indexed), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_range_that_ends_before_it_starts_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/range?from=2024-12-01T00:00:00&to=2024-09-01T00:00:00"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("to must not be before from", responseToJson(response).get("message"));
+    verify(ucsbDateIndex, never()).findBetween(any(), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_range_with_only_a_start() throws Exception {
+    LocalDateTime from = LocalDateTime.parse("2024-12-01T00:00:00");
+    when(ucsbDateIndex.findBetween(eq(from), isNull())).thenReturn(indexed);
+
+    mockMvc
+        .perform(get("/api/ucsbdates/range?from=2024-12-01T00:00:00"))
+        .andExpect(status().isOk());
+
+    verify(ucsbDateIndex).findBetween(eq(from), isNull());
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_a_quarter() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20244")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_dates_of_a_quarter() throws Exception {
+    when(ucsbDateIndex.findByQuarter("20244")).thenReturn(indexed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/quarter?quarterYYYYQ=20244"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(indexed), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_the_next_dates() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/next")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_dates_from_now() throws Exception {
+    when(ucsbDateIndex.findNext(isNull(), eq(5))).thenReturn(indexed);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/ucsbdates/next")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(indexed), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_the_next_dates_from_a_time() throws Exception {
+    when(ucsbDateIndex.findNext(LocalDateTime.parse("2024-10-01T00:00:00"), 1))
+        .thenReturn(indexed.subList(1, 2));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/next?from=2024-10-01T00:00:00&limit=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        mapper.writeValueAsString(indexed.subList(1, 2)),
+        response.getResponse().getContentAsString());
+  }
 }
@@ -15,11 +15,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -36,6 +40,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @MockBean EntityChangeService entityChangeService;
+
   @MockBean UserRepository userRepository;
 
   // Authorization tests for /api/ucsbdiningcommons/admin/all
@@ -357,4 +363,94 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  // Tests for /api/ucsbdiningcommons/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/batch?codes=carrillo,ortega"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    UCSBDiningCommons first =
+        UCSBDiningCommons.builder().code("carrillo").name("ncarrillo").build();
+    UCSBDiningCommons second = UCSBDiningCommons.builder().code("ortega").name("nortega").build();
+    when(ucsbDiningCommonsRepository.findAllById(List.of("ortega", "nope", "carrillo")))
+        .thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/batch?codes=ortega,nope,carrillo,ortega"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1))
+        .findAllById(List.of("ortega", "nope", "carrillo"));
+    List<BatchLookupResult<UCSBDiningCommons>> expected =
+        List.of(
+            new BatchLookupResult<>("ortega", true, second),
+            new BatchLookupResult<>("nope", false, null),
+            new BatchLookupResult<>("carrillo", true, first),
+            new BatchLookupResult<>("ortega", true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    UCSBDiningCommons first =
+        UCSBDiningCommons.builder().code("carrillo").name("ncarrillo").build();
+    when(ucsbDiningCommonsRepository.findAllById(List.of("carrillo", "nope")))
+        .thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of("carrillo", "nope"))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<UCSBDiningCommons>> expected =
+        List.of(
+            new BatchLookupResult<>("carrillo", true, first),
+            new BatchLookupResult<>("nope", false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/ucsbdiningcommons/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(UCSBDiningCommons.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
 }
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,11 +16,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.ChangeFeed;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.EntityChangeService;
+import edu.ucsb.cs156.example.services.UCSBOrganizationIndex;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -35,6 +41,10 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
   @MockBean UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @MockBean EntityChangeService entityChangeService;
+
+  @MockBean UCSBOrganizationIndex ucsbOrganizationIndex;
+
   @MockBean UserRepository userRepository;
 
   // Authorization tests for /api/ucsborganization/all
@@ -440,4 +450,139 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     assert responseString.contains("EntityNotFoundException");
     assert responseString.contains("DNE");
   }
+
+  // Tests for /api/ucsborganization/batch
+
+  @Test
+  public void logged_out_users_cannot_get_batch() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsborganization/batch?orgCodes=SKY,ZPR"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_batch_in_request_order() throws Exception {
+
+    // arrange
+    UCSBOrganization first =
+        UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("oSKY").build();
+    UCSBOrganization second =
+        UCSBOrganization.builder().orgCode("ZPR").orgTranslationShort("oZPR").build();
+    when(ucsbOrganizationRepository.findAllById(List.of("ZPR", "nope", "SKY")))
+        .thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/batch?orgCodes=ZPR,nope,SKY,ZPR"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).findAllById(List.of("ZPR", "nope", "SKY"));
+    List<BatchLookupResult<UCSBOrganization>> expected =
+        List.of(
+            new BatchLookupResult<>("ZPR", true, second),
+            new BatchLookupResult<>("nope", false, null),
+            new BatchLookupResult<>("SKY", true, first),
+            new BatchLookupResult<>("ZPR", true, second));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_post_batch() throws Exception {
+
+    // arrange
+    UCSBOrganization first =
+        UCSBOrganization.builder().orgCode("SKY").orgTranslationShort("oSKY").build();
+    when(ucsbOrganizationRepository.findAllById(List.of("SKY", "nope"))).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/batch")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(List.of("SKY", "nope"))))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    List<BatchLookupResult<UCSBOrganization>> expected =
+        List.of(
+            new BatchLookupResult<>("SKY", true, first),
+            new BatchLookupResult<>("nope", false, null));
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/ucsborganization/changes
+
+  @Test
+  public void logged_out_users_cannot_get_changes() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/changes?since=0")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_changes_since_a_version() throws Exception {
+    ChangeFeed feed = ChangeFeed.builder().version(42).changes(List.of()).build();
+    when(entityChangeService.changesSince(UCSBOrganization.class, 17L)).thenReturn(feed);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/changes?since=17"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(mapper.writeValueAsString(feed), response.getResponse().getContentAsString());
+  }
+
+  // Tests for GET /api/ucsborganization/suggest
+
+  private final List<UCSBOrganization> suggestions =
+      List.of(
+          UCSBOrganization.builder()
+              .orgCode("ZPR")
+              .orgTranslationShort("ZETA PHI RHO")
+              .orgTranslation("ZETA PHI RHO")
+              .inactive(false)
+              .build());
+
+  @Test
+  public void logged_out_users_cannot_get_suggestions() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/suggest?prefix=z")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_suggestions() throws Exception {
+    when(ucsbOrganizationIndex.suggest(eq("ze"), eq(10), isNull())).thenReturn(suggestions);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/suggest?prefix=ze"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        mapper.writeValueAsString(suggestions), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_suggestions_of_active_organizations() throws Exception {
+    when(ucsbOrganizationIndex.suggest("ze", 3, false)).thenReturn(suggestions);
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/suggest?prefix=ze&limit=3&inactive=false"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(
+        mapper.writeValueAsString(suggestions), response.getResponse().getContentAsString());
+  }
 }
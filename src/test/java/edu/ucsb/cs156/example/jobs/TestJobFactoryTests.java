@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TestJobFactoryTests {
+
+  private final TestJobFactory factory = new TestJobFactory();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(factory, "mapper", new ObjectMapper());
+  }
+
+  @Test
+  public void creates_test_job_with_default_parameters() throws Exception {
+    Job job = Job.builder().build();
+
+    factory.create(null).accept(new JobContext(null, job));
+
+    assertEquals("Hello World! from test job!\nGoodbye from test job!", job.getLog());
+  }
+
+  @Test
+  public void creates_test_job_from_json_parameters() throws Exception {
+    Job job = Job.builder().build();
+
+    Exception e =
+        assertThrows(
+            Exception.class,
+            () ->
+                factory
+                    .create("{\"fail\": true, \"sleepMs\": 1}")
+                    .accept(new JobContext(null, job)));
+
+    assertEquals("Fail!", e.getMessage());
+  }
+}
@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AdminLookupServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @InjectMocks private AdminLookupService adminLookupService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    adminLookupService.setAdminEmails(List.of("admin@ucsb.edu", "other@ucsb.edu"));
+  }
+
+  @Test
+  public void configured_admin_is_admin_without_query() {
+    assertTrue(adminLookupService.isAdminEmail("admin@ucsb.edu"));
+    assertTrue(adminLookupService.isAdmin("admin@ucsb.edu"));
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  public void null_email_is_not_admin() {
+    assertFalse(adminLookupService.isAdminEmail(null));
+    assertFalse(adminLookupService.isAdmin(null));
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  public void admin_flag_from_database_is_cached() {
+    User u = User.builder().email("db@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("db@ucsb.edu")).thenReturn(Optional.of(u));
+
+    assertTrue(adminLookupService.isAdmin("db@ucsb.edu"));
+    assertTrue(adminLookupService.isAdmin("db@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByEmail("db@ucsb.edu");
+    assertEquals(1, adminLookupService.cacheSize());
+  }
+
+  @Test
+  public void unknown_user_is_not_admin_and_answer_is_cached() {
+    when(userRepository.findByEmail("nobody@ucsb.edu")).thenReturn(Optional.empty());
+
+    assertFalse(adminLookupService.isAdmin("nobody@ucsb.edu"));
+    assertFalse(adminLookupService.isAdmin("nobody@ucsb.edu"));
+
+    verify(userRepository, times(1)).findByEmail("nobody@ucsb.edu");
+  }
+
+  @Test
+  public void non_admin_user_in_database_is_not_admin() {
+    User u = User.builder().email("user@ucsb.edu").admin(false).build();
+    when(userRepository.findByEmail("user@ucsb.edu")).thenReturn(Optional.of(u));
+
+    assertFalse(adminLookupService.isAdmin("user@ucsb.edu"));
+  }
+
+  @Test
+  public void invalidate_forces_a_new_lookup() {
+    User before = User.builder().email("db@ucsb.edu").admin(false).build();
+    User after = User.builder().email("db@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("db@ucsb.edu"))
+        .thenReturn(Optional.of(before))
+        .thenReturn(Optional.of(after));
+
+    assertFalse(adminLookupService.isAdmin("db@ucsb.edu"));
+    adminLookupService.invalidate("db@ucsb.edu");
+    adminLookupService.invalidate(null);
+    assertTrue(adminLookupService.isAdmin("db@ucsb.edu"));
+
+    verify(userRepository, times(2)).findByEmail("db@ucsb.edu");
+  }
+
+  @Test
+  public void expired_entries_are_looked_up_again() {
+    ReflectionTestUtils.setField(adminLookupService, "cacheTtlMs", -1L);
+    when(userRepository.findByEmail("db@ucsb.edu")).thenReturn(Optional.empty());
+
+    adminLookupService.isAdmin("db@ucsb.edu");
+    adminLookupService.isAdmin("db@ucsb.edu");
+
+    verify(userRepository, times(2)).findByEmail("db@ucsb.edu");
+  }
+
+  @Test
+  public void cache_is_cleared_when_full() {
+    ReflectionTestUtils.setField(adminLookupService, "maxCacheSize", 2);
+    when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
+
+    adminLookupService.isAdmin("a@ucsb.edu");
+    adminLookupService.isAdmin("b@ucsb.edu");
+    assertEquals(2, adminLookupService.cacheSize());
+
+    adminLookupService.isAdmin("c@ucsb.edu");
+    assertEquals(1, adminLookupService.cacheSize());
+
+    adminLookupService.invalidateAll();
+    assertEquals(0, adminLookupService.cacheSize());
+  }
+}
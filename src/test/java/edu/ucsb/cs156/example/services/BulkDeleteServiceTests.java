@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.BulkDeleteRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BulkDeleteServiceTests {
+
+  @Mock private JobService jobService;
+
+  @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+  @Mock private BulkDeleteRepository repository;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @InjectMocks private BulkDeleteService bulkDeleteService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(bulkDeleteService, "chunkSize", 2);
+    ReflectionTestUtils.setField(bulkDeleteService, "jobThreshold", 4);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<List<Long>> noFilter() {
+    return mock(Supplier.class);
+  }
+
+  @Test
+  public void rejects_ids_together_with_filters() {
+    Supplier<List<Long>> filter = noFilter();
+
+    BulkDeleteResult result =
+        bulkDeleteService.delete(HelpRequest.class, repository, List.of(1L), true, filter);
+
+    assertEquals("give either ids or filters, not both", result.getError());
+    verify(filter, times(0)).get();
+    verify(repository, times(0)).deleteByIds(any());
+  }
+
+  @Test
+  public void rejects_request_with_neither_ids_nor_filters() {
+    BulkDeleteResult result =
+        bulkDeleteService.delete(HelpRequest.class, repository, null, false, noFilter());
+
+    assertEquals("give ids or at least one filter", result.getError());
+    verify(repository, times(0)).deleteByIds(any());
+  }
+
+  @Test
+  public void deletes_listed_ids_in_chunks_and_skips_missing_ones() {
+    // chunks: [1, 2], [3, 4]; 2 and 3 and 4 do not exist
+    when(repository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+    when(repository.findExistingIds(List.of(3L, 4L))).thenReturn(List.of());
+    when(repository.deleteByIds(List.of(1L))).thenReturn(1);
+
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            HelpRequest.class, repository, List.of(1L, 2L, 1L, 3L, 4L), false, noFilter());
+
+    assertEquals(BulkDeleteResult.builder().matched(4).deleted(1).build(), result);
+    verify(repository, times(1)).deleteByIds(any());
+    verify(applicationEventPublisher, times(1))
+        .publishEvent(EntityChangedEvent.bulkDelete(HelpRequest.class, List.of(1L)));
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  public void deletes_ids_matching_the_filter_without_checking_they_exist() {
+    when(repository.deleteByIds(List.of(7L, 8L))).thenReturn(2);
+    when(repository.deleteByIds(List.of(9L))).thenReturn(1);
+
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            HelpRequest.class, repository, null, true, () -> List.of(7L, 8L, 9L));
+
+    assertEquals(BulkDeleteResult.builder().matched(3).deleted(3).build(), result);
+    verify(repository, times(0)).findExistingIds(any());
+    verify(applicationEventPublisher)
+        .publishEvent(EntityChangedEvent.bulkDelete(HelpRequest.class, List.of(7L, 8L)));
+    verify(applicationEventPublisher)
+        .publishEvent(EntityChangedEvent.bulkDelete(HelpRequest.class, List.of(9L)));
+  }
+
+  @Test
+  public void large_deletes_run_as_a_job() throws Exception {
+    Job job = Job.builder().id(42L).build();
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    when(jobService.runAsJob(captor.capture())).thenReturn(job);
+    when(repository.deleteByIds(any())).thenReturn(2).thenReturn(2).thenReturn(1);
+
+    BulkDeleteResult result =
+        bulkDeleteService.delete(
+            HelpRequest.class, repository, null, true, () -> List.of(1L, 2L, 3L, 4L, 5L));
+
+    // the request returns before anything is deleted
+    assertEquals(BulkDeleteResult.builder().matched(5).jobId(42L).build(), result);
+    verify(repository, times(0)).deleteByIds(any());
+
+    Job running = Job.builder().build();
+    captor.getValue().accept(new JobContext(null, running));
+
+    verify(repository, times(3)).deleteByIds(any());
+    assertEquals(
+        "Deleted 2 of 5 HelpRequest rows\n"
+            + "Deleted 4 of 5 HelpRequest rows\n"
+            + "Deleted 5 of 5 HelpRequest rows",
+        running.getLog());
+    assertNull(result.getError());
+  }
+}
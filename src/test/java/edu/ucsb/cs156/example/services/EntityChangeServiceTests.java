@@ -0,0 +1,361 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.EntityChange;
+import edu.ucsb.cs156.example.entities.EntityChangeCounter;
+import edu.ucsb.cs156.example.entities.EntityChangeHorizon;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.ChangeFeed;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.EntityChangeCounterRepository;
+import edu.ucsb.cs156.example.repositories.EntityChangeHorizonRepository;
+import edu.ucsb.cs156.example.repositories.EntityChangeRepository;
+import jakarta.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class EntityChangeServiceTests {
+
+  @Mock private EntityChangeRepository entityChangeRepository;
+
+  @Mock private EntityChangeHorizonRepository entityChangeHorizonRepository;
+
+  @Mock private EntityChangeCounterRepository entityChangeCounterRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  @InjectMocks private EntityChangeService entityChangeService;
+
+  private final UCSBOrganization sky =
+      UCSBOrganization.builder()
+          .orgCode("SKY")
+          .orgTranslationShort("SKYDIVING CLUB")
+          .orgTranslation("SKYDIVING CLUB AT UCSB")
+          .inactive(false)
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(entityChangeService, "pageSize", 3);
+    when(entityChangeCounterRepository.lockCounter("UCSBOrganization"))
+        .thenReturn(new EntityChangeCounter("UCSBOrganization", 41));
+  }
+
+  private static EntityChange change(long version, String entityId, ChangeType type) {
+    return EntityChange.builder()
+        .version(version)
+        .entityType("UCSBOrganization")
+        .entityId(entityId)
+        .changeType(type)
+        .build();
+  }
+
+  private EntityChange savedChange() {
+    ArgumentCaptor<EntityChange> saved = ArgumentCaptor.forClass(EntityChange.class);
+    verify(entityChangeRepository).save(saved.capture());
+    return saved.getValue();
+  }
+
+  @Test
+  public void writes_are_logged_with_the_entity_as_json() {
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, UCSBOrganization.class, "SKY", sky));
+
+    EntityChange change = savedChange();
+    assertEquals("UCSBOrganization", change.getEntityType());
+    assertEquals("SKY", change.getEntityId());
+    assertEquals(ChangeType.UPDATED, change.getChangeType());
+    assertEquals(
+        "{\"orgCode\":\"SKY\",\"orgTranslationShort\":\"SKYDIVING CLUB\","
+            + "\"orgTranslation\":\"SKYDIVING CLUB AT UCSB\",\"inactive\":false}",
+        change.getEntity());
+    assertNotNull(change.getChangedAt());
+  }
+
+  @Test
+  public void deletes_are_logged_as_tombstones() {
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, UCSBOrganization.class, "SKY", sky));
+
+    EntityChange change = savedChange();
+    assertEquals(ChangeType.DELETED, change.getChangeType());
+    assertNull(change.getEntity());
+  }
+
+  @Test
+  public void a_bulk_delete_is_logged_as_one_change_listing_the_ids() {
+    entityChangeService.onEntityChanged(
+        EntityChangedEvent.bulkDelete(UCSBOrganization.class, List.of(3L, 4L)));
+
+    EntityChange change = savedChange();
+    assertEquals(ChangeType.DELETED, change.getChangeType());
+    assertNull(change.getEntityId());
+    assertEquals("[3,4]", change.getEntity());
+  }
+
+  @Test
+  public void changes_to_jobs_are_not_logged() {
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, Job.class, 7L, null));
+
+    verify(entityChangeRepository, never()).save(any());
+  }
+
+  @Test
+  public void writes_take_the_next_version_from_the_locked_counter() {
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+
+    assertEquals(42, savedChange().getVersion());
+    InOrder inOrder = inOrder(entityManager, entityChangeCounterRepository);
+    inOrder.verify(entityManager).flush();
+    inOrder.verify(entityChangeCounterRepository).lockCounter("UCSBOrganization");
+    inOrder
+        .verify(entityChangeCounterRepository)
+        .save(new EntityChangeCounter("UCSBOrganization", 42));
+  }
+
+  @Test
+  public void the_counter_of_a_type_is_created_once_in_a_transaction_of_its_own() {
+    when(entityChangeCounterRepository.existsById("UCSBOrganization")).thenReturn(false);
+    when(entityChangeCounterRepository.existsById("Articles")).thenReturn(true);
+    when(entityChangeCounterRepository.lockCounter("Articles"))
+        .thenReturn(new EntityChangeCounter("Articles", 0));
+
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, UCSBOrganization.class, "SKY", sky));
+    entityChangeService.onEntityChanged(EntityChangedEvent.bulkDelete(Articles.class, List.of(3L)));
+
+    verify(entityChangeCounterRepository, times(1)).existsById("UCSBOrganization");
+    verify(entityChangeCounterRepository).save(new EntityChangeCounter("UCSBOrganization", 0));
+    verify(entityChangeCounterRepository, never()).save(new EntityChangeCounter("Articles", 0));
+    ArgumentCaptor<TransactionDefinition> definitions =
+        ArgumentCaptor.forClass(TransactionDefinition.class);
+    verify(transactionManager, times(5)).getTransaction(definitions.capture());
+    assertEquals(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW,
+        definitions.getAllValues().get(0).getPropagationBehavior());
+  }
+
+  @Test
+  public void a_counter_created_meanwhile_by_another_node_is_used() {
+    when(entityChangeCounterRepository.save(new EntityChangeCounter("UCSBOrganization", 0)))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, UCSBOrganization.class, "SKY", sky));
+
+    verify(entityChangeCounterRepository, times(1)).existsById("UCSBOrganization");
+    verify(entityChangeRepository, times(2)).save(any());
+  }
+
+  @Test
+  public void writes_outside_a_transaction_are_logged_in_a_new_one() {
+    entityChangeService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+
+    // one to create the counter, one to log the change
+    verify(transactionManager, times(2)).getTransaction(any());
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  public void writes_in_a_transaction_are_logged_in_it() {
+    // called back just before the transaction commits
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      entityChangeService.onEntityChanged(
+          new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+      verify(entityChangeRepository, never()).save(any());
+      commit();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertTrue(savedChange().getEntity().contains("\"orgCode\":\"SKY\""));
+    // only the one that created the counter
+    verify(transactionManager, times(1)).getTransaction(any());
+    assertNull(TransactionSynchronizationManager.getResource(entityChangeService));
+  }
+
+  @Test
+  public void counters_are_locked_in_the_order_of_their_types_when_a_transaction_commits() {
+    when(entityChangeCounterRepository.lockCounter("Articles"))
+        .thenReturn(new EntityChangeCounter("Articles", 7));
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      entityChangeService.onEntityChanged(
+          new EntityChangedEvent(ChangeType.CREATED, UCSBOrganization.class, "SKY", sky));
+      entityChangeService.onEntityChanged(
+          EntityChangedEvent.bulkDelete(Articles.class, List.of(3L)));
+      entityChangeService.onEntityChanged(
+          new EntityChangedEvent(ChangeType.DELETED, UCSBOrganization.class, "SKY", sky));
+      commit();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    InOrder inOrder = inOrder(entityChangeCounterRepository, entityChangeRepository);
+    inOrder.verify(entityChangeCounterRepository).lockCounter("Articles");
+    inOrder.verify(entityChangeCounterRepository).lockCounter("UCSBOrganization");
+    ArgumentCaptor<EntityChange> saved = ArgumentCaptor.forClass(EntityChange.class);
+    verify(entityChangeRepository, times(3)).save(saved.capture());
+    List<EntityChange> changes = saved.getAllValues();
+    assertEquals(List.of(8L, 42L, 43L), changes.stream().map(EntityChange::getVersion).toList());
+    assertEquals(
+        List.of(ChangeType.DELETED, ChangeType.CREATED, ChangeType.DELETED),
+        changes.stream().map(EntityChange::getChangeType).toList());
+  }
+
+  private static void commit() {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(s -> s.beforeCommit(false));
+    synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+  }
+
+  @Test
+  public void changesSince_returns_the_latest_change_to_each_entity() {
+    when(entityChangeHorizonRepository.findById("UCSBOrganization")).thenReturn(Optional.empty());
+    EntityChange skyCreated = change(5, "SKY", ChangeType.CREATED);
+    EntityChange osliCreated = change(6, "OSLI", ChangeType.CREATED);
+    EntityChange skyUpdated = change(8, "SKY", ChangeType.UPDATED);
+    when(entityChangeRepository.findByEntityTypeAndVersionGreaterThanOrderByVersion(
+            "UCSBOrganization", 4L, PageRequest.ofSize(3)))
+        .thenReturn(List.of(skyCreated, osliCreated, skyUpdated));
+
+    ChangeFeed feed = entityChangeService.changesSince(UCSBOrganization.class, 4);
+
+    assertEquals(8, feed.getVersion());
+    assertFalse(feed.getReset());
+    assertTrue(feed.getMore());
+    assertEquals(List.of(osliCreated, skyUpdated), feed.getChanges());
+  }
+
+  @Test
+  public void changesSince_keeps_every_bulk_delete() {
+    when(entityChangeHorizonRepository.findById("UCSBOrganization")).thenReturn(Optional.empty());
+    EntityChange first = change(5, null, ChangeType.DELETED);
+    EntityChange second = change(6, null, ChangeType.DELETED);
+    when(entityChangeRepository.findByEntityTypeAndVersionGreaterThanOrderByVersion(
+            eq("UCSBOrganization"), eq(4L), any()))
+        .thenReturn(List.of(first, second));
+
+    assertEquals(
+        List.of(first, second),
+        entityChangeService.changesSince(UCSBOrganization.class, 4).getChanges());
+  }
+
+  @Test
+  public void changesSince_keeps_the_version_when_nothing_changed() {
+    when(entityChangeHorizonRepository.findById("UCSBOrganization"))
+        .thenReturn(Optional.of(new EntityChangeHorizon("UCSBOrganization", 10)));
+    when(entityChangeRepository.findByEntityTypeAndVersionGreaterThanOrderByVersion(
+            eq("UCSBOrganization"), eq(12L), any()))
+        .thenReturn(List.of());
+
+    ChangeFeed feed = entityChangeService.changesSince(UCSBOrganization.class, 12);
+
+    assertEquals(12, feed.getVersion());
+    assertFalse(feed.getReset());
+    assertFalse(feed.getMore());
+    assertEquals(List.of(), feed.getChanges());
+  }
+
+  @Test
+  public void changesSince_tells_clients_older_than_the_horizon_to_reload() {
+    when(entityChangeHorizonRepository.findById("UCSBOrganization"))
+        .thenReturn(Optional.of(new EntityChangeHorizon("UCSBOrganization", 10)));
+    when(entityChangeRepository.findNewestVersion("UCSBOrganization")).thenReturn(25L);
+
+    ChangeFeed feed = entityChangeService.changesSince(UCSBOrganization.class, 9);
+
+    assertEquals(25, feed.getVersion());
+    assertTrue(feed.getReset());
+    assertEquals(List.of(), feed.getChanges());
+    verify(entityChangeRepository, never())
+        .findByEntityTypeAndVersionGreaterThanOrderByVersion(any(), any(Long.class), any());
+  }
+
+  @Test
+  public void changesSince_resets_to_the_horizon_when_every_change_was_compacted() {
+    when(entityChangeHorizonRepository.findById("UCSBOrganization"))
+        .thenReturn(Optional.of(new EntityChangeHorizon("UCSBOrganization", 10)));
+    when(entityChangeRepository.findNewestVersion("UCSBOrganization")).thenReturn(null);
+
+    ChangeFeed feed = entityChangeService.changesSince(UCSBOrganization.class, 0);
+
+    assertEquals(10, feed.getVersion());
+    assertTrue(feed.getReset());
+  }
+
+  @Test
+  public void compact_deletes_superseded_and_old_changes_and_moves_the_horizon() {
+    when(entityChangeRepository.deleteSuperseded()).thenReturn(4);
+    when(entityChangeRepository.findEntityTypes()).thenReturn(List.of("UCSBDate", "Restaurant"));
+    when(entityChangeRepository.findNewestVersionBefore(eq("UCSBDate"), any())).thenReturn(30L);
+    when(entityChangeRepository.findNewestVersionBefore(eq("Restaurant"), any())).thenReturn(null);
+    when(entityChangeRepository.deleteUpTo("UCSBDate", 30L)).thenReturn(2);
+
+    ZonedDateTime before = ZonedDateTime.now().minusDays(30);
+    assertEquals(6, entityChangeService.compact());
+
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(entityChangeRepository).findNewestVersionBefore(eq("UCSBDate"), cutoff.capture());
+    assertFalse(cutoff.getValue().isBefore(before));
+    verify(entityChangeHorizonRepository).save(new EntityChangeHorizon("UCSBDate", 30));
+    verify(entityChangeHorizonRepository, times(1)).save(any());
+    verify(entityChangeRepository, never()).deleteUpTo(eq("Restaurant"), any(Long.class));
+  }
+
+  @Test
+  public void compact_keeps_old_changes_when_retention_is_off() {
+    ReflectionTestUtils.setField(entityChangeService, "retentionDays", 0);
+    when(entityChangeRepository.deleteSuperseded()).thenReturn(1);
+
+    assertEquals(1, entityChangeService.compact());
+
+    verify(entityChangeRepository, never()).findEntityTypes();
+  }
+}
@@ -1,12 +1,19 @@
 package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobArchiveService;
+import edu.ucsb.cs156.example.services.jobs.JobLogCompression;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +25,8 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobArchiveService jobArchiveService;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -64,4 +73,82 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_getJobLogs_of_archived_job() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().id(4L).log("archived log").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.empty());
+    when(jobArchiveService.findArchived(jobId)).thenReturn(Optional.of(job));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("archived log", result);
+  }
+
+  @Test
+  void test_getJobLogs_with_compressed_log() {
+    // Arrange
+    Job job = Job.builder().compressedLog(JobLogCompression.compress("compressed log")).build();
+    when(jobRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    assertEquals("compressed log", jobService.getJobLogs(5L));
+  }
+
+  @Test
+  void test_writeJobLogs_streams_compressed_and_plain_logs() throws Exception {
+    // Arrange
+    Job compressed =
+        Job.builder().compressedLog(JobLogCompression.compress("é compressed")).build();
+    Job plain = Job.builder().log("é plain").build();
+    Job empty = Job.builder().build();
+    when(jobRepository.findById(6L)).thenReturn(Optional.of(compressed));
+    when(jobRepository.findById(7L)).thenReturn(Optional.of(plain));
+    when(jobRepository.findById(8L)).thenReturn(Optional.of(empty));
+
+    // Act
+    ByteArrayOutputStream out6 = new ByteArrayOutputStream();
+    ByteArrayOutputStream out7 = new ByteArrayOutputStream();
+    ByteArrayOutputStream out8 = new ByteArrayOutputStream();
+    jobService.writeJobLogs(6L, out6);
+    jobService.writeJobLogs(7L, out7);
+    jobService.writeJobLogs(8L, out8);
+
+    // Assert
+    assertEquals("é compressed", out6.toString(StandardCharsets.UTF_8));
+    assertEquals("é plain", out7.toString(StandardCharsets.UTF_8));
+    assertEquals(0, out8.size());
+  }
+
+  @Test
+  void test_finished_job_log_is_stored_compressed() {
+    // Arrange
+    Job job = Job.builder().status("running").build();
+
+    // Act
+    jobService.runJobAsync(job, ctx -> ctx.log("done"));
+
+    // Assert
+    assertEquals("complete", job.getStatus());
+    assertNull(job.getLog());
+    assertEquals("done", JobLogCompression.decompress(job.getCompressedLog()));
+    verify(jobRepository, times(2)).save(job);
+  }
+
+  @Test
+  void test_finished_job_without_log_has_no_compressed_log() {
+    // Arrange
+    Job job = Job.builder().status("running").build();
+
+    // Act
+    jobService.runJobAsync(job, ctx -> {});
+
+    // Assert
+    assertEquals("complete", job.getStatus());
+    assertNull(job.getCompressedLog());
+  }
 }
@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.ProfessorWorkload;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository.WorkloadRow;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ProfessorWorkloadServiceTests {
+
+  @Mock private RecommendationRequestRepository recommendationRequestRepository;
+
+  @InjectMocks private ProfessorWorkloadService professorWorkloadService;
+
+  private final RecommendationRequest request = RecommendationRequest.builder().id(1L).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        professorWorkloadService,
+        "clock",
+        Clock.fixed(Instant.parse("2025-10-01T12:00:00Z"), ZoneOffset.UTC));
+    when(recommendationRequestRepository.findWorkloads(any()))
+        .thenReturn(List.of(row("phtcon@ucsb.edu", 3, 5, 1), row("ziad@ucsb.edu", 0, 2, 0)));
+  }
+
+  private static WorkloadRow row(String email, long open, long done, long overdue) {
+    return new WorkloadRow() {
+      @Override
+      public String getProfessorEmail() {
+        return email;
+      }
+
+      @Override
+      public Long getOpenCount() {
+        return open;
+      }
+
+      @Override
+      public Long getDoneCount() {
+        return done;
+      }
+
+      @Override
+      public Long getOverdueCount() {
+        return overdue;
+      }
+    };
+  }
+
+  private void write() {
+    professorWorkloadService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, RecommendationRequest.class, 1L, request));
+  }
+
+  @Test
+  public void workloads_are_counted_as_of_now() {
+    List<ProfessorWorkload> workloads = professorWorkloadService.getWorkloads();
+
+    assertEquals(
+        List.of(
+            ProfessorWorkload.builder()
+                .professorEmail("phtcon@ucsb.edu")
+                .open(3)
+                .done(5)
+                .overdue(1)
+                .build(),
+            ProfessorWorkload.builder().professorEmail("ziad@ucsb.edu").open(0).done(2).build()),
+        workloads);
+    verify(recommendationRequestRepository).findWorkloads(LocalDateTime.parse("2025-10-01T12:00"));
+  }
+
+  @Test
+  public void workloads_are_cached_until_a_request_changes() {
+    List<ProfessorWorkload> first = professorWorkloadService.getWorkloads();
+    assertSame(first, professorWorkloadService.getWorkloads());
+    professorWorkloadService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, UCSBDate.class, 1L, null));
+    professorWorkloadService.onDueSoon(request);
+    assertSame(first, professorWorkloadService.getWorkloads());
+    verify(recommendationRequestRepository, times(1)).findWorkloads(any());
+
+    write();
+    professorWorkloadService.getWorkloads();
+    professorWorkloadService.onOverdue(request);
+    professorWorkloadService.getWorkloads();
+
+    verify(recommendationRequestRepository, times(3)).findWorkloads(any());
+  }
+
+  @Test
+  public void concurrent_reads_share_one_query() throws Exception {
+    CountDownLatch querying = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(recommendationRequestRepository.findWorkloads(any()))
+        .thenAnswer(
+            invocation -> {
+              querying.countDown();
+              release.await();
+              return List.of(row("phtcon@ucsb.edu", 1, 0, 0));
+            });
+    AtomicReference<List<ProfessorWorkload>> second = new AtomicReference<>();
+
+    Thread first = new Thread(professorWorkloadService::getWorkloads);
+    first.start();
+    querying.await();
+    Thread waiting = new Thread(() -> second.set(professorWorkloadService.getWorkloads()));
+    waiting.start();
+    await().until(() -> waiting.getState() == Thread.State.BLOCKED);
+    release.countDown();
+    first.join();
+    waiting.join();
+
+    assertEquals(1, second.get().size());
+    verify(recommendationRequestRepository, times(1)).findWorkloads(any());
+  }
+}
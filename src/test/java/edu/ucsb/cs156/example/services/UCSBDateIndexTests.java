@@ -0,0 +1,160 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UCSBDateIndexTests {
+
+  @Mock private UCSBDateRepository ucsbDateRepository;
+
+  @InjectMocks private UCSBDateIndex ucsbDateIndex;
+
+  private final UCSBDate firstDay = date(1L, "20244", "firstDayOfClasses", "2024-09-26T00:00:00");
+  private final UCSBDate midterm = date(2L, "20244", "midterm", "2024-10-31T10:00:00");
+  private final UCSBDate sameTime = date(3L, "20244", "deadline", "2024-10-31T10:00:00");
+  private final UCSBDate tbd = date(4L, "20244", "tbd", null);
+  private final UCSBDate lastDay = date(5L, "20244", "lastDayOfClasses", "2024-12-06T00:00:00");
+  private final UCSBDate winter = date(6L, "20251", "firstDayOfClasses", "2025-01-06T00:00:00");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        ucsbDateIndex, "clock", Clock.fixed(Instant.parse("2024-11-01T00:00:00Z"), ZoneOffset.UTC));
+    when(ucsbDateRepository.findAll())
+        .thenReturn(List.of(winter, lastDay, tbd, sameTime, midterm, firstDay));
+  }
+
+  private static UCSBDate date(long id, String quarter, String name, String time) {
+    return UCSBDate.builder()
+        .id(id)
+        .quarterYYYYQ(quarter)
+        .name(name)
+        .localDateTime(time == null ? null : LocalDateTime.parse(time))
+        .build();
+  }
+
+  private void write() {
+    ucsbDateIndex.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, UCSBDate.class, 1L, firstDay));
+  }
+
+  @Test
+  public void dates_between_two_times_include_both_ends() {
+    assertEquals(
+        List.of(midterm, sameTime, lastDay),
+        ucsbDateIndex.findBetween(
+            LocalDateTime.parse("2024-10-31T10:00:00"),
+            LocalDateTime.parse("2024-12-06T00:00:00")));
+  }
+
+  @Test
+  public void dates_between_open_ended_times() {
+    assertEquals(
+        List.of(firstDay, midterm, sameTime),
+        ucsbDateIndex.findBetween(null, LocalDateTime.parse("2024-11-01T00:00:00")));
+    assertEquals(
+        List.of(lastDay, winter),
+        ucsbDateIndex.findBetween(LocalDateTime.parse("2024-11-01T00:00:00"), null));
+    assertEquals(
+        List.of(firstDay, midterm, sameTime, lastDay, winter),
+        ucsbDateIndex.findBetween(null, null));
+  }
+
+  @Test
+  public void no_dates_are_between_times_in_the_wrong_order() {
+    assertEquals(
+        List.of(),
+        ucsbDateIndex.findBetween(
+            LocalDateTime.parse("2024-12-01T00:00:00"),
+            LocalDateTime.parse("2024-09-01T00:00:00")));
+    assertEquals(
+        List.of(midterm, sameTime),
+        ucsbDateIndex.findBetween(
+            LocalDateTime.parse("2024-10-31T10:00:00"),
+            LocalDateTime.parse("2024-10-31T10:00:00")));
+  }
+
+  @Test
+  public void dates_of_a_quarter_are_in_time_order_with_those_without_a_time_last() {
+    assertEquals(
+        List.of(firstDay, midterm, sameTime, lastDay, tbd), ucsbDateIndex.findByQuarter("20244"));
+    assertEquals(List.of(winter), ucsbDateIndex.findByQuarter("20251"));
+    assertEquals(List.of(), ucsbDateIndex.findByQuarter("20252"));
+  }
+
+  @Test
+  public void next_dates_start_now_by_default() {
+    assertEquals(List.of(lastDay), ucsbDateIndex.findNext(null, 1));
+    assertEquals(
+        List.of(midterm, sameTime, lastDay, winter),
+        ucsbDateIndex.findNext(LocalDateTime.parse("2024-10-31T10:00:00"), 5));
+    assertEquals(List.of(), ucsbDateIndex.findNext(null, 0));
+    assertEquals(List.of(), ucsbDateIndex.findNext(null, -1));
+  }
+
+  @Test
+  public void the_index_is_built_once_until_a_date_changes() {
+    ucsbDateIndex.findByQuarter("20244");
+    ucsbDateIndex.findNext(null, 5);
+    ucsbDateIndex.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, HelpRequest.class, 1L, null));
+    ucsbDateIndex.findBetween(null, null);
+    verify(ucsbDateRepository, times(1)).findAll();
+
+    when(ucsbDateRepository.findAll()).thenReturn(List.of(winter));
+    write();
+
+    assertEquals(List.of(), ucsbDateIndex.findByQuarter("20244"));
+    verify(ucsbDateRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void concurrent_queries_share_one_build() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(ucsbDateRepository.findAll())
+        .thenAnswer(
+            invocation -> {
+              reading.countDown();
+              release.await();
+              return List.of(winter);
+            });
+    AtomicReference<List<UCSBDate>> second = new AtomicReference<>();
+
+    Thread first = new Thread(() -> ucsbDateIndex.findBetween(null, null));
+    first.start();
+    reading.await();
+    Thread waiting = new Thread(() -> second.set(ucsbDateIndex.findByQuarter("20251")));
+    waiting.start();
+    await().until(() -> waiting.getState() == Thread.State.BLOCKED);
+    release.countDown();
+    first.join();
+    waiting.join();
+
+    assertEquals(List.of(winter), second.get());
+    verify(ucsbDateRepository, times(1)).findAll();
+  }
+}
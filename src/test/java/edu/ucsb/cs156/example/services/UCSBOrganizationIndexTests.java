@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class UCSBOrganizationIndexTests {
+
+  @Mock private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @InjectMocks private UCSBOrganizationIndex ucsbOrganizationIndex;
+
+  private final UCSBOrganization csClub =
+      organization("CSC", "CS Club", "Computer Science Club", false);
+  private final UCSBOrganization krc =
+      organization("KRC", "KOREAN RADIO CL", "KOREAN RADIO CLUB", false);
+  private final UCSBOrganization osli =
+      organization("OSLI", "STUDENT LIFE", "OFFICE OF STUDENT LIFE", true);
+  private final UCSBOrganization sci = organization("SCI", null, "Science Society", false);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(csClub, krc, osli, sci));
+    ucsbOrganizationIndex.load();
+  }
+
+  private static UCSBOrganization organization(
+      String orgCode, String orgTranslationShort, String orgTranslation, boolean inactive) {
+    return UCSBOrganization.builder()
+        .orgCode(orgCode)
+        .orgTranslationShort(orgTranslationShort)
+        .orgTranslation(orgTranslation)
+        .inactive(inactive)
+        .build();
+  }
+
+  private void write(ChangeType changeType, UCSBOrganization organization) {
+    ucsbOrganizationIndex.onEntityChanged(
+        new EntityChangedEvent(
+            changeType, UCSBOrganization.class, organization.getOrgCode(), organization));
+  }
+
+  @Test
+  public void prefixes_match_codes_names_and_words_of_names_ignoring_case() {
+    assertEquals(List.of(krc), ucsbOrganizationIndex.suggest("kr", 10, null));
+    assertEquals(List.of(krc), ucsbOrganizationIndex.suggest("Korean R", 10, null));
+    assertEquals(List.of(krc, csClub), ucsbOrganizationIndex.suggest(" CL", 10, null));
+    assertEquals(List.of(osli), ucsbOrganizationIndex.suggest("office", 10, null));
+    assertEquals(List.of(), ucsbOrganizationIndex.suggest("radio x", 10, null));
+  }
+
+  @Test
+  public void each_organization_is_suggested_once_by_the_first_text_it_matches() {
+    assertEquals(List.of(sci, csClub, osli), ucsbOrganizationIndex.suggest("s", 10, null));
+  }
+
+  @Test
+  public void suggestions_are_limited_and_filtered_by_inactive() {
+    assertEquals(List.of(sci, csClub), ucsbOrganizationIndex.suggest("s", 2, null));
+    assertEquals(List.of(), ucsbOrganizationIndex.suggest("s", 0, null));
+    assertEquals(List.of(sci, csClub), ucsbOrganizationIndex.suggest("s", 10, false));
+    assertEquals(List.of(osli), ucsbOrganizationIndex.suggest("s", 10, true));
+  }
+
+  @Test
+  public void writes_replace_the_terms_of_the_organization() {
+    UCSBOrganization renamed = organization("KRC", "KRC", "KOREAN RADIO STATION", false);
+    write(ChangeType.UPDATED, renamed);
+
+    assertEquals(List.of(), ucsbOrganizationIndex.suggest("korean radio cl", 10, null));
+    assertEquals(
+        List.of(organization("KRC", "KRC", "KOREAN RADIO STATION", false)),
+        ucsbOrganizationIndex.suggest("station", 10, null));
+
+    UCSBOrganization added = organization("ACM", "ACM", "ACM Student Chapter", false);
+    write(ChangeType.CREATED, added);
+    assertEquals(List.of(added), ucsbOrganizationIndex.suggest("chapter", 10, null));
+
+    write(ChangeType.DELETED, csClub);
+    assertEquals(List.of(), ucsbOrganizationIndex.suggest("cs", 10, null));
+    assertEquals(List.of(), ucsbOrganizationIndex.suggest("computer", 10, null));
+  }
+
+  @Test
+  public void organizations_that_become_inactive_move_to_the_inactive_suggestions() {
+    UCSBOrganization closed = organization("SCI", null, "Science Society", true);
+    write(ChangeType.UPDATED, closed);
+
+    assertEquals(List.of(csClub), ucsbOrganizationIndex.suggest("s", 10, false));
+    assertEquals(List.of(closed, osli), ucsbOrganizationIndex.suggest("s", 10, true));
+    assertEquals(List.of(closed, csClub), ucsbOrganizationIndex.suggest("s", 2, null));
+
+    write(ChangeType.DELETED, closed);
+    assertEquals(List.of(osli), ucsbOrganizationIndex.suggest("s", 10, true));
+  }
+
+  @Test
+  public void writes_to_other_entities_are_ignored() {
+    ucsbOrganizationIndex.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, UCSBDate.class, 1L, null));
+
+    assertEquals(List.of(csClub), ucsbOrganizationIndex.suggest("computer", 10, null));
+  }
+}
@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+public class UserProvisioningServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private AdminLookupService adminLookupService;
+
+  @InjectMocks private UserProvisioningService userProvisioningService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private OAuth2User oAuthUser(String email, String picture) {
+    Map<String, Object> attrs = new HashMap<>();
+    attrs.put("sub", "sub-" + email);
+    attrs.put("email", email);
+    attrs.put("picture", picture);
+    attrs.put("name", "Chris Gaucho");
+    attrs.put("given_name", "Chris");
+    attrs.put("family_name", "Gaucho");
+    attrs.put("email_verified", true);
+    attrs.put("locale", "en");
+    attrs.put("hd", "ucsb.edu");
+    return new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("ROLE_USER")), attrs, "sub");
+  }
+
+  @Test
+  public void new_user_is_saved_immediately() {
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+    when(adminLookupService.isAdminEmail("cgaucho@ucsb.edu")).thenReturn(true);
+
+    User u = userProvisioningService.provision(oAuthUser("cgaucho@ucsb.edu", "pic1"));
+
+    verify(userRepository, times(1)).save(u);
+    assertEquals("cgaucho@ucsb.edu", u.getEmail());
+    assertEquals("pic1", u.getPictureUrl());
+    assertTrue(u.getAdmin());
+    assertTrue(u.getEmailVerified());
+    assertEquals(0, userProvisioningService.pendingProfileUpdateCount());
+  }
+
+  @Test
+  public void unchanged_existing_user_is_not_written() {
+    OAuth2User oAuthUser = oAuthUser("cgaucho@ucsb.edu", "pic1");
+    User existing = userProvisioningService.userFromAttributes(oAuthUser);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    User u = userProvisioningService.provision(oAuthUser);
+    userProvisioningService.flushProfileUpdates();
+
+    assertEquals(existing, u);
+    verify(userRepository, never()).save(any());
+    verify(userRepository, never()).saveAll(any());
+  }
+
+  @Test
+  public void profile_changes_are_batched_until_flush() {
+    User existing = userProvisioningService.userFromAttributes(oAuthUser("a@ucsb.edu", "old"));
+    User other = userProvisioningService.userFromAttributes(oAuthUser("b@ucsb.edu", "old"));
+    when(userRepository.findByEmail("a@ucsb.edu")).thenReturn(Optional.of(existing));
+    when(userRepository.findByEmail("b@ucsb.edu")).thenReturn(Optional.of(other));
+
+    userProvisioningService.provision(oAuthUser("a@ucsb.edu", "new"));
+    userProvisioningService.provision(oAuthUser("b@ucsb.edu", "new"));
+
+    verify(userRepository, never()).save(any());
+    assertEquals(2, userProvisioningService.pendingProfileUpdateCount());
+    assertEquals("new", existing.getPictureUrl());
+
+    userProvisioningService.flushProfileUpdates();
+
+    verify(userRepository, times(1)).saveAll(any());
+    assertEquals(0, userProvisioningService.pendingProfileUpdateCount());
+  }
+
+  @Test
+  public void a_change_to_any_profile_attribute_is_queued() {
+    List<Consumer<User>> changes =
+        List.of(
+            u -> u.setGoogleSub("other"),
+            u -> u.setPictureUrl("other"),
+            u -> u.setFullName("other"),
+            u -> u.setGivenName("other"),
+            u -> u.setFamilyName("other"),
+            u -> u.setEmailVerified(false),
+            u -> u.setLocale("other"),
+            u -> u.setHostedDomain("other"));
+    OAuth2User oAuthUser = oAuthUser("cgaucho@ucsb.edu", "pic1");
+
+    for (Consumer<User> change : changes) {
+      User existing = userProvisioningService.userFromAttributes(oAuthUser);
+      change.accept(existing);
+      when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+      userProvisioningService.provision(oAuthUser);
+
+      assertEquals(1, userProvisioningService.pendingProfileUpdateCount());
+      assertEquals(userProvisioningService.userFromAttributes(oAuthUser), existing);
+      userProvisioningService.flushProfileUpdates();
+    }
+    verify(userRepository, times(changes.size())).saveAll(any());
+  }
+
+  @Test
+  public void existing_admin_is_not_saved_again() {
+    OAuth2User oAuthUser = oAuthUser("cgaucho@ucsb.edu", "pic1");
+    when(adminLookupService.isAdminEmail("cgaucho@ucsb.edu")).thenReturn(true);
+    User existing = userProvisioningService.userFromAttributes(oAuthUser);
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+
+    userProvisioningService.provision(oAuthUser);
+
+    verify(userRepository, never()).save(any());
+    verify(adminLookupService, never()).invalidate(any());
+  }
+
+  @Test
+  public void admin_promotion_is_saved_and_invalidates_cache() {
+    OAuth2User oAuthUser = oAuthUser("cgaucho@ucsb.edu", "pic1");
+    User existing = userProvisioningService.userFromAttributes(oAuthUser);
+    assertFalse(existing.getAdmin());
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(existing));
+    when(adminLookupService.isAdminEmail("cgaucho@ucsb.edu")).thenReturn(true);
+
+    User u = userProvisioningService.provision(oAuthUser);
+
+    assertTrue(u.getAdmin());
+    verify(userRepository, times(1)).save(existing);
+    verify(adminLookupService, times(1)).invalidate("cgaucho@ucsb.edu");
+  }
+
+  @Test
+  public void login_event_provisions_oauth_user() {
+    OAuth2User oAuthUser = oAuthUser("cgaucho@ucsb.edu", "pic1");
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.empty());
+
+    userProvisioningService.onAuthenticationSuccess(
+        new AuthenticationSuccessEvent(new TestingAuthenticationToken(oAuthUser, null)));
+
+    verify(userRepository, times(1)).save(any(User.class));
+  }
+
+  @Test
+  public void login_event_ignores_non_oauth_principal() {
+    userProvisioningService.onAuthenticationSuccess(
+        new AuthenticationSuccessEvent(new TestingAuthenticationToken("user", null)));
+
+    verify(userRepository, never()).findByEmail(any());
+  }
+}
@@ -0,0 +1,319 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import edu.ucsb.cs156.example.models.BatchOperation;
+import edu.ucsb.cs156.example.models.BatchOperationResult;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import edu.ucsb.cs156.example.models.BulkDeleteResult;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class BatchServiceTests {
+
+  @Mock private RequestMappingHandlerMapping handlerMapping;
+
+  @Mock private RequestMappingHandlerAdapter handlerAdapter;
+
+  @Mock private HandlerExceptionResolver exceptionResolver;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @InjectMocks private BatchService batchService;
+
+  private final Object handler = new Object();
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private final SimpleTransactionStatus transactionStatus = new SimpleTransactionStatus();
+
+  @BeforeEach
+  public void setup() throws Exception {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(batchService, "objectMapper", new ObjectMapper());
+    when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+    when(handlerMapping.getHandler(any())).thenReturn(new HandlerExecutionChain(handler));
+  }
+
+  private static BatchOperation op(String method, String path) {
+    return BatchOperation.builder().method(method).path(path).build();
+  }
+
+  private void respondWith(int status, String contentType, String body) throws Exception {
+    doAnswer(
+            invocation -> {
+              HttpServletResponse r = invocation.getArgument(1);
+              r.setStatus(status);
+              r.setContentType(contentType);
+              r.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(handlerAdapter)
+        .handle(any(), any(), eq(handler));
+  }
+
+  @Test
+  public void all_operations_succeed_and_are_committed() throws Exception {
+    respondWith(200, "application/json", "{\"id\":1}");
+
+    BatchResponse result =
+        batchService.execute(
+            List.of(op("GET", "/api/articles"), op("get", "/api/articles")), request, response);
+
+    assertTrue(result.getCommitted());
+    assertNull(result.getError());
+    assertEquals(2, result.getResults().size());
+    assertEquals(200, result.getResults().get(1).getStatus());
+    assertEquals(1, result.getResults().get(1).getBody().get("id").asInt());
+    verify(transactionManager, times(1)).commit(transactionStatus);
+    assertFalse(transactionStatus.isRollbackOnly());
+  }
+
+  @Test
+  public void operation_is_dispatched_with_its_own_method_path_parameters_and_body()
+      throws Exception {
+    respondWith(200, "application/json", "{}");
+    BatchOperation operation =
+        BatchOperation.builder()
+            .method("put")
+            .path("/api/articles")
+            .params(Map.of("id", "3"))
+            .body(new ObjectMapper().readTree("{\"title\":\"t\"}"))
+            .build();
+
+    batchService.dispatch(operation, request, response);
+
+    verify(handlerAdapter)
+        .handle(
+            argThat(
+                (HttpServletRequest r) -> {
+                  try {
+                    return r.getMethod().equals("PUT")
+                        && r.getRequestURI().equals("/api/articles")
+                        && r.getParameter("id").equals("3")
+                        && new String(r.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+                            .equals("{\"title\":\"t\"}");
+                  } catch (IOException e) {
+                    return false;
+                  }
+                }),
+            any(),
+            eq(handler));
+  }
+
+  @Test
+  public void first_failure_stops_the_batch_and_rolls_back() throws Exception {
+    respondWith(404, "application/json", "{\"type\":\"EntityNotFoundException\"}");
+
+    BatchResponse result =
+        batchService.execute(
+            List.of(op("GET", "/api/articles"), op("GET", "/api/articles")), request, response);
+
+    assertFalse(result.getCommitted());
+    assertEquals(404, result.getResults().get(0).getStatus());
+    assertEquals(424, result.getResults().get(1).getStatus());
+    verify(handlerAdapter, times(1)).handle(any(), any(), any());
+    // the template hands the rollback-only status to commit, which rolls it back
+    assertTrue(transactionStatus.isRollbackOnly());
+    verify(transactionManager, times(1)).commit(transactionStatus);
+  }
+
+  @Test
+  public void commit_failure_is_reported() {
+    doThrow(new TransactionSystemException("could not commit"))
+        .when(transactionManager)
+        .commit(any());
+
+    BatchResponse result =
+        batchService.execute(List.of(op("GET", "/api/articles")), request, response);
+
+    assertFalse(result.getCommitted());
+    assertEquals("could not commit", result.getError());
+    assertEquals(200, result.getResults().get(0).getStatus());
+  }
+
+  @Test
+  public void invalid_operations_are_rejected() throws Exception {
+    for (BatchOperation operation : List.of(op(null, "/api/articles"), op("GET", null))) {
+      BatchOperationResult result = batchService.dispatch(operation, request, response);
+      assertEquals(400, result.getStatus());
+      assertEquals("IllegalArgumentException", result.getBody().get("type").asText());
+    }
+    verify(handlerMapping, never()).getHandler(any());
+  }
+
+  /** Controller methods with the kinds of results a batch accepts or rejects. */
+  static class Endpoints {
+    public ResponseEntity<BatchResponse> batch() {
+      return null;
+    }
+
+    public ResponseEntity<BulkDeleteResult> bulkDelete() {
+      return null;
+    }
+
+    public SseEmitter stream() {
+      return null;
+    }
+
+    public CompletableFuture<String> later() {
+      return null;
+    }
+
+    public ResponseEntity<String> entity() {
+      return null;
+    }
+
+    public ResponseEntity<?> wildcard() {
+      return null;
+    }
+
+    public Object plain() {
+      return null;
+    }
+  }
+
+  @Test
+  public void batches_bulk_deletes_and_async_endpoints_are_rejected_however_the_path_is_spelled()
+      throws Exception {
+    for (String name : List.of("batch", "bulkDelete", "stream", "later")) {
+      when(handlerMapping.getHandler(any()))
+          .thenReturn(new HandlerExecutionChain(new HandlerMethod(new Endpoints(), name)));
+
+      BatchOperationResult result =
+          batchService.dispatch(op("POST", "//api/./batch"), request, response);
+
+      assertEquals(400, result.getStatus());
+      assertEquals(
+          "POST //api/./batch cannot be run in a batch", result.getBody().get("message").asText());
+    }
+    verify(handlerAdapter, never()).handle(any(), any(), any());
+  }
+
+  @Test
+  public void other_controller_methods_are_dispatched() throws Exception {
+    for (String name : List.of("entity", "wildcard", "plain")) {
+      HandlerMethod handlerMethod = new HandlerMethod(new Endpoints(), name);
+      when(handlerMapping.getHandler(any())).thenReturn(new HandlerExecutionChain(handlerMethod));
+
+      batchService.dispatch(op("GET", "/api/articles"), request, response);
+
+      verify(handlerAdapter).handle(any(), any(), eq(handlerMethod));
+    }
+  }
+
+  @Test
+  public void unknown_path_is_404() throws Exception {
+    when(handlerMapping.getHandler(any())).thenReturn(null);
+
+    BatchOperationResult result = batchService.dispatch(op("GET", "/api/nope"), request, response);
+
+    assertEquals(404, result.getStatus());
+    assertEquals("GET /api/nope", result.getBody().get("message").asText());
+  }
+
+  @Test
+  public void access_denied_is_403() throws Exception {
+    doThrow(new AccessDeniedException("Access Denied"))
+        .when(handlerAdapter)
+        .handle(any(), any(), eq(handler));
+
+    BatchOperationResult result =
+        batchService.dispatch(op("POST", "/api/articles/post"), request, response);
+
+    assertEquals(403, result.getStatus());
+    assertEquals("AccessDeniedException", result.getBody().get("type").asText());
+    assertEquals("Access Denied", result.getBody().get("message").asText());
+  }
+
+  @Test
+  public void resolved_exceptions_use_the_status_set_by_the_resolver() throws Exception {
+    IllegalStateException e = new IllegalStateException();
+    doThrow(e).when(handlerAdapter).handle(any(), any(), eq(handler));
+    doAnswer(
+            invocation -> {
+              HttpServletResponse r = invocation.getArgument(1);
+              r.sendError(405);
+              return new ModelAndView();
+            })
+        .when(exceptionResolver)
+        .resolveException(any(), any(), eq(handler), eq(e));
+
+    BatchOperationResult result =
+        batchService.dispatch(op("GET", "/api/articles/post"), request, response);
+
+    assertEquals(405, result.getStatus());
+    assertNull(result.getBody());
+  }
+
+  @Test
+  public void unresolved_exceptions_are_500() throws Exception {
+    doThrow(new IllegalStateException()).when(handlerAdapter).handle(any(), any(), eq(handler));
+
+    BatchOperationResult result =
+        batchService.dispatch(op("GET", "/api/articles"), request, response);
+
+    assertEquals(500, result.getStatus());
+    assertEquals("IllegalStateException", result.getBody().get("type").asText());
+    assertEquals("null", result.getBody().get("message").asText());
+  }
+
+  @Test
+  public void non_json_bodies_are_returned_as_text() throws Exception {
+    respondWith(200, "text/plain", "record 7 deleted");
+    assertEquals(
+        TextNode.valueOf("record 7 deleted"),
+        batchService.dispatch(op("DELETE", "/x"), request, response).getBody());
+
+    respondWith(200, null, "no content type");
+    assertEquals(
+        TextNode.valueOf("no content type"),
+        batchService.dispatch(op("DELETE", "/x"), request, response).getBody());
+
+    respondWith(200, "application/json", "{not json");
+    assertEquals(
+        TextNode.valueOf("{not json"),
+        batchService.dispatch(op("DELETE", "/x"), request, response).getBody());
+  }
+}
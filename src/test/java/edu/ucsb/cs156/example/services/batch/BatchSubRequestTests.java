@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class BatchSubRequestTests {
+
+  private MockHttpServletRequest batchRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/api/batch");
+    request.setContextPath("/app");
+    request.setContentType("application/json");
+    request.setContent("[]".getBytes(StandardCharsets.UTF_8));
+    request.addHeader("Accept", "application/json");
+    request.addParameter("ignored", "x");
+    request.setAttribute("cached", "batch");
+    return request;
+  }
+
+  @Test
+  public void operation_replaces_method_path_and_parameters() {
+    BatchSubRequest request =
+        new BatchSubRequest(batchRequest(), "PUT", "/api/articles", Map.of("id", "7"), null);
+
+    assertEquals("PUT", request.getMethod());
+    assertEquals("/app/api/articles", request.getRequestURI());
+    assertEquals("/api/articles", request.getServletPath());
+    assertNull(request.getPathInfo());
+    assertNull(request.getQueryString());
+    assertEquals("7", request.getParameter("id"));
+    assertNull(request.getParameter("ignored"));
+    assertArrayEquals(new String[] {"7"}, request.getParameterValues("id"));
+    assertEquals(List.of("id"), Collections.list(request.getParameterNames()));
+    assertEquals(1, request.getParameterMap().size());
+  }
+
+  @Test
+  public void operation_without_parameters_or_body() throws Exception {
+    BatchSubRequest request =
+        new BatchSubRequest(batchRequest(), "DELETE", "/api/articles", null, null);
+
+    assertTrue(request.getParameterMap().isEmpty());
+    assertNull(request.getContentType());
+    assertEquals(-1, request.getContentLength());
+    assertEquals(-1L, request.getContentLengthLong());
+    assertEquals(-1, request.getInputStream().read());
+  }
+
+  @Test
+  public void body_is_read_from_the_operation() throws Exception {
+    byte[] body = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+    BatchSubRequest request = new BatchSubRequest(batchRequest(), "POST", "/x", Map.of(), body);
+
+    assertEquals("application/json", request.getContentType());
+    assertEquals(body.length, request.getContentLength());
+    ServletInputStream in = request.getInputStream();
+    assertTrue(in.isReady());
+    assertFalse(in.isFinished());
+    assertArrayEquals(body, in.readAllBytes());
+    assertTrue(in.isFinished());
+  }
+
+  @Test
+  public void a_read_listener_is_told_that_the_whole_body_is_available() throws Exception {
+    ServletInputStream in =
+        new BatchSubRequest(batchRequest(), "GET", "/x", null, null).getInputStream();
+    ReadListener listener = mock(ReadListener.class);
+
+    in.setReadListener(listener);
+
+    verify(listener).onDataAvailable();
+    verify(listener).onAllDataRead();
+
+    IOException e = new IOException("closed");
+    ReadListener failing = mock(ReadListener.class);
+    doThrow(e).when(failing).onDataAvailable();
+
+    in.setReadListener(failing);
+
+    verify(failing).onError(e);
+  }
+
+  @Test
+  public void body_headers_of_the_batch_are_hidden() {
+    BatchSubRequest request = new BatchSubRequest(batchRequest(), "GET", "/x", null, null);
+
+    assertNull(request.getHeader("Content-Type"));
+    assertNull(request.getHeader("content-length"));
+    assertFalse(request.getHeaders("Content-Type").hasMoreElements());
+    assertEquals("application/json", request.getHeader("Accept"));
+    assertEquals("application/json", request.getHeaders("Accept").nextElement());
+    assertEquals(List.of("Accept"), Collections.list(request.getHeaderNames()));
+  }
+
+  @Test
+  public void attributes_are_separate_from_the_batch_request() {
+    MockHttpServletRequest batch = batchRequest();
+    BatchSubRequest request = new BatchSubRequest(batch, "GET", "/x", null, null);
+
+    assertNull(request.getAttribute("cached"));
+    request.setAttribute("mine", "value");
+    assertEquals("value", request.getAttribute("mine"));
+    assertEquals(List.of("mine"), Collections.list(request.getAttributeNames()));
+    assertNull(batch.getAttribute("mine"));
+
+    request.setAttribute("mine", null);
+    assertNull(request.getAttribute("mine"));
+    request.setAttribute("other", "value");
+    request.removeAttribute("other");
+    assertFalse(request.getAttributeNames().hasMoreElements());
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services.batch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class BatchSubResponseTests {
+
+  @Test
+  public void status_and_errors_are_captured() {
+    BatchSubResponse response = new BatchSubResponse(new MockHttpServletResponse());
+    assertEquals(200, response.getStatus());
+
+    response.setStatus(201);
+    assertEquals(201, response.getStatus());
+    response.sendError(404);
+    assertEquals(404, response.getStatus());
+    response.sendError(405, "not allowed");
+    assertEquals(405, response.getStatus());
+  }
+
+  @Test
+  public void body_is_buffered_and_nothing_reaches_the_real_response() throws Exception {
+    MockHttpServletResponse real = new MockHttpServletResponse();
+    BatchSubResponse response = new BatchSubResponse(real);
+
+    response.setContentType("application/json");
+    response.setCharacterEncoding("ISO-8859-1");
+    response.setContentLength(10);
+    response.setContentLengthLong(10L);
+    response.setHeader("X-A", "1");
+    response.addHeader("X-B", "2");
+    ServletOutputStream out = response.getOutputStream();
+    out.write("{}".getBytes(StandardCharsets.UTF_8));
+    assertTrue(out.isReady());
+    WriteListener listener = mock(WriteListener.class);
+    out.setWriteListener(listener);
+    verify(listener).onWritePossible();
+    IOException e = new IOException("closed");
+    WriteListener failing = mock(WriteListener.class);
+    doThrow(e).when(failing).onWritePossible();
+    out.setWriteListener(failing);
+    verify(failing).onError(e);
+
+    assertEquals("application/json", response.getContentType());
+    assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), response.getBody());
+    assertFalse(response.isCommitted());
+    assertNull(real.getContentType());
+    assertNull(real.getHeader("X-A"));
+    assertNull(real.getHeader("X-B"));
+    assertEquals(0, real.getContentAsByteArray().length);
+  }
+
+  @Test
+  public void writer_output_is_flushed_into_the_body() {
+    BatchSubResponse response = new BatchSubResponse(new MockHttpServletResponse());
+    response.flushBuffer();
+
+    assertSame(response.getWriter(), response.getWriter());
+    response.getWriter().print("record 7 deleted");
+    assertEquals("record 7 deleted", new String(response.getBody(), StandardCharsets.UTF_8));
+
+    response.resetBuffer();
+    assertEquals(0, response.getBody().length);
+  }
+}
@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.services.deadlines.HashedTimingWheel.Timeout;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HashedTimingWheelTests {
+
+  private final Instant start = Instant.parse("2025-10-01T12:00:00Z");
+
+  private final HashedTimingWheel<String> wheel =
+      new HashedTimingWheel<>(Duration.ofSeconds(1), 4, start);
+
+  private Instant at(long millis) {
+    return start.plusMillis(millis);
+  }
+
+  @Test
+  public void items_are_returned_when_they_are_due() {
+    wheel.schedule("a", at(2000));
+    wheel.schedule("b", at(9000)); // two turns of the wheel later
+    wheel.schedule("c", at(2500)); // rounded up to the next tick
+    assertEquals(3, wheel.size());
+
+    assertEquals(List.of(), wheel.advance(at(1999)));
+    assertEquals(List.of("a"), wheel.advance(at(2000)));
+    assertEquals(List.of("c"), wheel.advance(at(3000)));
+    assertEquals(List.of(), wheel.advance(at(8999)));
+    assertEquals(List.of("b"), wheel.advance(at(9000)));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void items_already_due_are_returned_at_the_next_tick() {
+    wheel.advance(at(5000));
+
+    wheel.schedule("late", at(-5000));
+
+    assertEquals(List.of(), wheel.advance(at(5999)));
+    assertEquals(List.of("late"), wheel.advance(at(6000)));
+  }
+
+  @Test
+  public void advance_catches_up_on_missed_ticks_in_order() {
+    wheel.schedule("third", at(30000));
+    wheel.schedule("first", at(1000));
+    wheel.schedule("second", at(6000));
+
+    assertEquals(List.of("first", "second", "third"), wheel.advance(at(60000)));
+  }
+
+  @Test
+  public void cancelled_items_are_not_returned() {
+    Timeout<String> a = wheel.schedule("a", at(2000));
+    Timeout<String> b = wheel.schedule("b", at(2000));
+    assertEquals("a", a.getItem());
+
+    assertTrue(wheel.cancel(a));
+    assertFalse(wheel.cancel(a));
+    assertEquals(List.of("b"), wheel.advance(at(2000)));
+    assertFalse(wheel.cancel(b));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void tick_and_size_must_be_positive() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new HashedTimingWheel<>(Duration.ZERO, 4, start));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new HashedTimingWheel<>(Duration.ofSeconds(1), 0, start));
+  }
+}
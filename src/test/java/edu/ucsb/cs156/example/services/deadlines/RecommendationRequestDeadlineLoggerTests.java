@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class RecommendationRequestDeadlineLoggerTests {
+
+  private final RecommendationRequestDeadlineLogger logger =
+      new RecommendationRequestDeadlineLogger();
+
+  private final RecommendationRequest request =
+      RecommendationRequest.builder()
+          .id(5L)
+          .requesterEmail("cgaucho@ucsb.edu")
+          .professorEmail("phtcon@ucsb.edu")
+          .dateNeeded(LocalDateTime.parse("2025-10-02T00:00:00"))
+          .build();
+
+  @Test
+  public void reminders_are_logged(CapturedOutput output) {
+    logger.onDueSoon(request);
+    logger.onOverdue(request);
+
+    assertTrue(
+        output
+            .getOut()
+            .contains(
+                "recommendation request 5 from cgaucho@ucsb.edu to phtcon@ucsb.edu is due"
+                    + " 2025-10-02T00:00"));
+    assertTrue(output.getOut().contains("is overdue since 2025-10-02T00:00"));
+  }
+}
@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services.deadlines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RecommendationRequestDeadlineServiceTests {
+
+  @Mock private RecommendationRequestRepository recommendationRequestRepository;
+
+  @InjectMocks private RecommendationRequestDeadlineService deadlineService;
+
+  private final RecommendationRequestDeadlineListener listener =
+      mock(RecommendationRequestDeadlineListener.class);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(deadlineService, "listeners", List.of(listener));
+    setNow("2025-10-01T12:00");
+  }
+
+  private void setNow(String time) {
+    ReflectionTestUtils.setField(
+        deadlineService,
+        "clock",
+        Clock.fixed(LocalDateTime.parse(time).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+  }
+
+  private void tickAt(String time) {
+    setNow(time);
+    deadlineService.tick();
+  }
+
+  private static RecommendationRequest request(long id, String dateNeeded, boolean done) {
+    return RecommendationRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .professorEmail("phtcon@ucsb.edu")
+        .explanation("BS/MS program")
+        .dateRequested(LocalDateTime.parse("2025-09-20T00:00"))
+        .dateNeeded(dateNeeded == null ? null : LocalDateTime.parse(dateNeeded))
+        .done(done)
+        .build();
+  }
+
+  private void write(ChangeType type, RecommendationRequest request) {
+    deadlineService.onEntityChanged(
+        new EntityChangedEvent(type, RecommendationRequest.class, request.getId(), request));
+  }
+
+  private void loadEmpty() {
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededAfter(any()))
+        .thenReturn(List.of());
+    deadlineService.load();
+  }
+
+  @Test
+  public void findDue_lists_requests_needed_before_now_plus_the_duration() {
+    deadlineService.findDue(Duration.ofDays(7));
+
+    verify(recommendationRequestRepository)
+        .findByDoneFalseAndDateNeededBeforeOrderByDateNeeded(
+            LocalDateTime.parse("2025-10-08T12:00"));
+  }
+
+  @Test
+  public void reminders_of_loaded_requests_are_sent_when_due() {
+    RecommendationRequest nextWeek = request(1, "2025-10-03T12:00", false);
+    RecommendationRequest tonight = request(2, "2025-10-01T18:00", false); // already due soon
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededAfter(
+            LocalDateTime.parse("2025-10-01T12:00")))
+        .thenReturn(List.of(nextWeek, tonight));
+
+    deadlineService.load();
+    assertEquals(3, deadlineService.getPendingReminders());
+
+    tickAt("2025-10-01T17:59");
+    verifyNoInteractions(listener);
+    tickAt("2025-10-01T18:00");
+    verify(listener).onOverdue(tonight);
+    tickAt("2025-10-02T12:00");
+    verify(listener).onDueSoon(nextWeek);
+    tickAt("2025-10-03T12:00");
+    verify(listener).onOverdue(nextWeek);
+    verify(listener, never()).onDueSoon(tonight);
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+
+  @Test
+  public void writes_reschedule_the_reminders_of_a_request() {
+    loadEmpty();
+
+    write(ChangeType.CREATED, request(1, "2025-10-03T12:00", false));
+    assertEquals(2, deadlineService.getPendingReminders());
+    write(ChangeType.UPDATED, request(1, "2025-10-05T12:00", false));
+    assertEquals(2, deadlineService.getPendingReminders());
+
+    tickAt("2025-10-03T12:00");
+    verifyNoInteractions(listener);
+    tickAt("2025-10-04T12:00");
+    verify(listener).onDueSoon(request(1, "2025-10-05T12:00", false));
+
+    write(ChangeType.UPDATED, request(1, "2025-10-05T12:00", true));
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+
+  @Test
+  public void deleted_requests_have_no_reminders() {
+    loadEmpty();
+    write(ChangeType.CREATED, request(1, "2025-10-03T12:00", false));
+
+    deadlineService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, RecommendationRequest.class, 1L, null));
+    deadlineService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, RecommendationRequest.class, 9L, null));
+
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+
+  @Test
+  public void a_bulk_delete_cancels_the_reminders_of_every_id_of_the_chunk() {
+    loadEmpty();
+    write(ChangeType.CREATED, request(1, "2025-10-03T12:00", false));
+    write(ChangeType.CREATED, request(2, "2025-10-04T12:00", false));
+
+    deadlineService.onEntityChanged(
+        EntityChangedEvent.bulkDelete(RecommendationRequest.class, List.of(1L, 2L)));
+
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+
+  @Test
+  public void requests_that_are_done_past_or_without_a_date_have_no_reminders() {
+    loadEmpty();
+
+    write(ChangeType.CREATED, request(1, "2025-10-03T12:00", true));
+    write(ChangeType.CREATED, request(2, null, false));
+    write(ChangeType.CREATED, request(3, "2025-09-30T12:00", false));
+
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+
+  @Test
+  public void writes_before_the_load_are_left_to_it() {
+    write(ChangeType.CREATED, request(1, "2025-10-03T12:00", false));
+    deadlineService.tick();
+
+    assertEquals(0, deadlineService.getPendingReminders());
+    verifyNoInteractions(listener);
+  }
+
+  @Test
+  public void a_failing_listener_does_not_stop_the_others() {
+    RecommendationRequestDeadlineListener failing =
+        mock(RecommendationRequestDeadlineListener.class);
+    doThrow(new IllegalStateException("mail server down")).when(failing).onOverdue(any());
+    ReflectionTestUtils.setField(deadlineService, "listeners", List.of(failing, listener));
+    loadEmpty();
+    RecommendationRequest request = request(1, "2025-10-01T13:00", false);
+    write(ChangeType.CREATED, request);
+
+    tickAt("2025-10-01T13:00");
+
+    verify(failing).onOverdue(request);
+    verify(listener).onOverdue(request);
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    loadEmpty();
+
+    deadlineService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBDate.class, 1L, UCSBDate.builder().build()));
+
+    assertEquals(0, deadlineService.getPendingReminders());
+  }
+}
@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.ucsb.cs156.example.entities.ArchivedJob;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.ArchivedJobRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class JobArchiveServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private ArchivedJobRepository archivedJobRepository;
+
+  @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  @InjectMocks private JobArchiveService jobArchiveService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobArchiveService, "chunkSize", 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void archives_old_jobs_in_chunks_and_deletes_them_from_the_table() {
+    Job job1 = Job.builder().id(1L).status("complete").log("one").build();
+    Job job2 =
+        Job.builder()
+            .id(2L)
+            .status("error")
+            .compressedLog(JobLogCompression.compress("two"))
+            .build();
+    Job job1001 = Job.builder().id(1001L).status("complete").log("three").build();
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    when(jobsRepository.findIdsToArchive(cutoff.capture())).thenReturn(List.of(1L, 2L, 1001L));
+    when(jobsRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(job1, job2));
+    when(jobsRepository.findAllById(List.of(1001L))).thenReturn(List.of(job1001));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+    when(jobsRepository.deleteByIds(List.of(1001L))).thenReturn(1);
+    ArgumentCaptor<List<ArchivedJob>> saved = ArgumentCaptor.forClass(List.class);
+
+    int archived = jobArchiveService.archiveOldJobs();
+
+    assertEquals(3, archived);
+    assertTrue(cutoff.getValue().isBefore(ZonedDateTime.now().minusDays(29)));
+    verify(archivedJobRepository, times(2)).saveAll(saved.capture());
+    assertEquals(
+        List.of(1L, 2L), saved.getAllValues().get(0).stream().map(ArchivedJob::getId).toList());
+    verify(transactionManager, times(2)).commit(any());
+    verify(applicationEventPublisher, times(1))
+        .publishEvent(EntityChangedEvent.bulkDelete(Job.class, List.of(1L, 2L)));
+    verify(applicationEventPublisher, times(1))
+        .publishEvent(EntityChangedEvent.bulkDelete(Job.class, List.of(1001L)));
+
+    when(archivedJobRepository.findById(2L))
+        .thenReturn(Optional.of(saved.getAllValues().get(0).get(1)));
+    Job restored = jobArchiveService.findArchived(2L).get();
+    assertEquals(2L, restored.getId());
+    assertEquals("error", restored.getStatus());
+    assertEquals("two", restored.getLog());
+    // the loaded jobs are left as they were, so nothing is written to their rows
+    assertNull(job2.getLog());
+    assertEquals("two", JobLogCompression.decompress(job2.getCompressedLog()));
+  }
+
+  @Test
+  public void new_archives_are_inserted_and_loaded_ones_are_not() {
+    ArchivedJob archived = ArchivedJob.builder().id(1L).build();
+    assertTrue(archived.isNew());
+
+    ReflectionTestUtils.invokeMethod(archived, "markStored");
+
+    assertFalse(archived.isNew());
+  }
+
+  @Test
+  public void keeps_jobs_in_the_table_when_they_cannot_be_archived() throws Exception {
+    Job job = Job.builder().id(1L).build();
+    doThrow(new JsonMappingException(null, "cannot write"))
+        .when(mapper)
+        .writeValueAsString(any(ObjectNode.class));
+    when(jobsRepository.findIdsToArchive(any())).thenReturn(List.of(1L));
+    when(jobsRepository.findAllById(List.of(1L))).thenReturn(List.of(job));
+
+    assertEquals(0, jobArchiveService.archiveOldJobs());
+
+    verify(archivedJobRepository, times(0)).saveAll(any());
+    verify(jobsRepository, times(0)).deleteByIds(any());
+    verify(applicationEventPublisher, times(0)).publishEvent(any());
+  }
+
+  @Test
+  public void does_nothing_when_retention_is_disabled() {
+    ReflectionTestUtils.setField(jobArchiveService, "retentionDays", 0);
+
+    assertEquals(0, jobArchiveService.archiveOldJobs());
+
+    verify(jobsRepository, times(0)).findIdsToArchive(any());
+  }
+
+  @Test
+  public void findArchived_returns_empty_for_a_job_that_was_never_archived() {
+    when(archivedJobRepository.findById(17L)).thenReturn(Optional.empty());
+
+    assertEquals(Optional.empty(), jobArchiveService.findArchived(17L));
+  }
+
+  @Test
+  public void findArchived_throws_when_the_archive_is_corrupt() {
+    ArchivedJob corrupt =
+        ArchivedJob.builder().id(5L).compressedJob(JobLogCompression.compress("not json")).build();
+    when(archivedJobRepository.findById(5L)).thenReturn(Optional.of(corrupt));
+
+    assertThrows(UncheckedIOException.class, () -> jobArchiveService.findArchived(5L));
+  }
+}
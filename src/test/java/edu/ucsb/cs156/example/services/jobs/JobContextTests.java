@@ -1,8 +1,21 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import org.junit.jupiter.api.Test;
 
 public class JobContextTests {
@@ -20,4 +33,121 @@ public class JobContextTests {
     // assert
     assertEquals("This is a log message", job1.getLog());
   }
+
+  @Test
+  public void checkCancelled_throws_only_after_the_job_is_stopped() {
+    JobContext ctx = new JobContext(null, Job.builder().id(7L).build());
+
+    ctx.checkCancelled();
+    assertNull(ctx.getStopReason());
+
+    assertTrue(ctx.stop("timeout"));
+    assertFalse(ctx.stop("cancelled"));
+
+    JobCancelledException e = assertThrows(JobCancelledException.class, ctx::checkCancelled);
+    assertEquals("Job 7 stopped: timeout", e.getMessage());
+    assertEquals("timeout", ctx.getStopReason());
+  }
+
+  @Test
+  public void finished_job_cannot_be_stopped() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    ctx.start();
+    ctx.finish();
+
+    assertFalse(ctx.stop("cancelled"));
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void isOverdue_compares_with_the_deadline() {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+    Instant now = Instant.now();
+
+    assertFalse(ctx.isOverdue(now));
+    ctx.setDeadline(now.plusSeconds(1));
+    assertFalse(ctx.isOverdue(now));
+    ctx.setDeadline(now.minusSeconds(1));
+    assertTrue(ctx.isOverdue(now));
+  }
+
+  @Test
+  public void progress_is_saved_at_most_once_per_interval() {
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, job);
+    ctx.setProgressSaveInterval(Duration.ofHours(1));
+    ctx.start();
+
+    for (long done = 0; done < 1000; done++) {
+      ctx.progress(done, 1000);
+    }
+
+    verify(jobsRepository, times(1)).save(job);
+    assertEquals(999L, job.getProgressDone());
+    assertEquals(1000L, job.getProgressTotal());
+    assertEquals(99, job.getPercentComplete());
+
+    ctx.log("log messages are always saved");
+    verify(jobsRepository, times(2)).save(job);
+  }
+
+  @Test
+  public void progress_is_saved_every_time_with_a_zero_interval() {
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, job);
+    ctx.setProgressSaveInterval(Duration.ZERO);
+
+    ctx.progress(1, 3);
+    ctx.progress(2, 3);
+    ctx.progress(3, 3);
+
+    verify(jobsRepository, times(3)).save(job);
+  }
+
+  @Test
+  public void estimated_completion_assumes_the_same_rate_for_the_rest_of_the_work()
+      throws Exception {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+    ctx.start();
+    Thread.sleep(20);
+    Instant before = Instant.now();
+
+    ctx.progress(1, 2);
+
+    // half the work took at least 20ms, so the other half should take at least 20ms more
+    ZonedDateTime eta = job.getEstimatedCompletionAt();
+    assertFalse(eta.toInstant().isBefore(before.plusMillis(20)));
+
+    ctx.progress(3, 2);
+    assertFalse(job.getEstimatedCompletionAt().toInstant().isAfter(Instant.now()));
+  }
+
+  @Test
+  public void no_estimated_completion_before_the_job_starts_or_any_work_is_done() {
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+
+    ctx.progress(1, 2);
+    assertNull(job.getEstimatedCompletionAt());
+
+    ctx.start();
+    ctx.progress(0, 2);
+    assertNull(job.getEstimatedCompletionAt());
+    assertEquals(0, job.getPercentComplete());
+  }
+
+  @Test
+  public void setResult_is_saved_with_the_finished_job() {
+    JobsRepository jobsRepository = mock(JobsRepository.class);
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(jobsRepository, job);
+
+    ctx.setResult("{\"imported\": 12}");
+
+    assertEquals("{\"imported\": 12}", job.getResult());
+    verify(jobsRepository, never()).save(job);
+  }
 }
@@ -0,0 +1,337 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+
+public class JobGraphTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobArchiveService jobArchiveService;
+
+  @Mock private JobService self;
+
+  @InjectMocks private JobService jobService;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  private final AtomicLong nextId = new AtomicLong();
+
+  private final Map<Long, Job> saved = new ConcurrentHashMap<>();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(jobsRepository.save(any()))
+        .thenAnswer(
+            inv -> {
+              Job job = inv.getArgument(0);
+              if (job.getId() == 0) {
+                job.setId(nextId.incrementAndGet());
+              }
+              saved.put(job.getId(), job);
+              return job;
+            });
+    // stands in for the @Async proxy
+    doAnswer(
+            inv -> {
+              JobContext context = inv.getArgument(0);
+              JobContextConsumer jobFunction = inv.getArgument(1);
+              executor.submit(() -> jobService.runJobAsync(context, jobFunction));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  private static String logOf(Job job) {
+    return JobLogCompression.decompress(job.getCompressedLog());
+  }
+
+  private void runStepsOnTheCallingThread() {
+    doAnswer(
+            inv -> {
+              jobService.runJobAsync((JobContext) inv.getArgument(0), inv.getArgument(1));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+  }
+
+  @Test
+  public void independent_steps_run_in_parallel_and_outputs_pass_to_dependents() {
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    AtomicInteger total = new AtomicInteger();
+    JobGraph graph =
+        new JobGraph()
+            .step("fetch", (c, in) -> 10)
+            .step(
+                "double",
+                (c, in) -> {
+                  bothRunning.countDown();
+                  if (!bothRunning.await(5, SECONDS)) {
+                    throw new IllegalStateException("square did not run at the same time");
+                  }
+                  return 2 * (Integer) in.get("fetch");
+                },
+                "fetch")
+            .step(
+                "square",
+                (c, in) -> {
+                  bothRunning.countDown();
+                  int x = (Integer) in.get("fetch");
+                  return x * x;
+                },
+                "fetch")
+            .step(
+                "sum",
+                (c, in) -> {
+                  total.set((Integer) in.get("double") + (Integer) in.get("square"));
+                  return null;
+                },
+                "double",
+                "square");
+
+    Job parent = jobService.runGraph(graph);
+
+    await().atMost(10, SECONDS).until(() -> parent.getCompressedLog() != null);
+    assertEquals("complete", parent.getStatus());
+    assertEquals(120, total.get());
+    List<Job> children = saved.values().stream().filter(j -> j.getParentJobId() != null).toList();
+    assertEquals(4, children.size());
+    assertTrue(children.stream().allMatch(j -> j.getParentJobId() == parent.getId()));
+    assertTrue(children.stream().allMatch(j -> "complete".equals(j.getStatus())));
+    String log = logOf(parent);
+    assertTrue(log.startsWith("Step fetch started as job 2\nStep fetch finished with status"));
+    assertTrue(log.endsWith("Step sum finished with status complete"));
+  }
+
+  @Test
+  public void failed_step_skips_its_dependents_but_not_independent_steps() {
+    AtomicInteger reports = new AtomicInteger();
+    JobGraph graph =
+        new JobGraph()
+            .step(
+                "fetch",
+                (c, in) -> {
+                  throw new IllegalStateException("source unavailable");
+                })
+            .step("transform", (c, in) -> in.get("fetch"), "fetch")
+            .step("upsert", (c, in) -> in.get("transform"), "transform")
+            .step("report", c -> reports.incrementAndGet());
+
+    Job parent = jobService.runGraph(graph);
+
+    await().atMost(10, SECONDS).until(() -> parent.getCompressedLog() != null);
+    assertEquals("error", parent.getStatus());
+    assertEquals(1, reports.get());
+    String log = logOf(parent);
+    assertTrue(log.contains("Step fetch finished with status error"));
+    assertTrue(log.contains("Step transform skipped\nStep upsert skipped"));
+    assertTrue(log.contains("Step report finished with status complete"));
+    assertEquals(3, saved.size()); // the parent, fetch and report
+  }
+
+  @Test
+  public void cancelling_the_parent_cancels_running_steps_and_skips_the_rest() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    JobGraph graph =
+        new JobGraph()
+            .step(
+                "slow",
+                c -> {
+                  started.countDown();
+                  Thread.sleep(60_000);
+                })
+            .step("after", c -> {}, "slow");
+
+    Job parent = jobService.runGraph(graph);
+    started.await();
+
+    assertTrue(jobService.cancel(parent.getId()));
+    assertFalse(jobService.cancel(parent.getId()));
+
+    await().atMost(10, SECONDS).until(() -> parent.getCompressedLog() != null);
+    assertEquals("cancelled", parent.getStatus());
+    assertTrue(
+        logOf(parent).endsWith("Step slow finished with status cancelled\nStep after skipped"));
+    assertFalse(jobService.cancel(parent.getId()));
+  }
+
+  @Test
+  public void steps_that_finish_before_they_are_tracked_still_finish_the_graph() {
+    runStepsOnTheCallingThread();
+    JobGraph graph = new JobGraph().step("a", (c, in) -> "a").step("b", (c, in) -> "b", "a");
+
+    Job parent = jobService.runGraph(graph);
+
+    assertEquals("complete", parent.getStatus());
+    assertEquals(
+        "Step a started as job 2\n"
+            + "Step a finished with status complete\n"
+            + "Step b started as job 3\n"
+            + "Step b finished with status complete",
+        logOf(parent));
+  }
+
+  @Test
+  public void a_step_whose_submission_is_rejected_fails_and_the_graph_still_finishes() {
+    AtomicInteger submissions = new AtomicInteger();
+    doAnswer(
+            inv -> {
+              if (submissions.incrementAndGet() == 2) {
+                throw new TaskRejectedException("executor is shut down");
+              }
+              jobService.runJobAsync((JobContext) inv.getArgument(0), inv.getArgument(1));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+    JobGraph graph =
+        new JobGraph()
+            .step("a", (c, in) -> "a")
+            .step("b", (c, in) -> "b", "a")
+            .step("c", (c, in) -> "c", "b");
+
+    Job parent = jobService.runGraph(graph);
+
+    assertEquals("error", parent.getStatus());
+    assertEquals(
+        "Step a started as job 2\n"
+            + "Step a finished with status complete\n"
+            + "Step b could not be started: "
+            + "org.springframework.core.task.TaskRejectedException: executor is shut down\n"
+            + "Step c skipped",
+        logOf(parent));
+    Job b = saved.get(3L);
+    assertEquals("error", b.getStatus());
+    assertTrue(logOf(b).startsWith("Job could not be started"));
+    assertFalse(jobService.cancel(parent.getId()));
+  }
+
+  @Test
+  public void a_graph_whose_first_step_is_rejected_finishes_at_once() {
+    doThrow(new TaskRejectedException("full")).when(self).runJobAsync(any(JobContext.class), any());
+
+    Job parent = jobService.runGraph(new JobGraph().step("a", (c, in) -> "a"));
+
+    assertEquals("error", parent.getStatus());
+    jobService.drain(Duration.ZERO, Duration.ZERO);
+    assertEquals("error", parent.getStatus());
+  }
+
+  @Test
+  public void drain_waits_for_a_graph_to_finish() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    JobGraph graph =
+        new JobGraph()
+            .step("a", (c, in) -> null)
+            .step(
+                "b",
+                (c, in) -> {
+                  started.countDown();
+                  Thread.sleep(100);
+                  return null;
+                },
+                "a");
+    Job parent = jobService.runGraph(graph);
+    started.await();
+
+    jobService.drain(Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    assertEquals("complete", parent.getStatus());
+    assertFalse(jobService.cancel(parent.getId()));
+  }
+
+  @Test
+  public void finished_graph_cannot_be_cancelled() {
+    runStepsOnTheCallingThread();
+    Job parent = Job.builder().id(1L).build();
+    JobGraphRun run =
+        new JobGraphRun(
+            jobService, new JobContext(jobsRepository, parent), new JobGraph().step("a", c -> {}));
+
+    run.start();
+
+    assertEquals("complete", parent.getStatus());
+    assertFalse(run.cancel());
+  }
+
+  @Test
+  public void graph_must_have_steps_with_unique_names_and_known_dependencies() {
+    JobGraph graph = new JobGraph().step("fetch", c -> {});
+
+    IllegalArgumentException duplicate =
+        assertThrows(IllegalArgumentException.class, () -> graph.step("fetch", c -> {}));
+    assertEquals("step fetch is already in the graph", duplicate.getMessage());
+
+    IllegalArgumentException unknown =
+        assertThrows(IllegalArgumentException.class, () -> graph.step("load", c -> {}, "parse"));
+    assertEquals("step load depends on parse, which must be added first", unknown.getMessage());
+
+    IllegalArgumentException empty =
+        assertThrows(IllegalArgumentException.class, () -> jobService.runGraph(new JobGraph()));
+    assertEquals("a job graph needs at least one step", empty.getMessage());
+  }
+
+  @Test
+  public void steps_that_become_ready_during_shutdown_are_interrupted() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    JobGraph graph =
+        new JobGraph()
+            .step(
+                "a",
+                (c, in) -> {
+                  started.countDown();
+                  Thread.sleep(200);
+                  return null;
+                })
+            .step("b", (c, in) -> ran.incrementAndGet(), "a")
+            .step("c", (c, in) -> ran.incrementAndGet(), "b");
+    Job parent = jobService.runGraph(graph);
+    started.await();
+
+    jobService.drain(Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    assertEquals("interrupted", parent.getStatus());
+    assertEquals(0, ran.get());
+    assertTrue(logOf(parent).endsWith("Step b finished with status interrupted\nStep c skipped"));
+    assertThrows(IllegalStateException.class, () -> jobService.runGraph(graph));
+  }
+}
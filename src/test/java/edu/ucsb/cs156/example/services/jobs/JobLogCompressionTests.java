@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class JobLogCompressionTests {
+
+  @Test
+  public void round_trips_text() {
+    String text = "Hello World! from test job!\nünïcödé\n";
+    assertEquals(text, JobLogCompression.decompress(JobLogCompression.compress(text)));
+    assertEquals("", JobLogCompression.decompress(JobLogCompression.compress("")));
+  }
+
+  @Test
+  public void typical_job_log_compresses_at_least_five_to_one() {
+    String text =
+        IntStream.range(0, 2000)
+            .mapToObj(i -> "Processing row %d of 2000: upserted menu item for ortega".formatted(i))
+            .collect(Collectors.joining("\n"));
+
+    byte[] compressed = JobLogCompression.compress(text);
+
+    int size = text.getBytes(StandardCharsets.UTF_8).length;
+    assertTrue(compressed.length * 5 < size, "%d -> %d bytes".formatted(size, compressed.length));
+    assertEquals(text, JobLogCompression.decompress(compressed));
+  }
+
+  @Test
+  public void decompress_throws_on_data_that_is_not_a_compressed_log() {
+    assertThrows(
+        UncheckedIOException.class,
+        () -> JobLogCompression.decompress("plain".getBytes(StandardCharsets.UTF_8)));
+  }
+}
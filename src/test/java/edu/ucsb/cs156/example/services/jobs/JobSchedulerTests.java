@@ -0,0 +1,252 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.entities.JobSchedule.MisfirePolicy;
+import edu.ucsb.cs156.example.repositories.JobScheduleRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobSchedulerTests {
+
+  @Mock private JobScheduleRepository jobScheduleRepository;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobService jobService;
+
+  @InjectMocks private JobScheduler jobScheduler;
+
+  private final JobContextConsumer testJob = ctx -> {};
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    JobFactory failing =
+        parameters -> {
+          throw new IllegalArgumentException("bad parameters");
+        };
+    JobFactory factory = parameters -> testJob;
+    ReflectionTestUtils.setField(
+        jobScheduler, "jobFactories", Map.of("testJob", factory, "failingJob", failing));
+    when(jobService.runAsJob(testJob)).thenReturn(Job.builder().id(99L).build());
+  }
+
+  private JobSchedule due(JobSchedule schedule) {
+    when(jobScheduleRepository.findDue(any())).thenReturn(List.of(schedule));
+    when(jobScheduleRepository.acquireLease(eq(schedule.getId()), anyString(), any(), any()))
+        .thenReturn(1);
+    when(jobScheduleRepository.findById(schedule.getId())).thenReturn(Optional.of(schedule));
+    when(jobScheduleRepository.finishRun(eq(schedule.getId()), anyString(), any(), any(), any()))
+        .thenReturn(1);
+    return schedule;
+  }
+
+  private static JobSchedule.JobScheduleBuilder schedule(ZonedDateTime nextRunAt) {
+    return JobSchedule.builder()
+        .id(1L)
+        .name("nightly")
+        .jobType("testJob")
+        .nextRunAt(nextRunAt)
+        .leaseOwner("me")
+        .leaseUntil(nextRunAt);
+  }
+
+  @Test
+  public void runs_due_cron_schedule_and_moves_to_next_time_after_now() {
+    ZonedDateTime before = ZonedDateTime.now();
+    JobSchedule schedule =
+        due(schedule(before.minusDays(3)).cron("0 0 4 * * *").build()); // missed 3 runs
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(1)).runAsJob(testJob);
+    assertEquals(99L, schedule.getLastJobId());
+    assertFalse(schedule.getLastRunAt().isBefore(before));
+    assertEquals(
+        CronExpression.parse("0 0 4 * * *").next(schedule.getLastRunAt()), schedule.getNextRunAt());
+    verify(jobScheduleRepository, times(1))
+        .finishRun(
+            1L,
+            (String) ReflectionTestUtils.getField(jobScheduler, "nodeId"),
+            schedule.getNextRunAt(),
+            schedule.getLastRunAt(),
+            99L);
+    verify(jobScheduleRepository, times(0)).save(any());
+  }
+
+  @Test
+  public void catch_up_schedule_moves_one_interval_at_a_time() {
+    ZonedDateTime missed = ZonedDateTime.now().minusMinutes(25);
+    JobSchedule schedule =
+        due(
+            schedule(missed)
+                .fixedRateMs(600_000L)
+                .misfirePolicy(MisfirePolicy.CATCH_UP)
+                .lastJobId(5L)
+                .build());
+    when(jobsRepository.findById(5L))
+        .thenReturn(Optional.of(Job.builder().status("complete").build()));
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(1)).runAsJob(testJob);
+    assertEquals(missed.plusMinutes(10), schedule.getNextRunAt());
+  }
+
+  @Test
+  public void does_not_start_a_run_while_the_previous_one_is_running() {
+    ZonedDateTime missed = ZonedDateTime.now().minusMinutes(1);
+    ZonedDateTime before = ZonedDateTime.now();
+    JobSchedule skip = due(schedule(missed).fixedRateMs(600_000L).lastJobId(5L).build());
+    when(jobsRepository.findById(5L))
+        .thenReturn(Optional.of(Job.builder().status("running").build()));
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(0)).runAsJob(any());
+    assertFalse(skip.getNextRunAt().isBefore(before.plusMinutes(10)));
+    assertFalse(skip.getNextRunAt().isAfter(ZonedDateTime.now().plusMinutes(10)));
+
+    JobSchedule catchUp = due(schedule(missed).fixedRateMs(600_000L).lastJobId(5L).build());
+    catchUp.setMisfirePolicy(MisfirePolicy.CATCH_UP);
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(0)).runAsJob(any());
+    assertEquals(missed, catchUp.getNextRunAt()); // tried again on the next poll
+  }
+
+  @Test
+  public void runs_when_the_previous_job_no_longer_exists() {
+    ZonedDateTime missed = ZonedDateTime.now().minusSeconds(1);
+    JobSchedule schedule = due(schedule(missed).fixedRateMs(1000L).lastJobId(5L).build());
+    when(jobsRepository.findById(5L)).thenReturn(Optional.empty());
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(1)).runAsJob(testJob);
+    assertEquals(99L, schedule.getLastJobId());
+  }
+
+  @Test
+  public void disables_schedule_with_unknown_job_type() {
+    JobSchedule schedule =
+        due(schedule(ZonedDateTime.now()).jobType("noSuchJob").fixedRateMs(1000L).build());
+
+    jobScheduler.runDueSchedules();
+
+    assertFalse(schedule.getEnabled());
+    verify(jobService, times(0)).runAsJob(any());
+    verify(jobScheduleRepository, times(1)).disable(1L);
+    verify(jobScheduleRepository, times(1))
+        .finishRun(eq(1L), anyString(), eq(schedule.getNextRunAt()), isNull(), isNull());
+  }
+
+  @Test
+  public void a_run_is_not_saved_once_the_lease_has_expired() {
+    JobSchedule schedule = due(schedule(ZonedDateTime.now()).fixedRateMs(1000L).build());
+    when(jobScheduleRepository.finishRun(eq(1L), anyString(), any(), any(), any())).thenReturn(0);
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(1)).runAsJob(testJob);
+    verify(jobScheduleRepository, times(0)).save(any());
+    assertEquals(99L, schedule.getLastJobId());
+  }
+
+  @Test
+  public void skips_the_run_when_the_job_cannot_be_created() {
+    ZonedDateTime missed = ZonedDateTime.now().minusSeconds(1);
+    JobSchedule schedule = due(schedule(missed).jobType("failingJob").fixedRateMs(60_000L).build());
+
+    jobScheduler.runDueSchedules();
+
+    assertNull(schedule.getLastJobId());
+    assertFalse(schedule.getNextRunAt().isBefore(missed.plusMinutes(1)));
+  }
+
+  @Test
+  public void does_nothing_when_another_node_holds_the_lease() {
+    when(jobScheduleRepository.findDue(any()))
+        .thenReturn(List.of(schedule(ZonedDateTime.now()).fixedRateMs(1000L).build()));
+    when(jobScheduleRepository.acquireLease(anyLong(), anyString(), any(), any())).thenReturn(0);
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobScheduleRepository, times(0)).findById(any());
+    verify(jobService, times(0)).runAsJob(any());
+  }
+
+  @Test
+  public void does_nothing_when_schedule_changed_before_the_lease_was_taken() {
+    JobSchedule future = schedule(ZonedDateTime.now().plusHours(1)).fixedRateMs(1000L).build();
+    due(future);
+
+    jobScheduler.runDueSchedules();
+
+    JobSchedule disabled =
+        schedule(ZonedDateTime.now().minusHours(1)).fixedRateMs(1000L).enabled(false).build();
+    due(disabled);
+
+    jobScheduler.runDueSchedules();
+
+    verify(jobService, times(0)).runAsJob(any());
+    // the lease is released without changing the schedule
+    verify(jobScheduleRepository, times(1))
+        .finishRun(eq(1L), anyString(), eq(future.getNextRunAt()), isNull(), isNull());
+    verify(jobScheduleRepository, times(1))
+        .finishRun(eq(1L), anyString(), eq(disabled.getNextRunAt()), isNull(), isNull());
+
+    when(jobScheduleRepository.findById(1L)).thenReturn(Optional.empty());
+    jobScheduler.runDueSchedules();
+    verify(jobService, times(0)).runAsJob(any());
+  }
+
+  @Test
+  public void validate_checks_timing_and_job_type() {
+    assertEquals(
+        "give either cron or fixedRateMs",
+        jobScheduler.validate(JobSchedule.builder().jobType("testJob").build()));
+    assertEquals(
+        "give either cron or fixedRateMs",
+        jobScheduler.validate(
+            JobSchedule.builder().jobType("testJob").cron("0 0 4 * * *").fixedRateMs(1L).build()));
+    assertEquals(
+        "invalid cron expression: every day",
+        jobScheduler.validate(JobSchedule.builder().jobType("testJob").cron("every day").build()));
+    assertEquals(
+        "fixedRateMs must be positive",
+        jobScheduler.validate(JobSchedule.builder().jobType("testJob").fixedRateMs(0L).build()));
+    assertEquals(
+        "unknown job type: noSuchJob",
+        jobScheduler.validate(JobSchedule.builder().jobType("noSuchJob").fixedRateMs(1L).build()));
+    assertNull(
+        jobScheduler.validate(
+            JobSchedule.builder().jobType("testJob").cron("0 0 4 * * *").build()));
+    assertNull(
+        jobScheduler.validate(JobSchedule.builder().jobType("testJob").fixedRateMs(1L).build()));
+  }
+}
@@ -0,0 +1,551 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.tracing.TraceContext;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskRejectedException;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobArchiveService jobArchiveService;
+
+  @Mock private JobService self;
+
+  @InjectMocks private JobService jobService;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  private final CountDownLatch started = new CountDownLatch(1);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    // stands in for the @Async proxy
+    doAnswer(
+            inv -> {
+              JobContext context = inv.getArgument(0);
+              JobContextConsumer jobFunction = inv.getArgument(1);
+              executor.submit(() -> jobService.runJobAsync(context, jobFunction));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  private static String logOf(Job job) {
+    return JobLogCompression.decompress(job.getCompressedLog());
+  }
+
+  @Test
+  public void cancel_interrupts_a_blocked_job_and_releases_its_thread() throws Exception {
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(60_000);
+            },
+            null);
+    started.await();
+
+    assertTrue(jobService.cancel(job.getId()));
+
+    await().atMost(5, SECONDS).until(() -> "cancelled".equals(job.getStatus()));
+    assertEquals("Job cancelled", logOf(job));
+    assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+    assertFalse(jobService.cancel(job.getId()));
+  }
+
+  @Test
+  public void cancel_stops_a_job_that_calls_checkCancelled() throws Exception {
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              while (true) {
+                ctx.checkCancelled();
+                Thread.onSpinWait();
+              }
+            },
+            Duration.ofHours(1));
+    started.await();
+
+    jobService.stopOverdueJobs(); // not overdue yet
+    assertTrue(jobService.cancel(job.getId()));
+
+    await().atMost(5, SECONDS).until(() -> "cancelled".equals(job.getStatus()));
+  }
+
+  @Test
+  public void job_that_runs_past_its_deadline_is_stopped_with_status_timeout() throws Exception {
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(60_000);
+            },
+            Duration.ofMillis(1));
+    started.await();
+    Thread.sleep(10);
+
+    jobService.stopOverdueJobs();
+
+    await().atMost(5, SECONDS).until(() -> "timeout".equals(job.getStatus()));
+    assertEquals("Job timed out", logOf(job));
+  }
+
+  @Test
+  public void job_cancelled_while_waiting_for_a_thread_never_starts() {
+    AtomicReference<JobContext> queued = new AtomicReference<>();
+    doAnswer(
+            inv -> {
+              queued.set(inv.getArgument(0));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+    AtomicBoolean ran = new AtomicBoolean();
+
+    Job job = jobService.runAsJob(ctx -> ran.set(true), null);
+    assertTrue(jobService.cancel(job.getId()));
+    assertFalse(jobService.cancel(job.getId())); // already stopped
+    jobService.runJobAsync(queued.get(), ctx -> ran.set(true));
+
+    assertFalse(ran.get());
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  public void job_that_ignores_a_stop_request_completes_normally() throws Exception {
+    AtomicBoolean release = new AtomicBoolean();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              while (!release.get()) {
+                Thread.onSpinWait();
+              }
+            },
+            Duration.ofMillis(1));
+    started.await();
+    Thread.sleep(10);
+
+    assertTrue(jobService.cancel(job.getId()));
+    jobService.stopOverdueJobs(); // already stopped, so this does nothing
+    release.set(true);
+
+    await().atMost(5, SECONDS).until(() -> "complete".equals(job.getStatus()));
+    assertNull(job.getCompressedLog());
+  }
+
+  @Test
+  public void cancel_returns_false_for_unknown_job() {
+    assertFalse(jobService.cancel(12345L));
+  }
+
+  @Test
+  public void runAsJob_without_timeout_uses_the_default() throws Exception {
+    Job job = jobService.runAsJob(ctx -> started.countDown());
+
+    await().atMost(5, SECONDS).until(() -> "complete".equals(job.getStatus()));
+  }
+
+  private static RetryPolicy retryIoErrors(int maxAttempts, Duration backoff) {
+    return RetryPolicy.builder()
+        .maxAttempts(maxAttempts)
+        .initialBackoff(backoff)
+        .retryOn(List.of(IOException.class))
+        .build();
+  }
+
+  @Test
+  public void transient_failures_are_retried_and_recorded_in_the_log() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              if (calls.incrementAndGet() < 3) {
+                throw new IOException("database unavailable");
+              }
+              ctx.log("imported");
+            },
+            null,
+            retryIoErrors(3, Duration.ofMillis(1)),
+            null);
+
+    await().atMost(5, SECONDS).until(() -> "complete".equals(job.getStatus()));
+    assertEquals(3, calls.get());
+    String[] lines = logOf(job).split("\n");
+    assertEquals(3, lines.length);
+    assertTrue(
+        lines[0].startsWith(
+            "Attempt 1 of 3 failed: java.io.IOException: database unavailable; retrying in "));
+    assertTrue(lines[1].startsWith("Attempt 2 of 3 failed: "));
+    assertEquals("imported", lines[2]);
+  }
+
+  @Test
+  public void job_fails_once_its_attempts_run_out() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              calls.incrementAndGet();
+              throw new IOException("database unavailable");
+            },
+            null,
+            retryIoErrors(2, Duration.ofMillis(1)),
+            null);
+
+    await().atMost(5, SECONDS).until(() -> "error".equals(job.getStatus()));
+    assertEquals(2, calls.get());
+    assertTrue(
+        logOf(job)
+            .endsWith(
+                "Attempt 2 of 2 failed: java.io.IOException: database unavailable\n"
+                    + "database unavailable"));
+  }
+
+  @Test
+  public void exceptions_that_are_not_retryable_fail_the_job_at_once() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              calls.incrementAndGet();
+              throw new IllegalStateException("bad input");
+            },
+            null,
+            retryIoErrors(3, Duration.ofMillis(1)),
+            null);
+
+    await().atMost(5, SECONDS).until(() -> "error".equals(job.getStatus()));
+    assertEquals(1, calls.get());
+    assertEquals(
+        "Attempt 1 of 3 failed: java.lang.IllegalStateException: bad input\nbad input", logOf(job));
+  }
+
+  @Test
+  public void job_cancelled_while_waiting_to_retry_is_not_retried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              calls.incrementAndGet();
+              throw new IOException("database unavailable");
+            },
+            null,
+            retryIoErrors(3, Duration.ofHours(1)),
+            null);
+    await()
+        .atMost(5, SECONDS)
+        .until(() -> job.getLog() != null && job.getLog().contains("retrying in"));
+
+    assertTrue(jobService.cancel(job.getId()));
+
+    await().atMost(5, SECONDS).until(() -> "cancelled".equals(job.getStatus()));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void job_cancelled_during_an_attempt_is_not_retried() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              calls.incrementAndGet();
+              started.countDown();
+              Thread.sleep(60_000);
+            },
+            null,
+            RetryPolicy.builder().maxAttempts(3).build(),
+            null);
+    started.await();
+
+    assertTrue(jobService.cancel(job.getId()));
+
+    await().atMost(5, SECONDS).until(() -> "cancelled".equals(job.getStatus()));
+    assertEquals(1, calls.get());
+    assertTrue(logOf(job).startsWith("Attempt 1 of 3 failed: java.lang.InterruptedException"));
+  }
+
+  @Test
+  public void same_dedup_key_returns_the_waiting_job_until_it_starts() {
+    AtomicReference<JobContext> queued = new AtomicReference<>();
+    doAnswer(
+            inv -> {
+              queued.compareAndSet(null, inv.getArgument(0));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+
+    Job first = jobService.runAsJob(ctx -> {}, null, null, "import:2025-F");
+    Job again = jobService.runAsJob(ctx -> {}, null, null, "import:2025-F");
+    Job other = jobService.runAsJob(ctx -> {}, null, null, "import:2025-W");
+
+    assertSame(first, again);
+    assertNotSame(first, other);
+    assertEquals("import:2025-F", first.getDedupKey());
+    verify(jobsRepository, times(2)).save(any());
+
+    jobService.runJobAsync(queued.get(), ctx -> {});
+    Job afterStart = jobService.runAsJob(ctx -> {}, null, null, "import:2025-F");
+
+    assertEquals("complete", first.getStatus());
+    assertNotSame(first, afterStart);
+  }
+
+  @Test
+  public void a_submission_waits_for_the_job_reserved_with_its_key_to_be_saved() throws Exception {
+    doAnswer(inv -> null).when(self).runJobAsync(any(JobContext.class), any());
+    CountDownLatch saving = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            inv -> {
+              Job job = inv.getArgument(0);
+              if ("import:2025-F".equals(job.getDedupKey())) {
+                saving.countDown();
+                release.await();
+              }
+              job.setId(7L);
+              return job;
+            })
+        .when(jobsRepository)
+        .save(any());
+    AtomicReference<Job> first = new AtomicReference<>();
+    AtomicReference<Job> second = new AtomicReference<>();
+
+    Thread submitter =
+        new Thread(() -> first.set(jobService.runAsJob(ctx -> {}, null, null, "import:2025-F")));
+    submitter.start();
+    saving.await();
+    // jobs with other keys are not held up by the save
+    assertEquals(7L, jobService.runAsJob(ctx -> {}, null, null, "import:2025-W").getId());
+    Thread duplicate =
+        new Thread(() -> second.set(jobService.runAsJob(ctx -> {}, null, null, "import:2025-F")));
+    duplicate.start();
+    await().atMost(5, SECONDS).until(() -> duplicate.getState() == Thread.State.WAITING);
+    release.countDown();
+    submitter.join();
+    duplicate.join();
+
+    assertSame(first.get(), second.get());
+    verify(jobsRepository, times(2)).save(any());
+  }
+
+  @Test
+  public void a_failed_save_releases_the_key() {
+    doAnswer(inv -> null).when(self).runJobAsync(any(JobContext.class), any());
+    doAnswer(
+            inv -> {
+              throw new IllegalStateException("database is down");
+            })
+        .when(jobsRepository)
+        .save(any());
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> jobService.runAsJob(ctx -> {}, null, null, "import:2025-F"));
+    assertThrows(IllegalStateException.class, () -> jobService.runAsJob(ctx -> {}, null));
+
+    doAnswer(inv -> inv.getArgument(0)).when(jobsRepository).save(any());
+    assertEquals(
+        "running", jobService.runAsJob(ctx -> {}, null, null, "import:2025-F").getStatus());
+  }
+
+  @Test
+  public void a_rejected_job_is_saved_as_error_and_releases_its_key() {
+    doThrow(new TaskRejectedException("executor is shut down"))
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+
+    AtomicReference<Job> saved = new AtomicReference<>();
+    doAnswer(
+            inv -> {
+              saved.set(inv.getArgument(0));
+              return inv.getArgument(0);
+            })
+        .when(jobsRepository)
+        .save(any());
+
+    assertThrows(
+        TaskRejectedException.class,
+        () -> jobService.runAsJob(ctx -> {}, null, null, "import:2025-F"));
+
+    Job job = saved.get();
+    assertEquals("error", job.getStatus());
+    assertEquals(
+        "Job could not be started: "
+            + "org.springframework.core.task.TaskRejectedException: executor is shut down",
+        logOf(job));
+    // nothing is left running
+    assertFalse(jobService.cancel(job.getId()));
+
+    // the key is free again, so the next submission is a new job
+    assertThrows(
+        TaskRejectedException.class,
+        () -> jobService.runAsJob(ctx -> {}, null, null, "import:2025-F"));
+    assertNotSame(job, saved.get());
+  }
+
+  @Test
+  public void a_job_started_directly_does_not_release_a_key_reserved_by_another() {
+    AtomicReference<JobContext> queued = new AtomicReference<>();
+    doAnswer(
+            inv -> {
+              queued.compareAndSet(null, inv.getArgument(0));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+
+    Job waiting = jobService.runAsJob(ctx -> {}, null, null, "import:2025-F");
+    jobService.runJobAsync(
+        Job.builder().status("running").dedupKey("import:2025-F").build(), ctx -> {});
+    jobService.runJobAsync(
+        Job.builder().status("running").dedupKey("import:2025-W").build(), ctx -> {});
+
+    assertSame(waiting, jobService.runAsJob(ctx -> {}, null, null, "import:2025-F"));
+  }
+
+  @Test
+  public void job_runs_with_the_trace_id_of_the_caller_and_its_own_id() throws Exception {
+    AtomicReference<Map<String, String>> seen = new AtomicReference<>();
+    MDC.put(TraceContext.TRACE_ID, "request-7");
+    Job job;
+    try {
+      job = jobService.runAsJob(ctx -> seen.set(MDC.getCopyOfContextMap()), null);
+    } finally {
+      MDC.remove(TraceContext.TRACE_ID);
+    }
+
+    await().atMost(5, SECONDS).until(() -> "complete".equals(job.getStatus()));
+    assertEquals("request-7", job.getTraceId());
+    assertEquals("request-7", seen.get().get(TraceContext.TRACE_ID));
+    assertEquals("0", seen.get().get(TraceContext.JOB_ID));
+    assertNull(executor.submit(() -> MDC.get(TraceContext.JOB_ID)).get());
+  }
+
+  @Test
+  public void drain_waits_for_running_jobs_and_then_refuses_new_ones() throws Exception {
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(200);
+            },
+            null);
+    started.await();
+
+    jobService.drain(Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    assertEquals("complete", job.getStatus());
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> jobService.runAsJob(ctx -> {}));
+    assertEquals("not accepting new jobs: the application is shutting down", e.getMessage());
+  }
+
+  @Test
+  public void drain_interrupts_jobs_that_outlast_the_timeout() throws Exception {
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(60_000);
+            },
+            null);
+    started.await();
+
+    jobService.drain(Duration.ofMillis(50), Duration.ofSeconds(5));
+
+    assertEquals("interrupted", job.getStatus());
+    assertEquals("Job interrupted by shutdown", logOf(job));
+  }
+
+  @Test
+  public void drain_saves_jobs_that_ignore_the_interrupt_as_interrupted() throws Exception {
+    AtomicBoolean release = new AtomicBoolean();
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              ctx.progress(1, 10);
+              started.countDown();
+              while (!release.get()) {
+                Thread.onSpinWait();
+              }
+            },
+            null);
+    started.await();
+
+    jobService.drain(Duration.ofMillis(10), Duration.ofMillis(10));
+
+    verify(jobsRepository)
+        .stopRunning(job.getId(), "interrupted", "Job interrupted by shutdown", "\n");
+    // the Job object belongs to the thread of the job, which may still be changing it
+    assertEquals("running", job.getStatus());
+    assertEquals(1L, job.getProgressDone());
+    release.set(true);
+  }
+
+  @Test
+  public void drain_stops_jobs_that_have_not_started() {
+    AtomicReference<JobContext> queued = new AtomicReference<>();
+    doAnswer(
+            inv -> {
+              queued.set(inv.getArgument(0));
+              return null;
+            })
+        .when(self)
+        .runJobAsync(any(JobContext.class), any());
+    AtomicBoolean ran = new AtomicBoolean();
+    Job job = jobService.runAsJob(ctx -> ran.set(true), null);
+
+    jobService.drain(Duration.ofMillis(10), Duration.ofMillis(10));
+    jobService.runJobAsync(queued.get(), ctx -> ran.set(true));
+
+    assertFalse(ran.get());
+    assertEquals("interrupted", job.getStatus());
+  }
+}
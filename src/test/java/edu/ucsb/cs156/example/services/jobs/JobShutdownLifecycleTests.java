@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+
+public class JobShutdownLifecycleTests {
+
+  @Mock private JobService jobService;
+
+  @InjectMocks private JobShutdownLifecycle lifecycle;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void stop_drains_the_jobs() {
+    lifecycle.start();
+    assertTrue(lifecycle.isRunning());
+
+    lifecycle.stop();
+
+    assertFalse(lifecycle.isRunning());
+    verify(jobService).drain(Duration.ofMillis(20000), Duration.ofMillis(5000));
+  }
+
+  @Test
+  public void stops_after_requests_in_flight_have_finished() {
+    assertTrue(lifecycle.getPhase() < WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE);
+  }
+}
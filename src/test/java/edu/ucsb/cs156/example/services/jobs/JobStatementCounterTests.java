@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class JobStatementCounterTests {
+
+  private final JobStatementCounter counter = new JobStatementCounter();
+
+  @Test
+  public void counts_statements_only_while_a_job_is_running_on_the_thread() {
+    assertEquals("select 1", counter.inspect("select 1"));
+
+    JobStatementCounter.start();
+    counter.inspect("select 2");
+    counter.inspect("update jobs set status=?");
+    assertEquals(2, JobStatementCounter.stop());
+
+    counter.inspect("select 3");
+    JobStatementCounter.start();
+    assertEquals(0, JobStatementCounter.stop());
+  }
+}
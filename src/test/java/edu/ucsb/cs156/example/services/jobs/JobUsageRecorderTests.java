@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+public class JobUsageRecorderTests {
+
+  @Test
+  public void records_what_the_thread_used_and_emits_a_flight_recorder_event() throws Exception {
+    Job job = Job.builder().id(42L).status("complete").build();
+    JobStatementCounter counter = new JobStatementCounter();
+    Path file = Files.createTempFile("jobs", ".jfr");
+
+    JobUsage usage;
+    byte[][] allocated = new byte[16][];
+    try (Recording recording = new Recording()) {
+      recording.enable("edu.ucsb.cs156.example.Job");
+      recording.start();
+
+      JobUsageRecorder recorder = new JobUsageRecorder(Instant.now().minusMillis(50));
+      recorder.start();
+      for (int i = 0; i < allocated.length; i++) {
+        allocated[i] = new byte[65536];
+      }
+      counter.inspect("select 1");
+      counter.inspect("select 2");
+      usage = recorder.finish(job);
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    assertNotNull(usage.getStartedAt());
+    assertTrue(usage.getQueueWaitMs() >= 50);
+    assertTrue(usage.getWallTimeMs() >= 0);
+    assertTrue(usage.getCpuTimeMs() >= 0);
+    assertTrue(usage.getAllocatedBytes() >= 16L * 65536);
+    assertEquals(2L, usage.getStatementCount());
+
+    RecordedEvent event =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(e -> e.getEventType().getName().equals("edu.ucsb.cs156.example.Job"))
+            .findFirst()
+            .orElseThrow();
+    assertEquals(42L, event.getLong("jobId"));
+    assertEquals("complete", event.getString("status"));
+    assertEquals(2L, event.getLong("statementCount"));
+    assertEquals(usage.getAllocatedBytes(), event.getLong("allocatedBytes"));
+    Files.delete(file);
+  }
+}
@@ -0,0 +1,65 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RetryPolicyTests {
+
+  private final RetryPolicy policy =
+      RetryPolicy.builder()
+          .maxAttempts(3)
+          .initialBackoff(Duration.ofMillis(100))
+          .multiplier(3)
+          .maxBackoff(Duration.ofMillis(500))
+          .jitter(0.5)
+          .retryOn(List.of(IOException.class))
+          .build();
+
+  @Test
+  public void default_policy_never_retries() {
+    RetryPolicy none = RetryPolicy.builder().build();
+
+    assertFalse(none.shouldRetry(1, new RuntimeException()));
+  }
+
+  @Test
+  public void retries_retryable_exceptions_until_attempts_run_out() {
+    assertTrue(policy.shouldRetry(1, new IOException()));
+    assertTrue(policy.shouldRetry(2, new IOException()));
+    assertFalse(policy.shouldRetry(3, new IOException()));
+  }
+
+  @Test
+  public void does_not_retry_other_exceptions() {
+    assertFalse(policy.shouldRetry(1, new IllegalStateException()));
+  }
+
+  @Test
+  public void never_retries_a_stopped_job() {
+    RetryPolicy any = RetryPolicy.builder().maxAttempts(3).build();
+
+    assertTrue(any.shouldRetry(1, new IllegalStateException()));
+    assertFalse(any.shouldRetry(1, new JobCancelledException(1, "cancelled")));
+  }
+
+  @Test
+  public void backoff_grows_exponentially_up_to_the_maximum() {
+    assertEquals(Duration.ofMillis(100), policy.backoff(1, 0));
+    assertEquals(Duration.ofMillis(300), policy.backoff(2, 0));
+    assertEquals(Duration.ofMillis(500), policy.backoff(3, 0));
+    assertEquals(Duration.ofMillis(500), policy.backoff(10, 0));
+  }
+
+  @Test
+  public void jitter_takes_off_up_to_its_fraction_of_the_backoff() {
+    assertEquals(Duration.ofMillis(75), policy.backoff(1, 0.5));
+    assertEquals(Duration.ofMillis(150), policy.backoff(2, 1.0));
+  }
+}
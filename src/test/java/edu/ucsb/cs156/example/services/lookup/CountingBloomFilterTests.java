@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class CountingBloomFilterTests {
+
+  @Test
+  public void added_ids_are_found_and_removed_ids_are_not() {
+    CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+    for (long id = 1; id <= 1000; id++) {
+      filter.add(id);
+    }
+    for (long id = 1; id <= 1000; id++) {
+      assertTrue(filter.mightContain(id));
+    }
+    assertEquals(1000, filter.getCount());
+
+    for (long id = 1; id <= 1000; id++) {
+      filter.remove(id);
+    }
+    assertEquals(0, filter.getCount());
+    for (long id = 1; id <= 1000; id++) {
+      assertFalse(filter.mightContain(id));
+    }
+  }
+
+  @Test
+  public void false_positive_rate_is_close_to_target() {
+    CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+    for (long id = 1; id <= 1000; id++) {
+      filter.add(id);
+    }
+    int falsePositives = 0;
+    for (long id = 1_000_001; id <= 1_010_000; id++) {
+      if (filter.mightContain(id)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    double expected = filter.expectedFalsePositiveRate();
+    assertTrue(expected > 0.005 && expected < 0.02, "expected rate: " + expected);
+  }
+
+  @Test
+  public void saturated_counters_are_never_decremented() {
+    CountingBloomFilter filter = new CountingBloomFilter(10, 0.01);
+    for (int i = 0; i < 20; i++) {
+      filter.add("abc");
+    }
+    for (int i = 0; i < 20; i++) {
+      filter.remove("abc");
+    }
+    assertTrue(filter.mightContain("abc"));
+    assertEquals(0, filter.getCount());
+  }
+
+  @Test
+  public void removing_from_empty_filter_does_nothing() {
+    CountingBloomFilter filter = new CountingBloomFilter(10, 0.01);
+    filter.remove("abc");
+    assertFalse(filter.mightContain("abc"));
+    assertEquals(0, filter.getCount());
+    assertEquals(0.0, filter.expectedFalsePositiveRate());
+  }
+
+  @Test
+  public void size_is_reported() {
+    CountingBloomFilter filter = new CountingBloomFilter(1000, 0.01);
+    assertEquals(1000, filter.getCapacity());
+    // about 9.6 counters per id at 1%, 4 bits each
+    assertEquals(8 * ((9586 + 15) / 16), filter.memoryBytes());
+
+    CountingBloomFilter tiny = new CountingBloomFilter(0, 0.01);
+    assertEquals(1, tiny.getCapacity());
+    assertEquals(32, tiny.memoryBytes());
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class EntityInsertListenerTests {
+
+  @Mock private EntityManagerFactory entityManagerFactory;
+
+  @Mock private EntityLookupService entityLookupService;
+
+  @InjectMocks private EntityInsertListener entityInsertListener;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void the_listener_is_registered_for_inserts() {
+    SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+    ServiceRegistryImplementor serviceRegistry = mock(ServiceRegistryImplementor.class);
+    EventListenerRegistry eventListenerRegistry = mock(EventListenerRegistry.class);
+    when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getServiceRegistry()).thenReturn(serviceRegistry);
+    when(serviceRegistry.requireService(EventListenerRegistry.class))
+        .thenReturn(eventListenerRegistry);
+
+    entityInsertListener.register();
+
+    verify(eventListenerRegistry).appendListeners(EventType.POST_INSERT, entityInsertListener);
+  }
+
+  @Test
+  public void inserted_ids_are_passed_to_the_lookup_service() {
+    EntityPersister persister = mock(EntityPersister.class);
+    doReturn(Articles.class).when(persister).getMappedClass();
+    PostInsertEvent event = mock(PostInsertEvent.class);
+    when(event.getPersister()).thenReturn(persister);
+    when(event.getId()).thenReturn(5L);
+
+    entityInsertListener.onPostInsert(event);
+
+    verify(entityLookupService).onInserted(Articles.class, 5L);
+    assertFalse(entityInsertListener.requiresPostCommitHandling(persister));
+  }
+}
@@ -0,0 +1,481 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BatchLookupResult;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.EntityLookupStats;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class EntityLookupServiceTests {
+
+  @Mock private ArticlesRepository articlesRepository;
+
+  @Mock private UCSBDateRepository ucsbDateRepository;
+
+  private EntityLookupService entityLookupService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    entityLookupService = new EntityLookupService(0, 0);
+  }
+
+  @Test
+  public void findById_returns_entity_from_repository() {
+    Articles article = Articles.builder().id(7L).title("t").build();
+    when(articlesRepository.findById(7L)).thenReturn(Optional.of(article));
+
+    Optional<Articles> result =
+        entityLookupService.findById(Articles.class, articlesRepository, 7L);
+
+    assertEquals(Optional.of(article), result);
+    verify(articlesRepository, times(1)).findById(7L);
+  }
+
+  @Test
+  public void findById_returns_empty_when_missing() {
+    when(ucsbDateRepository.findById(8L)).thenReturn(Optional.empty());
+
+    Optional<UCSBDate> result =
+        entityLookupService.findById(UCSBDate.class, ucsbDateRepository, 8L);
+
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void stats_are_reported_per_entity_sorted_by_name() {
+    when(articlesRepository.findById(1L)).thenReturn(Optional.empty());
+    when(ucsbDateRepository.findById(1L)).thenReturn(Optional.empty());
+
+    entityLookupService.findById(UCSBDate.class, ucsbDateRepository, 1L);
+    entityLookupService.findById(Articles.class, articlesRepository, 1L);
+    entityLookupService.findById(Articles.class, articlesRepository, 1L);
+
+    List<EntityLookupStats> stats = entityLookupService.getStats();
+
+    assertEquals(2, stats.size());
+    assertEquals("Articles", stats.get(0).getEntity());
+    assertEquals(2, stats.get(0).getLoads());
+    assertEquals(0, stats.get(0).getCoalesced());
+    assertEquals("UCSBDate", stats.get(1).getEntity());
+    assertEquals(1, stats.get(1).getLoads());
+  }
+
+  @Test
+  public void cached_entity_is_served_without_repository() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    Articles article = Articles.builder().id(7L).title("t").build();
+    when(articlesRepository.findById(7L)).thenReturn(Optional.of(article));
+
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    Optional<Articles> result = cachingService.findById(Articles.class, articlesRepository, 7L);
+
+    assertEquals(Optional.of(article), result);
+    verify(articlesRepository, times(1)).findById(7L);
+
+    EntityLookupStats stats = cachingService.getStats().get(0);
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(1, stats.getLoads());
+    assertEquals(1, stats.getCachedEntries());
+    assertEquals(EntityLookupService.estimateBytes(article), stats.getCachedBytes());
+    assertEquals(0, stats.getEvictions());
+  }
+
+  @Test
+  public void entities_are_cached_with_a_time_to_live() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 60000);
+    Articles article = Articles.builder().id(7L).title("t").build();
+    when(articlesRepository.findById(7L)).thenReturn(Optional.of(article));
+
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+
+    verify(articlesRepository, times(1)).findById(7L);
+  }
+
+  /** Stands in for an entity with a lazily loaded relation. */
+  static class Sized {
+    static final String IGNORED = "static fields are not counted";
+    private long id = 1;
+    private String name = "abcd";
+    private byte[] data = new byte[100];
+    private Object related = new Object();
+    private Object missing;
+  }
+
+  @Test
+  public void estimated_size_counts_strings_and_byte_arrays_but_not_related_objects() {
+    // header, 5 fields, "abcd", 100 bytes, and a fixed amount for the related object
+    assertEquals(
+        16 + 5 * 8 + (40 + 8) + (16 + 100) + 24, EntityLookupService.estimateBytes(new Sized()));
+  }
+
+  @Test
+  public void missing_entities_are_not_cached() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    when(articlesRepository.findById(7L)).thenReturn(Optional.empty());
+
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+
+    verify(articlesRepository, times(2)).findById(7L);
+  }
+
+  @Test
+  public void update_and_delete_events_invalidate_but_create_does_not() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    Articles article = Articles.builder().id(7L).title("t").build();
+    when(articlesRepository.findById(7L)).thenReturn(Optional.of(article));
+
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    cachingService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, Articles.class, 7L, article));
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    verify(articlesRepository, times(1)).findById(7L);
+
+    cachingService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.UPDATED, Articles.class, 7L, article));
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    verify(articlesRepository, times(2)).findById(7L);
+
+    cachingService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, Articles.class, 7L, article));
+    cachingService.findById(Articles.class, articlesRepository, 7L);
+    verify(articlesRepository, times(3)).findById(7L);
+  }
+
+  @Test
+  public void bulk_deletes_invalidate_every_id_of_the_chunk() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    Articles a2 = Articles.builder().id(2L).title("two").build();
+    when(articlesRepository.findById(1L)).thenReturn(Optional.of(a1));
+    when(articlesRepository.findById(2L)).thenReturn(Optional.of(a2));
+    cachingService.findById(Articles.class, articlesRepository, 1L);
+    cachingService.findById(Articles.class, articlesRepository, 2L);
+
+    EntityChangedEvent deleted = EntityChangedEvent.bulkDelete(Articles.class, List.of(1L, 2L));
+    cachingService.onEntityChanged(deleted);
+    cachingService.onEntityChangeCommitted(deleted);
+    cachingService.onEntityChangeRolledBack(deleted);
+    cachingService.findById(Articles.class, articlesRepository, 1L);
+    cachingService.findById(Articles.class, articlesRepository, 2L);
+
+    verify(articlesRepository, times(2)).findById(1L);
+    verify(articlesRepository, times(2)).findById(2L);
+  }
+
+  @Test
+  public void evictions_are_counted_per_entity() {
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    Articles a2 = Articles.builder().id(2L).title("two").build();
+    long oneEntry = EntityLookupService.estimateBytes(a1);
+    EntityLookupService cachingService = new EntityLookupService(oneEntry + oneEntry / 2, 0);
+    when(articlesRepository.findById(1L)).thenReturn(Optional.of(a1));
+    when(articlesRepository.findById(2L)).thenReturn(Optional.of(a2));
+
+    cachingService.findById(Articles.class, articlesRepository, 1L);
+    cachingService.findById(Articles.class, articlesRepository, 1L);
+    cachingService.findById(Articles.class, articlesRepository, 2L);
+
+    EntityLookupStats stats = cachingService.getStats().get(0);
+    assertEquals(1, stats.getEvictions());
+    assertEquals(1, stats.getCachedEntries());
+  }
+
+  @Test
+  public void filter_answers_not_found_without_repository() {
+    entityLookupService.installFilter(
+        Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of(1L, 2L));
+    Articles article = Articles.builder().id(2L).title("t").build();
+    when(articlesRepository.findById(2L)).thenReturn(Optional.of(article));
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 99L).isEmpty());
+    assertEquals(
+        Optional.of(article), entityLookupService.findById(Articles.class, articlesRepository, 2L));
+
+    verify(articlesRepository, times(0)).findById(99L);
+    EntityLookupStats stats = entityLookupService.getStats().get(0);
+    assertEquals(1, stats.getFilteredLookups());
+    assertEquals(0, stats.getFilterFalsePositives());
+    assertTrue(stats.getFilterExpectedFalsePositiveRate() > 0);
+    assertTrue(stats.getFilterBytes() > 0);
+  }
+
+  @Test
+  public void filter_false_positives_are_counted() {
+    entityLookupService.installFilter(
+        Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of(1L));
+    when(articlesRepository.findById(1L)).thenReturn(Optional.empty());
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 1L).isEmpty());
+
+    EntityLookupStats stats = entityLookupService.getStats().get(0);
+    assertEquals(0, stats.getFilteredLookups());
+    assertEquals(1, stats.getFilterFalsePositives());
+  }
+
+  @Test
+  public void filter_follows_inserts_and_deletes() {
+    CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+    entityLookupService.installFilter(Articles.class, filter, () -> List.of());
+    Articles article = Articles.builder().id(5L).title("t").build();
+    when(articlesRepository.findById(5L)).thenReturn(Optional.of(article));
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isEmpty());
+
+    entityLookupService.onInserted(Articles.class, 5L);
+    EntityChangedEvent created =
+        new EntityChangedEvent(ChangeType.CREATED, Articles.class, 5L, article);
+    entityLookupService.onEntityChanged(created);
+    entityLookupService.onEntityChangeCommitted(created);
+    assertEquals(
+        Optional.of(article), entityLookupService.findById(Articles.class, articlesRepository, 5L));
+
+    EntityChangedEvent deleted =
+        new EntityChangedEvent(ChangeType.DELETED, Articles.class, 5L, article);
+    entityLookupService.onEntityChanged(deleted);
+    entityLookupService.onEntityChangeCommitted(deleted);
+    // a deleted id is removed from the filter and answered without the database
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isEmpty());
+    verify(articlesRepository, times(1)).findById(5L);
+    assertEquals(0, filter.getCount());
+  }
+
+  @Test
+  public void deleted_ids_that_are_not_in_the_filter_are_not_removed() {
+    CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+    entityLookupService.installFilter(Articles.class, filter, () -> List.of(1L));
+
+    entityLookupService.onEntityChangeCommitted(
+        EntityChangedEvent.bulkDelete(Articles.class, List.of(1L, 2L)));
+    entityLookupService.onEntityChangeCommitted(
+        EntityChangedEvent.bulkDelete(UCSBDate.class, List.of(1L)));
+
+    assertEquals(0, filter.getCount());
+    assertFalse(filter.mightContain(1L));
+  }
+
+  @Test
+  public void deletes_are_not_removed_from_a_filter_being_rebuilt() {
+    CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+    entityLookupService.installFilter(
+        Articles.class,
+        filter,
+        () -> {
+          entityLookupService.onEntityChangeCommitted(
+              EntityChangedEvent.bulkDelete(Articles.class, List.of(1L)));
+          return List.of(1L);
+        });
+
+    // the rebuild may have read the row before it was deleted; keeping it is only a false positive
+    assertTrue(filter.mightContain(1L));
+  }
+
+  @Test
+  public void ids_inserted_while_filter_is_rebuilt_are_kept() {
+    Articles article = Articles.builder().id(5L).title("t").build();
+    when(articlesRepository.findById(5L)).thenReturn(Optional.of(article));
+
+    entityLookupService.installFilter(
+        Articles.class,
+        new CountingBloomFilter(100, 0.01),
+        () -> {
+          entityLookupService.onInserted(Articles.class, 5L);
+          return List.of(1L);
+        });
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isPresent());
+  }
+
+  @Test
+  public void ids_inserted_before_a_rebuild_are_added_again_when_they_commit() {
+    Articles article = Articles.builder().id(5L).title("t").build();
+    when(articlesRepository.findById(5L)).thenReturn(Optional.of(article));
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      entityLookupService.onInserted(Articles.class, 5L);
+      // the rebuild does not see the row, which is not committed yet
+      entityLookupService.installFilter(
+          Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of());
+      assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isEmpty());
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isPresent());
+  }
+
+  @Test
+  public void ids_inserted_in_a_transaction_are_added_to_each_filter_once() {
+    CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+    entityLookupService.installFilter(Articles.class, filter, () -> List.of());
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      entityLookupService.onInserted(Articles.class, 5L);
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertEquals(1, filter.getCount());
+  }
+
+  @Test
+  public void inserts_without_filter_are_ignored_and_filter_can_be_removed() {
+    Articles article = Articles.builder().id(5L).title("t").build();
+    entityLookupService.onInserted(Articles.class, 5L);
+
+    entityLookupService.installFilter(
+        Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of());
+    entityLookupService.removeFilter(Articles.class);
+    when(articlesRepository.findById(5L)).thenReturn(Optional.of(article));
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 5L).isPresent());
+    EntityLookupStats stats = entityLookupService.getStats().get(0);
+    assertEquals(0, stats.getFilterBytes());
+    assertEquals(0.0, stats.getFilterExpectedFalsePositiveRate());
+  }
+
+  @Test
+  public void findAllById_returns_results_in_request_order_and_chunks_queries() {
+    ReflectionTestUtils.setField(entityLookupService, "batchChunkSize", 2);
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    Articles a3 = Articles.builder().id(3L).title("three").build();
+    when(articlesRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(a3));
+    when(articlesRepository.findAllById(List.of(1L))).thenReturn(List.of(a1));
+
+    List<BatchLookupResult<Articles>> results =
+        entityLookupService.findAllById(
+            Articles.class, articlesRepository, List.of(3L, 2L, 3L, 1L), Articles::getId);
+
+    assertEquals(
+        List.of(
+            new BatchLookupResult<>(3L, true, a3),
+            new BatchLookupResult<>(2L, false, null),
+            new BatchLookupResult<>(3L, true, a3),
+            new BatchLookupResult<>(1L, true, a1)),
+        results);
+    EntityLookupStats stats = entityLookupService.getStats().get(0);
+    assertEquals(2, stats.getBatchQueries());
+    assertEquals(3, stats.getMisses());
+  }
+
+  @Test
+  public void findAllById_uses_cache_and_filter() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    cachingService.installFilter(
+        Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of(1L, 2L, 3L));
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    Articles a2 = Articles.builder().id(2L).title("two").build();
+    when(articlesRepository.findById(1L)).thenReturn(Optional.of(a1));
+    when(articlesRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(a2));
+    cachingService.findById(Articles.class, articlesRepository, 1L);
+
+    List<BatchLookupResult<Articles>> results =
+        cachingService.findAllById(
+            Articles.class, articlesRepository, List.of(1L, 2L, 3L, 99L), Articles::getId);
+
+    assertEquals(
+        List.of(
+            new BatchLookupResult<>(1L, true, a1),
+            new BatchLookupResult<>(2L, true, a2),
+            new BatchLookupResult<>(3L, false, null),
+            new BatchLookupResult<>(99L, false, null)),
+        results);
+    EntityLookupStats stats = cachingService.getStats().get(0);
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getFilteredLookups());
+    assertEquals(1, stats.getFilterFalsePositives());
+    assertEquals(1, stats.getBatchQueries());
+    assertEquals(2, stats.getCachedEntries());
+  }
+
+  @Test
+  public void findById_does_not_cache_a_value_loaded_during_an_invalidation() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    when(articlesRepository.findById(1L))
+        .thenAnswer(
+            invocation -> {
+              cachingService.invalidate(Articles.class, 1L);
+              return Optional.of(a1);
+            });
+
+    assertEquals(Optional.of(a1), cachingService.findById(Articles.class, articlesRepository, 1L));
+
+    assertEquals(0, cachingService.getStats().get(0).getCachedEntries());
+  }
+
+  @Test
+  public void findAllById_does_not_cache_values_loaded_during_an_invalidation() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    Articles a1 = Articles.builder().id(1L).title("one").build();
+    when(articlesRepository.findAllById(List.of(1L)))
+        .thenAnswer(
+            invocation -> {
+              cachingService.invalidate(Articles.class, 1L);
+              return List.of(a1);
+            });
+
+    cachingService.findAllById(Articles.class, articlesRepository, List.of(1L), Articles::getId);
+
+    assertEquals(0, cachingService.getStats().get(0).getCachedEntries());
+  }
+
+  @Test
+  public void changes_inside_a_transaction_are_applied_when_it_ends() {
+    EntityLookupService cachingService = new EntityLookupService(1 << 20, 0);
+    cachingService.installFilter(
+        Articles.class, new CountingBloomFilter(100, 0.01), () -> List.of(5L, 6L));
+    Articles a5 = Articles.builder().id(5L).title("five").build();
+    Articles a6 = Articles.builder().id(6L).title("six").build();
+    when(articlesRepository.findById(5L)).thenReturn(Optional.of(a5));
+    when(articlesRepository.findById(6L)).thenReturn(Optional.of(a6));
+
+    EntityChangedEvent delete5 = new EntityChangedEvent(ChangeType.DELETED, Articles.class, 5L, a5);
+    EntityChangedEvent delete6 = new EntityChangedEvent(ChangeType.DELETED, Articles.class, 6L, a6);
+    cachingService.onEntityChanged(delete5);
+    cachingService.onEntityChanged(delete6);
+    // read (and cached) inside the transaction, before it commits
+    cachingService.findById(Articles.class, articlesRepository, 5L);
+    cachingService.findById(Articles.class, articlesRepository, 6L);
+    assertEquals(2, cachingService.getStats().get(0).getCachedEntries());
+
+    cachingService.onEntityChangeCommitted(delete5);
+    cachingService.onEntityChangeRolledBack(delete6);
+
+    assertEquals(0, cachingService.getStats().get(0).getCachedEntries());
+    // the committed delete is answered by the filter, the rolled back one by the database
+    assertTrue(cachingService.findById(Articles.class, articlesRepository, 5L).isEmpty());
+    assertTrue(cachingService.findById(Articles.class, articlesRepository, 6L).isPresent());
+    verify(articlesRepository, times(1)).findById(5L);
+    verify(articlesRepository, times(2)).findById(6L);
+  }
+}
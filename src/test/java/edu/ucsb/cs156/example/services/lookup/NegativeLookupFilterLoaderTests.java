@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.EntityLookupStats;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class NegativeLookupFilterLoaderTests {
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private Metamodel metamodel;
+
+  @Mock private ArticlesRepository articlesRepository;
+
+  private EntityLookupService entityLookupService = new EntityLookupService(0, 0);
+
+  @InjectMocks private NegativeLookupFilterLoader loader;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(loader, "entityLookupService", entityLookupService);
+
+    EntityType<Articles> articles = mock(EntityType.class);
+    Type<Long> idType = mock(Type.class);
+    SingularAttribute<Articles, Long> idAttribute = mock(SingularAttribute.class);
+    when(articles.getName()).thenReturn("Articles");
+    when(articles.getJavaType()).thenReturn(Articles.class);
+    doReturn(idType).when(articles).getIdType();
+    when(idType.getJavaType()).thenReturn(Long.class);
+    doReturn(idAttribute).when(articles).getId(Long.class);
+    when(idAttribute.getName()).thenReturn("id");
+
+    EntityType<Job> jobs = mock(EntityType.class);
+    when(jobs.getName()).thenReturn("jobs");
+    when(jobs.getJavaType()).thenReturn(Job.class);
+
+    when(entityManager.getMetamodel()).thenReturn(metamodel);
+    when(metamodel.getEntities()).thenReturn(Set.of(articles, jobs));
+
+    TypedQuery<Long> countQuery = mock(TypedQuery.class);
+    when(countQuery.getSingleResult()).thenReturn(2L);
+    when(entityManager.createQuery("select count(e) from Articles e", Long.class))
+        .thenReturn(countQuery);
+
+    TypedQuery<Object> idQuery = mock(TypedQuery.class);
+    when(idQuery.getResultList()).thenReturn(List.of(1L, 2L));
+    when(entityManager.createQuery("select e.id from Articles e", Object.class))
+        .thenReturn(idQuery);
+  }
+
+  @Test
+  public void filters_are_built_on_startup() {
+    when(articlesRepository.findById(1L)).thenReturn(Optional.of(new Articles()));
+
+    loader.onApplicationReady();
+
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 99L).isEmpty());
+    assertTrue(entityLookupService.findById(Articles.class, articlesRepository, 1L).isPresent());
+    verify(articlesRepository, never()).findById(99L);
+
+    EntityLookupStats stats = entityLookupService.getStats().get(0);
+    assertEquals(1, stats.getFilteredLookups());
+    // sized for at least 1024 ids: about 9.6 four-bit counters per id
+    assertEquals(8 * ((9816 + 15) / 16), stats.getFilterBytes());
+  }
+
+  @Test
+  public void only_the_filtered_types_get_a_filter() {
+    loader.rebuildAll();
+
+    verify(entityManager).createQuery("select count(e) from Articles e", Long.class);
+    verify(entityManager, never()).createQuery("select count(e) from jobs e", Long.class);
+  }
+
+  @Test
+  public void nothing_is_built_when_disabled() {
+    ReflectionTestUtils.setField(loader, "enabled", false);
+
+    loader.rebuildAll();
+
+    verify(entityManager, never()).getMetamodel();
+    verify(entityManager, never()).createQuery(any(String.class), eq(Object.class));
+  }
+}
@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTests {
+
+  @Test
+  public void sequential_loads_are_not_coalesced() {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    assertEquals("v1", flight.load("k", () -> "v" + calls.incrementAndGet()));
+    assertEquals("v2", flight.load("k", () -> "v" + calls.incrementAndGet()));
+
+    assertEquals(2, flight.getLoads());
+    assertEquals(0, flight.getCoalesced());
+    assertEquals(0, flight.getInFlight());
+  }
+
+  @Test
+  public void concurrent_loads_of_same_key_share_one_load() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Object value = new Object();
+
+    CompletableFuture<Object> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                flight.load(
+                    "k",
+                    () -> {
+                      started.countDown();
+                      try {
+                        release.await(5, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return value;
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals(1, flight.getInFlight());
+
+    CompletableFuture<Object> second =
+        CompletableFuture.supplyAsync(() -> flight.load("k", () -> new Object()));
+    while (flight.getCoalesced() == 0) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+
+    assertSame(value, first.get(5, TimeUnit.SECONDS));
+    assertSame(value, second.get(5, TimeUnit.SECONDS));
+    assertEquals(1, flight.getLoads());
+    assertEquals(1, flight.getCoalesced());
+  }
+
+  @Test
+  public void failed_load_is_rethrown_and_not_remembered() {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                flight.load(
+                    "k",
+                    () -> {
+                      throw new IllegalStateException("boom");
+                    }));
+    assertEquals("boom", e.getMessage());
+    assertEquals(0, flight.getInFlight());
+    assertEquals("ok", flight.load("k", () -> "ok"));
+  }
+
+  @Test
+  public void waiters_see_the_failure_of_the_shared_load() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                flight.load(
+                    "k",
+                    () -> {
+                      started.countDown();
+                      try {
+                        release.await(5, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      throw new IllegalStateException("boom");
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<Throwable> second =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                flight.load("k", () -> "unused");
+                return null;
+              } catch (RuntimeException e) {
+                return e;
+              }
+            });
+    while (flight.getCoalesced() == 0) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+
+    assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    Throwable t = second.get(5, TimeUnit.SECONDS);
+    assertTrue(t instanceof IllegalStateException);
+    assertEquals("boom", t.getMessage());
+  }
+
+  @Test
+  public void waiters_see_an_error_of_the_shared_load_wrapped() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                flight.load(
+                    "k",
+                    () -> {
+                      started.countDown();
+                      try {
+                        release.await(5, TimeUnit.SECONDS);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      throw new AssertionError("boom");
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    CompletableFuture<Throwable> second =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                flight.load("k", () -> "unused");
+                return null;
+              } catch (RuntimeException e) {
+                return e;
+              }
+            });
+    while (flight.getCoalesced() == 0) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+
+    assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+    Throwable t = second.get(5, TimeUnit.SECONDS);
+    assertTrue(t instanceof CompletionException);
+    assertTrue(t.getCause() instanceof AssertionError);
+  }
+}
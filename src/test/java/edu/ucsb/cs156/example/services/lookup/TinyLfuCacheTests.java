@@ -0,0 +1,188 @@
+package edu.ucsb.cs156.example.services.lookup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TinyLfuCacheTests {
+
+  private final List<String> evicted = new ArrayList<>();
+
+  private TinyLfuCache<String, String> cache(long maxWeight) {
+    return new TinyLfuCache<>(maxWeight, 10, (k, v) -> evicted.add(k));
+  }
+
+  @Test
+  public void zero_capacity_cache_is_disabled() {
+    TinyLfuCache<String, String> cache = cache(0);
+
+    cache.put("a", "A", 1);
+
+    assertFalse(cache.isEnabled());
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.weightedSize());
+  }
+
+  @Test
+  public void put_then_get_returns_value() {
+    TinyLfuCache<String, String> cache = cache(1000);
+
+    cache.put("a", "A", 10);
+    cache.put("a", "A2", 20);
+
+    assertTrue(cache.isEnabled());
+    assertEquals("A2", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(20, cache.weightedSize());
+    assertEquals(20L, cache.weights().get("a"));
+  }
+
+  @Test
+  public void entries_bigger_than_the_cache_are_not_stored() {
+    TinyLfuCache<String, String> cache = cache(1000);
+
+    cache.put("a", "A", 5000);
+
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void frequently_used_entry_survives_a_scan_of_one_off_keys() {
+    TinyLfuCache<String, String> cache = cache(100);
+    cache.put("hot", "HOT", 40);
+    for (int i = 0; i < 10; i++) {
+      cache.get("hot");
+    }
+
+    for (int i = 0; i < 50; i++) {
+      cache.get("cold" + i);
+      cache.put("cold" + i, "COLD", 40);
+    }
+
+    assertEquals("HOT", cache.get("hot"));
+    assertTrue(cache.weightedSize() <= 100);
+    assertFalse(evicted.contains("hot"));
+  }
+
+  @Test
+  public void popular_newcomer_displaces_unpopular_entry() {
+    TinyLfuCache<String, String> cache = cache(100);
+    cache.put("old", "OLD", 60);
+
+    for (int i = 0; i < 5; i++) {
+      cache.get("new");
+    }
+    cache.put("new", "NEW", 60);
+
+    assertEquals("NEW", cache.get("new"));
+    assertNull(cache.get("old"));
+    assertEquals(List.of("old"), evicted);
+  }
+
+  @Test
+  public void invalidate_removes_entries() {
+    TinyLfuCache<String, String> cache = cache(1000);
+    cache.put("a", "A", 10);
+    cache.put("b", "B", 10);
+
+    cache.invalidate("a");
+    assertNull(cache.get("a"));
+    assertEquals(10, cache.weightedSize());
+
+    cache.invalidateAll();
+    assertNull(cache.get("b"));
+    assertEquals(0, cache.weightedSize());
+    assertTrue(evicted.isEmpty());
+  }
+
+  @Test
+  public void entries_expire_after_their_time_to_live() {
+    Clock clock = mock(Clock.class);
+    TinyLfuCache<String, String> cache =
+        new TinyLfuCache<>(1000, 10, Duration.ofMillis(100), (k, v) -> evicted.add(k));
+    ReflectionTestUtils.setField(cache, "clock", clock);
+
+    when(clock.millis()).thenReturn(1000L);
+    cache.put("a", "A", 10);
+    when(clock.millis()).thenReturn(1099L);
+    assertEquals("A", cache.get("a"));
+    when(clock.millis()).thenReturn(1100L);
+    assertNull(cache.get("a"));
+
+    assertEquals(0, cache.weightedSize());
+    assertTrue(evicted.isEmpty());
+  }
+
+  @Test
+  public void large_caches_are_split_into_segments() {
+    assertEquals(1, cache(1000).segmentCount());
+    TinyLfuCache<String, String> cache = cache(10L * 1024 * 1024);
+    assertEquals(TinyLfuCache.MAX_SEGMENTS, cache.segmentCount());
+
+    for (int i = 0; i < 100; i++) {
+      cache.put("k" + i, "v" + i, 10);
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals("v" + i, cache.get("k" + i));
+    }
+    assertEquals(1000, cache.weightedSize());
+    assertEquals(100, cache.weights().size());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.weightedSize());
+  }
+
+  @Test
+  public void concurrent_puts_and_gets_keep_the_weights_consistent() throws Exception {
+    TinyLfuCache<String, String> cache = cache(10L * 1024 * 1024);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int thread = t;
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 1000; i++) {
+                  String key = "k" + (thread * 1000 + i);
+                  cache.put(key, key, 10);
+                  assertEquals(key, cache.get(key));
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(8000, cache.weights().size());
+    assertEquals(80000, cache.weightedSize());
+  }
+
+  @Test
+  public void sketch_counts_saturate_and_age() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(42);
+    }
+    assertEquals(15, sketch.frequency(42));
+
+    // 16 counters wide -> sample size 160; enough other increments trigger a reset
+    for (int i = 0; i < 200; i++) {
+      sketch.increment(1000 + i);
+    }
+    assertTrue(sketch.frequency(42) < 15);
+  }
+}
@@ -0,0 +1,208 @@
+package edu.ucsb.cs156.example.services.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestQueue;
+import edu.ucsb.cs156.example.models.QueuePosition;
+import edu.ucsb.cs156.example.models.WaitTimes;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HelpRequestQueueServiceTests {
+
+  @Mock private HelpRequestRepository helpRequestRepository;
+
+  @InjectMocks private HelpRequestQueueService helpRequestQueueService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        helpRequestQueueService,
+        "clock",
+        Clock.fixed(Instant.parse("2025-10-01T19:00:00Z"), ZoneOffset.UTC));
+  }
+
+  private static HelpRequest request(long id, String teamId, String time, boolean solved) {
+    return HelpRequest.builder()
+        .id(id)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId(teamId)
+        .tableOrBreakoutRoom("7")
+        .requestTime(time == null ? null : LocalDateTime.parse("2025-10-01T" + time))
+        .explanation("help")
+        .solved(solved)
+        .build();
+  }
+
+  private void write(ChangeType type, HelpRequest request) {
+    helpRequestQueueService.onEntityChanged(
+        new EntityChangedEvent(type, HelpRequest.class, request.getId(), request));
+  }
+
+  private List<Long> queuedIds() {
+    return helpRequestQueueService.getQueue(100).getRequests().stream()
+        .map(HelpRequest::getId)
+        .toList();
+  }
+
+  private int position(long id) {
+    return helpRequestQueueService.getPosition(id).orElseThrow().getPosition();
+  }
+
+  @Test
+  public void teams_take_turns() {
+    when(helpRequestRepository.findBySolvedFalse())
+        .thenReturn(
+            List.of(
+                request(1, "A", "18:00", false),
+                request(2, "A", "18:01", false),
+                request(3, "A", "18:02", false),
+                request(4, "B", "18:05", false),
+                request(5, "C", "18:10", false)));
+
+    helpRequestQueueService.load();
+    helpRequestQueueService.load();
+
+    assertEquals(List.of(1L, 4L, 5L, 2L, 3L), queuedIds());
+    assertEquals(
+        QueuePosition.builder().id(2).position(4).size(5).build(),
+        helpRequestQueueService.getPosition(2).orElseThrow());
+    HelpRequestQueue firstTwo = helpRequestQueueService.getQueue(2);
+    assertEquals(5, firstTwo.getSize());
+    assertEquals(List.of(1L, 4L), firstTwo.getRequests().stream().map(HelpRequest::getId).toList());
+  }
+
+  @Test
+  public void a_new_request_of_a_team_goes_after_the_other_teams() {
+    write(ChangeType.CREATED, request(1, "A", "18:00", false));
+    write(ChangeType.CREATED, request(2, "B", "18:05", false));
+    write(ChangeType.CREATED, request(3, "A", "18:01", false));
+
+    assertEquals(List.of(1L, 2L, 3L), queuedIds());
+    assertEquals(3, position(3));
+  }
+
+  @Test
+  public void solving_a_request_moves_the_next_one_of_its_team_up() {
+    write(ChangeType.CREATED, request(1, "A", "18:00", false));
+    write(ChangeType.CREATED, request(2, "A", "18:01", false));
+    write(ChangeType.CREATED, request(3, "B", "18:05", false));
+    write(ChangeType.CREATED, request(4, "B", "18:06", false));
+    assertEquals(List.of(1L, 3L, 2L, 4L), queuedIds());
+
+    write(ChangeType.UPDATED, request(1, "A", "18:00", true));
+
+    assertEquals(List.of(2L, 3L, 4L), queuedIds());
+    assertEquals(Optional.empty(), helpRequestQueueService.getPosition(1));
+    WaitTimes waits = helpRequestQueueService.getQueue(100).getWaitTimes();
+    assertEquals(1, waits.getSamples());
+    assertEquals(3600L, waits.getP50Seconds());
+  }
+
+  @Test
+  public void updates_move_requests_between_teams_and_times() {
+    write(ChangeType.CREATED, request(1, "A", "18:00", false));
+    write(ChangeType.CREATED, request(2, "A", "18:01", false));
+    write(ChangeType.CREATED, request(3, "B", "18:05", false));
+
+    write(ChangeType.UPDATED, request(2, "B", "18:01", false));
+    assertEquals(List.of(1L, 2L, 3L), queuedIds());
+
+    write(ChangeType.UPDATED, request(1, "A", "18:30", false));
+    assertEquals(List.of(2L, 1L, 3L), queuedIds());
+    assertEquals(
+        LocalDateTime.parse("2025-10-01T18:30"),
+        helpRequestQueueService.getQueue(100).getRequests().get(1).getRequestTime());
+  }
+
+  @Test
+  public void deleted_and_solved_requests_are_not_queued() {
+    write(ChangeType.CREATED, request(1, null, "18:00", false));
+    write(ChangeType.CREATED, request(2, null, null, false));
+    write(ChangeType.CREATED, request(3, "B", "18:05", true));
+
+    assertEquals(List.of(1L, 2L), queuedIds()); // no request time: last of its team
+
+    helpRequestQueueService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, HelpRequest.class, 1L, null));
+    helpRequestQueueService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.DELETED, HelpRequest.class, 9L, null));
+    write(ChangeType.UPDATED, request(3, "B", "18:05", true)); // was never queued
+    write(ChangeType.UPDATED, request(2, null, null, true)); // no request time: no wait time
+
+    assertEquals(List.of(), queuedIds());
+    assertEquals(0, helpRequestQueueService.getQueue(100).getWaitTimes().getSamples());
+  }
+
+  @Test
+  public void a_bulk_delete_dequeues_every_id_of_the_chunk() {
+    write(ChangeType.CREATED, request(1, "A", "18:00", false));
+    write(ChangeType.CREATED, request(2, "B", "18:05", false));
+    write(ChangeType.CREATED, request(3, "A", "18:10", false));
+
+    helpRequestQueueService.onEntityChanged(
+        EntityChangedEvent.bulkDelete(HelpRequest.class, List.of(1L, 3L, 9L)));
+
+    assertEquals(List.of(2L), queuedIds());
+  }
+
+  @Test
+  public void wait_time_percentiles_cover_the_most_recent_requests() {
+    ReflectionTestUtils.setField(helpRequestQueueService, "waitSamples", 3);
+    List<String> times = List.of("18:50", "18:59", "18:00", "18:58");
+    for (int i = 0; i < times.size(); i++) {
+      write(ChangeType.CREATED, request(i, "A", times.get(i), false));
+      write(ChangeType.UPDATED, request(i, "A", times.get(i), true));
+    }
+
+    WaitTimes waits = helpRequestQueueService.getQueue(100).getWaitTimes();
+
+    assertEquals(3, waits.getSamples());
+    assertEquals(120L, waits.getP50Seconds());
+    assertEquals(3600L, waits.getP90Seconds());
+    assertEquals(3600L, waits.getP99Seconds());
+  }
+
+  @Test
+  public void requests_made_in_the_future_waited_zero_seconds() {
+    write(ChangeType.CREATED, request(1, "A", "19:30", false));
+    write(ChangeType.UPDATED, request(1, "A", "19:30", true));
+
+    assertEquals(0L, helpRequestQueueService.getQueue(100).getWaitTimes().getP99Seconds());
+  }
+
+  @Test
+  public void empty_queue_has_no_wait_times() {
+    HelpRequestQueue queue = helpRequestQueueService.getQueue(100);
+
+    assertEquals(0, queue.getSize());
+    assertEquals(List.of(), queue.getRequests());
+    assertNull(queue.getWaitTimes().getP50Seconds());
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    helpRequestQueueService.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, UCSBDate.class, 1L, UCSBDate.builder().build()));
+
+    assertEquals(0, helpRequestQueueService.getQueue(100).getSize());
+  }
+}
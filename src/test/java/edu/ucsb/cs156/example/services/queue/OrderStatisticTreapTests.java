@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+public class OrderStatisticTreapTests {
+
+  private final OrderStatisticTreap<Integer> treap =
+      new OrderStatisticTreap<>(Comparator.naturalOrder());
+
+  @Test
+  public void keys_are_ranked_in_order() {
+    List.of(50, 10, 40, 20, 30).forEach(treap::add);
+
+    assertEquals(5, treap.size());
+    assertEquals(0, treap.rankOf(10));
+    assertEquals(2, treap.rankOf(30));
+    assertEquals(4, treap.rankOf(50));
+    assertEquals(-1, treap.rankOf(35));
+    assertEquals(40, treap.get(3));
+    assertEquals(List.of(10, 20, 30), treap.first(3));
+    assertEquals(List.of(10, 20, 30, 40, 50), treap.first(10));
+  }
+
+  @Test
+  public void duplicates_and_missing_keys_are_reported() {
+    assertTrue(treap.add(1));
+    assertFalse(treap.add(1));
+    assertFalse(treap.remove(2));
+    assertTrue(treap.remove(1));
+    assertEquals(0, treap.size());
+    assertEquals(List.of(), treap.first(5));
+  }
+
+  @Test
+  public void get_rejects_ranks_out_of_range() {
+    treap.add(1);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> treap.get(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> treap.get(-1));
+  }
+
+  @Test
+  public void clear_removes_every_key() {
+    treap.add(1);
+    treap.add(2);
+
+    treap.clear();
+
+    assertEquals(0, treap.size());
+    assertEquals(-1, treap.rankOf(1));
+  }
+
+  @Test
+  public void random_adds_and_removes_match_a_sorted_set() {
+    Random random = new Random(156);
+    TreeSet<Integer> expected = new TreeSet<>();
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), treap.remove(key));
+      } else {
+        assertEquals(expected.add(key), treap.add(key));
+      }
+    }
+
+    assertEquals(expected.size(), treap.size());
+    List<Integer> sorted = new ArrayList<>(expected);
+    assertEquals(sorted, treap.first(Integer.MAX_VALUE));
+    for (int rank = 0; rank < sorted.size(); rank++) {
+      assertEquals(sorted.get(rank), treap.get(rank));
+      assertEquals(rank, treap.rankOf(sorted.get(rank)));
+    }
+  }
+}
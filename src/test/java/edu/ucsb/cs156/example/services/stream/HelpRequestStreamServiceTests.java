@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class HelpRequestStreamServiceTests {
+
+  private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+  private final HelpRequestEventBus bus = spy(new InMemoryHelpRequestEventBus());
+
+  private final HelpRequestStreamService service =
+      new HelpRequestStreamService() {
+        @Override
+        SseEmitter newEmitter(long timeoutMs) {
+          RecordingEmitter emitter = new RecordingEmitter();
+          emitters.add(emitter);
+          return emitter;
+        }
+      };
+
+  private final HelpRequest request =
+      HelpRequest.builder().id(7L).teamId("s25-6pm-2").solved(false).explanation("x").build();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(service, "helpRequestEventBus", bus);
+    service.start();
+  }
+
+  @AfterEach
+  public void teardown() {
+    service.stop();
+  }
+
+  @Test
+  public void changes_to_help_requests_reach_the_matching_clients() {
+    service.subscribe("s25-6pm-2", null);
+    service.subscribe("s25-7pm-1", null);
+
+    service.onEntityChanged(
+        new EntityChangedEvent(ChangeType.CREATED, HelpRequest.class, 7L, request));
+
+    await().untilAsserted(() -> assertEquals(1, emitters.get(0).sent.size()));
+    assertEquals(List.of(request), emitters.get(0).data);
+    assertTrue(emitters.get(1).sent.isEmpty());
+  }
+
+  @Test
+  public void a_bulk_delete_is_sent_as_one_event() {
+    service.subscribe(null, null);
+
+    service.onEntityChanged(EntityChangedEvent.bulkDelete(HelpRequest.class, List.of(7L, 8L)));
+
+    await().untilAsserted(() -> assertEquals(1, emitters.get(0).sent.size()));
+    assertEquals(List.of(Map.of("ids", List.of(7L, 8L))), emitters.get(0).data);
+  }
+
+  @Test
+  public void changes_to_other_entities_are_not_published() {
+    service.onEntityChanged(new EntityChangedEvent(ChangeType.DELETED, UCSBDate.class, 3L, null));
+
+    verify(bus, never()).publish(any());
+  }
+
+  @Test
+  public void heartbeat_is_sent_to_every_client() {
+    service.subscribe(null, null);
+    service.subscribe(null, true);
+
+    service.heartbeat();
+
+    await()
+        .untilAsserted(
+            () -> emitters.forEach(e -> assertEquals(List.of(":heartbeat\n\n"), e.sent)));
+  }
+
+  @Test
+  public void clients_are_removed_when_their_stream_ends() {
+    service.subscribe(null, null);
+    service.subscribe(null, null);
+    service.subscribe(null, null);
+    assertEquals(3, service.getSubscriberCount());
+
+    emitters.get(0).completionCallback.run();
+    emitters.get(1).timeoutCallback.run();
+    emitters.get(2).errorCallback.accept(new IllegalStateException("gone"));
+
+    assertEquals(0, service.getSubscriberCount());
+  }
+
+  @Test
+  public void stop_closes_every_stream() {
+    service.subscribe(null, null);
+
+    service.stop();
+    bus.publish(HelpRequestEvent.builder().changeType(ChangeType.DELETED).id(7L).build());
+
+    assertTrue(emitters.get(0).completed);
+    assertEquals(0, service.getSubscriberCount());
+    assertTrue(emitters.get(0).sent.isEmpty());
+  }
+
+  @Test
+  public void streams_time_out_after_the_configured_time() {
+    assertEquals(1800000L, new HelpRequestStreamService().newEmitter(1800000L).getTimeout());
+  }
+}
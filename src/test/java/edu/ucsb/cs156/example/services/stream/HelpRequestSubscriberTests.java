@@ -0,0 +1,178 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class HelpRequestSubscriberTests {
+
+  private final RecordingEmitter emitter = new RecordingEmitter();
+
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private final List<HelpRequestSubscriber> closed = new ArrayList<>();
+
+  private HelpRequestSubscriber subscriber(String teamId, Boolean solved, int capacity) {
+    return new HelpRequestSubscriber(emitter, teamId, solved, capacity, tasks::add, closed::add);
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  private static HelpRequestEvent event(ChangeType type, String teamId, boolean solved) {
+    HelpRequest request =
+        HelpRequest.builder().id(7L).teamId(teamId).solved(solved).explanation("x").build();
+    return HelpRequestEvent.builder().changeType(type).id(7L).helpRequest(request).build();
+  }
+
+  @Test
+  public void requests_matching_the_filter_are_sent_and_others_are_removed() {
+    HelpRequestSubscriber s = subscriber("s25-6pm-2", false, 10);
+    HelpRequestEvent created = event(ChangeType.CREATED, "s25-6pm-2", false);
+    HelpRequestEvent updated = event(ChangeType.UPDATED, "s25-6pm-2", false);
+
+    s.offer(created);
+    s.offer(event(ChangeType.CREATED, "s25-6pm-3", false));
+    s.offer(updated);
+    s.offer(event(ChangeType.UPDATED, "s25-6pm-2", true)); // solved
+    s.offer(HelpRequestEvent.builder().changeType(ChangeType.DELETED).id(8L).build());
+    runTasks();
+
+    assertEquals(
+        List.of(
+            "event:created\ndata:<data>\n\n",
+            "event:updated\ndata:<data>\n\n",
+            "event:removed\ndata:<data>\n\n",
+            "event:deleted\ndata:<data>\n\n"),
+        emitter.sent);
+    assertEquals(
+        List.of(
+            created.getHelpRequest(), updated.getHelpRequest(), Map.of("id", 7L), Map.of("id", 8L)),
+        emitter.data);
+  }
+
+  @Test
+  public void subscriber_without_filter_gets_every_request() {
+    HelpRequestSubscriber s = subscriber(null, null, 10);
+
+    s.offer(event(ChangeType.CREATED, "s25-6pm-3", true));
+    s.offer(event(ChangeType.UPDATED, "s25-7pm-1", false));
+    runTasks();
+
+    assertEquals(
+        List.of("event:created\ndata:<data>\n\n", "event:updated\ndata:<data>\n\n"), emitter.sent);
+  }
+
+  @Test
+  public void solved_filter_alone_matches_any_team() {
+    HelpRequestSubscriber s = subscriber(null, true, 10);
+
+    s.offer(event(ChangeType.CREATED, "s25-6pm-3", true));
+    s.offer(event(ChangeType.CREATED, "s25-6pm-3", false));
+    runTasks();
+
+    assertEquals(List.of("event:created\ndata:<data>\n\n"), emitter.sent);
+  }
+
+  @Test
+  public void heartbeat_is_a_comment() {
+    subscriber(null, null, 10).heartbeat();
+    runTasks();
+
+    assertEquals(List.of(":heartbeat\n\n"), emitter.sent);
+  }
+
+  @Test
+  public void events_are_sent_by_one_task_at_a_time_in_order() {
+    HelpRequestSubscriber s = subscriber(null, null, 10);
+
+    s.offer(event(ChangeType.CREATED, "a", false));
+    s.offer(event(ChangeType.UPDATED, "a", false));
+    assertEquals(1, tasks.size());
+    runTasks();
+    s.heartbeat();
+
+    assertEquals(1, tasks.size());
+    runTasks();
+    assertEquals(3, emitter.sent.size());
+  }
+
+  @Test
+  public void subscriber_that_falls_behind_is_told_to_reset() {
+    HelpRequestSubscriber s = subscriber(null, null, 2);
+
+    s.offer(event(ChangeType.CREATED, "a", false));
+    s.offer(event(ChangeType.UPDATED, "a", false));
+    s.offer(event(ChangeType.UPDATED, "a", true)); // the buffer is full
+    s.offer(event(ChangeType.UPDATED, "a", false)); // dropped: the client will reload anyway
+    runTasks();
+    s.offer(event(ChangeType.DELETED, "a", false));
+    runTasks();
+
+    assertEquals(
+        List.of("event:reset\ndata:<data>\n\n", "event:deleted\ndata:<data>\n\n"), emitter.sent);
+    assertEquals(Map.of("reason", "too many events"), emitter.data.get(0));
+  }
+
+  @Test
+  public void subscriber_is_closed_when_sending_fails() {
+    HelpRequestSubscriber s = subscriber(null, null, 10);
+    emitter.failWith = new IOException("Broken pipe");
+
+    s.offer(event(ChangeType.CREATED, "a", false));
+    s.offer(event(ChangeType.UPDATED, "a", false));
+    runTasks();
+    s.heartbeat();
+
+    assertEquals(List.of(s), closed);
+    assertTrue(emitter.completed);
+    assertTrue(tasks.isEmpty());
+    assertTrue(emitter.sent.isEmpty());
+  }
+
+  @Test
+  public void subscriber_is_closed_when_the_stream_has_completed() {
+    HelpRequestSubscriber s =
+        new HelpRequestSubscriber(
+            new RecordingEmitter() {
+              @Override
+              public void send(SseEventBuilder builder) {
+                throw new IllegalStateException("ResponseBodyEmitter has already completed");
+              }
+            },
+            null,
+            null,
+            10,
+            tasks::add,
+            closed::add);
+
+    s.heartbeat();
+    runTasks();
+
+    assertEquals(List.of(s), closed);
+  }
+
+  @Test
+  public void events_queued_before_close_are_not_sent() {
+    HelpRequestSubscriber s = subscriber(null, null, 10);
+
+    s.offer(event(ChangeType.CREATED, "a", false));
+    s.close();
+    s.close();
+    runTasks();
+
+    assertEquals(List.of(s), closed);
+    assertTrue(emitter.sent.isEmpty());
+  }
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.models.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.example.models.HelpRequestEvent;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class InMemoryHelpRequestEventBusTests {
+
+  private final InMemoryHelpRequestEventBus bus = new InMemoryHelpRequestEventBus();
+
+  @Test
+  public void events_reach_every_listener_until_it_unsubscribes() {
+    List<HelpRequestEvent> first = new ArrayList<>();
+    List<HelpRequestEvent> second = new ArrayList<>();
+    Runnable unsubscribeFirst = bus.subscribe(first::add);
+    bus.subscribe(second::add);
+    HelpRequestEvent deleted =
+        HelpRequestEvent.builder().changeType(ChangeType.DELETED).id(3L).build();
+
+    bus.publish(deleted);
+    unsubscribeFirst.run();
+    bus.publish(deleted);
+
+    assertEquals(List.of(deleted), first);
+    assertEquals(List.of(deleted, deleted), second);
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.services.stream;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/** An SseEmitter that records what is sent instead of writing it to a response. */
+class RecordingEmitter extends SseEmitter {
+
+  final List<String> sent = new CopyOnWriteArrayList<>();
+  final List<Object> data = new CopyOnWriteArrayList<>();
+  volatile IOException failWith;
+  volatile boolean completed;
+  Runnable completionCallback;
+  Runnable timeoutCallback;
+  Consumer<Throwable> errorCallback;
+
+  @Override
+  public void send(SseEventBuilder builder) throws IOException {
+    if (failWith != null) {
+      throw failWith;
+    }
+    List<DataWithMediaType> parts = List.copyOf(builder.build());
+    parts.stream()
+        .map(DataWithMediaType::getData)
+        .filter(d -> !(d instanceof String))
+        .forEach(data::add);
+    sent.add(
+        parts.stream()
+            .map(d -> d.getData() instanceof String s ? s : "<data>")
+            .collect(Collectors.joining()));
+  }
+
+  @Override
+  public synchronized void complete() {
+    completed = true;
+  }
+
+  @Override
+  public synchronized void onCompletion(Runnable callback) {
+    completionCallback = callback;
+  }
+
+  @Override
+  public synchronized void onTimeout(Runnable callback) {
+    timeoutCallback = callback;
+  }
+
+  @Override
+  public synchronized void onError(Consumer<Throwable> callback) {
+    errorCallback = callback;
+  }
+}
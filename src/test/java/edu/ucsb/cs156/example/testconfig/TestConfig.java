@@ -1,8 +1,11 @@
 package edu.ucsb.cs156.example.testconfig;
 
 import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.services.AdminLookupService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
+import edu.ucsb.cs156.example.services.lookup.EntityLookupService;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
@@ -20,4 +23,20 @@ public class TestConfig {
   public GrantedAuthoritiesService grantedAuthoritiesService() {
     return new GrantedAuthoritiesService();
   }
+
+  @Bean
+  public AdminLookupService adminLookupService() {
+    return new AdminLookupService();
+  }
+
+  @Bean
+  public UserProvisioningService userProvisioningService() {
+    return new UserProvisioningService();
+  }
+
+  @Bean
+  public EntityLookupService entityLookupService() {
+    // caching is off so that state does not leak from one test to the next
+    return new EntityLookupService(0, 0);
+  }
 }
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+public class MdcTaskDecoratorTests {
+
+  private final MdcTaskDecorator decorator = new MdcTaskDecorator();
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+    MDC.clear();
+  }
+
+  @Test
+  public void task_runs_with_the_context_of_the_thread_that_submitted_it() throws Exception {
+    Map<String, String> seen = new HashMap<>();
+    MDC.put(TraceContext.TRACE_ID, "request-1");
+    MDC.put(TraceContext.USER, "alice");
+    Runnable task = decorator.decorate(() -> seen.putAll(MDC.getCopyOfContextMap()));
+
+    Future<String> after =
+        executor.submit(
+            () -> {
+              MDC.put(TraceContext.TRACE_ID, "worker");
+              task.run();
+              return MDC.get(TraceContext.TRACE_ID);
+            });
+
+    assertEquals("worker", after.get());
+    assertEquals("request-1", seen.get(TraceContext.TRACE_ID));
+    assertEquals("alice", seen.get(TraceContext.USER));
+    assertNotNull(seen.get(TraceContext.HANDOFF_MS));
+  }
+
+  @Test
+  public void task_submitted_without_a_context_runs_without_one() throws Exception {
+    Map<String, String> seen = new HashMap<>();
+    // decorated on a thread that has never had an MDC
+    Runnable task =
+        executor
+            .submit(() -> decorator.decorate(() -> seen.putAll(MDC.getCopyOfContextMap())))
+            .get();
+
+    // and run on another such thread
+    Thread runner = new Thread(task);
+    runner.start();
+    runner.join();
+
+    assertEquals(1, seen.size());
+    assertNotNull(seen.get(TraceContext.HANDOFF_MS));
+    assertNull(seen.get(TraceContext.TRACE_ID));
+  }
+}
@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.example.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.FilterChain;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+public class TraceContextFilterTests {
+
+  private final TraceContextFilter filter = new TraceContextFilter();
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/jobs");
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private final Map<String, String> seen = new HashMap<>();
+
+  private final FilterChain chain = (req, res) -> seen.putAll(MDC.getCopyOfContextMap());
+
+  @AfterEach
+  public void teardown() {
+    SecurityContextHolder.clearContext();
+    MDC.clear();
+  }
+
+  @Test
+  public void generates_a_trace_id_and_removes_the_ids_afterwards() throws Exception {
+    filter.doFilter(request, response, chain);
+
+    String traceId = seen.get(TraceContext.TRACE_ID);
+    assertTrue(traceId.matches("[0-9a-f]{16}"));
+    assertEquals(traceId, response.getHeader("X-Request-Id"));
+    assertEquals("anonymous", seen.get(TraceContext.USER));
+    assertEquals("POST /api/jobs", seen.get(TraceContext.ROUTE));
+    assertNull(MDC.get(TraceContext.TRACE_ID));
+    assertNull(MDC.get(TraceContext.USER));
+    assertNull(MDC.get(TraceContext.ROUTE));
+  }
+
+  @Test
+  public void uses_the_request_id_sent_by_the_client_and_the_authenticated_user() throws Exception {
+    request.addHeader("X-Request-Id", "client-4f2a.1_b");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new UsernamePasswordAuthenticationToken(
+                "alice", "n/a", AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+    filter.doFilter(request, response, chain);
+
+    assertEquals("client-4f2a.1_b", seen.get(TraceContext.TRACE_ID));
+    assertEquals("client-4f2a.1_b", response.getHeader("X-Request-Id"));
+    assertEquals("alice", seen.get(TraceContext.USER));
+  }
+
+  private static OAuth2AuthenticationToken oAuth2(Map<String, Object> attributes, String nameKey) {
+    List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_USER");
+    return new OAuth2AuthenticationToken(
+        new DefaultOAuth2User(authorities, attributes, nameKey), authorities, "google");
+  }
+
+  @Test
+  public void an_oauth2_user_is_logged_by_subject_id_and_not_by_email() throws Exception {
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            oAuth2(Map.of("sub", "1234567890", "email", "cgaucho@ucsb.edu"), "email"));
+
+    filter.doFilter(request, response, chain);
+
+    assertEquals("1234567890", seen.get(TraceContext.USER));
+  }
+
+  @Test
+  public void an_oauth2_user_without_a_subject_id_is_logged_by_name() throws Exception {
+    SecurityContextHolder.getContext()
+        .setAuthentication(oAuth2(Map.of("login", "cgaucho"), "login"));
+
+    filter.doFilter(request, response, chain);
+
+    assertEquals("cgaucho", seen.get(TraceContext.USER));
+  }
+
+  @Test
+  public void ignores_a_request_id_that_could_forge_log_lines() throws Exception {
+    request.addHeader("X-Request-Id", "abc\n2025-01-01 INFO forged");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new AnonymousAuthenticationToken(
+                "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+    filter.doFilter(request, response, chain);
+
+    assertNotEquals("abc\n2025-01-01 INFO forged", seen.get(TraceContext.TRACE_ID));
+    assertEquals("anonymous", seen.get(TraceContext.USER));
+  }
+
+  @Test
+  public void removes_the_ids_when_the_request_fails() {
+    FilterChain failing =
+        (req, res) -> {
+          throw new IllegalStateException("boom");
+        };
+
+    assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, failing));
+
+    for (String key : List.of(TraceContext.TRACE_ID, TraceContext.USER, TraceContext.ROUTE)) {
+      assertNull(MDC.get(key));
+    }
+  }
+
+  @Test
+  public void currentOrNewTraceId_prefers_the_trace_id_of_the_thread() {
+    assertNotEquals(TraceContext.currentOrNewTraceId(), TraceContext.currentOrNewTraceId());
+
+    MDC.put(TraceContext.TRACE_ID, "request-1");
+    assertEquals("request-1", TraceContext.currentOrNewTraceId());
+  }
+}